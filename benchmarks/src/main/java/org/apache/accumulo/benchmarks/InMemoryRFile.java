@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.crypto.CryptoServiceFactory;
+import org.apache.accumulo.core.crypto.CryptoServiceFactory.ClassloaderType;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheConfiguration;
+import org.apache.accumulo.core.file.blockfile.impl.BasicCacheProvider;
+import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile.CachableBuilder;
+import org.apache.accumulo.core.file.blockfile.impl.SeekableByteArrayInputStream;
+import org.apache.accumulo.core.file.rfile.RFile;
+import org.apache.accumulo.core.file.rfile.bcfile.BCFile;
+import org.apache.accumulo.core.spi.cache.BlockCache;
+import org.apache.accumulo.core.spi.cache.BlockCacheManager;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+
+/**
+ * Builds RFiles entirely in memory so benchmarks measure the file and iterator code rather than
+ * the local file system.
+ */
+public class InMemoryRFile {
+
+  private static final Configuration hadoopConf = new Configuration();
+  private static final AccumuloConfiguration aconf = DefaultConfiguration.getInstance();
+
+  private final byte[] data;
+  private final List<Key> keys;
+
+  private InMemoryRFile(byte[] data, List<Key> keys) {
+    this.data = data;
+    this.keys = keys;
+  }
+
+  /**
+   * @return the keys written to the file, in sorted order
+   */
+  public List<Key> keys() {
+    return keys;
+  }
+
+  public int length() {
+    return data.length;
+  }
+
+  public static String row(int r) {
+    return String.format("r%08d", r);
+  }
+
+  /**
+   * Generate a file with {@code rows * cols} entries. Rows are assigned to this file when
+   * {@code row % stride == offset}, which allows several files to be built that interleave when
+   * merged.
+   *
+   * @param deleteRatio
+   *          fraction of entries that are written as delete markers
+   * @param visibilities
+   *          column visibilities cycled through the written entries; may be empty
+   */
+  public static InMemoryRFile create(int rows, int cols, int valueSize, int stride, int offset,
+      double deleteRatio, String[] visibilities, String compression, long seed)
+      throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    FSDataOutputStream dos = new FSDataOutputStream(baos, new FileSystem.Statistics("bench"));
+    BCFile.Writer bcw = new BCFile.Writer(dos, null, compression, hadoopConf,
+        CryptoServiceFactory.newInstance(aconf, ClassloaderType.JAVA));
+    RFile.Writer writer = new RFile.Writer(bcw,
+        (int) aconf.getAsBytes(Property.TABLE_FILE_COMPRESSED_BLOCK_SIZE),
+        (int) aconf.getAsBytes(Property.TABLE_FILE_COMPRESSED_BLOCK_SIZE_INDEX), null, null);
+    writer.startDefaultLocalityGroup();
+
+    Random random = new Random(seed);
+    List<Key> keys = new ArrayList<>();
+    byte[] val = new byte[valueSize];
+    int visIndex = 0;
+
+    for (int r = offset; r < rows * stride; r += stride) {
+      byte[] row = row(r).getBytes();
+      for (int c = 0; c < cols; c++) {
+        byte[] cv = visibilities.length == 0 ? new byte[0]
+            : visibilities[visIndex++ % visibilities.length].getBytes();
+        Key k = new Key(row, "cf".getBytes(), String.format("cq%04d", c).getBytes(), cv,
+            Long.MAX_VALUE - offset);
+        k.setDeleted(random.nextDouble() < deleteRatio);
+        random.nextBytes(val);
+        writer.append(k, new Value(val));
+        keys.add(k);
+      }
+    }
+
+    writer.close();
+    return new InMemoryRFile(baos.toByteArray(), keys);
+  }
+
+  public static InMemoryRFile create(int rows, int cols, int valueSize) throws IOException {
+    return create(rows, cols, valueSize, 1, 0, 0.0, new String[0], "gz", 42);
+  }
+
+  /**
+   * Open a reader over this file. Passing null caches causes every block to be read and
+   * decompressed from the underlying byte array.
+   */
+  public RFile.Reader open(String cacheId, BlockCache indexCache, BlockCache dataCache)
+      throws IOException {
+    FSDataInputStream in = new FSDataInputStream(new SeekableByteArrayInputStream(data));
+    CachableBuilder cb = new CachableBuilder().cacheId(cacheId).input(in).length(data.length)
+        .conf(hadoopConf).cacheProvider(new BasicCacheProvider(indexCache, dataCache))
+        .cryptoService(CryptoServiceFactory.newInstance(aconf, ClassloaderType.JAVA));
+    return new RFile.Reader(cb);
+  }
+
+  /**
+   * Create and start a cache manager of the given implementation with data and index caches of
+   * the given size.
+   */
+  public static BlockCacheManager startCacheManager(String implClass, long cacheSize)
+      throws ReflectiveOperationException {
+    ConfigurationCopy cc = new ConfigurationCopy(aconf);
+    cc.set(Property.TSERV_CACHE_MANAGER_IMPL, implClass);
+    cc.set(Property.TSERV_DATACACHE_SIZE, Long.toString(cacheSize));
+    cc.set(Property.TSERV_INDEXCACHE_SIZE, Long.toString(cacheSize));
+    cc.set(Property.TSERV_SUMMARYCACHE_SIZE, Long.toString(cacheSize));
+    BlockCacheManager manager = Class.forName(implClass).asSubclass(BlockCacheManager.class)
+        .getDeclaredConstructor().newInstance();
+    manager.start(new BlockCacheConfiguration(cc));
+    return manager;
+  }
+}
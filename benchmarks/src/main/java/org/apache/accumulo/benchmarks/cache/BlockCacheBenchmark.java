@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.benchmarks.cache;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.benchmarks.InMemoryRFile;
+import org.apache.accumulo.core.file.blockfile.cache.lru.LruBlockCacheManager;
+import org.apache.accumulo.core.file.blockfile.cache.tinylfu.TinyLfuBlockCacheManager;
+import org.apache.accumulo.core.spi.cache.BlockCache;
+import org.apache.accumulo.core.spi.cache.BlockCache.Loader;
+import org.apache.accumulo.core.spi.cache.BlockCacheManager;
+import org.apache.accumulo.core.spi.cache.CacheEntry;
+import org.apache.accumulo.core.spi.cache.CacheType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the hit and miss paths of the block cache implementations from several threads. The
+ * hit benchmark only requests blocks that fit in the cache. The miss benchmark requests from a
+ * working set four times larger than the cache, so most requests call the loader and evict.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BlockCacheBenchmark {
+
+  @Param({"lru", "tinylfu"})
+  public String cache;
+
+  @Param({"65536"})
+  public int blockSize;
+
+  @Param({"1024"})
+  public int cachedBlocks;
+
+  private BlockCacheManager manager;
+  private BlockCache blockCache;
+  private String[] names;
+
+  private final Loader loader = new Loader() {
+    @Override
+    public Map<String,Loader> getDependencies() {
+      return Collections.emptyMap();
+    }
+
+    @Override
+    public byte[] load(int maxSize, Map<String,byte[]> dependencies) {
+      return new byte[blockSize];
+    }
+  };
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    String impl = cache.equals("lru") ? LruBlockCacheManager.class.getName()
+        : TinyLfuBlockCacheManager.class.getName();
+    // leave some headroom so the hit benchmark does not evict its own working set
+    manager = InMemoryRFile.startCacheManager(impl, (long) (cachedBlocks * 1.5) * blockSize);
+    blockCache = manager.getBlockCache(CacheType.DATA);
+
+    names = new String[cachedBlocks * 4];
+    for (int i = 0; i < names.length; i++) {
+      names[i] = "file-" + (i % 16) + "_" + i;
+    }
+    for (int i = 0; i < cachedBlocks; i++) {
+      blockCache.cacheBlock(names[i], new byte[blockSize]);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void teardown() {
+    manager.stop();
+  }
+
+  @Benchmark
+  public CacheEntry hit() {
+    return blockCache.getBlock(names[ThreadLocalRandom.current().nextInt(cachedBlocks)]);
+  }
+
+  @Benchmark
+  public CacheEntry miss() {
+    return blockCache.getBlock(names[ThreadLocalRandom.current().nextInt(names.length)],
+        loader);
+  }
+}
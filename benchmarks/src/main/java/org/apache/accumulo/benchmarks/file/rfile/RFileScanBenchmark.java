@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.benchmarks.file.rfile;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.benchmarks.InMemoryRFile;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.file.blockfile.cache.lru.LruBlockCacheManager;
+import org.apache.accumulo.core.file.blockfile.cache.tinylfu.TinyLfuBlockCacheManager;
+import org.apache.accumulo.core.file.rfile.RFile;
+import org.apache.accumulo.core.spi.cache.BlockCacheManager;
+import org.apache.accumulo.core.spi.cache.CacheType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures reading an RFile through {@link RFile.Reader}, both as a full sequential scan and as
+ * random point seeks, with and without a block cache in front of the file.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class RFileScanBenchmark {
+
+  @Param({"none", "lru", "tinylfu"})
+  public String cache;
+
+  @Param({"100000"})
+  public int rows;
+
+  @Param({"100"})
+  public int valueSize;
+
+  private InMemoryRFile file;
+  private BlockCacheManager manager;
+  private RFile.Reader reader;
+  private List<Key> keys;
+  private Random random;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    file = InMemoryRFile.create(rows, 1, valueSize);
+    keys = file.keys();
+    random = new Random(7);
+
+    switch (cache) {
+      case "lru":
+        manager = InMemoryRFile.startCacheManager(LruBlockCacheManager.class.getName(),
+            4L * file.length());
+        break;
+      case "tinylfu":
+        manager = InMemoryRFile.startCacheManager(TinyLfuBlockCacheManager.class.getName(),
+            4L * file.length());
+        break;
+      case "none":
+        manager = null;
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown cache " + cache);
+    }
+
+    if (manager == null) {
+      reader = file.open("scan", null, null);
+    } else {
+      reader = file.open("scan", manager.getBlockCache(CacheType.INDEX),
+          manager.getBlockCache(CacheType.DATA));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void teardown() throws IOException {
+    reader.close();
+    if (manager != null) {
+      manager.stop();
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public long sequentialScan(Blackhole bh) throws IOException {
+    long count = 0;
+    reader.seek(new Range(), Collections.emptySet(), false);
+    while (reader.hasTop()) {
+      bh.consume(reader.getTopKey());
+      bh.consume(reader.getTopValue());
+      reader.next();
+      count++;
+    }
+    return count;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void randomSeek(Blackhole bh) throws IOException {
+    Key key = keys.get(random.nextInt(keys.size()));
+    reader.seek(new Range(key, true, key, true), Collections.emptySet(), false);
+    bh.consume(reader.getTopKey());
+    bh.consume(reader.getTopValue());
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.benchmarks.iterators;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.benchmarks.InMemoryRFile;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.rfile.RFile;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.MultiIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures merging N RFiles through {@link MultiIterator}. Rows are striped across the files so
+ * the heap changes its top source on nearly every entry, which is the worst case for the merge.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MultiIteratorBenchmark {
+
+  @Param({"1", "4", "16", "64"})
+  public int files;
+
+  @Param({"200000"})
+  public int totalRows;
+
+  private List<RFile.Reader> readers;
+  private MultiIterator iter;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    readers = new ArrayList<>();
+    List<SortedKeyValueIterator<Key,Value>> sources = new ArrayList<>();
+    for (int i = 0; i < files; i++) {
+      InMemoryRFile file = InMemoryRFile.create(totalRows / files, 1, 50, files, i, 0.0,
+          new String[0], "none", i);
+      RFile.Reader reader = file.open("merge-" + i, null, null);
+      readers.add(reader);
+      sources.add(reader);
+    }
+    iter = new MultiIterator(sources, false);
+  }
+
+  @TearDown(Level.Trial)
+  public void teardown() throws IOException {
+    for (RFile.Reader reader : readers) {
+      reader.close();
+    }
+  }
+
+  @Benchmark
+  public long merge(Blackhole bh) throws IOException {
+    long count = 0;
+    iter.seek(new Range(), Collections.emptySet(), false);
+    while (iter.hasTop()) {
+      bh.consume(iter.getTopKey());
+      bh.consume(iter.getTopValue());
+      iter.next();
+      count++;
+    }
+    return count;
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.benchmarks.iterators;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.benchmarks.InMemoryRFile;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.rfile.RFile;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.DeletingIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.DeletingIterator.Behavior;
+import org.apache.accumulo.core.iteratorsImpl.system.KVBatch;
+import org.apache.accumulo.core.iteratorsImpl.system.VisibilityFilter;
+import org.apache.accumulo.core.security.Authorizations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the system iterators a scan always passes through, {@link DeletingIterator} and
+ * {@link VisibilityFilter}, stacked over a single RFile. Compares reading an entry at a time with
+ * reading batches through {@link KVBatch}.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SystemIteratorStackBenchmark {
+
+  private static final String[] VISIBILITIES =
+      {"", "A", "B", "A&B", "A|C", "(A&B)|(C&D)", "D", "C&(A|B)"};
+
+  @Param({"0.0", "0.1", "0.5"})
+  public double deleteRatio;
+
+  @Param({"100000"})
+  public int rows;
+
+  private RFile.Reader reader;
+  private SortedKeyValueIterator<Key,Value> iter;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    InMemoryRFile file = InMemoryRFile.create(rows, 4, 50, 1, 0, deleteRatio, VISIBILITIES,
+        "none", 11);
+    reader = file.open("stack", null, null);
+    SortedKeyValueIterator<Key,Value> deleting =
+        DeletingIterator.wrap(reader, false, Behavior.PROCESS);
+    iter = VisibilityFilter.wrap(deleting, new Authorizations("A", "B"), new byte[0]);
+  }
+
+  @TearDown(Level.Trial)
+  public void teardown() throws IOException {
+    reader.close();
+  }
+
+  @Benchmark
+  public long scan(Blackhole bh) throws IOException {
+    long count = 0;
+    iter.seek(new Range(), Collections.emptySet(), false);
+    while (iter.hasTop()) {
+      bh.consume(iter.getTopKey());
+      bh.consume(iter.getTopValue());
+      iter.next();
+      count++;
+    }
+    return count;
+  }
+
+  @Benchmark
+  public long scanBatched(Blackhole bh) throws IOException {
+    long count = 0;
+    KVBatch batch = new KVBatch(64);
+    iter.seek(new Range(), Collections.emptySet(), false);
+    while (iter.hasTop()) {
+      batch.clear();
+      KVBatch.fill(iter, batch);
+      for (int i = 0; i < batch.size(); i++) {
+        bh.consume(batch.getKey(i));
+        bh.consume(batch.getValue(i));
+      }
+      count += batch.size();
+    }
+    return count;
+  }
+}
@@ -60,6 +60,8 @@ public class Constants {
 
   public static final String ZTSERVERS = "/tservers";
 
+  public static final String ZTABLET_UNLOADS = "/tablet-unloads";
+
   public static final String ZDEAD = "/dead";
   public static final String ZDEADTSERVERS = ZDEAD + "/tservers";
 
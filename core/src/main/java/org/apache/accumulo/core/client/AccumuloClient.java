@@ -251,6 +251,39 @@ public interface AccumuloClient extends AutoCloseable {
   Scanner createScanner(String tableName)
       throws TableNotFoundException, AccumuloSecurityException, AccumuloException;
 
+  /**
+   * Factory method to create a Scanner whose results can be consumed asynchronously.
+   *
+   * @param tableName
+   *          the name of the table to query data from
+   * @param authorizations
+   *          A set of authorization labels that will be checked against the column visibility of
+   *          each key in order to filter data. The authorizations passed in must be a subset of the
+   *          accumulo user's set of authorizations.
+   *
+   * @return AsyncScanner object for configuring and querying data with
+   * @throws TableNotFoundException
+   *           when the specified table doesn't exist
+   * @since 2.1.0
+   */
+  AsyncScanner createAsyncScanner(String tableName, Authorizations authorizations)
+      throws TableNotFoundException;
+
+  /**
+   * Factory method to create a Scanner, whose results can be consumed asynchronously, with all of
+   * the user's authorizations.
+   *
+   * @param tableName
+   *          the name of the table to query data from
+   *
+   * @return AsyncScanner object for configuring and querying data with
+   * @throws TableNotFoundException
+   *           when the specified table doesn't exist
+   * @since 2.1.0
+   */
+  AsyncScanner createAsyncScanner(String tableName)
+      throws TableNotFoundException, AccumuloSecurityException, AccumuloException;
+
   /**
    * Factory method to create a ConditionalWriter connected to Accumulo.
    *
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.client;
+
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+
+/**
+ * A {@link Scanner} whose results can also be consumed without blocking the calling thread.
+ *
+ * <p>
+ * Each call to {@link #subscribe(Flow.Subscriber)} starts a new scan of the configured range.
+ * Batches are only fetched from tablet servers while the subscriber has requested more entries
+ * than are buffered, so a slow subscriber does not cause unbounded buffering. Fetches run on a
+ * thread pool shared by all asynchronous scans of the client, sized by
+ * {@code scanner.async.threads}. A scan only uses one of those threads while a batch is being
+ * fetched, so a few threads can serve many concurrent scans.
+ *
+ * <p>
+ * Entries are delivered in the same order as the {@link #iterator()} would return them.
+ *
+ * @since 2.1.0
+ */
+public interface AsyncScanner extends Scanner, Flow.Publisher<Entry<Key,Value>> {
+
+  /**
+   * Starts a new scan and passes each entry to the consumer, in order, on one of the client's
+   * asynchronous scan threads.
+   *
+   * @param consumer
+   *          called once for each entry; if it throws, the scan is cancelled and the returned
+   *          future completes exceptionally with what was thrown
+   * @return a future that completes when all entries have been consumed, or exceptionally if the
+   *         scan failed
+   */
+  CompletableFuture<Void> forEachAsync(Consumer<? super Entry<Key,Value>> consumer);
+}
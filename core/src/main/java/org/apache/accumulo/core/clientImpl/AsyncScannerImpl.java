@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.clientImpl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.apache.accumulo.core.client.AsyncScanner;
+import org.apache.accumulo.core.clientImpl.ThriftScanner.ScanState;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.KeyValue;
+import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link AsyncScanner} that fetches batches with {@link ThriftScanner} on a shared executor. The
+ * tablet locations and connections come from the same {@link TabletLocator} and
+ * {@link ThriftTransportPool} as the blocking scanner.
+ */
+public class AsyncScannerImpl extends ScannerImpl implements AsyncScanner {
+
+  private static final Logger log = LoggerFactory.getLogger(AsyncScannerImpl.class);
+
+  private final Executor executor;
+  private final Set<ScanSubscription> active = ConcurrentHashMap.newKeySet();
+
+  public AsyncScannerImpl(ClientContext context, TableId tableId, Authorizations authorizations,
+      Executor executor) {
+    super(context, tableId, authorizations);
+    this.executor = executor;
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super Entry<Key,Value>> subscriber) {
+    checkArgument(subscriber != null, "subscriber is null");
+    ScanSubscription subscription =
+        new ScanSubscription(subscriber, newScanState(), getTimeout(TimeUnit.SECONDS));
+    active.add(subscription);
+    subscriber.onSubscribe(subscription);
+  }
+
+  @Override
+  public CompletableFuture<Void> forEachAsync(Consumer<? super Entry<Key,Value>> consumer) {
+    checkArgument(consumer != null, "consumer is null");
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    subscribe(new Flow.Subscriber<Entry<Key,Value>>() {
+      private Flow.Subscription subscription;
+
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(Long.MAX_VALUE);
+      }
+
+      @Override
+      public void onNext(Entry<Key,Value> entry) {
+        try {
+          consumer.accept(entry);
+        } catch (RuntimeException | Error e) {
+          subscription.cancel();
+          future.completeExceptionally(e);
+        }
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        future.completeExceptionally(t);
+      }
+
+      @Override
+      public void onComplete() {
+        future.complete(null);
+      }
+    });
+    return future;
+  }
+
+  @Override
+  public synchronized void close() {
+    active.forEach(ScanSubscription::cancel);
+    super.close();
+  }
+
+  /**
+   * Delivers the entries of one scan to one subscriber. At most one batch is fetched at a time,
+   * and a fetch is only started while the subscriber has requested more entries than are buffered.
+   * All calls to the subscriber are made from {@link #drain()}, which only ever runs on one thread
+   * at a time.
+   */
+  private class ScanSubscription implements Flow.Subscription {
+
+    private final Flow.Subscriber<? super Entry<Key,Value>> subscriber;
+    private final ScanState scanState;
+    private final long timeOut;
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger drainers = new AtomicInteger();
+    private final Queue<List<KeyValue>> fetched = new ConcurrentLinkedQueue<>();
+    private final AtomicLong fetchedCount = new AtomicLong();
+
+    // only accessed by the thread running drain()
+    private final Queue<KeyValue> buffer = new ArrayDeque<>();
+    private boolean terminated = false;
+
+    private volatile boolean fetching = false;
+    private volatile boolean finished = false;
+    private volatile boolean cancelled = false;
+    private volatile Throwable error = null;
+
+    ScanSubscription(Flow.Subscriber<? super Entry<Key,Value>> subscriber, ScanState scanState,
+        long timeOut) {
+      this.subscriber = subscriber;
+      this.scanState = scanState;
+      this.timeOut = timeOut;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        error = new IllegalArgumentException("requested " + n + " entries, must be positive");
+        finished = true;
+      } else {
+        requested.getAndUpdate(r -> r + n < 0 ? Long.MAX_VALUE : r + n);
+      }
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      drain();
+    }
+
+    private void drain() {
+      if (drainers.getAndIncrement() != 0) {
+        // the thread already draining will loop again
+        return;
+      }
+
+      do {
+        if (terminated) {
+          continue;
+        }
+
+        List<KeyValue> batch;
+        while ((batch = fetched.poll()) != null) {
+          buffer.addAll(batch);
+          fetchedCount.addAndGet(-batch.size());
+        }
+
+        while (!cancelled && error == null && requested.get() > 0 && !buffer.isEmpty()) {
+          try {
+            subscriber.onNext(buffer.poll());
+          } catch (RuntimeException e) {
+            log.warn("Subscriber threw from onNext, cancelling scan", e);
+            cancelled = true;
+          }
+          if (requested.get() != Long.MAX_VALUE) {
+            requested.decrementAndGet();
+          }
+        }
+
+        if (cancelled) {
+          terminate();
+        } else if (error != null) {
+          terminate();
+          subscriber.onError(error);
+        } else if (finished && !fetching && buffer.isEmpty() && fetched.isEmpty()) {
+          terminate();
+          subscriber.onComplete();
+        } else if (!fetching && !finished
+            && requested.get() > buffer.size() + fetchedCount.get()) {
+          fetch();
+        }
+      } while (drainers.decrementAndGet() != 0);
+    }
+
+    private void terminate() {
+      terminated = true;
+      active.remove(this);
+      buffer.clear();
+      fetched.clear();
+      if (!finished || fetching) {
+        closeScan();
+      }
+    }
+
+    private void fetch() {
+      fetching = true;
+      try {
+        executor.execute(() -> {
+          try {
+            List<KeyValue> batch;
+            synchronized (scanState) {
+              // mutually exclusive with closing the scan session
+              batch = cancelled ? null : ThriftScanner.scan(scanState.context, scanState, timeOut);
+            }
+            if (batch == null) {
+              finished = true;
+            } else if (!batch.isEmpty()) {
+              fetchedCount.addAndGet(batch.size());
+              fetched.add(batch);
+            }
+          } catch (Exception e) {
+            error = e;
+          } finally {
+            fetching = false;
+            drain();
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        fetching = false;
+        error = e;
+        // make the running drain() loop again, so the error is delivered
+        drainers.incrementAndGet();
+      }
+    }
+
+    private void closeScan() {
+      Runnable close = () -> {
+        synchronized (scanState) {
+          try {
+            ThriftScanner.close(scanState);
+          } catch (Exception e) {
+            log.debug("Exception when closing scan session", e);
+          }
+        }
+      };
+      try {
+        executor.execute(close);
+      } catch (RejectedExecutionException e) {
+        log.debug("Unable to close scan session, client was closed", e);
+      }
+    }
+  }
+}
@@ -28,6 +28,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -36,6 +38,7 @@ import org.apache.accumulo.core.Constants;
 import org.apache.accumulo.core.client.AccumuloClient;
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.AsyncScanner;
 import org.apache.accumulo.core.client.BatchDeleter;
 import org.apache.accumulo.core.client.BatchScanner;
 import org.apache.accumulo.core.client.BatchWriter;
@@ -69,6 +72,7 @@ import org.apache.accumulo.core.security.Authorizations;
 import org.apache.accumulo.core.securityImpl.thrift.TCredentials;
 import org.apache.accumulo.core.singletons.SingletonManager;
 import org.apache.accumulo.core.singletons.SingletonReservation;
+import org.apache.accumulo.core.util.NamingThreadFactory;
 import org.apache.accumulo.core.util.OpTimer;
 import org.apache.accumulo.fate.zookeeper.ZooCache;
 import org.apache.accumulo.fate.zookeeper.ZooCacheFactory;
@@ -116,6 +120,7 @@ public class ClientContext implements AccumuloClient {
   private InstanceOperations instanceops = null;
   private ReplicationOperations replicationops = null;
   private SingletonReservation singletonReservation;
+  private ThreadPoolExecutor asyncScanExecutor = null;
 
   private void ensureOpen() {
     if (closed) {
@@ -585,6 +590,42 @@ public class ClientContext implements AccumuloClient {
     return createScanner(tableName, auths);
   }
 
+  @Override
+  public AsyncScanner createAsyncScanner(String tableName, Authorizations authorizations)
+      throws TableNotFoundException {
+    checkArgument(tableName != null, "tableName is null");
+    checkArgument(authorizations != null, "authorizations is null");
+    ensureOpen();
+    AsyncScanner scanner = new AsyncScannerImpl(this, getTableId(tableName), authorizations,
+        getAsyncScanExecutor());
+    Integer batchSize = ClientProperty.SCANNER_BATCH_SIZE.getInteger(getProperties());
+    if (batchSize != null) {
+      scanner.setBatchSize(batchSize);
+    }
+    return scanner;
+  }
+
+  @Override
+  public AsyncScanner createAsyncScanner(String tableName)
+      throws TableNotFoundException, AccumuloSecurityException, AccumuloException {
+    Authorizations auths = securityOperations().getUserAuthorizations(getPrincipal());
+    return createAsyncScanner(tableName, auths);
+  }
+
+  /**
+   * @return the pool shared by all asynchronous scanners of this client, created on first use
+   */
+  synchronized ThreadPoolExecutor getAsyncScanExecutor() {
+    ensureOpen();
+    if (asyncScanExecutor == null) {
+      int threads = ClientProperty.SCANNER_ASYNC_THREADS.getInteger(getProperties());
+      asyncScanExecutor = new ThreadPoolExecutor(threads, threads, 3L, TimeUnit.SECONDS,
+          new LinkedBlockingQueue<>(), new NamingThreadFactory("Accumulo async scanner thread"));
+      asyncScanExecutor.allowCoreThreadTimeOut(true);
+    }
+    return asyncScanExecutor;
+  }
+
   @Override
   public String whoami() {
     ensureOpen();
@@ -651,6 +692,11 @@ public class ClientContext implements AccumuloClient {
   @Override
   public void close() {
     closed = true;
+    synchronized (this) {
+      if (asyncScanExecutor != null) {
+        asyncScanExecutor.shutdownNow();
+      }
+    }
     singletonReservation.close();
   }
 
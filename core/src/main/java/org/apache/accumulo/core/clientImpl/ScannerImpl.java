@@ -28,6 +28,7 @@ import java.util.concurrent.TimeUnit;
 
 import org.apache.accumulo.core.Constants;
 import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.clientImpl.ThriftScanner.ScanState;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.TableId;
@@ -159,6 +160,15 @@ public class ScannerImpl extends ScannerOptions implements Scanner {
     return iter;
   }
 
+  /**
+   * Creates the state for a new scan using the current settings of this scanner.
+   */
+  synchronized ScanState newScanState() {
+    ensureOpen();
+    return ScannerIterator.newScanState(context, tableId, authorizations, range, size,
+        new ScannerOptions(this), isolated, readaheadThreshold);
+  }
+
   @Override
   public Authorizations getAuthorizations() {
     ensureOpen();
@@ -80,15 +80,8 @@ public class ScannerIterator implements Iterator<Entry<Key,Value>> {
 
     this.reporter = reporter;
 
-    if (this.options.fetchedColumns.size() > 0) {
-      range = range.bound(this.options.fetchedColumns.first(), this.options.fetchedColumns.last());
-    }
-
-    scanState =
-        new ScanState(context, tableId, authorizations, new Range(range), options.fetchedColumns,
-            size, options.serverSideIteratorList, options.serverSideIteratorOptions, isolated,
-            readaheadThreshold, options.getSamplerConfiguration(), options.batchTimeOut,
-            options.classLoaderContext, options.executionHints);
+    scanState = newScanState(context, tableId, authorizations, range, size, this.options, isolated,
+        readaheadThreshold);
 
     // If we want to start readahead immediately, don't wait for hasNext to be called
     if (readaheadThreshold == 0L) {
@@ -97,6 +90,23 @@ public class ScannerIterator implements Iterator<Entry<Key,Value>> {
     iter = null;
   }
 
+  /**
+   * Creates the client side state for a scan of the given range, bounded by the fetched columns.
+   */
+  static ScanState newScanState(ClientContext context, TableId tableId,
+      Authorizations authorizations, Range range, int size, ScannerOptions options,
+      boolean isolated, long readaheadThreshold) {
+    if (options.fetchedColumns.size() > 0) {
+      range = range.bound(options.fetchedColumns.first(), options.fetchedColumns.last());
+    }
+
+    return new ScanState(context, tableId, authorizations, new Range(range),
+        options.fetchedColumns, size, options.serverSideIteratorList,
+        options.serverSideIteratorOptions, isolated, readaheadThreshold,
+        options.getSamplerConfiguration(), options.batchTimeOut, options.classLoaderContext,
+        options.executionHints);
+  }
+
   @Override
   public boolean hasNext() {
     if (finished)
@@ -31,6 +31,7 @@ import java.util.WeakHashMap;
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
 import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.conf.ClientProperty;
 import org.apache.accumulo.core.data.Mutation;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.TableId;
@@ -109,6 +110,7 @@ public abstract class TabletLocator {
   }
 
   private static HashMap<LocatorKey,TabletLocator> locators = new HashMap<>();
+  private static HashMap<String,TabletUnloadWatcher> unloadWatchers = new HashMap<>();
   private static boolean enabled = true;
 
   public static synchronized void clearLocators() {
@@ -116,6 +118,15 @@ public abstract class TabletLocator {
       locator.isValid = false;
     }
     locators.clear();
+    unloadWatchers.clear();
+  }
+
+  private static TabletUnloadWatcher getUnloadWatcher(ClientContext context) {
+    if (!ClientProperty.TABLET_UNLOAD_EVENTS_ENABLED.getBoolean(context.getProperties())) {
+      return null;
+    }
+    return unloadWatchers.computeIfAbsent(context.getInstanceID(),
+        k -> new TabletUnloadWatcher(context));
   }
 
   static synchronized boolean isEnabled() {
@@ -144,10 +155,10 @@ public abstract class TabletLocator {
         tl = new RootTabletLocator(new ZookeeperLockChecker(context));
       } else if (MetadataTable.ID.equals(tableId)) {
         tl = new TabletLocatorImpl(MetadataTable.ID, getLocator(context, RootTable.ID), mlo,
-            new ZookeeperLockChecker(context));
+            new ZookeeperLockChecker(context), getUnloadWatcher(context));
       } else {
         tl = new TabletLocatorImpl(tableId, getLocator(context, MetadataTable.ID), mlo,
-            new ZookeeperLockChecker(context));
+            new ZookeeperLockChecker(context), getUnloadWatcher(context));
       }
       locators.put(key, tl);
     }
@@ -65,6 +65,9 @@ public class TabletLocatorImpl extends TabletLocator {
   // using null, created MAX_TEXT.
   static final Text MAX_TEXT = new Text();
 
+  // fewer cache misses than this are looked up one at a time
+  private static final int MIN_PREFETCH_ROWS = 2;
+
   static final Comparator<Text> END_ROW_COMPARATOR = (o1, o2) -> {
     if (o1 == o2)
       return 0;
@@ -80,6 +83,7 @@ public class TabletLocatorImpl extends TabletLocator {
   protected TreeMap<Text,TabletLocation> metaCache = new TreeMap<>(END_ROW_COMPARATOR);
   protected TabletLocationObtainer locationObtainer;
   private TabletServerLockChecker lockChecker;
+  private final TabletUnloadWatcher unloadWatcher;
   protected Text lastTabletRow;
 
   private TreeSet<KeyExtent> badExtents = new TreeSet<>();
@@ -97,6 +101,16 @@ public class TabletLocatorImpl extends TabletLocator {
     List<TabletLocation> lookupTablets(ClientContext context, String tserver,
         Map<KeyExtent,List<Range>> map, TabletLocator parent)
         throws AccumuloSecurityException, AccumuloException;
+
+    /**
+     * Like {@link #lookupTablets(ClientContext, String, Map, TabletLocator)}, but only the first
+     * tablet found in each range is needed. Implementations may return more.
+     */
+    default List<TabletLocation> lookupFirstTablets(ClientContext context, String tserver,
+        Map<KeyExtent,List<Range>> map, TabletLocator parent)
+        throws AccumuloSecurityException, AccumuloException {
+      return lookupTablets(context, tserver, map, parent);
+    }
   }
 
   public interface TabletServerLockChecker {
@@ -145,10 +159,16 @@ public class TabletLocatorImpl extends TabletLocator {
 
   public TabletLocatorImpl(TableId tableId, TabletLocator parent, TabletLocationObtainer tlo,
       TabletServerLockChecker tslc) {
+    this(tableId, parent, tlo, tslc, null);
+  }
+
+  TabletLocatorImpl(TableId tableId, TabletLocator parent, TabletLocationObtainer tlo,
+      TabletServerLockChecker tslc, TabletUnloadWatcher unloadWatcher) {
     this.tableId = tableId;
     this.parent = parent;
     this.locationObtainer = tlo;
     this.lockChecker = tslc;
+    this.unloadWatcher = unloadWatcher;
 
     this.lastTabletRow = new Text(tableId.canonical());
     lastTabletRow.append(new byte[] {'<'}, 0, 1);
@@ -167,6 +187,8 @@ public class TabletLocatorImpl extends TabletLocator {
       timer = new OpTimer().start();
     }
 
+    invalidateUnloaded();
+
     ArrayList<T> notInCache = new ArrayList<>();
     Text row = new Text();
 
@@ -200,6 +222,12 @@ public class TabletLocatorImpl extends TabletLocator {
 
       wLock.lock();
       try {
+        List<Text> rows = new ArrayList<>(notInCache.size());
+        for (T mutation : notInCache) {
+          rows.add(new Text(mutation.getRow()));
+        }
+        prefetchTablets(context, rows, lcSession);
+
         boolean failed = false;
         for (T mutation : notInCache) {
           if (failed) {
@@ -339,6 +367,8 @@ public class TabletLocatorImpl extends TabletLocator {
       timer = new OpTimer().start();
     }
 
+    invalidateUnloaded();
+
     LockCheckerSession lcSession = new LockCheckerSession();
 
     List<Range> failures;
@@ -363,6 +393,12 @@ public class TabletLocatorImpl extends TabletLocator {
       // try lookups again
       wLock.lock();
       try {
+        List<Text> rows = new ArrayList<>(failures.size());
+        for (Range range : failures) {
+          rows.add(range.getStartKey() == null ? new Text() : range.getStartKey().getRow());
+        }
+        prefetchTablets(context, rows, lcSession);
+
         failures = binRanges(context, failures, binnedRanges, false, lcSession);
       } finally {
         wLock.unlock();
@@ -379,6 +415,21 @@ public class TabletLocatorImpl extends TabletLocator {
     return failures;
   }
 
+  /**
+   * Invalidates the tablets that tablet servers reported unloading, so they are looked up again
+   * before an RPC to their old server fails.
+   */
+  private void invalidateUnloaded() {
+    if (unloadWatcher != null) {
+      Collection<KeyExtent> unloaded = unloadWatcher.takeUnloaded(tableId);
+      if (unloaded == null) {
+        invalidateCache();
+      } else if (!unloaded.isEmpty()) {
+        invalidateCache(unloaded);
+      }
+    }
+  }
+
   @Override
   public void invalidateCache(KeyExtent failedExtent) {
     wLock.lock();
@@ -428,6 +479,10 @@ public class TabletLocatorImpl extends TabletLocator {
 
   @Override
   public void invalidateCache() {
+    if (unloadWatcher != null) {
+      // unloads seen before this point are for locations about to be dropped
+      unloadWatcher.discard(tableId);
+    }
     int invalidatedCount;
     wLock.lock();
     try {
@@ -452,6 +507,8 @@ public class TabletLocatorImpl extends TabletLocator {
       timer = new OpTimer().start();
     }
 
+    invalidateUnloaded();
+
     while (true) {
 
       LockCheckerSession lcSession = new LockCheckerSession();
@@ -479,9 +536,7 @@ public class TabletLocatorImpl extends TabletLocator {
   private void lookupTabletLocation(ClientContext context, Text row, boolean retry,
       LockCheckerSession lcSession)
       throws AccumuloException, AccumuloSecurityException, TableNotFoundException {
-    Text metadataRow = new Text(tableId.canonical());
-    metadataRow.append(new byte[] {';'}, 0, 1);
-    metadataRow.append(row.getBytes(), 0, row.getLength());
+    Text metadataRow = getMetadataRow(row);
     TabletLocation ptl = parent.locateTablet(context, metadataRow, false, retry);
 
     if (ptl != null) {
@@ -652,7 +707,11 @@ public class TabletLocatorImpl extends TabletLocator {
       if (lock) {
         wLock.lock();
         try {
-          tl = lookupTabletLocationAndCheckLock(context, row, retry, lcSession);
+          // another thread may have looked up the same tablet while this one waited for the lock
+          tl = processInvalidatedAndCheckLock(context, lcSession, row);
+          if (tl == null) {
+            tl = lookupTabletLocationAndCheckLock(context, row, retry, lcSession);
+          }
         } finally {
           wLock.unlock();
         }
@@ -664,6 +723,70 @@ public class TabletLocatorImpl extends TabletLocator {
     return tl;
   }
 
+  /**
+   * Looks up the tablets containing the given rows that are not in the cache. Each row's tablet is
+   * read from the metadata with one batched lookup per metadata tablet server, instead of one
+   * lookup per row. Rows whose tablet is not found are left for the per row lookups. Must be
+   * called with the write lock held and the rows sorted.
+   */
+  private void prefetchTablets(ClientContext context, List<Text> rows,
+      LockCheckerSession lcSession)
+      throws AccumuloException, AccumuloSecurityException, TableNotFoundException {
+
+    List<Range> lookups = new ArrayList<>();
+    Text lastRow = null;
+    for (Text row : rows) {
+      if (row.equals(lastRow)) {
+        continue;
+      }
+      lastRow = row;
+
+      if (lcSession.checkLock(locateTabletInCache(row)) == null) {
+        lookups.add(new Range(getMetadataRow(row)));
+      }
+    }
+
+    if (lookups.size() < MIN_PREFETCH_ROWS) {
+      return;
+    }
+
+    // find the metadata tablet holding each row's tablet, the tablet could also be in the next
+    // metadata tablet in which case the per row lookup finds it
+    Map<String,Map<KeyExtent,List<Range>>> binnedRanges = new HashMap<>();
+    parent.binRanges(context, lookups, binnedRanges);
+
+    for (Map<KeyExtent,List<Range>> tablets : binnedRanges.values()) {
+      for (Entry<KeyExtent,List<Range>> entry : tablets.entrySet()) {
+        Range metadataTablet = entry.getKey().toDataRange();
+        entry.getValue().replaceAll(point -> metadataTablet.clip(
+            new Range(point.getStartKey().getRow(), true, lastTabletRow, true)));
+      }
+    }
+
+    ArrayList<String> tabletServers = new ArrayList<>(binnedRanges.keySet());
+    Collections.shuffle(tabletServers);
+
+    for (String tserver : tabletServers) {
+      List<TabletLocation> locations = locationObtainer.lookupFirstTablets(context, tserver,
+          binnedRanges.get(tserver), parent);
+
+      for (TabletLocation tabletLocation : locations) {
+        updateCache(tabletLocation, lcSession);
+      }
+    }
+
+    if (log.isTraceEnabled())
+      log.trace("tid={} Prefetched locations of {} rows for table {} from {} tservers",
+          Thread.currentThread().getId(), lookups.size(), tableId, tabletServers.size());
+  }
+
+  private Text getMetadataRow(Text row) {
+    Text metadataRow = new Text(tableId.canonical());
+    metadataRow.append(new byte[] {';'}, 0, 1);
+    metadataRow.append(row.getBytes(), 0, row.getLength());
+    return metadataRow;
+  }
+
   private TabletLocation lookupTabletLocationAndCheckLock(ClientContext context, Text row,
       boolean retry, LockCheckerSession lcSession)
       throws AccumuloException, AccumuloSecurityException, TableNotFoundException {
@@ -34,12 +34,14 @@ import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
@@ -53,6 +55,7 @@ import org.apache.accumulo.core.client.TimedOutException;
 import org.apache.accumulo.core.clientImpl.TabletLocator.TabletServerMutations;
 import org.apache.accumulo.core.clientImpl.thrift.SecurityErrorCode;
 import org.apache.accumulo.core.clientImpl.thrift.ThriftSecurityException;
+import org.apache.accumulo.core.conf.ClientProperty;
 import org.apache.accumulo.core.constraints.Violations;
 import org.apache.accumulo.core.data.ConstraintViolationSummary;
 import org.apache.accumulo.core.data.Mutation;
@@ -101,6 +104,16 @@ import com.google.common.base.Joiner;
  * Memory accounting
  *   + when a mutation enters the system memory is incremented
  *   + when a mutation successfully leaves the system memory is decremented
+ *
+ * Sharded ingest (batch.writer.shards > 0)
+ *   + each adding thread is mapped to one of several shards, each with its own
+ *     buffer and lock, so concurrent producers do not serialize on this object
+ *   + memory is counted with a LongAdder, which keeps per-thread cells instead
+ *     of one contended counter
+ *   + the writer's monitor is only taken when a producer must block (memory
+ *     full, flushing, or a failure to report)
+ *   + a full shard is binned on the adding thread when the binning thread is
+ *     busy, so binning scales with the number of producers
  */
 public class TabletServerBatchWriter implements AutoCloseable {
 
@@ -114,9 +127,12 @@ public class TabletServerBatchWriter implements AutoCloseable {
   private final Durability durability;
 
   // state
-  private boolean flushing;
-  private boolean closed;
+  private volatile boolean flushing;
+  private volatile boolean closed;
   private MutationSet mutations;
+  private final Shard[] shards;
+  // threads adding to a shard, close waits for them so that no mutation is left in a shard
+  private final AtomicInteger shardAddsInFlight = new AtomicInteger();
 
   // background writer
   private final MutationWriter writer;
@@ -125,17 +141,18 @@ public class TabletServerBatchWriter implements AutoCloseable {
   private final Timer jtimer = new Timer("BatchWriterLatencyTimer", true);
   private final Map<String,TimeoutTracker> timeoutTrackers =
       Collections.synchronizedMap(new HashMap<>());
+  private final Map<String,ServerBatchSizer> batchSizers = new ConcurrentHashMap<>();
 
   // stats
-  private long totalMemUsed = 0;
+  private final LongAdder totalMemUsed = new LongAdder();
   private long lastProcessingStartTime;
 
-  private long totalAdded = 0;
+  private final LongAdder totalAdded = new LongAdder();
   private final AtomicLong totalSent = new AtomicLong(0);
   private final AtomicLong totalBinned = new AtomicLong(0);
   private final AtomicLong totalBinTime = new AtomicLong(0);
   private final AtomicLong totalSendTime = new AtomicLong(0);
-  private long startTime = 0;
+  private volatile long startTime = 0;
   private long initialGCTimes;
   private long initialCompileTimes;
   private double initialSystemLoad;
@@ -154,7 +171,7 @@ public class TabletServerBatchWriter implements AutoCloseable {
   private final HashSet<String> serverSideErrors = new HashSet<>();
   private final FailedMutations failedMutations = new FailedMutations();
   private int unknownErrors = 0;
-  private boolean somethingFailed = false;
+  private volatile boolean somethingFailed = false;
   private Throwable lastUnknownError = null;
 
   private static class TimeoutTracker {
@@ -195,6 +212,100 @@ public class TabletServerBatchWriter implements AutoCloseable {
     }
   }
 
+  /**
+   * A buffer for the mutations added by a subset of the threads using this writer. Shards are
+   * drained independently of each other, and together with {@link #mutations} make up the
+   * mutations that have been added but not yet queued to the background writer.
+   */
+  private static class Shard {
+    private MutationSet mutations = new MutationSet();
+
+    /**
+     * Adds a mutation to this shard.
+     *
+     * @return the buffered mutations if they reached the threshold, otherwise null
+     */
+    synchronized MutationSet add(TableId table, Mutation m, long threshold) {
+      mutations.addMutation(table, m);
+      if (mutations.getMemoryUsed() >= threshold)
+        return drain();
+      return null;
+    }
+
+    /**
+     * @return the buffered mutations, or null if there are none
+     */
+    synchronized MutationSet drain() {
+      if (mutations.getMemoryUsed() == 0)
+        return null;
+      MutationSet ret = mutations;
+      mutations = new MutationSet();
+      return ret;
+    }
+  }
+
+  /**
+   * Chooses how many bytes of mutations to put in each applyUpdates message sent to one tablet
+   * server. Since applyUpdates is oneway, the time a call takes is the time spent pushing its bytes
+   * into the connection, which grows when the server stops reading (for example while it holds
+   * commits). The closeUpdate call that ends each session gives a round trip time for the server.
+   *
+   * <p>
+   * Batches grow while each one is sent well within a round trip, amortizing per message overhead
+   * on fast or distant links, and are halved when a send stalls for more than two round trips or
+   * the connection fails, bounding how long mutations sit behind a congested server.
+   */
+  static class ServerBatchSizer {
+
+    static final int MIN_BATCH_SIZE = 1 << 14;
+    static final int MAX_BATCH_SIZE = 1 << 22;
+    // floor for the round trip budget, so batches to a very close server are not shrunk
+    static final double MIN_BUDGET_MILLIS = 5;
+
+    private int batchSize;
+    private double roundTripMillis = -1;
+
+    ServerBatchSizer(int initialBatchSize) {
+      this.batchSize = initialBatchSize;
+    }
+
+    synchronized int getBatchSize() {
+      return batchSize;
+    }
+
+    synchronized double getRoundTripMillis() {
+      return roundTripMillis;
+    }
+
+    /**
+     * Called after each applyUpdates call.
+     */
+    synchronized void sent(long bytes, long nanos) {
+      double millis = nanos / 1_000_000.0;
+      double budget = Math.max(roundTripMillis, MIN_BUDGET_MILLIS);
+      if (millis > 2 * budget) {
+        batchSize = Math.max(MIN_BATCH_SIZE, batchSize / 2);
+      } else if (millis < budget / 2 && bytes >= batchSize) {
+        batchSize = Math.min(MAX_BATCH_SIZE, batchSize + batchSize / 4);
+      }
+    }
+
+    /**
+     * Called with the duration of each synchronous call that completes a session.
+     */
+    synchronized void roundTrip(long nanos) {
+      double millis = nanos / 1_000_000.0;
+      roundTripMillis = roundTripMillis < 0 ? millis : 0.8 * roundTripMillis + 0.2 * millis;
+    }
+
+    /**
+     * Called when the connection to the server failed.
+     */
+    synchronized void failed() {
+      batchSize = Math.max(MIN_BATCH_SIZE, batchSize / 2);
+    }
+  }
+
   public TabletServerBatchWriter(ClientContext context, BatchWriterConfig config) {
     this.context = context;
     this.maxMem = config.getMaxMemory();
@@ -205,6 +316,15 @@ public class TabletServerBatchWriter implements AutoCloseable {
     this.lastProcessingStartTime = System.currentTimeMillis();
     this.durability = config.getDurability();
 
+    Integer numShards = ClientProperty.BATCH_WRITER_SHARDS.getInteger(context.getProperties());
+    if (numShards != null && numShards > 0) {
+      this.shards = new Shard[numShards];
+      for (int i = 0; i < numShards; i++)
+        this.shards[i] = new Shard();
+    } else {
+      this.shards = null;
+    }
+
     this.writer = new MutationWriter(config.getMaxWriteThreads());
 
     if (this.maxLatency != Long.MAX_VALUE) {
@@ -226,6 +346,16 @@ public class TabletServerBatchWriter implements AutoCloseable {
   }
 
   private synchronized void startProcessing() {
+    if (shards != null) {
+      for (Shard shard : shards) {
+        MutationSet shardMutations = shard.drain();
+        if (shardMutations != null) {
+          lastProcessingStartTime = System.currentTimeMillis();
+          writer.queueMutations(shardMutations);
+        }
+      }
+    }
+
     if (mutations.getMemoryUsed() == 0)
       return;
     lastProcessingStartTime = System.currentTimeMillis();
@@ -234,11 +364,37 @@ public class TabletServerBatchWriter implements AutoCloseable {
   }
 
   private synchronized void decrementMemUsed(long amount) {
-    totalMemUsed -= amount;
+    totalMemUsed.add(-amount);
     this.notifyAll();
   }
 
-  public synchronized void addMutation(TableId table, Mutation m)
+  private synchronized void initStats() {
+    if (startTime != 0)
+      return;
+
+    List<GarbageCollectorMXBean> gcmBeans = ManagementFactory.getGarbageCollectorMXBeans();
+    for (GarbageCollectorMXBean garbageCollectorMXBean : gcmBeans) {
+      initialGCTimes += garbageCollectorMXBean.getCollectionTime();
+    }
+
+    CompilationMXBean compMxBean = ManagementFactory.getCompilationMXBean();
+    if (compMxBean.isCompilationTimeMonitoringSupported()) {
+      initialCompileTimes = compMxBean.getTotalCompilationTime();
+    }
+
+    initialSystemLoad = ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage();
+
+    startTime = System.currentTimeMillis();
+  }
+
+  public void addMutation(TableId table, Mutation m) throws MutationsRejectedException {
+    if (shards == null)
+      addMutationSynchronized(table, m);
+    else
+      addMutationToShard(table, m);
+  }
+
+  private synchronized void addMutationSynchronized(TableId table, Mutation m)
       throws MutationsRejectedException {
 
     if (closed)
@@ -248,28 +404,15 @@ public class TabletServerBatchWriter implements AutoCloseable {
 
     checkForFailures();
 
-    waitRTE(() -> (totalMemUsed > maxMem || flushing) && !somethingFailed);
+    waitRTE(() -> (totalMemUsed.sum() > maxMem || flushing) && !somethingFailed);
 
     // do checks again since things could have changed while waiting and not holding lock
     if (closed)
       throw new IllegalStateException("Closed");
     checkForFailures();
 
-    if (startTime == 0) {
-      startTime = System.currentTimeMillis();
-
-      List<GarbageCollectorMXBean> gcmBeans = ManagementFactory.getGarbageCollectorMXBeans();
-      for (GarbageCollectorMXBean garbageCollectorMXBean : gcmBeans) {
-        initialGCTimes += garbageCollectorMXBean.getCollectionTime();
-      }
-
-      CompilationMXBean compMxBean = ManagementFactory.getCompilationMXBean();
-      if (compMxBean.isCompilationTimeMonitoringSupported()) {
-        initialCompileTimes = compMxBean.getTotalCompilationTime();
-      }
-
-      initialSystemLoad = ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage();
-    }
+    if (startTime == 0)
+      initStats();
 
     // create a copy of mutation so that after this method returns the user
     // is free to reuse the mutation object, like calling readFields... this
@@ -278,9 +421,9 @@ public class TabletServerBatchWriter implements AutoCloseable {
     // object into the reduce method
     m = new Mutation(m);
 
-    totalMemUsed += m.estimatedMemoryUsed();
+    totalMemUsed.add(m.estimatedMemoryUsed());
     mutations.addMutation(table, m);
-    totalAdded++;
+    totalAdded.increment();
 
     if (mutations.getMemoryUsed() >= maxMem / 2) {
       startProcessing();
@@ -288,6 +431,74 @@ public class TabletServerBatchWriter implements AutoCloseable {
     }
   }
 
+  /**
+   * Adds a mutation to the shard of the calling thread. Only takes this object's monitor when the
+   * caller has to wait for memory or a flush, or when there is a failure to report.
+   */
+  private void addMutationToShard(TableId table, Mutation m) throws MutationsRejectedException {
+    // close sets closed before waiting for adds in flight, so either close waits for this add or
+    // this add sees that the writer is closed
+    shardAddsInFlight.incrementAndGet();
+    try {
+      addMutationToShardInFlight(table, m);
+    } finally {
+      if (shardAddsInFlight.decrementAndGet() == 0 && closed) {
+        synchronized (this) {
+          this.notifyAll();
+        }
+      }
+    }
+  }
+
+  private void addMutationToShardInFlight(TableId table, Mutation m)
+      throws MutationsRejectedException {
+
+    if (closed)
+      throw new IllegalStateException("Closed");
+    if (m.size() == 0)
+      throw new IllegalArgumentException("Can not add empty mutations");
+
+    if (somethingFailed || flushing || totalMemUsed.sum() > maxMem) {
+      synchronized (this) {
+        checkForFailures();
+
+        waitRTE(() -> (totalMemUsed.sum() > maxMem || flushing) && !somethingFailed && !closed);
+
+        if (closed)
+          throw new IllegalStateException("Closed");
+        checkForFailures();
+      }
+    }
+
+    if (startTime == 0)
+      initStats();
+
+    // copy for the same reason as in addMutationSynchronized
+    m = new Mutation(m);
+
+    totalMemUsed.add(m.estimatedMemoryUsed());
+    totalAdded.increment();
+
+    Shard shard = shards[(int) (Thread.currentThread().getId() % shards.length)];
+    MutationSet full = shard.add(table, m, maxMem / 2 / shards.length);
+    if (full != null) {
+      writer.queueMutations(full);
+    }
+
+    // A flush may have drained the shards after the check above but before this mutation was
+    // added. The shard lock orders the add against the drain, so if this thread does not see the
+    // flag the drain saw the mutation.
+    if (flushing) {
+      startProcessing();
+    }
+
+    if (somethingFailed) {
+      synchronized (this) {
+        checkForFailures();
+      }
+    }
+  }
+
   public void addMutation(TableId table, Iterator<Mutation> iterator)
       throws MutationsRejectedException {
     while (iterator.hasNext()) {
@@ -317,7 +528,7 @@ public class TabletServerBatchWriter implements AutoCloseable {
       startProcessing();
       checkForFailures();
 
-      waitRTE(() -> totalMemUsed > 0 && !somethingFailed);
+      waitRTE(() -> totalMemUsed.sum() > 0 && !somethingFailed);
 
       flushing = false;
       this.notifyAll();
@@ -335,9 +546,14 @@ public class TabletServerBatchWriter implements AutoCloseable {
     try (TraceScope span = Trace.startSpan("close")) {
       closed = true;
 
+      // wake adds waiting for memory so they fail, then wait for adds that may still put a
+      // mutation in a shard
+      this.notifyAll();
+      waitRTE(() -> shardAddsInFlight.get() > 0);
+
       startProcessing();
 
-      waitRTE(() -> totalMemUsed > 0 && !somethingFailed);
+      waitRTE(() -> totalMemUsed.sum() > 0 && !somethingFailed);
 
       logStats();
 
@@ -367,6 +583,7 @@ public class TabletServerBatchWriter implements AutoCloseable {
       }
 
       double averageRate = totalSent.get() / (totalSendTime.get() / 1000.0);
+      long totalAdded = this.totalAdded.sum();
       double overallRate = totalAdded / ((finishTime - startTime) / 1000.0);
 
       double finalSystemLoad = ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage();
@@ -647,25 +864,21 @@ public class TabletServerBatchWriter implements AutoCloseable {
     private final SimpleThreadPool binningThreadPool;
     private final Map<String,TabletServerMutations<Mutation>> serversMutations;
     private final Set<String> queued;
-    private final Map<TableId,TabletLocator> locators;
+    private final ConcurrentHashMap<TableId,TabletLocator> locators;
 
     public MutationWriter(int numSendThreads) {
       serversMutations = new HashMap<>();
       queued = new HashSet<>();
       sendThreadPool = new SimpleThreadPool(numSendThreads, this.getClass().getName());
-      locators = new HashMap<>();
+      locators = new ConcurrentHashMap<>();
       binningThreadPool = new SimpleThreadPool(1, "BinMutations", new SynchronousQueue<>());
       binningThreadPool.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
     }
 
-    private synchronized TabletLocator getLocator(TableId tableId) {
-      TabletLocator ret = locators.get(tableId);
-      if (ret == null) {
-        ret = new TimeoutTabletLocator(timeout, context, tableId);
-        locators.put(tableId, ret);
-      }
-
-      return ret;
+    private TabletLocator getLocator(TableId tableId) {
+      // binning may run concurrently on producer threads, so avoid locking the writer here
+      return locators.computeIfAbsent(tableId,
+          tid -> new TimeoutTabletLocator(timeout, context, tid));
     }
 
     private void binMutations(MutationSet mutationsToProcess,
@@ -897,6 +1110,9 @@ public class TabletServerBatchWriter implements AutoCloseable {
       }
       TInfo tinfo = TraceUtil.traceInfo();
 
+      ServerBatchSizer batchSizer = batchSizers.computeIfAbsent(location,
+          l -> new ServerBatchSizer(MUTATION_BATCH_SIZE));
+
       timeoutTracker.startingWrite();
 
       try {
@@ -935,19 +1151,24 @@ public class TabletServerBatchWriter implements AutoCloseable {
               long size = 0;
               Iterator<Mutation> iter = entry.getValue().iterator();
               while (iter.hasNext()) {
-                while (size < MUTATION_BATCH_SIZE && iter.hasNext()) {
+                int batchSize = batchSizer.getBatchSize();
+                while (size < batchSize && iter.hasNext()) {
                   Mutation mutation = iter.next();
                   updates.add(mutation.toThrift());
                   size += mutation.numBytes();
                 }
 
+                long t1 = System.nanoTime();
                 client.applyUpdates(tinfo, usid, entry.getKey().toThrift(), updates);
+                batchSizer.sent(size, System.nanoTime() - t1);
                 updates.clear();
                 size = 0;
               }
             }
 
+            long t1 = System.nanoTime();
             UpdateErrors updateErrors = client.closeUpdate(tinfo, usid);
+            batchSizer.roundTrip(System.nanoTime() - t1);
 
             Map<KeyExtent,Long> failures =
                 Translator.translate(updateErrors.failedExtents, Translators.TKET);
@@ -984,6 +1205,7 @@ public class TabletServerBatchWriter implements AutoCloseable {
           ThriftUtil.returnClient((TServiceClient) client);
         }
       } catch (TTransportException e) {
+        batchSizer.failed();
         timeoutTracker.errorOccured();
         throw new IOException(e);
       } catch (TApplicationException tae) {
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.clientImpl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.accumulo.core.dataImpl.KeyExtent;
+
+/**
+ * The tablets a tablet server recently unloaded, as published in its node under
+ * {@link org.apache.accumulo.core.Constants#ZTABLET_UNLOADS}. Every unload gets the next sequence
+ * number, so a reader that remembers the last sequence number it saw can tell which unloads are
+ * new. Only the most recent unloads are kept.
+ */
+public class TabletUnloadEvents {
+
+  private final long firstSequence;
+  private final List<KeyExtent> extents;
+
+  public TabletUnloadEvents(long firstSequence, Collection<KeyExtent> extents) {
+    this.firstSequence = firstSequence;
+    this.extents = Collections.unmodifiableList(new ArrayList<>(extents));
+  }
+
+  /**
+   * @return the sequence number of the first extent
+   */
+  public long getFirstSequence() {
+    return firstSequence;
+  }
+
+  /**
+   * @return the sequence number of the last extent, one less than the first if there are none
+   */
+  public long getLastSequence() {
+    return firstSequence + extents.size() - 1;
+  }
+
+  /**
+   * @return the extents, in the order they were unloaded
+   */
+  public List<KeyExtent> getExtents() {
+    return extents;
+  }
+
+  /**
+   * @return the extents unloaded after the given sequence number
+   */
+  public List<KeyExtent> getExtentsAfter(long sequence) {
+    long skip = Math.max(0, sequence - firstSequence + 1);
+    if (skip >= extents.size()) {
+      return Collections.emptyList();
+    }
+    return extents.subList((int) skip, extents.size());
+  }
+
+  public byte[] serialize() {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(baos)) {
+      out.writeLong(firstSequence);
+      out.writeInt(extents.size());
+      for (KeyExtent extent : extents) {
+        extent.write(out);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return baos.toByteArray();
+  }
+
+  public static TabletUnloadEvents deserialize(byte[] data) {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+      long firstSequence = in.readLong();
+      int size = in.readInt();
+      List<KeyExtent> extents = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        KeyExtent extent = new KeyExtent();
+        extent.readFields(in);
+        extents.add(extent);
+      }
+      return new TabletUnloadEvents(firstSequence, extents);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
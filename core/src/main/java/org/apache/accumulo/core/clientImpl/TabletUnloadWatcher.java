@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.clientImpl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.accumulo.core.Constants;
+import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.accumulo.fate.zookeeper.ZooCache;
+import org.apache.accumulo.fate.zookeeper.ZooCache.ZcStat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Follows the tablet unloads tablet servers publish in ZooKeeper, see {@link TabletUnloadEvents}.
+ * The nodes are read through a {@link ZooCache}, whose watches drop a node from the cache when it
+ * changes, so checking for new unloads is cheap while nothing changed. Unloads are kept for each
+ * table that asked for them until that table's locator takes them.
+ *
+ * <p>
+ * One thread at a time reads the nodes, without holding the lock that guards the kept unloads, and
+ * then merges what it found. Locators that find another thread reading take what was merged so far
+ * instead of waiting on ZooKeeper.
+ */
+class TabletUnloadWatcher {
+
+  private static final Logger log = LoggerFactory.getLogger(TabletUnloadWatcher.class);
+
+  // how long to wait before looking again when no tablet server publishes unloads
+  private static final long MISSING_RETRY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+  // a table with more unloads than this waiting has all of its locations dropped instead
+  static final int MAX_KEPT_PER_TABLE = 10_000;
+
+  private static class Seen {
+    final long ephemeralOwner;
+    final long mzxid;
+    final long sequence;
+
+    Seen(long ephemeralOwner, long mzxid, long sequence) {
+      this.ephemeralOwner = ephemeralOwner;
+      this.mzxid = mzxid;
+      this.sequence = sequence;
+    }
+  }
+
+  private final ZooCache zc;
+  private final String path;
+
+  // held while reading ZooKeeper, guards the fields from initialized to seen
+  private final ReentrantLock pollLock = new ReentrantLock();
+  private boolean initialized = false;
+  private long lastUpdateCount = -1;
+  private long nextPollNanos = System.nanoTime();
+  private final Map<String,Seen> seen = new HashMap<>();
+
+  // guarded by this
+  private final Map<TableId,Set<KeyExtent>> unloaded = new HashMap<>();
+  // tables that may have missed unloads, because a tablet server dropped them before they were seen
+  private final Set<TableId> missed = new HashSet<>();
+
+  TabletUnloadWatcher(ClientContext context) {
+    this(context.getZooCache(), context.getZooKeeperRoot() + Constants.ZTABLET_UNLOADS);
+  }
+
+  TabletUnloadWatcher(ZooCache zc, String path) {
+    this.zc = zc;
+    this.path = path;
+  }
+
+  /**
+   * Returns the tablets of the table that were unloaded since the last call. The first call only
+   * subscribes the table.
+   *
+   * @return the unloaded tablets, or null if some unloads were missed and every cached location of
+   *         the table should be dropped
+   */
+  Collection<KeyExtent> takeUnloaded(TableId tableId) {
+    synchronized (this) {
+      unloaded.computeIfAbsent(tableId, k -> new HashSet<>());
+    }
+
+    if (pollLock.tryLock()) {
+      try {
+        poll();
+      } finally {
+        pollLock.unlock();
+      }
+    }
+
+    synchronized (this) {
+      Set<KeyExtent> extents = unloaded.get(tableId);
+      if (missed.remove(tableId)) {
+        extents.clear();
+        return null;
+      }
+      if (extents.isEmpty()) {
+        return Collections.emptySet();
+      }
+      unloaded.put(tableId, new HashSet<>());
+      return extents;
+    }
+  }
+
+  /**
+   * Drops the unloads kept for the table, called when its locator dropped every cached location.
+   * The table stays subscribed.
+   */
+  synchronized void discard(TableId tableId) {
+    Set<KeyExtent> extents = unloaded.get(tableId);
+    if (extents != null) {
+      extents.clear();
+    }
+    missed.remove(tableId);
+  }
+
+  private synchronized void merge(List<KeyExtent> extents, boolean dropped) {
+    if (dropped) {
+      missed.addAll(unloaded.keySet());
+    }
+
+    for (KeyExtent extent : extents) {
+      TableId tableId = extent.getTableId();
+      Set<KeyExtent> tableExtents = unloaded.get(tableId);
+      if (tableExtents != null && !missed.contains(tableId)) {
+        tableExtents.add(extent);
+        if (tableExtents.size() > MAX_KEPT_PER_TABLE) {
+          log.debug("More than {} unloads kept for table {}, dropping all of its locations",
+              MAX_KEPT_PER_TABLE, tableId);
+          tableExtents.clear();
+          missed.add(tableId);
+        }
+      }
+    }
+  }
+
+  private void poll() {
+    long updateCount = zc.getUpdateCount();
+    if (updateCount == lastUpdateCount || System.nanoTime() - nextPollNanos < 0) {
+      return;
+    }
+    lastUpdateCount = updateCount;
+
+    List<String> tservers = zc.getChildren(path);
+    if (tservers == null) {
+      nextPollNanos = System.nanoTime() + MISSING_RETRY_NANOS;
+      return;
+    }
+
+    seen.keySet().retainAll(tservers);
+
+    List<KeyExtent> found = new ArrayList<>();
+    boolean dropped = false;
+
+    for (String tserver : tservers) {
+      ZcStat stat = new ZcStat();
+      byte[] data = zc.get(path + "/" + tserver, stat);
+      if (data == null) {
+        continue;
+      }
+
+      Seen last = seen.get(tserver);
+      if (last != null && last.ephemeralOwner == stat.getEphemeralOwner()
+          && last.mzxid == stat.getMzxid()) {
+        continue;
+      }
+
+      TabletUnloadEvents events = TabletUnloadEvents.deserialize(data);
+      List<KeyExtent> extents;
+      if (last == null && !initialized) {
+        // unloads published before this client started watching are of no interest
+        extents = Collections.emptyList();
+      } else if (last != null && last.ephemeralOwner == stat.getEphemeralOwner()) {
+        if (events.getFirstSequence() > last.sequence + 1) {
+          log.debug("{} dropped unloads {} to {} before they were seen", tserver,
+              last.sequence + 1, events.getFirstSequence() - 1);
+          dropped = true;
+        }
+        extents = events.getExtentsAfter(last.sequence);
+      } else {
+        // a tablet server that started or restarted since the last look
+        extents = events.getExtents();
+      }
+
+      found.addAll(extents);
+
+      if (!extents.isEmpty() && log.isTraceEnabled()) {
+        log.trace("{} unloaded {} tablets", tserver, extents.size());
+      }
+
+      seen.put(tserver,
+          new Seen(stat.getEphemeralOwner(), stat.getMzxid(), events.getLastSequence()));
+    }
+
+    if (!found.isEmpty() || dropped) {
+      merge(found, dropped);
+    }
+
+    initialized = true;
+  }
+}
@@ -73,15 +73,30 @@ public enum ClientProperty {
           + "change the durability for the BatchWriter session. A value of \"default\" will"
           + " use the table's durability setting. ",
       "2.0.0", false),
+  BATCH_WRITER_SHARDS("batch.writer.shards", "0", PropertyType.COUNT,
+      "Number of independent buffers mutations are added to, each selected by the adding thread."
+          + " Setting this above zero lets many threads add mutations to the same BatchWriter"
+          + " without serializing on a single lock. Zero uses a single shared buffer.",
+      "2.1.0", false),
 
   // Scanner
   SCANNER_BATCH_SIZE("scanner.batch.size", "1000", PropertyType.COUNT,
       "Number of key/value pairs that will be fetched at time from tablet server", "2.0.0", false),
+  SCANNER_ASYNC_THREADS("scanner.async.threads", "8", PropertyType.COUNT,
+      "Number of threads shared by all asynchronous scanners of a client to fetch batches",
+      "2.1.0", false),
 
   // BatchScanner
   BATCH_SCANNER_NUM_QUERY_THREADS("batch.scanner.num.query.threads", "3", PropertyType.COUNT,
       "Number of concurrent query threads to spawn for querying", "2.0.0", false),
 
+  // Tablet locations
+  TABLET_UNLOAD_EVENTS_ENABLED("tablet.unload.events.enabled", "false", PropertyType.BOOLEAN,
+      "Watch the tablet unloads that tablet servers publish in ZooKeeper and drop the cached"
+          + " locations of unloaded tablets before the next RPC to their old server fails. Tablet"
+          + " servers publish unloads when tserver.tablet.unload.events.enabled is set.",
+      "2.1.0", false),
+
   // Bulk load
   BULK_LOAD_THREADS("bulk.threads", ImportMappingOptions.BULK_LOAD_THREADS_DEFAULT,
       PropertyType.COUNT,
@@ -270,9 +270,17 @@ public enum Property {
       "Enable reporting of FATE metrics in JMX (and logging with Hadoop Metrics2"),
   MASTER_FATE_METRICS_MIN_UPDATE_INTERVAL("master.fate.metrics.min.update.interval", "60s",
       PropertyType.TIMEDURATION, "Limit calls from metric sinks to zookeeper to update interval"),
+  MASTER_FATE_STORE_METADATA("master.fate.store.metadata", "false", PropertyType.BOOLEAN,
+      "Keep FATE transactions in the metadata table instead of ZooKeeper. Only change this when"
+          + " no FATE transactions are outstanding, the master does not look for transactions in"
+          + " the other store, and the fate shell command only lists transactions in ZooKeeper."),
   MASTER_FATE_THREADPOOL_SIZE("master.fate.threadpool.size", "4", PropertyType.COUNT,
       "The number of threads used to run fault-tolerant executions (FATE)."
           + " These are primarily table operations like merge."),
+  MASTER_FATE_TYPE_CONCURRENT_MAX("master.fate.type.concurrent.max", "0", PropertyType.COUNT,
+      "The maximum number of FATE threads that may run steps of the same operation type at once,"
+          + " so that a burst of one kind of table operation can not hold every thread. Steps"
+          + " over the limit are retried shortly after. 0 means no limit."),
   MASTER_REPLICATION_SCAN_INTERVAL("master.replication.status.scan.interval", "30s",
       PropertyType.TIMEDURATION,
       "Amount of time to sleep before scanning the status section of the "
@@ -290,6 +298,22 @@ public enum Property {
   MASTER_METADATA_SUSPENDABLE("master.metadata.suspendable", "false", PropertyType.BOOLEAN,
       "Allow tablets for the " + MetadataTable.NAME
           + " table to be suspended via table.suspend.duration."),
+  MASTER_ASSIGNMENT_THREADS("master.assignment.threads", "16", PropertyType.COUNT,
+      "The number of threads the master uses to send tablet load and unload requests to tablet"
+          + " servers in parallel."),
+  MASTER_ASSIGNMENT_TSERVER_CONCURRENT_MAX("master.assignment.tserver.concurrent.max", "2",
+      PropertyType.COUNT,
+      "The maximum number of batches of tablet load and unload requests the master sends to one"
+          + " tablet server at the same time."),
+  MASTER_TABLET_WATCHER_INCREMENTAL("master.tablet.watcher.incremental", "false",
+      PropertyType.BOOLEAN,
+      "Between full scans, only rescan the tablets affected by tablet server loss, table state"
+          + " changes, migrations and tablet status reports, plus the tablets that still needed"
+          + " attention in the previous pass."),
+  MASTER_TABLET_WATCHER_FULL_SCAN_INTERVAL("master.tablet.watcher.full.scan.interval", "10m",
+      PropertyType.TIMEDURATION,
+      "When master.tablet.watcher.incremental is set, the longest time between full scans of"
+          + " the tablet states, which reconcile any change the incremental passes missed."),
   MASTER_STARTUP_TSERVER_AVAIL_MIN_COUNT("master.startup.tserver.avail.min.count", "0",
       PropertyType.COUNT,
       "Minimum number of tservers that need to be registered before master will "
@@ -312,8 +336,9 @@ public enum Property {
   TSERV_CACHE_MANAGER_IMPL("tserver.cache.manager.class",
       "org.apache.accumulo.core.file.blockfile.cache.lru.LruBlockCacheManager", PropertyType.STRING,
       "Specifies the class name of the block cache factory implementation."
-          + " Alternative implementation is"
-          + " org.apache.accumulo.core.file.blockfile.cache.tinylfu.TinyLfuBlockCacheManager"),
+          + " Alternative implementations are"
+          + " org.apache.accumulo.core.file.blockfile.cache.tinylfu.TinyLfuBlockCacheManager and"
+          + " org.apache.accumulo.core.file.blockfile.cache.offheap.OffHeapBlockCacheManager"),
   TSERV_DATACACHE_SIZE("tserver.cache.data.size", "10%", PropertyType.MEMORY,
       "Specifies the size of the cache for RFile data blocks."),
   TSERV_INDEXCACHE_SIZE("tserver.cache.index.size", "25%", PropertyType.MEMORY,
@@ -361,6 +386,10 @@ public enum Property {
       PropertyType.COUNT, "Max number of RFiles a major compaction thread can open at once. "),
   TSERV_SCAN_MAX_OPENFILES("tserver.scan.files.open.max", "100", PropertyType.COUNT,
       "Maximum total RFiles that all tablets in a tablet server can open for scans. "),
+  TSERV_VISIBILITY_CACHE_SIZE("tserver.scan.visibility.cache.size", "100000", PropertyType.COUNT,
+      "Maximum number of visibility evaluation results a tablet server caches, shared by all"
+          + " scans. Results are keyed by the scan authorizations and the visibility"
+          + " expression."),
   TSERV_MAX_IDLE("tserver.files.open.idle", "1m", PropertyType.TIMEDURATION,
       "Tablet servers leave previously used RFiles open for future queries."
           + " This setting determines how much time an unused RFile should be kept open"
@@ -368,6 +397,13 @@ public enum Property {
   TSERV_NATIVEMAP_ENABLED("tserver.memory.maps.native.enabled", "true", PropertyType.BOOLEAN,
       "An in-memory data store for accumulo implemented in c++ that increases"
           + " the amount of data accumulo can hold in memory and avoids Java GC" + " pauses."),
+  @Experimental
+  TSERV_MEMORY_MAP_CONCURRENT_WRITES("tserver.memory.maps.concurrent.writes", "false",
+      PropertyType.BOOLEAN,
+      "When true, writes to a tablet's in-memory map are applied in parallel instead of one"
+          + " at a time. Mutation counts are still allocated in order and a write only becomes"
+          + " visible to scans after all writes that started before it have finished. This"
+          + " allows ingest into a single hot tablet to scale with the number of cores."),
   TSERV_MAXMEM("tserver.memory.maps.max", "33%", PropertyType.MEMORY,
       "Maximum amount of memory that can be used to buffer data written to a"
           + " tablet server. There are two other properties that can effectively limit"
@@ -408,9 +444,31 @@ public enum Property {
       "The maximum number of concurrent tablet migrations for a tablet server"),
   TSERV_MAJC_MAXCONCURRENT("tserver.compaction.major.concurrent.max", "3", PropertyType.COUNT,
       "The maximum number of concurrent major compactions for a tablet server"),
+  TSERV_MAJC_PARTITION_THREADS("tserver.compaction.major.partition.threads", "4",
+      PropertyType.COUNT,
+      "The number of threads used to compact the key range partitions of major compactions"
+          + " for tables that set table.compaction.major.partitions above 1. The first partition"
+          + " of each compaction always runs on the major compaction thread itself."),
   TSERV_MAJC_THROUGHPUT("tserver.compaction.major.throughput", "0B", PropertyType.BYTES,
       "Maximum number of bytes to read or write per second over all major"
           + " compactions on a TabletServer, or 0B for unlimited."),
+  TSERV_MAJC_THROUGHPUT_MIN("tserver.compaction.major.throughput.min", "1M",
+      PropertyType.BYTES,
+      "The lowest major compaction throughput, in bytes per second, that scan latency can push"
+          + " a TabletServer down to when tserver.compaction.major.scan.latency.target is set."),
+  TSERV_MAJC_SCAN_LATENCY_TARGET("tserver.compaction.major.scan.latency.target", "0s",
+      PropertyType.TIMEDURATION,
+      "When set, and tserver.compaction.major.throughput is not 0B, the major compaction"
+          + " throughput of a TabletServer adapts to scan latency. While scans on the server take"
+          + " longer than this on average the throughput is halved, down to"
+          + " tserver.compaction.major.throughput.min, and otherwise it recovers towards"
+          + " tserver.compaction.major.throughput. A value of 0 disables adaptation."),
+  TSERV_MAJC_COST_PRIORITY("tserver.compaction.major.priority.cost", "false",
+      PropertyType.BOOLEAN,
+      "When true, queued system initiated major compactions are ordered by an estimate of"
+          + " benefit per byte of I/O instead of by file count alone. The benefit is the number of"
+          + " files a compaction removes from the read path of the tablet, weighted by the"
+          + " tablet's query rate, and the cost is the number of bytes the tablet's files hold."),
   TSERV_MINC_MAXCONCURRENT("tserver.compaction.minor.concurrent.max", "4", PropertyType.COUNT,
       "The maximum number of concurrent minor compactions for a tablet server"),
   TSERV_MAJC_TRACE_PERCENT("tserver.compaction.major.trace.percent", "0.1", PropertyType.FRACTION,
@@ -473,12 +531,28 @@ public enum Property {
       "The maximum number of threads to use to sort logs during" + " recovery"),
   TSERV_SORT_BUFFER_SIZE("tserver.sort.buffer.size", "10%", PropertyType.MEMORY,
       "The amount of memory to use when sorting logs during recovery."),
+  TSERV_SORT_THREADS("tserver.sort.threads", "1", PropertyType.COUNT,
+      "The number of threads used to sort and write the parts of a single write-ahead log"
+          + " during recovery. The log is still read by one thread, while up to this many parts"
+          + " are sorted and written in parallel. The memory set by tserver.sort.buffer.size is"
+          + " divided evenly between the parts in progress, so more threads produce more, smaller"
+          + " parts that recovery must merge. With 1 thread parts are sorted as they are read,"
+          + " each using the whole buffer."),
   TSERV_WORKQ_THREADS("tserver.workq.threads", "2", PropertyType.COUNT,
       "The number of threads for the distributed work queue. These threads are"
           + " used for copying failed bulk import RFiles."),
   TSERV_WAL_SYNC("tserver.wal.sync", "true", PropertyType.BOOLEAN,
       "Use the SYNC_BLOCK create flag to sync WAL writes to disk. Prevents"
           + " problems recovering from sudden system resets."),
+  TSERV_WAL_GROUP_COMMIT_LINGER("tserver.wal.group.commit.linger", "0ms",
+      PropertyType.TIMEDURATION,
+      "The maximum amount of time a write-ahead log flush or sync will wait for more writes to"
+          + " arrive so they can share a single hflush or hsync. A value of zero syncs as soon"
+          + " as work is available, grouping only writes that queued up during the previous"
+          + " sync."),
+  TSERV_WAL_GROUP_COMMIT_MAX_SIZE("tserver.wal.group.commit.max.size", "0", PropertyType.COUNT,
+      "The maximum number of writes that will share a single write-ahead log flush or sync. A"
+          + " value of zero places no limit on the group size."),
   TSERV_ASSIGNMENT_DURATION_WARNING("tserver.assignment.duration.warning", "10m",
       PropertyType.TIMEDURATION,
       "The amount of time an assignment can run before the server will print a"
@@ -509,6 +583,11 @@ public enum Property {
           + " tablet server. Then a remote tablet server is asked to gather summary"
           + " data. This setting determines how many concurrent request are made per"
           + " partition."),
+  TSERV_TABLET_UNLOAD_EVENTS_ENABLED("tserver.tablet.unload.events.enabled", "false",
+      PropertyType.BOOLEAN,
+      "Publish the tablets a tablet server recently unloaded in ZooKeeper, about once a second."
+          + " Clients with tablet.unload.events.enabled set use them to refresh the locations of"
+          + " migrated tablets instead of waiting for a NotServingTabletException."),
   TSERV_SUMMARY_RETRIEVAL_THREADS("tserver.summary.retrieval.threads", "10", PropertyType.COUNT,
       "The number of threads on each tablet server available to retrieve"
           + " summary data, that is not currently in cache, from RFiles."),
@@ -525,6 +604,10 @@ public enum Property {
       "The listening port for the garbage collector's monitor service"),
   GC_DELETE_THREADS("gc.threads.delete", "16", PropertyType.COUNT,
       "The number of threads used to delete RFiles and write-ahead logs"),
+  GC_SCAN_THREADS("gc.threads.scan", "4", PropertyType.COUNT,
+      "The number of threads used to scan the metadata table for file references. The scan is"
+          + " split along the tablets of the metadata table and each thread reads one tablet at a"
+          + " time."),
   GC_TRASH_IGNORE("gc.trash.ignore", "false", PropertyType.BOOLEAN,
       "Do not use the Trash, even if it is configured."),
   GC_TRACE_PERCENT("gc.trace.percent", "0.01", PropertyType.FRACTION,
@@ -538,6 +621,16 @@ public enum Property {
           + " metadata; flush - which flushes only (compactions may be triggered if required); or none"),
   GC_METRICS_ENABLED("gc.metrics.enabled", "true", PropertyType.BOOLEAN,
       "Enable detailed gc metrics reporting with hadoop metrics."),
+  GC_SORT_DIR("gc.sort.dir", "", PropertyType.PATH,
+      "A local directory the garbage collector uses to sort deletion candidates and file"
+          + " references. When set, every candidate is spilled to sorted runs in this directory"
+          + " and confirmed with a single scan of the metadata, instead of scanning the metadata"
+          + " once for each batch of candidates that fits in memory. When empty, candidates are"
+          + " processed in memory sized batches."),
+  GC_SORT_RUN_SIZE("gc.sort.run.size", "500000", PropertyType.COUNT,
+      "The number of deletion candidates or file references the garbage collector holds in"
+          + " memory before writing a sorted run to gc.sort.dir. Also the number of confirmed"
+          + " candidates deleted at a time when gc.sort.dir is set."),
 
   // properties that are specific to the monitor server behavior
   MONITOR_PREFIX("monitor.", null, PropertyType.PREFIX,
@@ -632,6 +725,11 @@ public enum Property {
           + " tablet will be compacted. Compactions of idle tablets are only started"
           + " when regular compactions are not running. Idle compactions only take"
           + " place for tablets that have one or more RFiles."),
+  TABLE_MAJC_PARTITIONS("table.compaction.major.partitions", "1", PropertyType.COUNT,
+      "The number of key range partitions the final pass of a major compaction is divided"
+          + " into. Partitions are chosen from the indexes of the input RFiles, compacted in"
+          + " parallel and committed to the tablet together, so a compaction produces up to this"
+          + " many RFiles. Partitions always fall on row boundaries."),
   TABLE_SPLIT_THRESHOLD("table.split.threshold", "1G", PropertyType.BYTES,
       "A tablet is split when the combined size of RFiles exceeds this amount."),
   TABLE_MAX_END_ROW_SIZE("table.split.endrow.size.max", "10K", PropertyType.BYTES,
@@ -46,12 +46,14 @@ import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.PartialKey;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile.CachedBlockRead;
 import org.apache.accumulo.core.file.blockfile.impl.CacheProvider;
 import org.apache.accumulo.core.file.keyfunctor.KeyFunctor;
 import org.apache.accumulo.core.file.rfile.RFile;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 import org.apache.accumulo.core.sample.impl.SamplerConfigurationImpl;
+import org.apache.accumulo.core.spi.cache.CacheEntry.Weighable;
 import org.apache.accumulo.core.util.NamingThreadFactory;
 import org.apache.accumulo.fate.util.LoggingRunnable;
 import org.apache.accumulo.start.classloader.vfs.AccumuloVFSClassLoader;
@@ -200,6 +202,40 @@ public class BloomFilterLayer {
     }
   }
 
+  /**
+   * A bloom filter read from a file along with the key functor it was built with. When the bloom
+   * filter block is in the index cache this is attached to the cache entry, so readers opened on
+   * the same file share one deserialized bloom filter.
+   */
+  private static class LoadedBloomFilter implements Weighable {
+    final DynamicBloomFilter bloomFilter;
+    final KeyFunctor transformer;
+    final int weight;
+
+    LoadedBloomFilter(DynamicBloomFilter bloomFilter, KeyFunctor transformer, int weight) {
+      this.bloomFilter = bloomFilter;
+      this.transformer = transformer;
+      this.weight = weight;
+    }
+
+    @Override
+    public int weight() {
+      return weight;
+    }
+  }
+
+  /**
+   * Thrown while reading a bloom filter inside a cache index supplier, which can not throw checked
+   * exceptions.
+   */
+  private static class BloomFilterReadException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    BloomFilterReadException(Exception cause) {
+      super(cause);
+    }
+  }
+
   static class BloomFilterLoader {
 
     private volatile DynamicBloomFilter bloomFilter;
@@ -222,37 +258,48 @@ public class BloomFilterLayer {
         // no need to load the bloom filter if the map file is closed
         if (closed)
           return;
-        String ClassName = null;
         DataInputStream in = null;
 
         try {
           in = reader.getMetaStore(BLOOM_FILE_NAME);
-          DynamicBloomFilter tmpBloomFilter = new DynamicBloomFilter();
 
           // check for closed again after open but before reading the bloom filter in
           if (closed)
             return;
 
-          /**
-           * Load classname for keyFunctor
-           */
-          ClassName = in.readUTF();
-
-          Class<? extends KeyFunctor> clazz;
-          if (context != null && !context.equals(""))
-            clazz = AccumuloVFSClassLoader.getContextManager().loadClass(context, ClassName,
-                KeyFunctor.class);
-          else
-            clazz = AccumuloVFSClassLoader.loadClass(ClassName, KeyFunctor.class);
-          transformer = clazz.getDeclaredConstructor().newInstance();
+          LoadedBloomFilter loaded = null;
+          if (in instanceof CachedBlockRead && ((CachedBlockRead) in).isIndexable()) {
+            CachedBlockRead cbr = (CachedBlockRead) in;
+            AtomicBoolean created = new AtomicBoolean(false);
+            try {
+              loaded = cbr.getIndex(() -> {
+                try {
+                  LoadedBloomFilter bloom = read(cbr, context, cbr.getBuffer().length);
+                  created.set(true);
+                  return bloom;
+                } catch (IOException | ReflectiveOperationException e) {
+                  throw new BloomFilterReadException(e);
+                }
+              });
+              if (created.get()) {
+                // the cache only counts the weight of an index when told it changed
+                cbr.indexWeightChanged();
+              }
+            } catch (BloomFilterReadException e) {
+              Throwable cause = e.getCause();
+              if (cause instanceof IOException)
+                throw (IOException) cause;
+              throw (ReflectiveOperationException) cause;
+            }
+          }
 
-          /**
-           * read in bloom filter
-           */
+          if (loaded == null) {
+            loaded = read(in, context, 0);
+          }
 
-          tmpBloomFilter.readFields(in);
+          transformer = loaded.transformer;
           // only set the bloom filter after it is fully constructed
-          bloomFilter = tmpBloomFilter;
+          bloomFilter = loaded.bloomFilter;
         } catch (NoSuchMetaStoreException nsme) {
           // file does not have a bloom filter, ignore it
         } catch (IOException ioe) {
@@ -263,10 +310,11 @@ public class BloomFilterLayer {
 
           bloomFilter = null;
         } catch (ClassNotFoundException e) {
-          LOG.error("Failed to find KeyFunctor in config: " + sanitize(ClassName), e);
+          // the message is the class name read from the file
+          LOG.error("Failed to find KeyFunctor in config: " + sanitize(e.getMessage()), e);
           bloomFilter = null;
         } catch (ReflectiveOperationException e) {
-          LOG.error("Could not instantiate KeyFunctor: " + sanitize(ClassName), e);
+          LOG.error("Could not instantiate KeyFunctor", e);
           bloomFilter = null;
         } catch (RuntimeException rte) {
           if (!closed)
@@ -288,6 +336,34 @@ public class BloomFilterLayer {
 
     }
 
+    private static LoadedBloomFilter read(DataInputStream in, String context, int weight)
+        throws IOException, ReflectiveOperationException {
+      /**
+       * Load classname for keyFunctor
+       */
+      String className = in.readUTF();
+
+      Class<? extends KeyFunctor> clazz;
+      try {
+        if (context != null && !context.equals(""))
+          clazz = AccumuloVFSClassLoader.getContextManager().loadClass(context, className,
+              KeyFunctor.class);
+        else
+          clazz = AccumuloVFSClassLoader.loadClass(className, KeyFunctor.class);
+      } catch (ClassNotFoundException e) {
+        throw new ClassNotFoundException(className, e);
+      }
+      KeyFunctor transformer = clazz.getDeclaredConstructor().newInstance();
+
+      /**
+       * read in bloom filter
+       */
+      DynamicBloomFilter bloomFilter = new DynamicBloomFilter();
+      bloomFilter.readFields(in);
+
+      return new LoadedBloomFilter(bloomFilter, transformer, weight);
+    }
+
     /**
      * Prevent potential CRLF injection into logs from read in user data See
      * https://find-sec-bugs.github.io/bugs.htm#CRLF_INJECTION_LOGS
@@ -0,0 +1,469 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache.offheap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.apache.accumulo.core.file.blockfile.cache.impl.ClassSize;
+import org.apache.accumulo.core.file.blockfile.cache.impl.SizeConstants;
+import org.apache.accumulo.core.spi.cache.BlockCache;
+import org.apache.accumulo.core.spi.cache.CacheEntry;
+import org.apache.accumulo.core.spi.cache.CacheEntry.Weighable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * A block cache that keeps block contents outside of the Java heap, either in direct byte buffers
+ * or in a memory mapped local file. Only the index of cached blocks lives on the heap.
+ *
+ * <p>
+ * Cache memory is divided into fixed size slabs that are used as a ring. Blocks are appended to
+ * the current slab. When it fills, the next slab in the ring is recycled. Recycling keeps blocks
+ * that were read since the slab was last recycled, up to half the slab, and evicts the rest. This
+ * is a CLOCK style second chance policy at slab granularity and never fragments memory.
+ *
+ * <p>
+ * Reads do not take a lock. Each slab has a generation that is incremented before the slab is
+ * rewritten, and a read that observes a generation change treats the block as a miss. Because
+ * {@link CacheEntry#getBuffer()} returns a heap array, a hit copies the block onto the heap. That
+ * copy is short lived, so the long lived cache contents still stay out of the old generation.
+ */
+public final class OffHeapBlockCache implements BlockCache {
+
+  private static final Logger log = LoggerFactory.getLogger(OffHeapBlockCache.class);
+  private static final int STATS_PERIOD_SEC = 60;
+  private static final int MOVE_CHUNK_SIZE = 64 * 1024;
+
+  /** Approximate heap used by the index for each cached block */
+  private static final long PER_BLOCK_HEAP_OVERHEAD = ClassSize.CONCURRENT_HASHMAP_ENTRY
+      + ClassSize.align(ClassSize.OBJECT + 3 * ClassSize.REFERENCE + 2 * SizeConstants.SIZEOF_INT
+          + SizeConstants.SIZEOF_LONG + SizeConstants.SIZEOF_BOOLEAN)
+      + ClassSize.STRING + ClassSize.align(ClassSize.ARRAY + 64) + ClassSize.REFERENCE;
+
+  private final OffHeapBlockCacheConfiguration conf;
+  private final Slab[] slabs;
+  private final ConcurrentHashMap<String,Location> map;
+  private final FileChannel channel;
+  private final Path file;
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder requestCount = new LongAdder();
+  private final LongAdder evictedCount = new LongAdder();
+
+  // the following are guarded by writeLock
+  private final ReentrantLock writeLock = new ReentrantLock();
+  private int current = 0;
+  private int writePos = 0;
+
+  private final ScheduledExecutorService statsExecutor;
+
+  @SuppressFBWarnings(value = "PATH_TRAVERSAL_IN",
+      justification = "cache directory is set by the administrator in the system configuration")
+  public OffHeapBlockCache(OffHeapBlockCacheConfiguration conf) {
+    this.conf = conf;
+    this.slabs = new Slab[conf.getSlabCount()];
+    this.map = new ConcurrentHashMap<>((int) Math.min(Integer.MAX_VALUE,
+        Math.ceil(1.2 * conf.getMaxSize() / Math.max(1, conf.getBlockSize()))));
+
+    if (conf.getPath().isPresent()) {
+      try {
+        Path dir = Paths.get(conf.getPath().get());
+        Files.createDirectories(dir);
+        file = Files.createTempFile(dir, "accumulo-" + conf.getType().name().toLowerCase() + "-",
+            ".cache");
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+            StandardOpenOption.DELETE_ON_CLOSE);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Unable to create cache file in " + conf.getPath().get(), e);
+      }
+    } else {
+      file = null;
+      channel = null;
+    }
+
+    for (int i = 0; i < slabs.length; i++) {
+      slabs[i] = new Slab(i);
+    }
+    slabs[0].allocate();
+
+    statsExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("OffHeapBlockCacheStatsExecutor").setDaemon(true).build());
+    statsExecutor.scheduleAtFixedRate(this::logStats, STATS_PERIOD_SEC, STATS_PERIOD_SEC,
+        TimeUnit.SECONDS);
+  }
+
+  private final class Slab {
+    final int id;
+    // written under writeLock and published to readers through the map
+    ByteBuffer buffer;
+    // incremented before the slab is rewritten, see Location.read()
+    volatile long generation = 0;
+    // guarded by writeLock, in increasing offset order
+    List<Location> blocks = new ArrayList<>();
+
+    Slab(int id) {
+      this.id = id;
+    }
+
+    void allocate() {
+      if (buffer != null) {
+        return;
+      }
+
+      int size = conf.getSlabSize();
+      if (channel == null) {
+        buffer = ByteBuffer.allocateDirect(size);
+      } else {
+        try {
+          buffer = channel.map(MapMode.READ_WRITE, (long) id * size, size);
+        } catch (IOException e) {
+          throw new UncheckedIOException("Unable to map cache file " + file, e);
+        }
+      }
+    }
+  }
+
+  private static final class Location {
+    final String name;
+    final Slab slab;
+    final long generation;
+    final int offset;
+    final int length;
+    volatile boolean referenced = false;
+    private Weighable index;
+
+    Location(String name, Slab slab, long generation, int offset, int length) {
+      this.name = name;
+      this.slab = slab;
+      this.generation = generation;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    /**
+     * @return a copy of the block or null if its slab was recycled
+     */
+    byte[] read() {
+      if (slab.generation != generation) {
+        return null;
+      }
+
+      byte[] data = new byte[length];
+      ByteBuffer src = slab.buffer.duplicate();
+      src.position(offset);
+      src.get(data);
+
+      // the generation check must not be reordered before the copy
+      VarHandle.loadLoadFence();
+      return slab.generation == generation ? data : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    synchronized <T extends Weighable> T getIndex(Supplier<T> supplier) {
+      if (index == null) {
+        index = supplier.get();
+      }
+      return (T) index;
+    }
+
+    synchronized Weighable getIndex() {
+      return index;
+    }
+
+    synchronized void setIndex(Weighable index) {
+      this.index = index;
+    }
+  }
+
+  private static final class OffHeapCacheEntry implements CacheEntry {
+
+    private final Location location;
+    private final byte[] buffer;
+
+    OffHeapCacheEntry(Location location, byte[] buffer) {
+      this.location = location;
+      this.buffer = buffer;
+    }
+
+    @Override
+    public byte[] getBuffer() {
+      return buffer;
+    }
+
+    @Override
+    public <T extends Weighable> T getIndex(Supplier<T> supplier) {
+      if (location == null) {
+        return null;
+      }
+      return location.getIndex(supplier);
+    }
+
+    @Override
+    public void indexWeightChanged() {
+      // indexes are on heap and do not count against the off heap size of the cache
+    }
+  }
+
+  @Override
+  public CacheEntry getBlock(String blockName) {
+    requestCount.increment();
+    Location location = map.get(blockName);
+    if (location != null) {
+      byte[] data = location.read();
+      if (data != null) {
+        location.referenced = true;
+        hitCount.increment();
+        return new OffHeapCacheEntry(location, data);
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public CacheEntry cacheBlock(String blockName, byte[] buf) {
+    if (buf.length > conf.getSlabSize()) {
+      // can never fit in a slab, so hand it back without caching
+      return new OffHeapCacheEntry(null, buf);
+    }
+
+    writeLock.lock();
+    try {
+      Location existing = map.get(blockName);
+      if (existing != null && existing.slab.generation == existing.generation) {
+        // another thread loaded the same block
+        existing.referenced = true;
+        return new OffHeapCacheEntry(existing, buf);
+      }
+
+      if (writePos + buf.length > conf.getSlabSize()) {
+        current = (current + 1) % slabs.length;
+        recycle(slabs[current], buf.length);
+      }
+
+      Slab slab = slabs[current];
+      ByteBuffer dest = slab.buffer.duplicate();
+      dest.position(writePos);
+      dest.put(buf);
+
+      Location location = new Location(blockName, slab, slab.generation, writePos, buf.length);
+      writePos += buf.length;
+      slab.blocks.add(location);
+      map.put(blockName, location);
+      return new OffHeapCacheEntry(location, buf);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Prepares a slab for reuse and sets the write position after any blocks that were retained,
+   * leaving at least {@code needed} bytes free. Must be called holding the write lock.
+   */
+  private void recycle(Slab slab, int needed) {
+    slab.allocate();
+
+    List<Location> previous = slab.blocks;
+    slab.blocks = new ArrayList<>();
+
+    // invalidate all readers of this slab before any bytes in it change
+    slab.generation++;
+    VarHandle.storeStoreFence();
+
+    int retainLimit = Math.min(conf.getSlabSize() / 2, conf.getSlabSize() - needed);
+    int pos = 0;
+    byte[] scratch = null;
+
+    for (Location location : previous) {
+      if (map.get(location.name) != location) {
+        // replaced by a newer copy of the block
+        continue;
+      }
+
+      if (location.referenced && pos + location.length <= retainLimit) {
+        // blocks are in offset order, so moves are always to a lower or equal offset
+        if (location.offset != pos) {
+          if (scratch == null) {
+            scratch = new byte[MOVE_CHUNK_SIZE];
+          }
+          move(slab.buffer, location.offset, pos, location.length, scratch);
+        }
+        Location moved =
+            new Location(location.name, slab, slab.generation, pos, location.length);
+        moved.setIndex(location.getIndex());
+        pos += location.length;
+        slab.blocks.add(moved);
+        map.replace(location.name, location, moved);
+      } else {
+        map.remove(location.name, location);
+        evictedCount.increment();
+      }
+    }
+
+    writePos = pos;
+  }
+
+  private static void move(ByteBuffer buffer, int from, int to, int length, byte[] scratch) {
+    ByteBuffer src = buffer.duplicate();
+    ByteBuffer dest = buffer.duplicate();
+    src.position(from);
+    dest.position(to);
+    int remaining = length;
+    while (remaining > 0) {
+      int len = Math.min(remaining, scratch.length);
+      src.get(scratch, 0, len);
+      dest.put(scratch, 0, len);
+      remaining -= len;
+    }
+  }
+
+  private Map<String,byte[]> resolveDependencies(Map<String,Loader> deps) {
+    HashMap<String,byte[]> resolvedDeps = new HashMap<>();
+    for (Entry<String,Loader> entry : deps.entrySet()) {
+      CacheEntry ce = getBlock(entry.getKey(), entry.getValue());
+      if (ce == null) {
+        return null;
+      }
+      resolvedDeps.put(entry.getKey(), ce.getBuffer());
+    }
+    return resolvedDeps;
+  }
+
+  @Override
+  public CacheEntry getBlock(String blockName, Loader loader) {
+    CacheEntry ce = getBlock(blockName);
+    if (ce != null) {
+      return ce;
+    }
+
+    Map<String,Loader> deps = loader.getDependencies();
+    Map<String,byte[]> resolvedDeps;
+    if (deps.isEmpty()) {
+      resolvedDeps = Collections.emptyMap();
+    } else {
+      resolvedDeps = resolveDependencies(deps);
+      if (resolvedDeps == null) {
+        return null;
+      }
+    }
+
+    byte[] data = loader.load(conf.getSlabSize(), resolvedDeps);
+    if (data == null) {
+      return null;
+    }
+
+    return cacheBlock(blockName, data);
+  }
+
+  /**
+   * Only the index of cached blocks is on the heap, so this is an estimate based on the configured
+   * block size.
+   */
+  @Override
+  public long getMaxHeapSize() {
+    return (conf.getMaxSize() / Math.max(1, conf.getBlockSize())) * PER_BLOCK_HEAP_OVERHEAD;
+  }
+
+  @Override
+  public long getMaxSize() {
+    return (long) slabs.length * conf.getSlabSize();
+  }
+
+  public long getEvictedCount() {
+    return evictedCount.sum();
+  }
+
+  public long getBlockCount() {
+    return map.size();
+  }
+
+  @Override
+  public BlockCache.Stats getStats() {
+    long hits = hitCount.sum();
+    long requests = requestCount.sum();
+    return new BlockCache.Stats() {
+      @Override
+      public long hitCount() {
+        return hits;
+      }
+
+      @Override
+      public long requestCount() {
+        return requests;
+      }
+    };
+  }
+
+  private void logStats() {
+    double maxMB = ((double) getMaxSize()) / ((double) (1024 * 1024));
+    long hits = hitCount.sum();
+    long requests = requestCount.sum();
+    log.debug("Off heap cache Max={}MB, Blocks={}, accesses={}, hits={}, hitRatio={}, evicted={}",
+        maxMB, map.size(), requests, hits, requests == 0 ? 0 : hits * 100.0 / requests,
+        evictedCount.sum());
+  }
+
+  /**
+   * Releases the cache contents. Direct and mapped buffers are freed once they are garbage
+   * collected.
+   */
+  public void shutdown() {
+    statsExecutor.shutdownNow();
+    writeLock.lock();
+    try {
+      map.clear();
+      for (Slab slab : slabs) {
+        slab.generation++;
+        slab.blocks = new ArrayList<>();
+      }
+      if (channel != null) {
+        channel.close();
+      }
+    } catch (IOException e) {
+      log.warn("Failed to close cache file {}", file, e);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache.offheap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.accumulo.core.conf.ConfigurationTypeHelper;
+import org.apache.accumulo.core.spi.cache.BlockCacheManager;
+import org.apache.accumulo.core.spi.cache.BlockCacheManager.Configuration;
+import org.apache.accumulo.core.spi.cache.CacheType;
+
+import com.google.common.base.Preconditions;
+
+public final class OffHeapBlockCacheConfiguration {
+
+  public static final String PROPERTY_PREFIX = "offheap";
+
+  public static final long DEFAULT_SLAB_SIZE = 64 * 1024 * 1024;
+
+  // property names
+  public static final String SLAB_SIZE_PROPERTY = "slab.size";
+  public static final String PATH_PROPERTY = "path";
+
+  /** Size of each off heap region that blocks are packed into and evicted from together */
+  private final long slabSize;
+
+  /** Directory of a file to memory map, when empty direct buffers are used */
+  private final Optional<String> path;
+
+  private final long maxSize;
+
+  private final long blockSize;
+
+  private final CacheType type;
+
+  public OffHeapBlockCacheConfiguration(Configuration conf, CacheType type) {
+    this.type = type;
+    Map<String,String> props = conf.getProperties(PROPERTY_PREFIX, type);
+
+    this.maxSize = conf.getMaxSize(type);
+    this.blockSize = conf.getBlockSize();
+    this.path = Optional.ofNullable(props.get(PATH_PROPERTY)).filter(p -> !p.isEmpty());
+
+    long configuredSlabSize = Optional.ofNullable(props.get(SLAB_SIZE_PROPERTY))
+        .map(ConfigurationTypeHelper::getFixedMemoryAsBytes).orElse(DEFAULT_SLAB_SIZE);
+    // need at least two slabs, one to fill while the other is being recycled
+    this.slabSize = Math.min(configuredSlabSize, maxSize / 2);
+
+    if (slabSize <= 0 || slabSize > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Slab size must be in (0, " + Integer.MAX_VALUE
+          + "] and the cache large enough for two slabs, slab size: " + configuredSlabSize
+          + " cache size: " + maxSize);
+    }
+  }
+
+  public int getSlabSize() {
+    return (int) slabSize;
+  }
+
+  public int getSlabCount() {
+    return (int) (maxSize / slabSize);
+  }
+
+  public Optional<String> getPath() {
+    return path;
+  }
+
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  public long getBlockSize() {
+    return blockSize;
+  }
+
+  public CacheType getType() {
+    return type;
+  }
+
+  public static class Builder {
+    private Map<String,String> props = new HashMap<>();
+    private String prefix;
+
+    private Builder(String prefix) {
+      this.prefix = prefix;
+    }
+
+    public Builder slabSize(long size) {
+      Preconditions.checkArgument(size > 0);
+      props.put(prefix + SLAB_SIZE_PROPERTY, Long.toString(size));
+      return this;
+    }
+
+    public Builder path(String dir) {
+      props.put(prefix + PATH_PROPERTY, dir);
+      return this;
+    }
+
+    public Map<String,String> buildMap() {
+      return Map.copyOf(props);
+    }
+  }
+
+  public static Builder builder(CacheType ct) {
+    return new Builder(BlockCacheManager.getFullyQualifiedPropertyPrefix(PROPERTY_PREFIX, ct));
+  }
+
+  @Override
+  public String toString() {
+    return "type: " + type + ", maxSize: " + maxSize + ", slabSize: " + getSlabSize()
+        + ", slabCount: " + getSlabCount() + ", path: " + path.orElse("<direct>");
+  }
+}
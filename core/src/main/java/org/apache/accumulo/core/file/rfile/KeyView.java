@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.rfile;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+
+/**
+ * The fields of the key an RFile reader is positioned on, before a {@link Key} is created for it.
+ * The byte sequences may be views over the data block or over buffers that the reader overwrites
+ * when it moves on, so they must not be kept. Copy anything that needs to outlive the current
+ * entry.
+ *
+ * @see RFile.Reader#setKeyFilter(java.util.function.Predicate)
+ */
+public interface KeyView {
+
+  ByteSequence getRowData();
+
+  ByteSequence getColumnFamilyData();
+
+  ByteSequence getColumnQualifierData();
+
+  ByteSequence getColumnVisibilityData();
+
+  long getTimestamp();
+
+  boolean isDeleted();
+}
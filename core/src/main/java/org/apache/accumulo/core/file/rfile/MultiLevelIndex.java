@@ -804,6 +804,17 @@ public class MultiLevelIndex {
       this.blockStore = blockStore;
     }
 
+    /**
+     * Creates a reader that shares the already read root block of another reader of the same file,
+     * but reads lower index levels using the given block store.
+     */
+    Reader(Reader template, CachableBlockFile.Reader blockStore) {
+      this.version = template.version;
+      this.size = template.size;
+      this.rootBlock = template.rootBlock;
+      this.blockStore = blockStore;
+    }
+
     private IndexBlock getIndexBlock(IndexEntry ie) throws IOException {
       IndexBlock iblock = new IndexBlock();
       CachableBlockFile.CachedBlockRead in =
@@ -26,6 +26,7 @@ import java.io.DataOutput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -39,6 +40,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
 
 import org.apache.accumulo.core.client.SampleNotPresentException;
 import org.apache.accumulo.core.client.sample.Sampler;
@@ -65,13 +67,16 @@ import org.apache.accumulo.core.file.rfile.bcfile.MetaBlockDoesNotExist;
 import org.apache.accumulo.core.iterators.IterationInterruptedException;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.BatchingIterator;
 import org.apache.accumulo.core.iteratorsImpl.system.HeapIterator;
 import org.apache.accumulo.core.iteratorsImpl.system.InterruptibleIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.KVBatch;
 import org.apache.accumulo.core.iteratorsImpl.system.LocalityGroupIterator;
 import org.apache.accumulo.core.iteratorsImpl.system.LocalityGroupIterator.LocalityGroup;
 import org.apache.accumulo.core.iteratorsImpl.system.LocalityGroupIterator.LocalityGroupContext;
 import org.apache.accumulo.core.iteratorsImpl.system.LocalityGroupIterator.LocalityGroupSeekCache;
 import org.apache.accumulo.core.sample.impl.SamplerConfigurationImpl;
+import org.apache.accumulo.core.spi.cache.CacheEntry.Weighable;
 import org.apache.accumulo.core.util.LocalityGroupUtil;
 import org.apache.accumulo.core.util.MutableByteSequence;
 import org.apache.commons.lang3.mutable.MutableLong;
@@ -167,6 +172,20 @@ public class RFile {
       this.version = version;
     }
 
+    /**
+     * Creates metadata for another reader of the same file, sharing everything read from the file
+     * with the given metadata.
+     */
+    private LocalityGroupMetadata(LocalityGroupMetadata template, CachableBlockFile.Reader br) {
+      this.startBlock = template.startBlock;
+      this.firstKey = template.firstKey;
+      this.columnFamilies = template.columnFamilies;
+      this.isDefaultLG = template.isDefaultLG;
+      this.name = template.name;
+      this.version = template.version;
+      this.indexReader = new MultiLevelIndex.Reader(template.indexReader, br);
+    }
+
     public LocalityGroupMetadata(Set<ByteSequence> pcf, int indexBlockSize, BCFile.Writer bfw) {
       isDefaultLG = true;
       columnFamilies = new HashMap<>();
@@ -746,7 +765,8 @@ public class RFile {
     }
   }
 
-  private static class LocalityGroupReader extends LocalityGroup implements FileSKVIterator {
+  private static class LocalityGroupReader extends LocalityGroup
+      implements FileSKVIterator, BatchingIterator {
 
     private CachableBlockFile.Reader reader;
     private MultiLevelIndex.Reader index;
@@ -756,6 +776,12 @@ public class RFile {
     private boolean closed = false;
     private int version;
     private boolean checkRange = true;
+    private final RelativeKey.SkipBuffers skipBuffers = new RelativeKey.SkipBuffers();
+    // next() decodes into these and only copies out a Key or Value when one is asked for
+    private final RelativeKey viewKey = new RelativeKey();
+    private final MutableByteSequence valView = new MutableByteSequence(new byte[0], 0, 0);
+    private final MutableByteSequence valScratch = new MutableByteSequence(new byte[64], 0, 0);
+    private Predicate<KeyView> keyFilter;
 
     private LocalityGroupReader(CachableBlockFile.Reader reader, LocalityGroupMetadata lgm,
         int version) {
@@ -798,6 +824,7 @@ public class RFile {
     private CachableBlockFile.CachedBlockRead currBlock;
     private RelativeKey rk;
     private Value val;
+    // null when the key before the current one was skipped without creating a Key for it
     private Key prevKey = null;
     private Range range = null;
     private boolean hasTop = false;
@@ -810,6 +837,8 @@ public class RFile {
 
     @Override
     public Value getTopValue() {
+      if (val == null)
+        val = new Value(valView.getBackingArray(), valView.offset(), valView.length());
       return val;
     }
 
@@ -822,12 +851,33 @@ public class RFile {
     public void next() throws IOException {
       try {
         _next();
+        skipFiltered();
       } catch (IOException ioe) {
         reset();
         throw ioe;
       }
     }
 
+    private void skipFiltered() throws IOException {
+      if (keyFilter != null) {
+        while (hasTop && !keyFilter.test(rk)) {
+          _next();
+        }
+      }
+    }
+
+    @Override
+    public int nextBatch(KVBatch batch) throws IOException {
+      int start = batch.size();
+      while (hasTop && !batch.isFull()) {
+        // The top key and value are copied out of the block when first asked for and are not
+        // reused after moving on, so they can be handed out as is.
+        batch.add(getTopKey(), getTopValue());
+        next();
+      }
+      return batch.size() - start;
+    }
+
     private void _next() throws IOException {
 
       if (!hasTop)
@@ -855,16 +905,25 @@ public class RFile {
         }
       }
 
-      prevKey = rk.getKey();
-      rk.readFields(currBlock);
-      val.readFields(currBlock);
+      prevKey = rk.getKeyIfCreated();
+      rk.readView(currBlock);
+      val = null;
+      RelativeKey.readValueView(currBlock, valView, valScratch);
 
       if (metricsGatherer != null)
-        metricsGatherer.addMetric(rk.getKey(), val);
+        metricsGatherer.addMetric(rk.getKey(), getTopValue());
 
       entriesLeft--;
       if (checkRange)
-        hasTop = !range.afterEndKey(rk.getKey());
+        hasTop = !afterEndKey();
+    }
+
+    private boolean afterEndKey() {
+      if (range.isInfiniteStopKey())
+        return false;
+
+      int cmp = rk.compareTo(range.getEndKey());
+      return range.isEndKeyInclusive() ? cmp > 0 : cmp >= 0;
     }
 
     private CachableBlockFile.CachedBlockRead getDataBlock(IndexEntry indexEntry)
@@ -942,14 +1001,15 @@ public class RFile {
       }
 
       if (rk != null) {
-        if (range.beforeStartKey(prevKey) && range.afterEndKey(getTopKey())) {
+        if (prevKey != null && range.beforeStartKey(prevKey) && range.afterEndKey(getTopKey())) {
           // range is between the two keys in the file where the last range seeked to stopped, so
           // there is
           // nothing to do
           reseek = false;
         }
 
-        if (startKey.compareTo(getTopKey()) <= 0 && startKey.compareTo(prevKey) > 0) {
+        if (prevKey != null && startKey.compareTo(getTopKey()) <= 0
+            && startKey.compareTo(prevKey) > 0) {
           // current location in file can satisfy this request, no need to seek
           reseek = false;
         }
@@ -966,12 +1026,13 @@ public class RFile {
 
           MutableByteSequence valbs = new MutableByteSequence(new byte[64], 0, 0);
           SkippR skippr =
-              RelativeKey.fastSkip(currBlock, startKey, valbs, prevKey, getTopKey(), entriesLeft);
+              RelativeKey.fastSkip(currBlock, startKey, valbs, prevKey, getTopKey(), entriesLeft,
+                  skipBuffers);
           if (skippr.skipped > 0) {
             entriesLeft -= skippr.skipped;
             val = new Value(valbs.toArray());
             prevKey = skippr.prevKey;
-            rk = skippr.rk;
+            rk.setCurrentKey(skippr.rk.getKey());
           }
 
           reseek = false;
@@ -1053,14 +1114,15 @@ public class RFile {
             }
           }
 
-          SkippR skippr =
-              RelativeKey.fastSkip(currBlock, startKey, valbs, prevKey, currKey, entriesLeft);
+          SkippR skippr = RelativeKey.fastSkip(currBlock, startKey, valbs, prevKey, currKey,
+              entriesLeft, skipBuffers);
           prevKey = skippr.prevKey;
           entriesLeft -= skippr.skipped;
           val = new Value(valbs.toArray());
           // set rk when everything above is successful, if exception
           // occurs rk will not be set
-          rk = skippr.rk;
+          viewKey.setCurrentKey(skippr.rk.getKey());
+          rk = viewKey;
         }
       }
 
@@ -1070,9 +1132,11 @@ public class RFile {
         next();
       }
 
+      skipFiltered();
+
       if (metricsGatherer != null) {
         metricsGatherer.startLocalityGroup(rk.getKey().getColumnFamily());
-        metricsGatherer.addMetric(rk.getKey(), val);
+        metricsGatherer.addMetric(rk.getKey(), getTopValue());
       }
     }
 
@@ -1114,6 +1178,10 @@ public class RFile {
       this.interruptFlag = flag;
     }
 
+    void setKeyFilter(Predicate<KeyView> filter) {
+      this.keyFilter = filter;
+    }
+
     @Override
     public InterruptibleIterator getIterator() {
       return this;
@@ -1136,6 +1204,80 @@ public class RFile {
     }
   }
 
+  /**
+   * The parsed contents of the RFile.index meta block. When that block is in the index cache, this
+   * is attached to the cache entry so it is parsed once and shared by every reader opened on the
+   * file while the block stays cached, instead of each reader parsing the locality group metadata,
+   * root index blocks and sampler configuration again.
+   */
+  private static class FileIndex implements Weighable {
+    final int version;
+    final List<LocalityGroupMetadata> localityGroups;
+    final List<LocalityGroupMetadata> sampleGroups;
+    final SamplerConfigurationImpl samplerConfig;
+    final int weight;
+
+    private FileIndex(int version, List<LocalityGroupMetadata> localityGroups,
+        List<LocalityGroupMetadata> sampleGroups, SamplerConfigurationImpl samplerConfig,
+        int weight) {
+      this.version = version;
+      this.localityGroups = localityGroups;
+      this.sampleGroups = sampleGroups;
+      this.samplerConfig = samplerConfig;
+      this.weight = weight;
+    }
+
+    /**
+     * @param br
+     *          the block store the parsed index readers use, may be null when the result is shared
+     */
+    static FileIndex read(CachableBlockFile.CachedBlockRead mb, CachableBlockFile.Reader br)
+        throws IOException {
+      int magic = mb.readInt();
+      int ver = mb.readInt();
+
+      if (magic != RINDEX_MAGIC)
+        throw new IOException("Did not see expected magic number, saw " + magic);
+      if (ver != RINDEX_VER_8 && ver != RINDEX_VER_7 && ver != RINDEX_VER_6 && ver != RINDEX_VER_4
+          && ver != RINDEX_VER_3)
+        throw new IOException("Did not see expected version, saw " + ver);
+
+      int size = mb.readInt();
+
+      List<LocalityGroupMetadata> localityGroups = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        LocalityGroupMetadata lgm = new LocalityGroupMetadata(ver, br);
+        lgm.readFields(mb);
+        localityGroups.add(lgm);
+      }
+
+      List<LocalityGroupMetadata> sampleGroups = null;
+      SamplerConfigurationImpl samplerConfig = null;
+
+      if (ver == RINDEX_VER_8 && mb.readBoolean()) {
+        sampleGroups = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+          LocalityGroupMetadata lgm = new LocalityGroupMetadata(ver, br);
+          lgm.readFields(mb);
+          sampleGroups.add(lgm);
+        }
+
+        samplerConfig = new SamplerConfigurationImpl(mb);
+      }
+
+      // root index blocks read from a cached block reference its buffer, which is already weighed,
+      // so the buffer length approximates what parsing adds
+      int weight = mb.isIndexable() ? mb.getBuffer().length : 0;
+
+      return new FileIndex(ver, localityGroups, sampleGroups, samplerConfig, weight);
+    }
+
+    @Override
+    public int weight() {
+      return weight;
+    }
+  }
+
   public static class Reader extends HeapIterator implements FileSKVIterator {
 
     private final CachableBlockFile.Reader reader;
@@ -1153,6 +1295,7 @@ public class RFile {
     private boolean deepCopy = false;
 
     private AtomicBoolean interruptFlag;
+    private Predicate<KeyView> keyFilter;
 
     private SamplerConfigurationImpl samplerConfig = null;
 
@@ -1161,52 +1304,73 @@ public class RFile {
     public Reader(CachableBlockFile.Reader rdr) throws IOException {
       this.reader = rdr;
 
+      FileIndex index = null;
+      boolean shared = false;
+
       CachableBlockFile.CachedBlockRead mb = reader.getMetaBlock("RFile.index");
       try {
-        int magic = mb.readInt();
-        int ver = mb.readInt();
-        rfileVersion = ver;
+        if (mb.isIndexable()) {
+          AtomicBoolean created = new AtomicBoolean(false);
+          index = mb.getIndex(() -> {
+            try {
+              FileIndex fileIndex = FileIndex.read(mb, null);
+              created.set(true);
+              return fileIndex;
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          });
+          shared = index != null;
+          if (created.get()) {
+            // the cache only counts the weight of an index when told it changed
+            mb.indexWeightChanged();
+          }
+        }
 
-        if (magic != RINDEX_MAGIC)
-          throw new IOException("Did not see expected magic number, saw " + magic);
-        if (ver != RINDEX_VER_8 && ver != RINDEX_VER_7 && ver != RINDEX_VER_6 && ver != RINDEX_VER_4
-            && ver != RINDEX_VER_3)
-          throw new IOException("Did not see expected version, saw " + ver);
+        if (index == null) {
+          index = FileIndex.read(mb, rdr);
+        }
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      } finally {
+        mb.close();
+      }
 
-        int size = mb.readInt();
-        currentReaders = new LocalityGroupReader[size];
+      int ver = index.version;
+      rfileVersion = ver;
 
-        deepCopies = new LinkedList<>();
+      int size = index.localityGroups.size();
+      currentReaders = new LocalityGroupReader[size];
 
-        for (int i = 0; i < size; i++) {
-          LocalityGroupMetadata lgm = new LocalityGroupMetadata(ver, rdr);
-          lgm.readFields(mb);
-          localityGroups.add(lgm);
+      deepCopies = new LinkedList<>();
 
-          currentReaders[i] = new LocalityGroupReader(reader, lgm, ver);
-        }
+      for (int i = 0; i < size; i++) {
+        LocalityGroupMetadata lgm = index.localityGroups.get(i);
+        if (shared)
+          lgm = new LocalityGroupMetadata(lgm, rdr);
+        localityGroups.add(lgm);
 
-        readers = currentReaders;
+        currentReaders[i] = new LocalityGroupReader(reader, lgm, ver);
+      }
 
-        if (ver == RINDEX_VER_8 && mb.readBoolean()) {
-          sampleReaders = new LocalityGroupReader[size];
+      readers = currentReaders;
 
-          for (int i = 0; i < size; i++) {
-            LocalityGroupMetadata lgm = new LocalityGroupMetadata(ver, rdr);
-            lgm.readFields(mb);
-            sampleGroups.add(lgm);
+      if (index.sampleGroups != null) {
+        sampleReaders = new LocalityGroupReader[size];
 
-            sampleReaders[i] = new LocalityGroupReader(reader, lgm, ver);
-          }
+        for (int i = 0; i < size; i++) {
+          LocalityGroupMetadata lgm = index.sampleGroups.get(i);
+          if (shared)
+            lgm = new LocalityGroupMetadata(lgm, rdr);
+          sampleGroups.add(lgm);
 
-          samplerConfig = new SamplerConfigurationImpl(mb);
-        } else {
-          sampleReaders = null;
-          samplerConfig = null;
+          sampleReaders[i] = new LocalityGroupReader(reader, lgm, ver);
         }
 
-      } finally {
-        mb.close();
+        samplerConfig = index.samplerConfig;
+      } else {
+        sampleReaders = null;
+        samplerConfig = null;
       }
 
       lgContext = new LocalityGroupContext(currentReaders);
@@ -1224,9 +1388,11 @@ public class RFile {
       this.sampleReaders = r.sampleReaders;
       this.samplerConfig = r.samplerConfig;
       this.rfileVersion = r.rfileVersion;
+      this.keyFilter = r.keyFilter;
       for (int i = 0; i < sampleReaders.length; i++) {
         this.currentReaders[i] = sampleReaders[i];
         this.currentReaders[i].setInterruptFlag(r.interruptFlag);
+        this.currentReaders[i].setKeyFilter(r.keyFilter);
       }
       this.lgContext = new LocalityGroupContext(currentReaders);
     }
@@ -1241,6 +1407,7 @@ public class RFile {
       this.rfileVersion = r.rfileVersion;
       this.readers = r.readers;
       this.sampleReaders = r.sampleReaders;
+      this.keyFilter = r.keyFilter;
 
       for (int i = 0; i < r.readers.length; i++) {
         if (useSample) {
@@ -1250,7 +1417,7 @@ public class RFile {
           this.currentReaders[i] = new LocalityGroupReader(r.readers[i]);
           this.currentReaders[i].setInterruptFlag(r.interruptFlag);
         }
-
+        this.currentReaders[i].setKeyFilter(r.keyFilter);
       }
       this.lgContext = new LocalityGroupContext(currentReaders);
     }
@@ -1521,6 +1688,22 @@ public class RFile {
       }
     }
 
+    /**
+     * Skips entries the filter does not accept before a Key or Value is created for them. The
+     * filter sees the fields of each entry as views over the block being read, which lets a scan
+     * that drops most entries avoid copying them. Deep copies made after this is called use the
+     * same filter.
+     *
+     * @param filter
+     *          the entries to return, or null to return all entries
+     */
+    public void setKeyFilter(Predicate<KeyView> filter) {
+      this.keyFilter = filter;
+      for (LocalityGroupReader lgr : currentReaders) {
+        lgr.setKeyFilter(filter);
+      }
+    }
+
     @Override
     public void setCacheProvider(CacheProvider cacheProvider) {
       reader.setCacheProvider(cacheProvider);
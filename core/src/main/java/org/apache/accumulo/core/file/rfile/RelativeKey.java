@@ -20,16 +20,18 @@ package org.apache.accumulo.core.file.rfile;
 
 import java.io.DataInput;
 import java.io.DataOutput;
+import java.io.EOFException;
 import java.io.IOException;
 
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile.CachedBlockRead;
 import org.apache.accumulo.core.util.MutableByteSequence;
 import org.apache.accumulo.core.util.UnsynchronizedBuffer;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableUtils;
 
-public class RelativeKey implements Writable {
+public class RelativeKey implements Writable, KeyView {
 
   private static final byte BIT = 0x01;
 
@@ -67,6 +69,14 @@ public class RelativeKey implements Writable {
   int cvCommonPrefixLen;
   long tsDiff;
 
+  // The key decoded by readView, only turned into a Key when getKey() is called
+  private ViewField rowView;
+  private ViewField cfView;
+  private ViewField cqView;
+  private ViewField cvView;
+  private long viewTs;
+  private boolean viewDeleted;
+
   /**
    * This constructor is used when one needs to read from an input stream
    */
@@ -221,6 +231,155 @@ public class RelativeKey implements Writable {
     this.prevKey = this.key;
   }
 
+  /**
+   * Makes key the current key, so the next {@link #readView(CachedBlockRead)} decodes relative to
+   * it.
+   */
+  public void setCurrentKey(Key key) {
+    if (rowView == null) {
+      rowView = new ViewField();
+      cfView = new ViewField();
+      cqView = new ViewField();
+      cvView = new ViewField();
+    }
+    rowView.set(key.getRowData());
+    cfView.set(key.getColumnFamilyData());
+    cqView.set(key.getColumnQualifierData());
+    cvView.set(key.getColumnVisibilityData());
+    viewTs = key.getTimestamp();
+    viewDeleted = key.isDeleted();
+    this.key = key;
+    this.prevKey = key;
+  }
+
+  /**
+   * Decodes the next key like {@link #readFields(DataInput)} without creating a Key for it. Fields
+   * stored whole are left as views over the block when the block is backed by an array, prefixed
+   * fields and fields read from a stream are assembled in scratch buffers owned by this object. The
+   * fields can be read through {@link KeyView} until the next call, {@link #getKey()} copies them
+   * into a Key that can be kept. {@link #setCurrentKey(Key)} must be called before the first call
+   * and keys can not be read with {@link #readFields(DataInput)} after it.
+   */
+  public void readView(CachedBlockRead in) throws IOException {
+    fieldsSame = in.readByte();
+    if ((fieldsSame & PREFIX_COMPRESSION_ENABLED) == PREFIX_COMPRESSION_ENABLED) {
+      fieldsPrefixed = in.readByte();
+    } else {
+      fieldsPrefixed = 0;
+    }
+
+    if ((fieldsSame & ROW_SAME) != ROW_SAME)
+      rowView.read(in, (fieldsPrefixed & ROW_COMMON_PREFIX) == ROW_COMMON_PREFIX);
+
+    if ((fieldsSame & CF_SAME) != CF_SAME)
+      cfView.read(in, (fieldsPrefixed & CF_COMMON_PREFIX) == CF_COMMON_PREFIX);
+
+    if ((fieldsSame & CQ_SAME) != CQ_SAME)
+      cqView.read(in, (fieldsPrefixed & CQ_COMMON_PREFIX) == CQ_COMMON_PREFIX);
+
+    if ((fieldsSame & CV_SAME) != CV_SAME)
+      cvView.read(in, (fieldsPrefixed & CV_COMMON_PREFIX) == CV_COMMON_PREFIX);
+
+    if ((fieldsSame & TS_SAME) == TS_SAME) {
+      // same, nothing to read
+    } else if ((fieldsPrefixed & TS_DIFF) == TS_DIFF) {
+      viewTs += WritableUtils.readVLong(in);
+    } else {
+      viewTs = WritableUtils.readVLong(in);
+    }
+
+    viewDeleted = (fieldsSame & DELETED) == DELETED;
+    key = null;
+    prevKey = null;
+  }
+
+  /**
+   * Reads a value into view the same way {@link #readView(CachedBlockRead)} reads a key field.
+   */
+  public static void readValueView(CachedBlockRead in, MutableByteSequence view,
+      MutableByteSequence scratch) throws IOException {
+    readOrView(in, in.readInt(), view, scratch);
+  }
+
+  private static void readOrView(CachedBlockRead in, int len, MutableByteSequence view,
+      MutableByteSequence scratch) throws IOException {
+    if (in.isIndexable()) {
+      if (len > in.available())
+        throw new EOFException();
+      int position = in.getPosition();
+      view.setArray(in.getBuffer(), position, len);
+      in.seek(position + len);
+    } else {
+      read(in, scratch, len);
+      view.setArray(scratch.getBackingArray(), 0, len);
+    }
+  }
+
+  /**
+   * Compares the current key to other the same way {@link Key#compareTo(Key)} does, without
+   * creating a Key for the current key.
+   */
+  public int compareTo(Key other) {
+    if (key != null)
+      return key.compareTo(other);
+
+    int result = rowView.compareTo(other.getRowData());
+    if (result != 0)
+      return result;
+
+    result = cfView.compareTo(other.getColumnFamilyData());
+    if (result != 0)
+      return result;
+
+    result = cqView.compareTo(other.getColumnQualifierData());
+    if (result != 0)
+      return result;
+
+    result = cvView.compareTo(other.getColumnVisibilityData());
+    if (result != 0)
+      return result;
+
+    // newer timestamps sort first
+    result = Long.compare(other.getTimestamp(), viewTs);
+    if (result != 0)
+      return result;
+
+    // deletes sort before puts with the same timestamp
+    if (viewDeleted)
+      return other.isDeleted() ? 0 : -1;
+    return other.isDeleted() ? 1 : 0;
+  }
+
+  /**
+   * A key field decoded by {@link #readView(CachedBlockRead)}. The field is either a view over the
+   * block or over one of two scratch buffers. A field is never decoded into the buffer it currently
+   * views, so the current value can supply the prefix of the next one.
+   */
+  private static class ViewField {
+    private final MutableByteSequence view = new MutableByteSequence(new byte[0], 0, 0);
+    private final MutableByteSequence scratch1 = new MutableByteSequence(new byte[64], 0, 0);
+    private final MutableByteSequence scratch2 = new MutableByteSequence(new byte[64], 0, 0);
+
+    void set(ByteSequence bs) {
+      view.setArray(bs.getBackingArray(), bs.offset(), bs.length());
+    }
+
+    void read(CachedBlockRead in, boolean prefixed) throws IOException {
+      MutableByteSequence dest =
+          view.getBackingArray() == scratch1.getBackingArray() ? scratch2 : scratch1;
+      if (prefixed) {
+        readPrefix(in, dest, view);
+        set(dest);
+      } else {
+        readOrView(in, WritableUtils.readVInt(in), view, dest);
+      }
+    }
+
+    int compareTo(ByteSequence other) {
+      return view.compareTo(other);
+    }
+  }
+
   public static class SkippR {
     RelativeKey rk;
     int skipped;
@@ -233,12 +392,38 @@ public class RelativeKey implements Writable {
     }
   }
 
+  /**
+   * Scratch space that {@link #fastSkip} decodes keys into. Keys returned by fastSkip are always
+   * copied out of these buffers, so a reader can reuse one instance for all of its seeks instead of
+   * allocating new buffers for each seek.
+   */
+  public static class SkipBuffers {
+    private final MutableByteSequence row = newBuffer();
+    private final MutableByteSequence cf = newBuffer();
+    private final MutableByteSequence cq = newBuffer();
+    private final MutableByteSequence cv = newBuffer();
+    private final MutableByteSequence prow = newBuffer();
+    private final MutableByteSequence pcf = newBuffer();
+    private final MutableByteSequence pcq = newBuffer();
+    private final MutableByteSequence pcv = newBuffer();
+
+    private static MutableByteSequence newBuffer() {
+      return new MutableByteSequence(new byte[64], 0, 0);
+    }
+  }
+
   public static SkippR fastSkip(DataInput in, Key seekKey, MutableByteSequence value, Key prevKey,
       Key currKey, int entriesLeft) throws IOException {
+    return fastSkip(in, seekKey, value, prevKey, currKey, entriesLeft, new SkipBuffers());
+  }
+
+  public static SkippR fastSkip(DataInput in, Key seekKey, MutableByteSequence value, Key prevKey,
+      Key currKey, int entriesLeft, SkipBuffers buffers) throws IOException {
     // this method mostly avoids object allocation and only does compares when the row changes
 
-    MutableByteSequence row, cf, cq, cv;
-    MutableByteSequence prow, pcf, pcq, pcv;
+    MutableByteSequence row = buffers.row, cf = buffers.cf, cq = buffers.cq, cv = buffers.cv;
+    MutableByteSequence prow = buffers.prow, pcf = buffers.pcf, pcq = buffers.pcq,
+        pcv = buffers.pcv;
 
     ByteSequence stopRow = seekKey.getRowData();
     ByteSequence stopCF = seekKey.getColumnFamilyData();
@@ -252,16 +437,16 @@ public class RelativeKey implements Writable {
 
     if (currKey != null) {
 
-      prow = new MutableByteSequence(currKey.getRowData());
-      pcf = new MutableByteSequence(currKey.getColumnFamilyData());
-      pcq = new MutableByteSequence(currKey.getColumnQualifierData());
-      pcv = new MutableByteSequence(currKey.getColumnVisibilityData());
+      copy(currKey.getRowData(), prow);
+      copy(currKey.getColumnFamilyData(), pcf);
+      copy(currKey.getColumnQualifierData(), pcq);
+      copy(currKey.getColumnVisibilityData(), pcv);
       pts = currKey.getTimestamp();
 
-      row = new MutableByteSequence(currKey.getRowData());
-      cf = new MutableByteSequence(currKey.getColumnFamilyData());
-      cq = new MutableByteSequence(currKey.getColumnQualifierData());
-      cv = new MutableByteSequence(currKey.getColumnVisibilityData());
+      copy(currKey.getRowData(), row);
+      copy(currKey.getColumnFamilyData(), cf);
+      copy(currKey.getColumnQualifierData(), cq);
+      copy(currKey.getColumnVisibilityData(), cv);
       ts = currKey.getTimestamp();
 
       rowCmp = row.compareTo(stopRow);
@@ -291,15 +476,15 @@ public class RelativeKey implements Writable {
       }
 
     } else {
-      row = new MutableByteSequence(new byte[64], 0, 0);
-      cf = new MutableByteSequence(new byte[64], 0, 0);
-      cq = new MutableByteSequence(new byte[64], 0, 0);
-      cv = new MutableByteSequence(new byte[64], 0, 0);
-
-      prow = new MutableByteSequence(new byte[64], 0, 0);
-      pcf = new MutableByteSequence(new byte[64], 0, 0);
-      pcq = new MutableByteSequence(new byte[64], 0, 0);
-      pcv = new MutableByteSequence(new byte[64], 0, 0);
+      row.setLength(0);
+      cf.setLength(0);
+      cq.setLength(0);
+      cv.setLength(0);
+
+      prow.setLength(0);
+      pcf.setLength(0);
+      pcq.setLength(0);
+      pcv.setLength(0);
     }
 
     byte fieldsSame = -1;
@@ -440,6 +625,14 @@ public class RelativeKey implements Writable {
     return new SkippR(result, count, newPrevKey);
   }
 
+  private static void copy(ByteSequence src, MutableByteSequence dest) {
+    if (dest.getBackingArray().length < src.length()) {
+      dest.setArray(new byte[UnsynchronizedBuffer.nextArraySize(src.length())], 0, 0);
+    }
+    System.arraycopy(src.getBackingArray(), src.offset(), dest.getBackingArray(), 0, src.length());
+    dest.setLength(src.length());
+  }
+
   private static void read(DataInput in, MutableByteSequence mbseq) throws IOException {
     int len = WritableUtils.readVInt(in);
     read(in, mbseq, len);
@@ -502,10 +695,59 @@ public class RelativeKey implements Writable {
     return data;
   }
 
+  /**
+   * Returns the current key. After {@link #readView(CachedBlockRead)} the first call copies the
+   * decoded fields into a new Key, later calls return the same Key until the next read.
+   */
   public Key getKey() {
+    if (key == null && rowView != null) {
+      ByteSequence row = rowView.view, cf = cfView.view, cq = cqView.view, cv = cvView.view;
+      key = new Key(row.getBackingArray(), row.offset(), row.length(), cf.getBackingArray(),
+          cf.offset(), cf.length(), cq.getBackingArray(), cq.offset(), cq.length(),
+          cv.getBackingArray(), cv.offset(), cv.length(), viewTs);
+      key.setDeleted(viewDeleted);
+      prevKey = key;
+    }
+    return key;
+  }
+
+  /**
+   * @return the current key if {@link #getKey()} already created it, otherwise null
+   */
+  Key getKeyIfCreated() {
     return key;
   }
 
+  @Override
+  public ByteSequence getRowData() {
+    return rowView != null ? rowView.view : key.getRowData();
+  }
+
+  @Override
+  public ByteSequence getColumnFamilyData() {
+    return cfView != null ? cfView.view : key.getColumnFamilyData();
+  }
+
+  @Override
+  public ByteSequence getColumnQualifierData() {
+    return cqView != null ? cqView.view : key.getColumnQualifierData();
+  }
+
+  @Override
+  public ByteSequence getColumnVisibilityData() {
+    return cvView != null ? cvView.view : key.getColumnVisibilityData();
+  }
+
+  @Override
+  public long getTimestamp() {
+    return rowView != null ? viewTs : key.getTimestamp();
+  }
+
+  @Override
+  public boolean isDeleted() {
+    return rowView != null ? viewDeleted : key.isDeleted();
+  }
+
   private static void write(DataOutput out, ByteSequence bs) throws IOException {
     WritableUtils.writeVInt(out, bs.length());
     out.write(bs.getBackingArray(), bs.offset(), bs.length());
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.iteratorsImpl.system;
+
+import java.io.IOException;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+
+/**
+ * An optional extension of {@link SortedKeyValueIterator} for system iterators that can hand out
+ * many entries per call. Reading a batch at a time lets a stack of system iterators filter entries
+ * in tight loops over arrays instead of making several virtual calls per entry at every level.
+ *
+ * <p>
+ * Only system iterators implement this. Use {@link KVBatch#fill(SortedKeyValueIterator, KVBatch)}
+ * to read from a source, it falls back to per entry calls for any other iterator.
+ */
+public interface BatchingIterator extends SortedKeyValueIterator<Key,Value> {
+
+  /**
+   * Adds entries to the batch starting with the current top entry, until the batch is full or this
+   * iterator has no more entries. Afterwards this iterator is positioned on the first entry that
+   * was not added, exactly as if {@link #next()} had been called once per entry read.
+   *
+   * <p>
+   * Filtering iterators may read past entries they reject, so this can return zero while
+   * {@link #hasTop()} is still true. Unlike {@link #getTopKey()} and {@link #getTopValue()}, the
+   * keys and values added to the batch are never reused by the iterator and callers may keep them.
+   *
+   * @return the number of entries added to the batch
+   */
+  int nextBatch(KVBatch batch) throws IOException;
+}
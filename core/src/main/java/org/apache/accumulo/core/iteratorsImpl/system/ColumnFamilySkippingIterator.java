@@ -35,7 +35,7 @@ import org.apache.accumulo.core.iterators.ServerSkippingIterator;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 
 public class ColumnFamilySkippingIterator extends ServerSkippingIterator
-    implements InterruptibleIterator {
+    implements InterruptibleIterator, BatchingIterator {
 
   protected Set<ByteSequence> colFamSet = null;
   protected TreeSet<ByteSequence> sortedColFams = null;
@@ -92,6 +92,16 @@ public class ColumnFamilySkippingIterator extends ServerSkippingIterator
       }
   }
 
+  @Override
+  public int nextBatch(KVBatch batch) throws IOException {
+    if (!inclusive && (colFamSet == null || colFamSet.isEmpty())) {
+      // nothing is skipped, so entries can be passed through in bulk
+      return KVBatch.fill(source, batch);
+    }
+    // skipping may seek the source, so read an entry at a time
+    return KVBatch.fillEntries(this, batch);
+  }
+
   private void reseek(Key key) throws IOException {
     if (range.afterEndKey(key)) {
       range = new Range(range.getEndKey(), true, range.getEndKey(), range.isEndKeyInclusive());
@@ -34,7 +34,7 @@ import org.apache.accumulo.core.iterators.IteratorUtil;
 import org.apache.accumulo.core.iterators.ServerWrappingIterator;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 
-public class DeletingIterator extends ServerWrappingIterator {
+public class DeletingIterator extends ServerWrappingIterator implements BatchingIterator {
   private boolean propogateDeletes;
   private Key workKey = new Key();
 
@@ -87,6 +87,38 @@ public class DeletingIterator extends ServerWrappingIterator {
     }
   }
 
+  @Override
+  public int nextBatch(KVBatch batch) throws IOException {
+    int start = batch.size();
+    KVBatch.fill(source, batch);
+
+    // Applies the same rules as next() across the batch. A delete hides the entries after it in
+    // the same column and is only kept when deletes are propagated. The current top was already
+    // positioned by findTop(), so it is never hidden.
+    Key[] skip = new Key[1];
+    int added = batch.retain(start, (k, v) -> {
+      if (skip[0] != null && k.equals(skip[0], PartialKey.ROW_COLFAM_COLQUAL_COLVIS)) {
+        return false;
+      }
+      skip[0] = null;
+      if (k.isDeleted()) {
+        skip[0] = k;
+        return propogateDeletes;
+      }
+      return true;
+    });
+
+    // the column hidden by the last delete may continue past the end of the batch
+    if (skip[0] != null) {
+      while (source.hasTop()
+          && source.getTopKey().equals(skip[0], PartialKey.ROW_COLFAM_COLQUAL_COLVIS)) {
+        source.next();
+      }
+    }
+    findTop();
+    return added;
+  }
+
   private void findTop() throws IOException {
     if (!propogateDeletes) {
       while (source.hasTop() && source.getTopKey().isDeleted()) {
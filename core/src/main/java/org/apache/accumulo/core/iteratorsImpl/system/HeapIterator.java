@@ -29,7 +29,7 @@ import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
  * Constructs a {@link PriorityQueue} of multiple SortedKeyValueIterators. Provides a simple way to
  * interact with multiple SortedKeyValueIterators in sorted order.
  */
-public abstract class HeapIterator implements SortedKeyValueIterator<Key,Value> {
+public abstract class HeapIterator implements BatchingIterator {
   private PriorityQueue<SortedKeyValueIterator<Key,Value>> heap;
   private SortedKeyValueIterator<Key,Value> topIdx = null;
   private Key nextKey;
@@ -99,6 +99,19 @@ public abstract class HeapIterator implements SortedKeyValueIterator<Key,Value>
     }
   }
 
+  @Override
+  public int nextBatch(KVBatch batch) throws IOException {
+    if (topIdx != null && nextKey == null && topIdx instanceof BatchingIterator) {
+      // only one source has data left, so there is nothing to merge
+      int added = ((BatchingIterator) topIdx).nextBatch(batch);
+      if (!topIdx.hasTop()) {
+        topIdx = null;
+      }
+      return added;
+    }
+    return KVBatch.fillEntries(this, batch);
+  }
+
   private void pullReferencesFromHeap() {
     topIdx = heap.remove();
     if (!heap.isEmpty()) {
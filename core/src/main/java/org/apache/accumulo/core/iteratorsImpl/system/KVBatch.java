@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.iteratorsImpl.system;
+
+import java.io.IOException;
+import java.util.function.BiPredicate;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A fixed capacity buffer of key value pairs passed down a stack of {@link BatchingIterator}s. Keys
+ * and values are held in parallel arrays so filters can work over a batch in a simple loop.
+ */
+public class KVBatch {
+
+  private final Key[] keys;
+  private final Value[] values;
+  private int size = 0;
+
+  public KVBatch(int capacity) {
+    Preconditions.checkArgument(capacity > 0, "capacity must be positive : %s", capacity);
+    this.keys = new Key[capacity];
+    this.values = new Value[capacity];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int capacity() {
+    return keys.length;
+  }
+
+  public boolean isFull() {
+    return size == keys.length;
+  }
+
+  public Key getKey(int i) {
+    Preconditions.checkElementIndex(i, size);
+    return keys[i];
+  }
+
+  public Value getValue(int i) {
+    Preconditions.checkElementIndex(i, size);
+    return values[i];
+  }
+
+  public void add(Key key, Value value) {
+    keys[size] = key;
+    values[size] = value;
+    size++;
+  }
+
+  /**
+   * Removes all entries, dropping references to them so they can be garbage collected.
+   */
+  public void clear() {
+    truncate(0);
+  }
+
+  private void truncate(int newSize) {
+    for (int i = newSize; i < size; i++) {
+      keys[i] = null;
+      values[i] = null;
+    }
+    size = newSize;
+  }
+
+  /**
+   * Removes entries at or after {@code start} that are rejected, keeping the order of the rest.
+   * Entries are tested in order, so the predicate may carry state from one entry to the next.
+   *
+   * @return the number of entries at or after {@code start} that were kept
+   */
+  int retain(int start, BiPredicate<Key,Value> accept) {
+    int kept = start;
+    for (int i = start; i < size; i++) {
+      Key key = keys[i];
+      Value value = values[i];
+      if (accept.test(key, value)) {
+        keys[kept] = key;
+        values[kept] = value;
+        kept++;
+      }
+    }
+    truncate(kept);
+    return kept - start;
+  }
+
+  /**
+   * Fills the batch from an iterator, using {@link BatchingIterator#nextBatch(KVBatch)} when the
+   * source supports it and per entry calls otherwise.
+   *
+   * @return the number of entries added to the batch
+   */
+  public static int fill(SortedKeyValueIterator<Key,Value> source, KVBatch batch)
+      throws IOException {
+    if (source instanceof BatchingIterator) {
+      return ((BatchingIterator) source).nextBatch(batch);
+    }
+    return fillEntries(source, batch);
+  }
+
+  /**
+   * Fills the batch one entry at a time. The iterator may reuse the objects it returns, so each key
+   * and value is copied.
+   *
+   * @return the number of entries added to the batch
+   */
+  static int fillEntries(SortedKeyValueIterator<Key,Value> source, KVBatch batch)
+      throws IOException {
+    int start = batch.size;
+    while (!batch.isFull() && source.hasTop()) {
+      batch.add(new Key(source.getTopKey()), new Value(source.getTopValue()));
+      source.next();
+    }
+    return batch.size - start;
+  }
+
+  /**
+   * Advances the source to the next entry that is a delete or is accepted, the same way
+   * {@link org.apache.accumulo.core.iterators.ServerFilter} finds its top.
+   */
+  static void skipRejected(SortedKeyValueIterator<Key,Value> source,
+      BiPredicate<Key,Value> accept) throws IOException {
+    while (source.hasTop()) {
+      Key top = source.getTopKey();
+      if (top.isDeleted() || accept.test(top, source.getTopValue())) {
+        break;
+      }
+      source.next();
+    }
+  }
+}
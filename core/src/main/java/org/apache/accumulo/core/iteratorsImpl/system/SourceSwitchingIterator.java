@@ -42,7 +42,7 @@ import org.apache.accumulo.core.iterators.YieldCallback;
  * their scan when that data is minor compacted. This iterator is designed to manage this behind the
  * scene.
  */
-public class SourceSwitchingIterator implements InterruptibleIterator {
+public class SourceSwitchingIterator implements InterruptibleIterator, BatchingIterator {
 
   public interface DataSource {
     boolean isCurrent();
@@ -182,6 +182,32 @@ public class SourceSwitchingIterator implements InterruptibleIterator {
       }
     }
 
+    readTop();
+  }
+
+  @Override
+  public int nextBatch(KVBatch batch) throws IOException {
+    synchronized (copies) {
+      int start = batch.size();
+      while (key != null && !batch.isFull()) {
+        boolean yielded = yield.isPresent() && yield.get().hasYielded();
+        if (!onlySwitchAfterRow && !yielded && source.isCurrent()
+            && iter instanceof BatchingIterator) {
+          // iter is always positioned on the current top, so the batch can be read straight from
+          // it. Switching sources only needs to happen between entries, so checking once per
+          // batch is enough.
+          ((BatchingIterator) iter).nextBatch(batch);
+          readTop();
+        } else {
+          batch.add(key, new Value(val));
+          readNext(false);
+        }
+      }
+      return batch.size() - start;
+    }
+  }
+
+  private void readTop() throws IOException {
     if (iter.hasTop()) {
       if (yield.isPresent() && yield.get().hasYielded()) {
         throw new IOException("Coding error: hasTop returned true but has yielded at "
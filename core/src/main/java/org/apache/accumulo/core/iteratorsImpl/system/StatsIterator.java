@@ -30,7 +30,7 @@ import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.ServerWrappingIterator;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 
-public class StatsIterator extends ServerWrappingIterator {
+public class StatsIterator extends ServerWrappingIterator implements BatchingIterator {
 
   private int numRead = 0;
   private AtomicLong seekCounter;
@@ -54,6 +54,18 @@ public class StatsIterator extends ServerWrappingIterator {
     }
   }
 
+  @Override
+  public int nextBatch(KVBatch batch) throws IOException {
+    int added = KVBatch.fill(source, batch);
+    numRead += added;
+
+    if (numRead >= 23) {
+      readCounter.addAndGet(numRead);
+      numRead = 0;
+    }
+    return added;
+  }
+
   @Override
   public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
     return new StatsIterator(source.deepCopy(env), seekCounter, readCounter);
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.iteratorsImpl.system;
+
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.security.VisibilityParseException;
+import org.apache.accumulo.core.securityImpl.CompiledVisibility;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * A bounded, concurrent cache of visibility evaluation results shared by all the
+ * {@link VisibilityFilter}s in a process. Results are keyed by authorizations and visibility
+ * expression, so scans with the same authorizations share work. Compiled expressions are cached
+ * separately so a result miss for new authorizations does not parse the expression again.
+ */
+public class VisibilityCache {
+
+  public static final long DEFAULT_MAX_SIZE = 100_000;
+
+  private static final VisibilityCache SHARED = new VisibilityCache(DEFAULT_MAX_SIZE);
+
+  private final Cache<ByteSequence,CompiledVisibility> compiled;
+  private final Cache<ResultKey,Boolean> results;
+
+  public VisibilityCache(long maxSize) {
+    compiled = Caffeine.newBuilder().maximumSize(maxSize).build();
+    results = Caffeine.newBuilder().maximumSize(maxSize).recordStats().build();
+  }
+
+  /**
+   * @return the cache shared by all scans in this process
+   */
+  public static VisibilityCache getInstance() {
+    return SHARED;
+  }
+
+  /**
+   * Changes the maximum number of entries kept, evicting entries if the cache is now too large.
+   */
+  public void setMaximumSize(long maxSize) {
+    compiled.policy().eviction().ifPresent(e -> e.setMaximum(maxSize));
+    results.policy().eviction().ifPresent(e -> e.setMaximum(maxSize));
+  }
+
+  /**
+   * @return number of evaluation results found in the cache since it was created
+   */
+  public long getHitCount() {
+    return results.stats().hitCount();
+  }
+
+  /**
+   * @return number of evaluation results not found in the cache since it was created
+   */
+  public long getMissCount() {
+    return results.stats().missCount();
+  }
+
+  /**
+   * @return ratio of evaluation results found in the cache, or 1.0 if there were no lookups
+   */
+  public double getHitRate() {
+    return results.stats().hitRate();
+  }
+
+  /**
+   * @return an evaluator bound to the given authorizations that reads through this cache
+   */
+  public Evaluator evaluator(Authorizations authorizations) {
+    return new Evaluator(authorizations);
+  }
+
+  public class Evaluator {
+    private final Authorizations authorizations;
+    private final int authsHash;
+
+    private Evaluator(Authorizations authorizations) {
+      this.authorizations = authorizations;
+      this.authsHash = authorizations.hashCode();
+    }
+
+    /**
+     * Evaluates the visibility against the authorizations of this evaluator. The visibility is
+     * copied before it is cached, so it may be backed by a buffer that is later reused.
+     *
+     * @throws org.apache.accumulo.core.util.BadArgumentException
+     *           if the visibility can not be parsed
+     * @throws VisibilityParseException
+     *           if the visibility has a malformed AND or OR subexpression
+     */
+    public boolean evaluate(ByteSequence visibility) throws VisibilityParseException {
+      Boolean result = results.getIfPresent(new ResultKey(authorizations, authsHash, visibility));
+      if (result != null)
+        return result;
+
+      ByteSequence copy = new ArrayByteSequence(visibility.toArray());
+      CompiledVisibility cv = compiled.getIfPresent(copy);
+      if (cv == null) {
+        cv = CompiledVisibility.compile(copy.toArray());
+        compiled.put(copy, cv);
+      }
+
+      boolean bb = cv.evaluate(authorizations);
+      results.put(new ResultKey(authorizations, authsHash, copy), bb);
+      return bb;
+    }
+  }
+
+  private static class ResultKey {
+    private final Authorizations authorizations;
+    private final ByteSequence visibility;
+    private final int hash;
+
+    ResultKey(Authorizations authorizations, int authsHash, ByteSequence visibility) {
+      this.authorizations = authorizations;
+      this.visibility = visibility;
+      this.hash = 31 * authsHash + visibility.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o instanceof ResultKey) {
+        ResultKey ork = (ResultKey) o;
+        return hash == ork.hash && visibility.equals(ork.visibility)
+            && (authorizations == ork.authorizations
+                || authorizations.equals(ork.authorizations));
+      }
+      return false;
+    }
+  }
+}
@@ -18,6 +18,8 @@
  */
 package org.apache.accumulo.core.iteratorsImpl.system;
 
+import java.io.IOException;
+
 import org.apache.accumulo.core.data.ArrayByteSequence;
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
@@ -26,8 +28,6 @@ import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 import org.apache.accumulo.core.iterators.SynchronizedServerFilter;
 import org.apache.accumulo.core.security.Authorizations;
-import org.apache.accumulo.core.security.ColumnVisibility;
-import org.apache.accumulo.core.security.VisibilityEvaluator;
 import org.apache.accumulo.core.security.VisibilityParseException;
 import org.apache.accumulo.core.util.BadArgumentException;
 import org.apache.commons.collections4.map.LRUMap;
@@ -41,9 +41,13 @@ import org.slf4j.LoggerFactory;
  * of the iterator stack in {@link org.apache.accumulo.core.iterators.IteratorUtil}
  * .loadIterators(). For performance reasons, the synchronization was pushed down the stack to this
  * class.
+ *
+ * <p>
+ * Each filter keeps a small cache of its own in front of the process wide
+ * {@link VisibilityCache}, which is shared with every other scan.
  */
-public class VisibilityFilter extends SynchronizedServerFilter {
-  protected VisibilityEvaluator ve;
+public class VisibilityFilter extends SynchronizedServerFilter implements BatchingIterator {
+  protected VisibilityCache.Evaluator ve;
   protected ByteSequence defaultVisibility;
   protected LRUMap<ByteSequence,Boolean> cache;
   protected Authorizations authorizations;
@@ -53,7 +57,7 @@ public class VisibilityFilter extends SynchronizedServerFilter {
   private VisibilityFilter(SortedKeyValueIterator<Key,Value> iterator,
       Authorizations authorizations, byte[] defaultVisibility) {
     super(iterator);
-    this.ve = new VisibilityEvaluator(authorizations);
+    this.ve = VisibilityCache.getInstance().evaluator(authorizations);
     this.authorizations = authorizations;
     this.defaultVisibility = new ArrayByteSequence(defaultVisibility);
     this.cache = new LRUMap<>(1000);
@@ -64,6 +68,14 @@ public class VisibilityFilter extends SynchronizedServerFilter {
     return new VisibilityFilter(source.deepCopy(env), authorizations, defaultVisibility.toArray());
   }
 
+  @Override
+  public synchronized int nextBatch(KVBatch batch) throws IOException {
+    int start = batch.size();
+    KVBatch.fill(source, batch);
+    KVBatch.skipRejected(source, this::accept);
+    return batch.retain(start, (k, v) -> k.isDeleted() || accept(k, v));
+  }
+
   @Override
   protected boolean accept(Key k, Value v) {
     ByteSequence testVis = k.getColumnVisibilityData();
@@ -78,7 +90,7 @@ public class VisibilityFilter extends SynchronizedServerFilter {
       return b;
 
     try {
-      boolean bb = ve.evaluate(new ColumnVisibility(testVis.toArray()));
+      boolean bb = ve.evaluate(testVis);
       cache.put(testVis, bb);
       return bb;
     } catch (VisibilityParseException e) {
@@ -90,7 +102,8 @@ public class VisibilityFilter extends SynchronizedServerFilter {
     }
   }
 
-  private static class EmptyAuthsVisibilityFilter extends SynchronizedServerFilter {
+  private static class EmptyAuthsVisibilityFilter extends SynchronizedServerFilter
+      implements BatchingIterator {
 
     public EmptyAuthsVisibilityFilter(SortedKeyValueIterator<Key,Value> source) {
       super(source);
@@ -101,6 +114,14 @@ public class VisibilityFilter extends SynchronizedServerFilter {
       return new EmptyAuthsVisibilityFilter(source.deepCopy(env));
     }
 
+    @Override
+    public synchronized int nextBatch(KVBatch batch) throws IOException {
+      int start = batch.size();
+      KVBatch.fill(source, batch);
+      KVBatch.skipRejected(source, this::accept);
+      return batch.retain(start, (k, v) -> k.isDeleted() || accept(k, v));
+    }
+
     @Override
     protected boolean accept(Key k, Value v) {
       return k.getColumnVisibilityData().length() == 0;
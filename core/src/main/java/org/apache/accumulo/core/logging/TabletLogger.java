@@ -104,6 +104,11 @@ public class TabletLogger {
     fileLog.debug("Compacted {} created {} from {}", extent, output, inputs);
   }
 
+  public static void compacted(KeyExtent extent, Collection<? extends TabletFile> inputs,
+      Collection<? extends TabletFile> outputs) {
+    fileLog.debug("Compacted {} created {} from {}", extent, outputs, inputs);
+  }
+
   public static void flushed(KeyExtent extent, TabletFile absMergeFile, TabletFile newDatafile) {
     if (absMergeFile == null)
       fileLog.debug("Flushed {} created {} from [memory]", extent, newDatafile);
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.metadata;
+
+import java.io.IOException;
+import java.util.Collection;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.WrappingIterator;
+
+/**
+ * Returns only the first entry of each seeked range. Placed above a
+ * {@link org.apache.accumulo.core.iterators.user.WholeRowIterator} on a metadata scan, it returns
+ * the first tablet at or after the start of each range. Since a tablet's metadata row is its end
+ * row, that is the tablet containing the start row, which lets a single batched lookup find the
+ * tablets for many rows.
+ */
+public class FirstTabletIterator extends WrappingIterator {
+
+  private boolean returned;
+
+  public FirstTabletIterator() {}
+
+  private FirstTabletIterator(FirstTabletIterator other, IteratorEnvironment env) {
+    setSource(other.getSource().deepCopy(env));
+  }
+
+  @Override
+  public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
+    return new FirstTabletIterator(this, env);
+  }
+
+  @Override
+  public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive)
+      throws IOException {
+    super.seek(range, columnFamilies, inclusive);
+    returned = false;
+  }
+
+  @Override
+  public boolean hasTop() {
+    return !returned && super.hasTop();
+  }
+
+  @Override
+  public void next() throws IOException {
+    returned = true;
+  }
+}
@@ -163,12 +163,31 @@ public class MetadataLocationObtainer implements TabletLocationObtainer {
       addScanIterator(new IteratorSetting(10000, "WRI", WholeRowIterator.class.getName()));
       return this;
     }
+
+    public ScannerOptions setFirstTabletOnly() {
+      // must run after the whole row iterator, so that it sees entire rows
+      addScanIterator(new IteratorSetting(10001, "FTI", FirstTabletIterator.class.getName()));
+      return this;
+    }
   }
 
   @Override
   public List<TabletLocation> lookupTablets(ClientContext context, String tserver,
       Map<KeyExtent,List<Range>> tabletsRanges, TabletLocator parent)
       throws AccumuloSecurityException, AccumuloException {
+    return lookupTablets(context, tserver, tabletsRanges, parent, false);
+  }
+
+  @Override
+  public List<TabletLocation> lookupFirstTablets(ClientContext context, String tserver,
+      Map<KeyExtent,List<Range>> tabletsRanges, TabletLocator parent)
+      throws AccumuloSecurityException, AccumuloException {
+    return lookupTablets(context, tserver, tabletsRanges, parent, true);
+  }
+
+  private List<TabletLocation> lookupTablets(ClientContext context, String tserver,
+      Map<KeyExtent,List<Range>> tabletsRanges, TabletLocator parent, boolean firstOnly)
+      throws AccumuloSecurityException, AccumuloException {
 
     final TreeMap<Key,Value> results = new TreeMap<>();
 
@@ -185,6 +204,9 @@ public class MetadataLocationObtainer implements TabletLocationObtainer {
     ScannerOptions opts = null;
     try (SettableScannerOptions unsetOpts = new SettableScannerOptions()) {
       opts = unsetOpts.setColumns(locCols);
+      if (firstOnly) {
+        opts = unsetOpts.setFirstTabletOnly();
+      }
     }
 
     Map<KeyExtent,List<Range>> unscanned = new HashMap<>();
@@ -377,4 +377,42 @@ public class MetadataSchema {
     }
   }
 
+  /**
+   * Holds FATE transactions when the master keeps them in the metadata table
+   *
+   * <pre>
+   * <code>
+   * ~fatetx_0123456789abcdef status: [] -&gt; IN_PROGRESS
+   * ~fatetx_0123456789abcdef reservation: [] -&gt; reservation id
+   * ~fatetx_0123456789abcdef repo:001_0123456789abcdef [] -&gt; serialized repo
+   * ~fatetx_0123456789abcdef prop:name [] -&gt; property value
+   * </code>
+   * </pre>
+   */
+  public static class FateSection {
+    private static final Section section =
+        new Section(RESERVED_PREFIX + "fate", true, RESERVED_PREFIX + "fatf", false);
+
+    public static final Text STATUS_COLF = new Text("status");
+    public static final Text RESERVATION_COLF = new Text("reservation");
+    public static final Text REPO_COLF = new Text("repo");
+    public static final Text PROP_COLF = new Text("prop");
+
+    public static Range getRange() {
+      return section.getRange();
+    }
+
+    public static String getRowPrefix() {
+      return section.getRowPrefix();
+    }
+
+    public static String encodeRow(long tid) {
+      return String.format("%stx_%016x", section.getRowPrefix(), tid);
+    }
+
+    public static long decodeRow(String row) {
+      return Long.parseLong(row.substring(section.getRowPrefix().length() + 3), 16);
+    }
+  }
+
 }
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.securityImpl;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.security.AuthorizationContainer;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.accumulo.core.security.ColumnVisibility.Node;
+import org.apache.accumulo.core.security.VisibilityEvaluator;
+import org.apache.accumulo.core.security.VisibilityParseException;
+
+/**
+ * A column visibility expression compiled into a form that can be evaluated against many sets of
+ * authorizations without parsing it again. Terms are unescaped and copied out of the expression
+ * when compiling, and malformed AND and OR nodes are rejected up front, so evaluation only does
+ * the {@link AuthorizationContainer#contains(ByteSequence)} lookups.
+ *
+ * <p>
+ * Evaluation gives the same answer as {@link VisibilityEvaluator#evaluate(ColumnVisibility)} for
+ * the same expression and authorizations.
+ */
+public abstract class CompiledVisibility {
+
+  /**
+   * Always passes evaluation; the compiled form of an empty expression.
+   */
+  public static final CompiledVisibility EMPTY = new CompiledVisibility() {
+    @Override
+    public boolean evaluate(AuthorizationContainer auths) {
+      return true;
+    }
+  };
+
+  /**
+   * Checks whether the given authorizations satisfy this expression.
+   *
+   * @param auths
+   *          authorizations, in their unescaped form
+   */
+  public abstract boolean evaluate(AuthorizationContainer auths);
+
+  /**
+   * Parses and compiles a visibility expression.
+   *
+   * @param expression
+   *          visibility expression, encoded as UTF-8 bytes
+   * @throws org.apache.accumulo.core.util.BadArgumentException
+   *           if the expression can not be parsed
+   * @throws VisibilityParseException
+   *           if an AND or OR subexpression has less than two children
+   */
+  public static CompiledVisibility compile(byte[] expression) throws VisibilityParseException {
+    return compile(new ColumnVisibility(expression));
+  }
+
+  /**
+   * Compiles an already parsed visibility expression.
+   *
+   * @throws VisibilityParseException
+   *           if an AND or OR subexpression has less than two children
+   */
+  public static CompiledVisibility compile(ColumnVisibility visibility)
+      throws VisibilityParseException {
+    byte[] expression = visibility.getExpression();
+    if (expression.length == 0)
+      return EMPTY;
+    return compile(expression, visibility.getParseTree());
+  }
+
+  private static CompiledVisibility compile(byte[] expression, Node node)
+      throws VisibilityParseException {
+    switch (node.getType()) {
+      case TERM:
+        return new Term(unescape(node.getTerm(expression)));
+      case AND:
+      case OR:
+        List<Node> children = node.getChildren();
+        if (children == null || children.size() < 2)
+          throw new VisibilityParseException(node.getType() + " has less than 2 children",
+              expression, node.getTermStart());
+        CompiledVisibility[] compiled = new CompiledVisibility[children.size()];
+        for (int i = 0; i < compiled.length; i++)
+          compiled[i] = compile(expression, children.get(i));
+        return node.getType() == ColumnVisibility.NodeType.AND ? new And(compiled)
+            : new Or(compiled);
+      default:
+        throw new VisibilityParseException("No such node type", expression, node.getTermStart());
+    }
+  }
+
+  /**
+   * Same as the unescaping done by {@link VisibilityEvaluator}, but always returns a copy so the
+   * compiled form does not hold on to the expression.
+   */
+  private static ByteSequence unescape(ByteSequence term) {
+    byte[] unescaped = new byte[term.length()];
+    int pos = 0;
+    for (int i = 0; i < term.length(); i++) {
+      byte b = term.byteAt(i);
+      if (b == '\\') {
+        i++;
+        if (i == term.length() || (term.byteAt(i) != '"' && term.byteAt(i) != '\\'))
+          throw new IllegalArgumentException("Illegal escape sequence in auth : " + term);
+        b = term.byteAt(i);
+      } else if (b == '"') {
+        throw new IllegalArgumentException("Illegal escape sequence in auth : " + term);
+      }
+      unescaped[pos++] = b;
+    }
+    return new ArrayByteSequence(
+        pos == unescaped.length ? unescaped : Arrays.copyOf(unescaped, pos));
+  }
+
+  private static class Term extends CompiledVisibility {
+    private final ByteSequence auth;
+
+    Term(ByteSequence auth) {
+      this.auth = auth;
+    }
+
+    @Override
+    public boolean evaluate(AuthorizationContainer auths) {
+      return auths.contains(auth);
+    }
+  }
+
+  private static class And extends CompiledVisibility {
+    private final CompiledVisibility[] children;
+
+    And(CompiledVisibility[] children) {
+      this.children = children;
+    }
+
+    @Override
+    public boolean evaluate(AuthorizationContainer auths) {
+      for (CompiledVisibility child : children)
+        if (!child.evaluate(auths))
+          return false;
+      return true;
+    }
+  }
+
+  private static class Or extends CompiledVisibility {
+    private final CompiledVisibility[] children;
+
+    Or(CompiledVisibility[] children) {
+      this.children = children;
+    }
+
+    @Override
+    public boolean evaluate(AuthorizationContainer auths) {
+      for (CompiledVisibility child : children)
+        if (child.evaluate(auths))
+          return true;
+      return false;
+    }
+  }
+}
@@ -43,32 +43,115 @@ public class Fate<T> {
   private static final String EXCEPTION_PROP = "exception";
   private static final String RETURN_PROP = "return";
 
+  // how long to defer a transaction when too many runners are running its repo type
+  private static final long TYPE_LIMIT_DEFER = 100;
+
   private static final Logger log = LoggerFactory.getLogger(Fate.class);
   private final Logger runnerLog = LoggerFactory.getLogger(TransactionRunner.class);
 
   private TStore<T> store;
   private T environment;
+  private RunnerListener listener;
   private ExecutorService executor;
+  private volatile RunQueue runQueue;
 
   private static final EnumSet<TStatus> FINISHED_STATES =
       EnumSet.of(TStatus.FAILED, TStatus.SUCCESSFUL, TStatus.UNKNOWN);
 
   private AtomicBoolean keepRunning = new AtomicBoolean(true);
 
+  /**
+   * Receives the timings of the transaction runners, for reporting them as metrics.
+   */
+  public interface RunnerListener {
+
+    /**
+     * A reserved transaction waited this long for a runner.
+     */
+    void waited(long millis);
+
+    /**
+     * A runner spent this long on a step of a transaction, whose top repo had the given type.
+     */
+    void ran(String repoType, long millis);
+
+    /**
+     * A transaction was deferred because too many runners were running its repo type.
+     */
+    void typeLimited(String repoType);
+  }
+
+  private static final RunnerListener NOOP_LISTENER = new RunnerListener() {
+    @Override
+    public void waited(long millis) {}
+
+    @Override
+    public void ran(String repoType, long millis) {}
+
+    @Override
+    public void typeLimited(String repoType) {}
+  };
+
+  /**
+   * Reserves transactions from the store and queues them for the runners. Only this thread calls
+   * {@link TStore#reserve()}, so runners do not contend on the store while looking for work.
+   */
+  private class TransactionReserver implements Runnable {
+
+    @Override
+    public void run() {
+      while (keepRunning.get()) {
+        try {
+          runQueue.awaitCapacity();
+        } catch (InterruptedException e) {
+          return;
+        }
+
+        try {
+          long tid = store.reserve();
+          runQueue.add(tid);
+        } catch (Exception e) {
+          runQueue.cancelAdd();
+          runnerLog.error("Uncaught exception in FATE reserver thread.", e);
+          UtilWaitThread.sleepUninterruptibly(1, TimeUnit.SECONDS);
+        }
+      }
+    }
+  }
+
   private class TransactionRunner implements Runnable {
 
+    private final int index;
+
+    TransactionRunner(int index) {
+      this.index = index;
+    }
+
     @Override
     public void run() {
       while (keepRunning.get()) {
         long deferTime = 0;
         Long tid = null;
         try {
-          tid = store.reserve();
+          RunQueue.QueuedTx queued = runQueue.take(index, 1, TimeUnit.SECONDS);
+          if (queued == null)
+            continue;
+          tid = queued.tid;
+          listener.waited(System.currentTimeMillis() - queued.queuedTime);
+
           TStatus status = store.getStatus(tid);
           Repo<T> op = store.top(tid);
           if (status == TStatus.FAILED_IN_PROGRESS) {
             processFailed(tid, op);
           } else {
+            String type = op.getName();
+            if (!runQueue.startType(type)) {
+              listener.typeLimited(type);
+              deferTime = TYPE_LIMIT_DEFER;
+              continue;
+            }
+
+            long start = System.currentTimeMillis();
             Repo<T> prevOp = null;
             try {
               deferTime = op.isReady(tid, environment);
@@ -83,6 +166,9 @@ public class Fate<T> {
               blockIfHadoopShutdown(tid, e);
               transitionToFailed(tid, e);
               continue;
+            } finally {
+              runQueue.finishType(type);
+              listener.ran(type, System.currentTimeMillis() - start);
             }
 
             if (op == null) {
@@ -213,14 +299,32 @@ public class Fate<T> {
    * worker threads after creating a Fate object.
    */
   public Fate(T environment, TStore<T> store) {
+    this(environment, store, NOOP_LISTENER);
+  }
+
+  /**
+   * Creates a Fault-tolerant executor that reports the timings of its runners to the listener.
+   */
+  public Fate(T environment, TStore<T> store, RunnerListener listener) {
     this.store = store;
     this.environment = environment;
+    this.listener = listener;
   }
 
   /**
    * Launches the specified number of worker threads.
    */
   public void startTransactionRunners(int numThreads) {
+    startTransactionRunners(numThreads, 0);
+  }
+
+  /**
+   * Launches the specified number of worker threads, allowing at most maxPerType of them to run
+   * steps with the same repo type at once. A maxPerType of 0 means no limit.
+   */
+  public void startTransactionRunners(int numThreads, int maxPerType) {
+    runQueue = new RunQueue(numThreads, numThreads, maxPerType);
+
     final AtomicInteger runnerCount = new AtomicInteger(0);
     executor = Executors.newFixedThreadPool(numThreads, r -> {
       Thread t =
@@ -229,8 +333,21 @@ public class Fate<T> {
       return t;
     });
     for (int i = 0; i < numThreads; i++) {
-      executor.execute(new TransactionRunner());
+      executor.execute(new TransactionRunner(i));
     }
+
+    Thread reserver =
+        new Thread(new LoggingRunnable(log, new TransactionReserver()), "Repo reserver");
+    reserver.setDaemon(true);
+    reserver.start();
+  }
+
+  /**
+   * @return the number of reserved transactions waiting for a runner
+   */
+  public int getQueueDepth() {
+    RunQueue queue = runQueue;
+    return queue == null ? 0 : queue.size();
   }
 
   // get a transaction id back to the requester before doing any work
@@ -31,4 +31,12 @@ public interface Repo<T> extends ReadOnlyRepo<T>, Serializable {
 
   // this allows the last fate op to return something to the user
   String getReturn();
+
+  /**
+   * @return the type of operation this repo performs, used to limit how many run at once. A repo
+   *         that wraps another returns the type of the wrapped repo.
+   */
+  default String getName() {
+    return getClass().getSimpleName();
+  }
 }
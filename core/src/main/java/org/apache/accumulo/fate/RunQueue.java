@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.fate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands reserved transactions from the thread that reserves them to the transaction runners. Each
+ * runner has its own deque and takes from the head of it, when it is empty the runner steals from
+ * the tail of the fullest other deque. The number of queued transactions is bounded, so that
+ * transactions are not held reserved while nothing can run them.
+ *
+ * <p>
+ * Also counts the runners executing each repo type, to limit how many run one type at once.
+ */
+class RunQueue {
+
+  static class QueuedTx {
+    final long tid;
+    final long queuedTime;
+
+    QueuedTx(long tid, long queuedTime) {
+      this.tid = tid;
+      this.queuedTime = queuedTime;
+    }
+  }
+
+  private final List<LinkedBlockingDeque<QueuedTx>> deques;
+  private final Semaphore capacity;
+  private final Semaphore queued = new Semaphore(0);
+  private final int maxPerType;
+  private final ConcurrentHashMap<String,AtomicInteger> running = new ConcurrentHashMap<>();
+
+  /**
+   * @param runners
+   *          the number of runners taking from this queue
+   * @param capacity
+   *          the maximum number of queued transactions
+   * @param maxPerType
+   *          the maximum number of runners that may run one repo type at once, or 0 for no limit
+   */
+  RunQueue(int runners, int capacity, int maxPerType) {
+    if (runners < 1 || capacity < 1 || maxPerType < 0)
+      throw new IllegalArgumentException(
+          "Invalid run queue size " + runners + " " + capacity + " " + maxPerType);
+    this.deques = new ArrayList<>(runners);
+    for (int i = 0; i < runners; i++) {
+      deques.add(new LinkedBlockingDeque<>());
+    }
+    this.capacity = new Semaphore(capacity);
+    this.maxPerType = maxPerType;
+  }
+
+  /**
+   * Waits until there is room for another transaction. Must be followed by {@link #add(long)} or
+   * {@link #cancelAdd()}.
+   */
+  void awaitCapacity() throws InterruptedException {
+    capacity.acquire();
+  }
+
+  void cancelAdd() {
+    capacity.release();
+  }
+
+  /**
+   * Queues a transaction on the runner with the fewest queued transactions.
+   */
+  void add(long tid) {
+    LinkedBlockingDeque<QueuedTx> shortest = deques.get(0);
+    for (LinkedBlockingDeque<QueuedTx> deque : deques) {
+      if (deque.size() < shortest.size()) {
+        shortest = deque;
+      }
+    }
+    shortest.addLast(new QueuedTx(tid, System.currentTimeMillis()));
+    queued.release();
+  }
+
+  /**
+   * Takes the next transaction for a runner, stealing from another runner when there is none queued
+   * for it.
+   *
+   * @return the transaction or null if none was queued before the timeout
+   */
+  QueuedTx take(int runner, long timeout, TimeUnit unit) throws InterruptedException {
+    if (!queued.tryAcquire(timeout, unit)) {
+      return null;
+    }
+
+    // holding a permit means a transaction is queued for this runner somewhere
+    while (true) {
+      QueuedTx tx = deques.get(runner).pollFirst();
+      if (tx == null) {
+        LinkedBlockingDeque<QueuedTx> fullest = null;
+        for (LinkedBlockingDeque<QueuedTx> deque : deques) {
+          if (fullest == null || deque.size() > fullest.size()) {
+            fullest = deque;
+          }
+        }
+        tx = fullest.pollLast();
+      }
+      if (tx != null) {
+        capacity.release();
+        return tx;
+      }
+    }
+  }
+
+  int size() {
+    return queued.availablePermits();
+  }
+
+  /**
+   * @return false if the maximum number of runners are already running the type
+   */
+  boolean startType(String type) {
+    AtomicInteger count = running.computeIfAbsent(type, k -> new AtomicInteger());
+    while (true) {
+      int current = count.get();
+      if (maxPerType > 0 && current >= maxPerType) {
+        return false;
+      }
+      if (count.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  void finishType(String type) {
+    running.get(type).decrementAndGet();
+  }
+
+  int getRunning(String type) {
+    AtomicInteger count = running.get(type);
+    return count == null ? 0 : count.get();
+  }
+}
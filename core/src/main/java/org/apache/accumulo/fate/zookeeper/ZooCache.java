@@ -27,9 +27,12 @@ import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.LockSupport;
-import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.zookeeper.KeeperException;
@@ -46,6 +49,12 @@ import com.google.common.base.Preconditions;
 
 /**
  * A cache for values stored in ZooKeeper. Values are kept up to date as they change.
+ *
+ * <p>
+ * Reads are served without locking from an immutable snapshot of the cache. Watch events do not
+ * wait for the lock taken to load values from ZooKeeper, the changed paths are recorded and removed
+ * from the cache in one batch by whichever thread next holds or releases the lock. Reads treat a
+ * recorded path as not cached until then.
  */
 public class ZooCache {
   private static final Logger log = LoggerFactory.getLogger(ZooCache.class);
@@ -53,14 +62,21 @@ public class ZooCache {
   private final ZCacheWatcher watcher = new ZCacheWatcher();
   private final Watcher externalWatcher;
 
-  private final ReadWriteLock cacheLock = new ReentrantReadWriteLock(false);
-  private final Lock cacheWriteLock = cacheLock.writeLock();
+  private final ReentrantReadWriteLock cacheLock = new ReentrantReadWriteLock(false);
+  private final ReentrantReadWriteLock.WriteLock cacheWriteLock = cacheLock.writeLock();
   private final Lock cacheReadLock = cacheLock.readLock();
 
   private final HashMap<String,byte[]> cache;
   private final HashMap<String,ZcStat> statCache;
   private final HashMap<String,List<String>> childrenCache;
 
+  // watch events not yet applied to the cache
+  private final Set<String> pendingRemovals = ConcurrentHashMap.newKeySet();
+  private final AtomicBoolean pendingClear = new AtomicBoolean(false);
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
   private final ZooReader zReader;
   private final SecureRandom secureRandom = new SecureRandom();
 
@@ -94,6 +110,11 @@ public class ZooCache {
     public long getMzxid() {
       return mzxid;
     }
+
+    @VisibleForTesting
+    public void setMzxid(long mzxid) {
+      this.mzxid = mzxid;
+    }
   }
 
   private static class ImmutableCacheCopies {
@@ -162,7 +183,8 @@ public class ZooCache {
         case NodeChildrenChanged:
         case NodeCreated:
         case NodeDeleted:
-          remove(event.getPath());
+          pendingRemovals.add(event.getPath());
+          applyPendingEvents();
           break;
         case None:
           switch (event.getState()) {
@@ -170,7 +192,8 @@ public class ZooCache {
               if (log.isTraceEnabled()) {
                 log.trace("Zoo keeper connection disconnected, clearing cache");
               }
-              clear();
+              pendingClear.set(true);
+              applyPendingEvents();
               break;
             case SyncConnected:
               break;
@@ -178,7 +201,8 @@ public class ZooCache {
               if (log.isTraceEnabled()) {
                 log.trace("Zoo keeper connection expired, clearing cache");
               }
-              clear();
+              pendingClear.set(true);
+              applyPendingEvents();
               break;
             default:
               log.warn("Unhandled: {}", event);
@@ -322,16 +346,19 @@ public class ZooCache {
 
         // only read volatile once for consistency
         ImmutableCacheCopies lic = immutableCache;
-        if (lic.childrenCache.containsKey(zPath)) {
+        if (lic.childrenCache.containsKey(zPath) && !isPendingRemoval(zPath)) {
+          hits.increment();
           return lic.childrenCache.get(zPath);
         }
 
-        cacheWriteLock.lock();
+        lockCache();
         try {
-          if (childrenCache.containsKey(zPath)) {
+          if (childrenCache.containsKey(zPath) && !isPendingRemoval(zPath)) {
+            hits.increment();
             return childrenCache.get(zPath);
           }
 
+          misses.increment();
           final ZooKeeper zooKeeper = getZooKeeper();
 
           List<String> children = zooKeeper.getChildren(zPath, watcher);
@@ -346,7 +373,7 @@ public class ZooCache {
             throw ke;
           }
         } finally {
-          cacheWriteLock.unlock();
+          unlockCache();
         }
         return null;
       }
@@ -389,7 +416,8 @@ public class ZooCache {
         // only read volatile once so following code works with a consistent snapshot
         ImmutableCacheCopies lic = immutableCache;
         byte[] val = lic.cache.get(zPath);
-        if (val != null || lic.cache.containsKey(zPath)) {
+        if ((val != null || lic.cache.containsKey(zPath)) && !isPendingRemoval(zPath)) {
+          hits.increment();
           if (status != null) {
             zstat = lic.statCache.get(zPath);
             copyStats(status, zstat);
@@ -405,8 +433,16 @@ public class ZooCache {
          * a special case that looks for Code.NONODE in the KeeperException, then non-existence can
          * not be cached.
          */
-        cacheWriteLock.lock();
+        lockCache();
         try {
+          // another thread may have loaded the value while this one waited for the lock
+          if (cache.containsKey(zPath) && !isPendingRemoval(zPath)) {
+            hits.increment();
+            copyStats(status, statCache.get(zPath));
+            return cache.get(zPath);
+          }
+
+          misses.increment();
           final ZooKeeper zooKeeper = getZooKeeper();
           Stat stat = zooKeeper.exists(zPath, watcher);
           byte[] data = null;
@@ -430,7 +466,7 @@ public class ZooCache {
           copyStats(status, zstat);
           return data;
         } finally {
-          cacheWriteLock.unlock();
+          unlockCache();
         }
       }
     };
@@ -454,28 +490,89 @@ public class ZooCache {
   }
 
   private void put(String zPath, byte[] data, ZcStat stat) {
-    cacheWriteLock.lock();
+    lockCache();
     try {
       cache.put(zPath, data);
       statCache.put(zPath, stat);
 
       immutableCache = new ImmutableCacheCopies(++updateCount, cache, statCache, immutableCache);
     } finally {
-      cacheWriteLock.unlock();
+      unlockCache();
     }
   }
 
-  private void remove(String zPath) {
+  private boolean isPendingRemoval(String zPath) {
+    return pendingClear.get() || (!pendingRemovals.isEmpty() && pendingRemovals.contains(zPath));
+  }
+
+  /**
+   * Takes the write lock. Pending watch events are only applied by the outermost lock, a nested
+   * lock, as in put(), must not apply them before the outer holder caches a value it loaded, or an
+   * event for that value would be lost.
+   */
+  private void lockCache() {
     cacheWriteLock.lock();
-    try {
-      cache.remove(zPath);
-      childrenCache.remove(zPath);
-      statCache.remove(zPath);
+    if (cacheWriteLock.getHoldCount() == 1) {
+      applyPendingEventsLocked();
+    }
+  }
 
-      immutableCache = new ImmutableCacheCopies(++updateCount, cache, statCache, childrenCache);
-    } finally {
+  /**
+   * Releases the write lock, first applying watch events that arrived while it was held. Events
+   * that arrive after that are applied here as well, unless another thread now holds the lock and
+   * will apply them itself. Releasing a nested lock leaves the events to the outermost one.
+   */
+  private void unlockCache() {
+    if (cacheWriteLock.getHoldCount() > 1) {
       cacheWriteLock.unlock();
+      return;
+    }
+    while (true) {
+      applyPendingEventsLocked();
+      cacheWriteLock.unlock();
+      if ((pendingRemovals.isEmpty() && !pendingClear.get()) || !cacheWriteLock.tryLock()) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Applies pending watch events now if no other thread holds the lock.
+   */
+  private void applyPendingEvents() {
+    if (cacheWriteLock.tryLock()) {
+      unlockCache();
+    }
+  }
+
+  /**
+   * Removes the paths of pending watch events from the cache with a single new snapshot. The
+   * events are only forgotten once the snapshot is published, since reads check them first.
+   */
+  private void applyPendingEventsLocked() {
+    if (pendingRemovals.isEmpty() && !pendingClear.get()) {
+      return;
+    }
+
+    List<String> paths = new ArrayList<>(pendingRemovals);
+    if (pendingClear.get()) {
+      cache.clear();
+      childrenCache.clear();
+      statCache.clear();
+
+      immutableCache = new ImmutableCacheCopies(++updateCount);
+      // nothing can be added to the cache while the lock is held
+      pendingClear.set(false);
+    } else {
+      for (String zPath : paths) {
+        cache.remove(zPath);
+        childrenCache.remove(zPath);
+        statCache.remove(zPath);
+      }
+
+      immutableCache = new ImmutableCacheCopies(++updateCount, cache, statCache, childrenCache);
     }
+    pendingRemovals.removeAll(paths);
   }
 
   /**
@@ -483,7 +580,7 @@ public class ZooCache {
    */
   public void clear() {
     Preconditions.checkState(!closed);
-    cacheWriteLock.lock();
+    lockCache();
     try {
       cache.clear();
       childrenCache.clear();
@@ -491,7 +588,7 @@ public class ZooCache {
 
       immutableCache = new ImmutableCacheCopies(++updateCount);
     } finally {
-      cacheWriteLock.unlock();
+      unlockCache();
     }
   }
 
@@ -508,6 +605,20 @@ public class ZooCache {
     return immutableCache.updateCount;
   }
 
+  /**
+   * @return the number of reads answered from the cache
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * @return the number of reads that had to go to ZooKeeper
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
   /**
    * Checks if a data value (or lack of one) is cached.
    *
@@ -550,7 +661,7 @@ public class ZooCache {
    */
   public void clear(String zPath) {
     Preconditions.checkState(!closed);
-    cacheWriteLock.lock();
+    lockCache();
     try {
       cache.keySet().removeIf(path -> path.startsWith(zPath));
       childrenCache.keySet().removeIf(path -> path.startsWith(zPath));
@@ -558,7 +669,7 @@ public class ZooCache {
 
       immutableCache = new ImmutableCacheCopies(++updateCount, cache, statCache, childrenCache);
     } finally {
-      cacheWriteLock.unlock();
+      unlockCache();
     }
   }
 
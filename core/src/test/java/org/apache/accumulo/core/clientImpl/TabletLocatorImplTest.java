@@ -136,10 +136,15 @@ public class TabletLocatorImplTest {
 
   static TabletLocatorImpl createLocators(TServers tservers, String rootTabLoc, String metaTabLoc,
       String table, TabletServerLockChecker tslc, Object... data) {
+    return createLocators(tservers, new TestTabletLocationObtainer(tservers), rootTabLoc,
+        metaTabLoc, table, tslc, data);
+  }
 
-    TreeMap<KeyExtent,TabletLocation> mcke = createMetaCacheKE(data);
+  static TabletLocatorImpl createLocators(TServers tservers, TestTabletLocationObtainer ttlo,
+      String rootTabLoc, String metaTabLoc, String table, TabletServerLockChecker tslc,
+      Object... data) {
 
-    TestTabletLocationObtainer ttlo = new TestTabletLocationObtainer(tservers);
+    TreeMap<KeyExtent,TabletLocation> mcke = createMetaCacheKE(data);
 
     RootTabletLocator rtl = new TestRootTabletLocator();
     TabletLocatorImpl rootTabletCache =
@@ -500,6 +505,30 @@ public class TabletLocatorImplTest {
 
   }
 
+  static class CountingTabletLocationObtainer extends TestTabletLocationObtainer {
+
+    int singleLookups = 0;
+    int batchedLookups = 0;
+
+    CountingTabletLocationObtainer(TServers tservers) {
+      super(tservers);
+    }
+
+    @Override
+    public TabletLocations lookupTablet(ClientContext context, TabletLocation src, Text row,
+        Text stopRow, TabletLocator parent) {
+      singleLookups++;
+      return super.lookupTablet(context, src, row, stopRow, parent);
+    }
+
+    @Override
+    public List<TabletLocation> lookupFirstTablets(ClientContext context, String tserver,
+        Map<KeyExtent,List<Range>> map, TabletLocator parent) {
+      batchedLookups++;
+      return super.lookupTablets(context, tserver, map, parent);
+    }
+  }
+
   static class YesLockChecker implements TabletServerLockChecker {
     @Override
     public boolean isLockHeld(String tserver, String session) {
@@ -1131,6 +1160,44 @@ public class TabletLocatorImplTest {
     runTest(metaCache, ml, emb, "t");
   }
 
+  @Test
+  public void testBinMutationsPrefetch() throws Exception {
+    // twenty six tablets, none in the cache
+    List<Object> data = new ArrayList<>();
+    List<Object[]> expected = new ArrayList<>();
+    List<Mutation> ml = new ArrayList<>();
+    String prev = null;
+    for (char c = 'a'; c <= 'z'; c++) {
+      String end = c == 'z' ? null : String.valueOf(c);
+      KeyExtent ke = nke("foo", end, prev);
+      String location = "l" + (c % 3);
+      data.add(ke);
+      data.add(location);
+
+      String row = String.valueOf(c);
+      ml.add(nm(row, "cf1:cq1=v1"));
+      expected.add(nol(row, location, ke));
+      prev = end;
+    }
+    Collections.shuffle(ml);
+
+    TServers tservers = new TServers();
+    CountingTabletLocationObtainer ttlo = new CountingTabletLocationObtainer(tservers);
+    TabletLocatorImpl metaCache = createLocators(tservers, ttlo, "tserver1", "tserver2", "foo",
+        new YesLockChecker(), data.toArray());
+
+    runTest(metaCache, ml, cemb(expected.toArray(new Object[0][])));
+
+    // the metadata tablet and then all of the table's tablets were found with a batched lookup
+    assertEquals(0, ttlo.singleLookups);
+    assertEquals(2, ttlo.batchedLookups);
+
+    // everything is cached now
+    runTest(metaCache, ml, cemb(expected.toArray(new Object[0][])));
+    assertEquals(0, ttlo.singleLookups);
+    assertEquals(2, ttlo.batchedLookups);
+  }
+
   @Test
   public void testBinSplit() throws Exception {
     // try binning mutations and ranges when a tablet splits
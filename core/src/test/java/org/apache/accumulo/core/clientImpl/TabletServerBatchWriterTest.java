@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.clientImpl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.clientImpl.TabletServerBatchWriter.ServerBatchSizer;
+import org.junit.Test;
+
+public class TabletServerBatchWriterTest {
+
+  private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  @Test
+  public void testBatchSizeGrowsWhenSendsAreFast() {
+    ServerBatchSizer sizer = new ServerBatchSizer(1 << 17);
+    sizer.roundTrip(20 * MS);
+
+    int previous = sizer.getBatchSize();
+    for (int i = 0; i < 100; i++) {
+      sizer.sent(sizer.getBatchSize(), MS);
+      assertTrue(sizer.getBatchSize() >= previous);
+      previous = sizer.getBatchSize();
+    }
+    assertEquals(ServerBatchSizer.MAX_BATCH_SIZE, sizer.getBatchSize());
+
+    // a partial batch says nothing about whether larger batches would help
+    sizer = new ServerBatchSizer(1 << 17);
+    sizer.sent(10, MS);
+    assertEquals(1 << 17, sizer.getBatchSize());
+  }
+
+  @Test
+  public void testBatchSizeShrinksOnBackpressure() {
+    ServerBatchSizer sizer = new ServerBatchSizer(1 << 17);
+    sizer.roundTrip(10 * MS);
+
+    // within two round trips is not considered a stall
+    sizer.sent(1 << 17, 15 * MS);
+    assertEquals(1 << 17, sizer.getBatchSize());
+
+    sizer.sent(1 << 17, 25 * MS);
+    assertEquals(1 << 16, sizer.getBatchSize());
+
+    for (int i = 0; i < 100; i++) {
+      sizer.failed();
+    }
+    assertEquals(ServerBatchSizer.MIN_BATCH_SIZE, sizer.getBatchSize());
+  }
+
+  @Test
+  public void testRoundTripAverage() {
+    ServerBatchSizer sizer = new ServerBatchSizer(1 << 17);
+    assertTrue(sizer.getRoundTripMillis() < 0);
+    sizer.roundTrip(10 * MS);
+    assertEquals(10.0, sizer.getRoundTripMillis(), 0.001);
+    sizer.roundTrip(20 * MS);
+    assertEquals(12.0, sizer.getRoundTripMillis(), 0.001);
+  }
+}
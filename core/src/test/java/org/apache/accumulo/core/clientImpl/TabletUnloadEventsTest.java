@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.clientImpl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+public class TabletUnloadEventsTest {
+
+  private static KeyExtent nke(String table, String endRow, String prevEndRow) {
+    return new KeyExtent(TableId.of(table), endRow == null ? null : new Text(endRow),
+        prevEndRow == null ? null : new Text(prevEndRow));
+  }
+
+  @Test
+  public void testSerialize() {
+    List<KeyExtent> extents = Arrays.asList(nke("1", "m", null), nke("1", null, "m"),
+        nke("2", "g", "c"));
+    TabletUnloadEvents events = new TabletUnloadEvents(42, extents);
+
+    TabletUnloadEvents copy = TabletUnloadEvents.deserialize(events.serialize());
+    assertEquals(42, copy.getFirstSequence());
+    assertEquals(44, copy.getLastSequence());
+    assertEquals(extents, copy.getExtents());
+
+    byte[] data = new TabletUnloadEvents(7, Collections.emptyList()).serialize();
+    TabletUnloadEvents empty = TabletUnloadEvents.deserialize(data);
+    assertEquals(7, empty.getFirstSequence());
+    assertEquals(6, empty.getLastSequence());
+    assertTrue(empty.getExtents().isEmpty());
+  }
+
+  @Test
+  public void testExtentsAfter() {
+    List<KeyExtent> extents = Arrays.asList(nke("1", "m", null), nke("1", null, "m"),
+        nke("2", "g", "c"));
+    TabletUnloadEvents events = new TabletUnloadEvents(10, extents);
+
+    assertEquals(extents, events.getExtentsAfter(3));
+    assertEquals(extents, events.getExtentsAfter(9));
+    assertEquals(extents.subList(1, 3), events.getExtentsAfter(10));
+    assertEquals(extents.subList(2, 3), events.getExtentsAfter(11));
+    assertTrue(events.getExtentsAfter(12).isEmpty());
+    assertTrue(events.getExtentsAfter(20).isEmpty());
+  }
+}
@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.clientImpl;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.anyString;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.Constants;
+import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.accumulo.fate.zookeeper.ZooCache;
+import org.apache.accumulo.fate.zookeeper.ZooCache.ZcStat;
+import org.apache.hadoop.io.Text;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TabletUnloadWatcherTest {
+
+  private static final String PATH = "/accumulo/iid" + Constants.ZTABLET_UNLOADS;
+
+  private static final TableId T1 = TableId.of("1");
+  private static final TableId T2 = TableId.of("2");
+
+  private static class Node {
+    long ephemeralOwner;
+    long mzxid;
+    byte[] data;
+  }
+
+  // the tablet server nodes as the mocked cache sees them
+  private final Map<String,Node> nodes = new TreeMap<>();
+  private long updateCount = 0;
+  private long zxid = 0;
+  // when set, reading a node waits for the release latch
+  private volatile CountDownLatch getEntered;
+  private volatile CountDownLatch getRelease;
+
+  private TabletUnloadWatcher watcher;
+
+  @Before
+  public void setupWatcher() {
+    ZooCache zc = createMock(ZooCache.class);
+    expect(zc.getUpdateCount()).andAnswer(() -> updateCount).anyTimes();
+    expect(zc.getChildren(PATH)).andAnswer(() -> new ArrayList<>(nodes.keySet())).anyTimes();
+    expect(zc.get(anyString(), anyObject(ZcStat.class))).andAnswer(() -> {
+      String path = (String) getCurrentArguments()[0];
+      ZcStat stat = (ZcStat) getCurrentArguments()[1];
+      if (getRelease != null) {
+        getEntered.countDown();
+        getRelease.await();
+      }
+      Node node = nodes.get(path.substring(PATH.length() + 1));
+      if (node == null) {
+        return null;
+      }
+      stat.setEphemeralOwner(node.ephemeralOwner);
+      stat.setMzxid(node.mzxid);
+      return node.data;
+    }).anyTimes();
+    replay(zc);
+
+    watcher = new TabletUnloadWatcher(zc, PATH);
+  }
+
+  private static KeyExtent nke(TableId table, String endRow, String prevEndRow) {
+    return new KeyExtent(table, endRow == null ? null : new Text(endRow),
+        prevEndRow == null ? null : new Text(prevEndRow));
+  }
+
+  private void publish(String tserver, long ephemeralOwner, long firstSequence,
+      KeyExtent... extents) {
+    Node node = new Node();
+    node.ephemeralOwner = ephemeralOwner;
+    node.mzxid = ++zxid;
+    node.data = new TabletUnloadEvents(firstSequence, Arrays.asList(extents)).serialize();
+    nodes.put(tserver, node);
+    updateCount++;
+  }
+
+  private Set<KeyExtent> take(TableId tableId) {
+    return new HashSet<>(watcher.takeUnloaded(tableId));
+  }
+
+  @Test
+  public void testFirstPollSuppressed() {
+    KeyExtent a = nke(T1, "m", null);
+    KeyExtent b = nke(T1, null, "m");
+    KeyExtent c = nke(T1, "g", null);
+    publish("ts1:9997", 1, 0, a, b);
+
+    // unloads published before the table was watched are not reported
+    assertTrue(take(T1).isEmpty());
+
+    publish("ts1:9997", 1, 0, a, b, c);
+    assertEquals(Set.of(c), take(T1));
+
+    // taking the unloads clears them
+    assertTrue(take(T1).isEmpty());
+  }
+
+  @Test
+  public void testOnlySubscribedTables() {
+    KeyExtent a = nke(T1, "m", null);
+    KeyExtent b = nke(T2, "m", null);
+    KeyExtent c = nke(T2, null, "m");
+    publish("ts1:9997", 1, 0);
+    assertTrue(take(T1).isEmpty());
+
+    publish("ts1:9997", 1, 0, a);
+    assertEquals(Set.of(a), take(T1));
+
+    // T2 was not subscribed when b was seen, so b is not kept for it
+    publish("ts1:9997", 1, 0, a, b);
+    assertTrue(take(T1).isEmpty());
+    assertTrue(take(T2).isEmpty());
+
+    publish("ts1:9997", 1, 0, a, b, c);
+    assertEquals(Set.of(c), take(T2));
+    assertTrue(take(T1).isEmpty());
+  }
+
+  @Test
+  public void testSequenceGap() {
+    KeyExtent a = nke(T1, "m", null);
+    KeyExtent b = nke(T1, null, "m");
+    publish("ts1:9997", 1, 0, a);
+    assertTrue(take(T1).isEmpty());
+    assertTrue(take(T2).isEmpty());
+
+    // a continues the sequence, nothing was missed
+    publish("ts1:9997", 1, 0, a, b);
+    assertEquals(Set.of(b), take(T1));
+
+    // unloads 2 to 4 were dropped before the watcher saw them
+    publish("ts1:9997", 1, 5, a, b);
+    assertNull(watcher.takeUnloaded(T1));
+    assertNull(watcher.takeUnloaded(T2));
+
+    // the gap is reported once
+    assertTrue(take(T1).isEmpty());
+    publish("ts1:9997", 1, 5, a, b, a);
+    assertEquals(Set.of(a), take(T1));
+  }
+
+  @Test
+  public void testTabletServerRestart() {
+    KeyExtent a = nke(T1, "m", null);
+    KeyExtent b = nke(T1, null, "m");
+    KeyExtent c = nke(T1, "g", null);
+    publish("ts1:9997", 1, 0, a, b);
+    assertTrue(take(T1).isEmpty());
+
+    // the restarted server starts its sequence again, its unloads are all new
+    publish("ts1:9997", 2, 0, c);
+    assertEquals(Set.of(c), take(T1));
+
+    publish("ts1:9997", 2, 0, c, a);
+    assertEquals(Set.of(a), take(T1));
+
+    // a server that started after the first poll reports all its unloads
+    publish("ts2:9997", 3, 0, b);
+    assertEquals(Set.of(b), take(T1));
+
+    // a server that went away and came back
+    nodes.remove("ts2:9997");
+    updateCount++;
+    assertTrue(take(T1).isEmpty());
+    publish("ts2:9997", 4, 0, c);
+    assertEquals(Set.of(c), take(T1));
+  }
+
+  @Test
+  public void testDiscard() {
+    KeyExtent a = nke(T1, "m", null);
+    KeyExtent b = nke(T1, null, "m");
+    publish("ts1:9997", 1, 0);
+    assertTrue(take(T1).isEmpty());
+
+    publish("ts1:9997", 1, 0, a);
+    assertTrue(take(T2).isEmpty());
+
+    // the locator dropped all its locations, so a no longer needs to be reported
+    watcher.discard(T1);
+    assertTrue(take(T1).isEmpty());
+
+    // the table is still watched
+    publish("ts1:9997", 1, 0, a, b);
+    assertEquals(Set.of(b), take(T1));
+  }
+
+  @Test
+  public void testTooManyKept() {
+    publish("ts1:9997", 1, 0);
+    assertTrue(take(T1).isEmpty());
+    assertTrue(take(T2).isEmpty());
+
+    KeyExtent[] extents = new KeyExtent[TabletUnloadWatcher.MAX_KEPT_PER_TABLE + 1];
+    for (int i = 0; i < extents.length; i++) {
+      extents[i] = nke(T1, String.format("%06d", i + 1), String.format("%06d", i));
+    }
+    publish("ts1:9997", 1, 0, extents);
+
+    // T1 is told to drop everything instead of being handed more unloads than the cap
+    assertTrue(take(T2).isEmpty());
+    assertNull(watcher.takeUnloaded(T1));
+    assertTrue(take(T1).isEmpty());
+  }
+
+  @Test
+  public void testTakeWhileAnotherThreadPolls() throws Exception {
+    KeyExtent a = nke(T1, "m", null);
+    publish("ts1:9997", 1, 0);
+    assertTrue(take(T1).isEmpty());
+    assertTrue(take(T2).isEmpty());
+
+    publish("ts1:9997", 1, 0, a);
+    getEntered = new CountDownLatch(1);
+    getRelease = new CountDownLatch(1);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Set<KeyExtent>> polling = executor.submit(() -> take(T1));
+      assertTrue(getEntered.await(30, TimeUnit.SECONDS));
+
+      // the other thread is reading ZooKeeper, this one does not wait for it
+      assertTrue(take(T2).isEmpty());
+
+      getRelease.countDown();
+      assertEquals(Set.of(a), polling.get(30, TimeUnit.SECONDS));
+    } finally {
+      getRelease.countDown();
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheConfiguration;
+import org.apache.accumulo.core.file.blockfile.cache.impl.BlockCacheManagerFactory;
+import org.apache.accumulo.core.file.blockfile.cache.offheap.OffHeapBlockCache;
+import org.apache.accumulo.core.file.blockfile.cache.offheap.OffHeapBlockCacheConfiguration;
+import org.apache.accumulo.core.file.blockfile.cache.offheap.OffHeapBlockCacheManager;
+import org.apache.accumulo.core.spi.cache.BlockCache.Loader;
+import org.apache.accumulo.core.spi.cache.BlockCacheManager;
+import org.apache.accumulo.core.spi.cache.CacheEntry;
+import org.apache.accumulo.core.spi.cache.CacheEntry.Weighable;
+import org.apache.accumulo.core.spi.cache.CacheType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+@SuppressFBWarnings(value = "PATH_TRAVERSAL_IN", justification = "paths not set by user input")
+public class TestOffHeapBlockCache {
+
+  @Rule
+  public TemporaryFolder tempFolder =
+      new TemporaryFolder(new File(System.getProperty("user.dir") + "/target"));
+
+  private static final int BLOCK_SIZE = 1000;
+
+  private static BlockCacheManager start(long maxSize, long slabSize, String path)
+      throws Exception {
+    ConfigurationCopy cc = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    cc.set(Property.TSERV_CACHE_MANAGER_IMPL, OffHeapBlockCacheManager.class.getName());
+    cc.set(Property.TSERV_DEFAULT_BLOCKSIZE, Long.toString(BLOCK_SIZE));
+    cc.set(Property.TSERV_INDEXCACHE_SIZE, Long.toString(maxSize));
+    cc.set(Property.TSERV_DATACACHE_SIZE, Long.toString(maxSize));
+    cc.set(Property.TSERV_SUMMARYCACHE_SIZE, Long.toString(maxSize));
+    OffHeapBlockCacheConfiguration.Builder builder =
+        OffHeapBlockCacheConfiguration.builder(CacheType.INDEX).slabSize(slabSize);
+    if (path != null) {
+      builder.path(path);
+    }
+    builder.buildMap().forEach(cc::set);
+    BlockCacheManager manager = BlockCacheManagerFactory.getInstance(cc);
+    manager.start(new BlockCacheConfiguration(cc));
+    return manager;
+  }
+
+  private static byte[] block(int i) {
+    byte[] buf = new byte[BLOCK_SIZE];
+    Arrays.fill(buf, (byte) i);
+    return buf;
+  }
+
+  @Test
+  public void testConfiguration() throws Exception {
+    BlockCacheManager manager = start(1_000_000, 100_000, null);
+    OffHeapBlockCache cache = (OffHeapBlockCache) manager.getBlockCache(CacheType.INDEX);
+    assertEquals(1_000_000, cache.getMaxSize());
+    // slab size not set for data, falls back to half the cache
+    OffHeapBlockCache dataCache = (OffHeapBlockCache) manager.getBlockCache(CacheType.DATA);
+    assertEquals(1_000_000, dataCache.getMaxSize());
+    assertTrue(cache.getMaxHeapSize() < cache.getMaxSize());
+    manager.stop();
+  }
+
+  @Test
+  public void testCacheSimple() throws Exception {
+    BlockCacheManager manager = start(1_000_000, 100_000, null);
+    OffHeapBlockCache cache = (OffHeapBlockCache) manager.getBlockCache(CacheType.INDEX);
+
+    for (int i = 0; i < 100; i++) {
+      assertNull(cache.getBlock("b" + i));
+    }
+    for (int i = 0; i < 100; i++) {
+      cache.cacheBlock("b" + i, block(i));
+    }
+    for (int i = 0; i < 100; i++) {
+      CacheEntry ce = cache.getBlock("b" + i);
+      assertNotNull(ce);
+      assertArrayEquals(block(i), ce.getBuffer());
+    }
+
+    assertEquals(100, cache.getBlockCount());
+    assertEquals(0, cache.getEvictedCount());
+    assertEquals(200, cache.getStats().requestCount());
+    assertEquals(100, cache.getStats().hitCount());
+    manager.stop();
+  }
+
+  @Test
+  public void testEvictionKeepsReferencedBlocks() throws Exception {
+    // 10 slabs of 10 blocks each
+    BlockCacheManager manager = start(100 * BLOCK_SIZE, 10 * BLOCK_SIZE, null);
+    OffHeapBlockCache cache = (OffHeapBlockCache) manager.getBlockCache(CacheType.INDEX);
+
+    for (int i = 0; i < 100; i++) {
+      cache.cacheBlock("b" + i, block(i));
+    }
+    assertEquals(0, cache.getEvictedCount());
+
+    // read a few blocks in the first slab so they get a second chance
+    for (int i = 0; i < 3; i++) {
+      assertNotNull(cache.getBlock("b" + i));
+    }
+
+    // wraps around to the first slab
+    cache.cacheBlock("b100", block(100));
+
+    assertEquals(7, cache.getEvictedCount());
+    for (int i = 0; i < 3; i++) {
+      CacheEntry ce = cache.getBlock("b" + i);
+      assertNotNull(ce);
+      assertArrayEquals(block(i), ce.getBuffer());
+    }
+    for (int i = 3; i < 10; i++) {
+      assertNull(cache.getBlock("b" + i));
+    }
+    for (int i = 10; i <= 100; i++) {
+      CacheEntry ce = cache.getBlock("b" + i);
+      assertNotNull(ce);
+      assertArrayEquals(block(i), ce.getBuffer());
+    }
+    manager.stop();
+  }
+
+  @Test
+  public void testLoaderAndIndex() throws Exception {
+    BlockCacheManager manager = start(1_000_000, 100_000, null);
+    OffHeapBlockCache cache = (OffHeapBlockCache) manager.getBlockCache(CacheType.INDEX);
+
+    Loader loader = new Loader() {
+      @Override
+      public Map<String,Loader> getDependencies() {
+        return Collections.emptyMap();
+      }
+
+      @Override
+      public byte[] load(int maxSize, Map<String,byte[]> dependencies) {
+        return block(7);
+      }
+    };
+
+    CacheEntry ce = cache.getBlock("b7", loader);
+    assertArrayEquals(block(7), ce.getBuffer());
+
+    Weighable index = () -> 10;
+    assertSame(index, ce.getIndex(() -> index));
+    // index is kept with the cached block and not the copy handed out
+    assertSame(index, cache.getBlock("b7").getIndex(() -> () -> 20));
+    manager.stop();
+  }
+
+  @Test
+  public void testBlockLargerThanSlab() throws Exception {
+    BlockCacheManager manager = start(4 * BLOCK_SIZE, BLOCK_SIZE / 2, null);
+    OffHeapBlockCache cache = (OffHeapBlockCache) manager.getBlockCache(CacheType.INDEX);
+    CacheEntry ce = cache.cacheBlock("big", block(1));
+    assertArrayEquals(block(1), ce.getBuffer());
+    assertNull(cache.getBlock("big"));
+    manager.stop();
+  }
+
+  @Test
+  public void testMemoryMappedFile() throws Exception {
+    File dir = tempFolder.newFolder();
+    BlockCacheManager manager = start(100 * BLOCK_SIZE, 10 * BLOCK_SIZE, dir.getAbsolutePath());
+    OffHeapBlockCache cache = (OffHeapBlockCache) manager.getBlockCache(CacheType.INDEX);
+
+    for (int i = 0; i < 150; i++) {
+      cache.cacheBlock("b" + i, block(i));
+    }
+    for (int i = 100; i < 150; i++) {
+      CacheEntry ce = cache.getBlock("b" + i);
+      assertNotNull(ce);
+      assertArrayEquals(block(i), ce.getBuffer());
+    }
+    assertEquals(1, dir.list().length);
+    manager.stop();
+    assertEquals(0, dir.list().length);
+  }
+}
@@ -22,6 +22,7 @@ import static org.apache.accumulo.core.conf.Property.INSTANCE_CRYPTO_PREFIX;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -77,13 +78,16 @@ import org.apache.accumulo.core.file.rfile.bcfile.BCFile;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 import org.apache.accumulo.core.iteratorsImpl.system.ColumnFamilySkippingIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.KVBatch;
 import org.apache.accumulo.core.metadata.MetadataTable;
 import org.apache.accumulo.core.metadata.schema.MetadataSchema;
 import org.apache.accumulo.core.metadata.schema.MetadataSchema.TabletsSection;
 import org.apache.accumulo.core.metadata.schema.MetadataSchema.TabletsSection.ServerColumnFamily;
 import org.apache.accumulo.core.sample.impl.SamplerConfigurationImpl;
 import org.apache.accumulo.core.sample.impl.SamplerFactory;
+import org.apache.accumulo.core.spi.cache.BlockCache;
 import org.apache.accumulo.core.spi.cache.BlockCacheManager;
+import org.apache.accumulo.core.spi.cache.CacheEntry;
 import org.apache.accumulo.core.spi.cache.CacheType;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
@@ -1729,6 +1733,58 @@ public class RFileTest {
     runVersionTest(7, cryptoOnConf);
   }
 
+  @Test
+  public void testReadersShareParsedIndex() throws IOException {
+    TestRFile trf = new TestRFile(conf);
+
+    trf.openWriter(false);
+    trf.writer.startNewLocalityGroup("lg1", newColFamByteSequence("cf1"));
+    for (int i = 0; i < 1000; i++) {
+      trf.writer.append(newKey(formatString("r_", i), "cf1", "cq", "", 1), newValue(i + ""));
+    }
+    trf.writer.startDefaultLocalityGroup();
+    for (int i = 0; i < 1000; i++) {
+      trf.writer.append(newKey(formatString("r_", i), "cf2", "cq", "", 1), newValue(i + ""));
+    }
+    trf.closeWriter();
+
+    trf.openReader();
+
+    // the first reader attached its parsed index to the cached index block
+    BlockCache indexCache = trf.manager.getBlockCache(CacheType.INDEX);
+    CacheEntry ce = indexCache.getBlock("source-1MRFile.index");
+    assertNotNull(ce);
+    assertNotNull(ce.getIndex(() -> null));
+
+    byte[] data = trf.baos.toByteArray();
+    BlockCache dataCache = trf.manager.getBlockCache(CacheType.DATA);
+    CachableBuilder cb = new CachableBuilder().cacheId("source-1")
+        .input(new FSDataInputStream(new SeekableByteArrayInputStream(data))).length(data.length)
+        .conf(hadoopConf).cacheProvider(new BasicCacheProvider(indexCache, dataCache))
+        .cryptoService(
+            CryptoServiceFactory.newInstance(trf.accumuloConfiguration, ClassloaderType.JAVA));
+    Reader reader2 = new RFile.Reader(cb);
+
+    // the second reader must not depend on the reader that parsed the shared index
+    trf.reader.close();
+
+    checkIndex(reader2);
+
+    reader2.seek(new Range(), EMPTY_COL_FAMS, false);
+    for (int i = 0; i < 1000; i++) {
+      for (String cf : new String[] {"cf1", "cf2"}) {
+        assertTrue(reader2.hasTop());
+        assertEquals(newKey(formatString("r_", i), cf, "cq", "", 1), reader2.getTopKey());
+        assertEquals(newValue(i + ""), reader2.getTopValue());
+        reader2.next();
+      }
+    }
+    assertFalse(reader2.hasTop());
+
+    reader2.close();
+    trf.manager.stop();
+  }
+
   private void runVersionTest(int version, ConfigurationCopy aconf) throws Exception {
     InputStream in = this.getClass().getClassLoader()
         .getResourceAsStream("org/apache/accumulo/core/file/rfile/ver_" + version + ".rf");
@@ -2399,4 +2455,107 @@ public class RFileTest {
 
     conf = null;
   }
+
+  @Test
+  public void testNextBatch() throws IOException {
+    TestRFile trf = new TestRFile(conf);
+
+    // use small blocks so that batches span many blocks
+    trf.openWriter(false, 100);
+    trf.writer.startDefaultLocalityGroup();
+
+    ArrayList<Key> expectedKeys = new ArrayList<>();
+    ArrayList<Value> expectedValues = new ArrayList<>();
+    for (int row = 0; row < 500; row++) {
+      for (int cq = 0; cq < 3; cq++) {
+        Key k = newKey(formatString("r_", row), "cf1", formatString("cq_", cq), "", 5);
+        Value v = newValue("v" + row + "_" + cq);
+        trf.writer.append(k, v);
+        expectedKeys.add(k);
+        expectedValues.add(v);
+      }
+    }
+    trf.closeWriter();
+
+    trf.openReader(false);
+
+    int[][] bounds = {{0, expectedKeys.size()}, {10, 1000}, {777, 778}};
+    for (int[] bound : bounds) {
+      Range range = new Range(expectedKeys.get(bound[0]), true,
+          bound[1] < expectedKeys.size() ? expectedKeys.get(bound[1]) : null, false);
+      trf.reader.seek(range, EMPTY_COL_FAMS, false);
+
+      KVBatch batch = new KVBatch(13);
+      int index = bound[0];
+      while (trf.reader.hasTop()) {
+        batch.clear();
+        int added = KVBatch.fill(trf.reader, batch);
+        assertTrue(added > 0);
+        for (int i = 0; i < batch.size(); i++) {
+          assertEquals(expectedKeys.get(index), batch.getKey(i));
+          assertEquals(expectedValues.get(index), batch.getValue(i));
+          if (i > 0) {
+            // entries in a batch must never share reused objects
+            assertNotSame(batch.getValue(i - 1), batch.getValue(i));
+            assertNotSame(batch.getValue(i - 1).get(), batch.getValue(i).get());
+          }
+          index++;
+        }
+      }
+      assertEquals(bound[1], index);
+    }
+
+    trf.closeReader();
+  }
+
+  @Test
+  public void testKeyFilter() throws IOException {
+    TestRFile trf = new TestRFile(conf);
+
+    // use small blocks so that filtered scans span many blocks
+    trf.openWriter(false, 100);
+    trf.writer.startDefaultLocalityGroup();
+
+    ArrayList<Key> expectedKeys = new ArrayList<>();
+    ArrayList<Value> expectedValues = new ArrayList<>();
+    ArrayByteSequence wanted = new ArrayByteSequence(formatString("cq_", 1));
+    for (int row = 0; row < 500; row++) {
+      for (int cq = 0; cq < 3; cq++) {
+        Key k = newKey(formatString("r_", row), "cf1", formatString("cq_", cq), "", 5);
+        Value v = newValue("v" + row + "_" + cq);
+        trf.writer.append(k, v);
+        if (k.getColumnQualifierData().equals(wanted)) {
+          expectedKeys.add(k);
+          expectedValues.add(v);
+        }
+      }
+    }
+    trf.closeWriter();
+
+    trf.openReader(false);
+    trf.reader.setKeyFilter(kv -> kv.getColumnQualifierData().equals(wanted));
+
+    ArrayList<Key> retained = new ArrayList<>();
+    trf.reader.seek(new Range(), EMPTY_COL_FAMS, false);
+    for (int i = 0; i < expectedKeys.size(); i++) {
+      assertTrue(trf.reader.hasTop());
+      assertEquals(expectedKeys.get(i), trf.reader.getTopKey());
+      assertEquals(expectedValues.get(i), trf.reader.getTopValue());
+      retained.add(trf.reader.getTopKey());
+      trf.reader.next();
+    }
+    assertFalse(trf.reader.hasTop());
+
+    // keys kept from earlier entries must not change as later entries are decoded
+    assertEquals(expectedKeys, retained);
+
+    // seeking to an entry the filter drops positions on the next one it accepts, also in copies
+    SortedKeyValueIterator<Key,Value> copy = trf.reader.deepCopy(null);
+    Key start = newKey(formatString("r_", 250), "cf1", formatString("cq_", 2), "", 5);
+    copy.seek(new Range(start, null), EMPTY_COL_FAMS, false);
+    assertTrue(copy.hasTop());
+    assertEquals(expectedKeys.get(251), copy.getTopKey());
+
+    trf.closeReader();
+  }
 }
@@ -19,6 +19,8 @@
 package org.apache.accumulo.core.file.rfile;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -27,11 +29,15 @@ import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.apache.accumulo.core.data.ArrayByteSequence;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.PartialKey;
 import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile.CachedBlockRead;
 import org.apache.accumulo.core.file.rfile.RelativeKey.SkippR;
 import org.apache.accumulo.core.util.MutableByteSequence;
 import org.junit.Before;
@@ -260,4 +266,100 @@ public class RelativeKeyTest {
     assertEquals(expectedValues.get(j).toString(), value.toString());
 
   }
+
+  @Test
+  public void testSeekReusingBuffers() throws IOException {
+    RelativeKey.SkipBuffers buffers = new RelativeKey.SkipBuffers();
+    MutableByteSequence value = new MutableByteSequence(new byte[64], 0, 0);
+
+    // seek to the start of several row/family/qualifier groups (32 entries each) and then one
+    // family ahead from there, sharing buffers between all of the seeks
+    int[] seekIndexes = {32, 96, expectedKeys.size() / 2, expectedKeys.size() - 32};
+    for (int seekIndex : seekIndexes) {
+      in.reset();
+      SkippR skippr = RelativeKey.fastSkip(in, expectedKeys.get(seekIndex), value, new Key(), null,
+          expectedKeys.size(), buffers);
+      assertEquals(seekIndex + 1, skippr.skipped);
+      assertEquals(expectedKeys.get(seekIndex - 1), skippr.prevKey);
+      assertEquals(expectedKeys.get(seekIndex), skippr.rk.getKey());
+      assertEquals(expectedValues.get(seekIndex).toString(), value.toString());
+
+      Key currKey = skippr.rk.getKey();
+      Key fKey = currKey.followingKey(PartialKey.ROW_COLFAM);
+      int j;
+      for (j = seekIndex; j < expectedKeys.size() && expectedKeys.get(j).compareTo(fKey) < 0;
+          j++) {}
+      if (j == expectedKeys.size()) {
+        continue;
+      }
+
+      skippr = RelativeKey.fastSkip(in, fKey, value, expectedKeys.get(seekIndex - 1), currKey,
+          expectedKeys.size() - seekIndex - 1, buffers);
+      assertEquals(j - seekIndex, skippr.skipped);
+      assertEquals(expectedKeys.get(j - 1), skippr.prevKey);
+      assertEquals(expectedKeys.get(j), skippr.rk.getKey());
+      assertEquals(expectedValues.get(j).toString(), value.toString());
+
+      // keys handed out must not change when the buffers are reused
+      assertEquals(expectedKeys.get(seekIndex), currKey);
+    }
+  }
+
+  @Test
+  public void testReadViewFromBlock() throws IOException {
+    byte[] block = baos.toByteArray();
+    RelativeKey rk = new RelativeKey();
+    Map<Integer,Key> retained = readViews(new CachedBlockRead(null, block), rk);
+
+    // keys copied out must not change when the block buffer is reused for other data
+    Arrays.fill(block, (byte) 0);
+    retained.forEach((i, key) -> assertEquals(expectedKeys.get(i), key));
+
+    // while the current entry is a view over the block, column visibilities are never prefix
+    // compressed so they are not copied
+    Key last = expectedKeys.get(expectedKeys.size() - 1);
+    assertNotEquals(last.getColumnVisibilityData(), rk.getColumnVisibilityData());
+  }
+
+  @Test
+  public void testReadViewFromStream() throws IOException {
+    RelativeKey rk = new RelativeKey();
+    Map<Integer,Key> retained = readViews(new CachedBlockRead(in), rk);
+
+    // keys copied out must not change when the scratch buffers are reused
+    retained.forEach((i, key) -> assertEquals(expectedKeys.get(i), key));
+  }
+
+  private static Map<Integer,Key> readViews(CachedBlockRead block, RelativeKey rk)
+      throws IOException {
+    Map<Integer,Key> retained = new HashMap<>();
+    MutableByteSequence value = new MutableByteSequence(new byte[0], 0, 0);
+    MutableByteSequence scratch = new MutableByteSequence(new byte[64], 0, 0);
+
+    rk.setCurrentKey(new Key());
+    for (int i = 0; i < expectedKeys.size(); i++) {
+      rk.readView(block);
+      RelativeKey.readValueView(block, value, scratch);
+
+      Key expected = expectedKeys.get(i);
+      assertEquals(expected.getRowData(), rk.getRowData());
+      assertEquals(expected.getColumnFamilyData(), rk.getColumnFamilyData());
+      assertEquals(expected.getColumnQualifierData(), rk.getColumnQualifierData());
+      assertEquals(expected.getColumnVisibilityData(), rk.getColumnVisibilityData());
+      assertEquals(expected.getTimestamp(), rk.getTimestamp());
+      assertEquals(expected.isDeleted(), rk.isDeleted());
+      assertEquals(expectedValues.get(i).toString(), value.toString());
+
+      assertEquals(0, rk.compareTo(expected));
+      if (i > 0)
+        assertTrue(rk.compareTo(expectedKeys.get(i - 1)) > 0);
+      if (i < expectedKeys.size() - 1)
+        assertTrue(rk.compareTo(expectedKeys.get(i + 1)) < 0);
+
+      if (i % 7 == 0) {
+        retained.put(i, rk.getKey());
+      }
+    }
+    return retained;
+  }
 }
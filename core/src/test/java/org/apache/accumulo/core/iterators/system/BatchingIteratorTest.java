@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.iterators.system;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Column;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.BatchingIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.DeletingIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.DeletingIterator.Behavior;
+import org.apache.accumulo.core.iteratorsImpl.system.KVBatch;
+import org.apache.accumulo.core.iteratorsImpl.system.MultiIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.StatsIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.SystemIteratorUtil;
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.Test;
+
+public class BatchingIteratorTest {
+
+  private static final Collection<ByteSequence> EMPTY_COL_FAMS = new ArrayList<>();
+  private static final String[] VISIBILITIES = {"", "A", "B", "A&B", "C"};
+
+  private static TreeMap<Key,Value> createData(Random random, int rows) {
+    TreeMap<Key,Value> data = new TreeMap<>();
+    for (int r = 0; r < rows; r++) {
+      for (int f = 0; f < 3; f++) {
+        for (int q = 0; q < 3; q++) {
+          String vis = VISIBILITIES[random.nextInt(VISIBILITIES.length)];
+          for (int ts = random.nextInt(3); ts >= 0; ts--) {
+            Key k = new Key(String.format("r%05d", r), "f" + f, "q" + q, vis, ts);
+            k.setDeleted(random.nextInt(10) == 0);
+            data.put(k, new Value("v" + r + f + q + ts));
+          }
+        }
+      }
+    }
+    return data;
+  }
+
+  private static SortedKeyValueIterator<Key,Value> createStack(TreeMap<Key,Value> data1,
+      TreeMap<Key,Value> data2, Set<Column> columns) throws IOException {
+    List<SortedKeyValueIterator<Key,Value>> sources =
+        Arrays.asList(new SortedMapIterator(data1), new SortedMapIterator(data2));
+    StatsIterator stats =
+        new StatsIterator(new MultiIterator(sources, false), new AtomicLong(), new AtomicLong());
+    return SystemIteratorUtil.setupSystemScanIterators(stats, columns,
+        new Authorizations("A", "B"), new byte[0], DefaultConfiguration.getInstance());
+  }
+
+  private static List<Entry<Key,Value>> readEntries(SortedKeyValueIterator<Key,Value> iter) {
+    List<Entry<Key,Value>> entries = new ArrayList<>();
+    while (iter.hasTop()) {
+      entries.add(copyOf(iter.getTopKey(), iter.getTopValue()));
+      try {
+        iter.next();
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    return entries;
+  }
+
+  private static List<Entry<Key,Value>> readBatches(SortedKeyValueIterator<Key,Value> iter,
+      int capacity) throws IOException {
+    List<Entry<Key,Value>> entries = new ArrayList<>();
+    KVBatch batch = new KVBatch(capacity);
+    while (iter.hasTop()) {
+      batch.clear();
+      int added = KVBatch.fill(iter, batch);
+      assertEquals(batch.size(), added);
+      assertTrue(added <= capacity);
+      for (int i = 0; i < batch.size(); i++) {
+        entries.add(copyOf(batch.getKey(i), batch.getValue(i)));
+      }
+    }
+    return entries;
+  }
+
+  private static Entry<Key,Value> copyOf(Key k, Value v) {
+    return new AbstractMap.SimpleImmutableEntry<>(new Key(k), new Value(v));
+  }
+
+  private void runStack(Set<Column> columns, Collection<ByteSequence> families, boolean inclusive)
+      throws IOException {
+    Random random = new Random(42);
+    TreeMap<Key,Value> data1 = createData(random, 200);
+    TreeMap<Key,Value> data2 = createData(random, 200);
+
+    Range[] ranges = {new Range(), new Range("r00050", "r00150"),
+        new Range(new Key("r00010", "f1", "q1"), true, new Key("r00199", "f0"), false)};
+
+    for (Range range : ranges) {
+      SortedKeyValueIterator<Key,Value> expectedIter = createStack(data1, data2, columns);
+      expectedIter.seek(range, families, inclusive);
+      List<Entry<Key,Value>> expected = readEntries(expectedIter);
+      assertFalse(expected.isEmpty());
+
+      for (int capacity : new int[] {1, 7, 64, 10000}) {
+        SortedKeyValueIterator<Key,Value> iter = createStack(data1, data2, columns);
+        assertTrue(iter instanceof BatchingIterator);
+        iter.seek(range, families, inclusive);
+        assertEquals("capacity " + capacity + " range " + range, expected,
+            readBatches(iter, capacity));
+      }
+    }
+  }
+
+  @Test
+  public void testSystemStack() throws IOException {
+    runStack(Collections.emptySet(), EMPTY_COL_FAMS, false);
+  }
+
+  @Test
+  public void testSystemStackWithColumns() throws IOException {
+    Set<Column> columns = new HashSet<>();
+    columns.add(new Column("f0".getBytes(), "q1".getBytes(), null));
+    columns.add(new Column("f2".getBytes(), null, null));
+    Set<ByteSequence> families = new HashSet<>();
+    families.add(new ArrayByteSequence("f0"));
+    families.add(new ArrayByteSequence("f2"));
+    runStack(columns, families, true);
+  }
+
+  @Test
+  public void testPropagatingDeletes() throws IOException {
+    TreeMap<Key,Value> data = createData(new Random(7), 100);
+
+    SortedKeyValueIterator<Key,Value> expectedIter =
+        DeletingIterator.wrap(new SortedMapIterator(data), true, Behavior.PROCESS);
+    expectedIter.seek(new Range(), EMPTY_COL_FAMS, false);
+    List<Entry<Key,Value>> expected = readEntries(expectedIter);
+
+    for (int capacity : new int[] {1, 3, 100}) {
+      SortedKeyValueIterator<Key,Value> iter =
+          DeletingIterator.wrap(new SortedMapIterator(data), true, Behavior.PROCESS);
+      iter.seek(new Range(), EMPTY_COL_FAMS, false);
+      assertEquals(expected, readBatches(iter, capacity));
+    }
+  }
+}
@@ -31,6 +31,7 @@ import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.VisibilityCache;
 import org.apache.accumulo.core.iteratorsImpl.system.VisibilityFilter;
 import org.apache.accumulo.core.security.Authorizations;
 import org.junit.Test;
@@ -69,4 +70,37 @@ public class VisibilityFilterTest {
     filter.next();
     assertFalse(filter.hasTop());
   }
+
+  @Test
+  public void testSharedCache() throws IOException {
+    TreeMap<Key,Value> tm = new TreeMap<>();
+
+    tm.put(new Key("r1", "cf1", "cq1", "SC1&SC2"), new Value(new byte[0]));
+    tm.put(new Key("r1", "cf1", "cq2", "SC1&SC3"), new Value(new byte[0]));
+    tm.put(new Key("r1", "cf1", "cq3", "SC1|SC3"), new Value(new byte[0]));
+
+    VisibilityCache cache = VisibilityCache.getInstance();
+    for (int i = 0; i < 2; i++) {
+      long hits = cache.getHitCount();
+      long misses = cache.getMissCount();
+
+      SortedKeyValueIterator<Key,Value> filter = VisibilityFilter.wrap(new SortedMapIterator(tm),
+          new Authorizations("SC1", "SC2"), "".getBytes());
+      filter.seek(new Range(), new HashSet<>(), false);
+      assertTrue(filter.hasTop());
+      assertEquals(new Key("r1", "cf1", "cq1", "SC1&SC2"), filter.getTopKey());
+      filter.next();
+      assertTrue(filter.hasTop());
+      assertEquals(new Key("r1", "cf1", "cq3", "SC1|SC3"), filter.getTopKey());
+      filter.next();
+      assertFalse(filter.hasTop());
+
+      // the first filter populates the shared cache, the second only reads from it
+      if (i == 0) {
+        assertTrue(cache.getMissCount() - misses >= 3);
+      } else {
+        assertTrue(cache.getHitCount() - hits >= 3);
+      }
+    }
+  }
 }
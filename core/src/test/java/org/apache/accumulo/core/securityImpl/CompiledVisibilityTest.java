@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.core.securityImpl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.accumulo.core.security.ColumnVisibility.quote;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.accumulo.core.security.VisibilityEvaluator;
+import org.apache.accumulo.core.security.VisibilityParseException;
+import org.apache.accumulo.core.util.ByteArraySet;
+import org.junit.Test;
+
+public class CompiledVisibilityTest {
+
+  @Test
+  public void testMatchesEvaluator() throws VisibilityParseException {
+    Authorizations auths = new Authorizations(
+        ByteArraySet.fromStrings("one", "two", "three", "four", "a\"b", "c\\d", "五"));
+    VisibilityEvaluator ve = new VisibilityEvaluator(auths);
+
+    for (String marking : new String[] {"one", "five", "one|five", "five|one", "one&five",
+        "(one&two)|(foo&bar)", "(one|foo)&three", "one|foo|bar", "(one|foo)|bar",
+        "((one|foo)|bar)&two", "((one|foo)|bar)&goober", quote("a\"b") + "&" + quote("c\\d"),
+        quote("a\"b") + "&five", quote("五") + "|five", "four&(three|(two&one))"}) {
+      ColumnVisibility cv = new ColumnVisibility(marking);
+      CompiledVisibility compiled = CompiledVisibility.compile(cv);
+      assertEquals(marking, ve.evaluate(cv), compiled.evaluate(auths));
+      assertEquals(marking, ve.evaluate(cv),
+          CompiledVisibility.compile(marking.getBytes(UTF_8)).evaluate(auths));
+    }
+  }
+
+  @Test
+  public void testEmpty() throws VisibilityParseException {
+    assertTrue(CompiledVisibility.compile(new byte[0]).evaluate(Authorizations.EMPTY));
+    assertTrue(CompiledVisibility.compile(new ColumnVisibility()).evaluate(Authorizations.EMPTY));
+  }
+
+  @Test
+  public void testReusedAcrossAuthorizations() throws VisibilityParseException {
+    CompiledVisibility compiled = CompiledVisibility.compile("A&(B|C)".getBytes(UTF_8));
+    assertTrue(compiled.evaluate(new Authorizations("A", "B")));
+    assertTrue(compiled.evaluate(new Authorizations("A", "C")));
+    assertFalse(compiled.evaluate(new Authorizations("A")));
+    assertFalse(compiled.evaluate(new Authorizations("B", "C")));
+  }
+}
@@ -0,0 +1,332 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.fate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.accumulo.fate.ReadOnlyTStore.TStatus;
+import org.junit.Test;
+
+public class FateTest {
+
+  /**
+   * Thread safe in memory store that supports running transactions.
+   */
+  private static class MemoryStore<T> implements TStore<T> {
+
+    private long nextId = 1;
+    private final Map<Long,TStatus> statuses = new TreeMap<>();
+    private final Map<Long,Deque<Repo<T>>> stacks = new HashMap<>();
+    private final Map<Long,Map<String,Serializable>> props = new HashMap<>();
+    private final Set<Long> reserved = new HashSet<>();
+    private final Map<Long,Long> deferred = new HashMap<>();
+
+    @Override
+    public synchronized long create() {
+      long tid = nextId++;
+      statuses.put(tid, TStatus.NEW);
+      stacks.put(tid, new ArrayDeque<>());
+      props.put(tid, new HashMap<>());
+      return tid;
+    }
+
+    @Override
+    public synchronized long reserve() {
+      while (true) {
+        long now = System.currentTimeMillis();
+        for (Entry<Long,TStatus> entry : statuses.entrySet()) {
+          long tid = entry.getKey();
+          boolean runnable = entry.getValue() == TStatus.IN_PROGRESS
+              || entry.getValue() == TStatus.FAILED_IN_PROGRESS;
+          if (runnable && !reserved.contains(tid) && deferred.getOrDefault(tid, 0L) <= now) {
+            reserved.add(tid);
+            return tid;
+          }
+        }
+        waitForChange(50);
+      }
+    }
+
+    @Override
+    public synchronized void reserve(long tid) {
+      while (reserved.contains(tid)) {
+        waitForChange(50);
+      }
+      reserved.add(tid);
+    }
+
+    @Override
+    public synchronized void unreserve(long tid, long deferTime) {
+      if (!reserved.remove(tid)) {
+        throw new IllegalStateException();
+      }
+      if (deferTime > 0) {
+        deferred.put(tid, System.currentTimeMillis() + deferTime);
+      }
+      notifyAll();
+    }
+
+    private void waitForChange(long millis) {
+      try {
+        wait(millis);
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    @Override
+    public synchronized Repo<T> top(long tid) {
+      Deque<Repo<T>> stack = stacks.get(tid);
+      return stack == null ? null : stack.peek();
+    }
+
+    @Override
+    public synchronized void push(long tid, Repo<T> repo) {
+      stacks.get(tid).push(repo);
+    }
+
+    @Override
+    public synchronized void pop(long tid) {
+      stacks.get(tid).pop();
+    }
+
+    @Override
+    public synchronized TStatus getStatus(long tid) {
+      return statuses.getOrDefault(tid, TStatus.UNKNOWN);
+    }
+
+    @Override
+    public synchronized void setStatus(long tid, TStatus status) {
+      statuses.put(tid, status);
+      notifyAll();
+    }
+
+    @Override
+    public synchronized TStatus waitForStatusChange(long tid, EnumSet<TStatus> expected) {
+      while (!expected.contains(getStatus(tid))) {
+        waitForChange(50);
+      }
+      return getStatus(tid);
+    }
+
+    @Override
+    public synchronized void setProperty(long tid, String prop, Serializable val) {
+      props.get(tid).put(prop, val);
+    }
+
+    @Override
+    public synchronized Serializable getProperty(long tid, String prop) {
+      return props.get(tid).get(prop);
+    }
+
+    @Override
+    public synchronized void delete(long tid) {
+      statuses.remove(tid);
+      stacks.remove(tid);
+      props.remove(tid);
+      notifyAll();
+    }
+
+    @Override
+    public synchronized List<Long> list() {
+      return new ArrayList<>(statuses.keySet());
+    }
+
+    @Override
+    public synchronized List<ReadOnlyRepo<T>> getStack(long tid) {
+      return new ArrayList<>(stacks.get(tid));
+    }
+  }
+
+  // the repos of the tests run against this environment
+  private static class Env {
+    final Map<String,AtomicInteger> running = new ConcurrentHashMap<>();
+    final Map<String,AtomicInteger> maxRunning = new ConcurrentHashMap<>();
+    final CountDownLatch typeBRan = new CountDownLatch(1);
+
+    void run(String type, Runnable work) {
+      int count = running.computeIfAbsent(type, k -> new AtomicInteger()).incrementAndGet();
+      maxRunning.computeIfAbsent(type, k -> new AtomicInteger()).accumulateAndGet(count, Math::max);
+      try {
+        work.run();
+      } finally {
+        running.get(type).decrementAndGet();
+      }
+    }
+  }
+
+  private abstract static class TestRepo implements Repo<Env> {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public long isReady(long tid, Env environment) {
+      return 0;
+    }
+
+    @Override
+    public void undo(long tid, Env environment) {}
+
+    @Override
+    public String getDescription() {
+      return getName();
+    }
+
+    @Override
+    public String getReturn() {
+      return null;
+    }
+  }
+
+  // waits for a TypeB step, which can only run at the same time if the limit is kept per type
+  private static class TypeA extends TestRepo {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Repo<Env> call(long tid, Env env) {
+      env.run(getName(), () -> {
+        try {
+          assertTrue(env.typeBRan.await(30, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      });
+      return null;
+    }
+  }
+
+  private static class TypeB extends TestRepo {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Repo<Env> call(long tid, Env env) {
+      env.run(getName(), () -> {
+        try {
+          Thread.sleep(100);
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      });
+      env.typeBRan.countDown();
+      return null;
+    }
+  }
+
+  // wraps another repo the way the master's TraceRepo does
+  private static class WrappingRepo implements Repo<Env> {
+    private static final long serialVersionUID = 1L;
+
+    private final Repo<Env> repo;
+
+    WrappingRepo(Repo<Env> repo) {
+      this.repo = repo;
+    }
+
+    @Override
+    public long isReady(long tid, Env environment) throws Exception {
+      return repo.isReady(tid, environment);
+    }
+
+    @Override
+    public Repo<Env> call(long tid, Env environment) throws Exception {
+      Repo<Env> result = repo.call(tid, environment);
+      return result == null ? null : new WrappingRepo(result);
+    }
+
+    @Override
+    public void undo(long tid, Env environment) throws Exception {
+      repo.undo(tid, environment);
+    }
+
+    @Override
+    public String getDescription() {
+      return repo.getDescription();
+    }
+
+    @Override
+    public String getReturn() {
+      return repo.getReturn();
+    }
+
+    @Override
+    public String getName() {
+      return repo.getName();
+    }
+  }
+
+  private static long seed(Fate<Env> fate, Repo<Env> repo) {
+    long tid = fate.startTransaction();
+    fate.seedTransaction(tid, new WrappingRepo(repo), false);
+    return tid;
+  }
+
+  @Test(timeout = 60_000)
+  public void testTypeLimitUsesWrappedRepo() {
+    Env env = new Env();
+    Fate<Env> fate = new Fate<>(env, new MemoryStore<>());
+    fate.startTransactionRunners(4, 1);
+    try {
+      long a = seed(fate, new TypeA());
+      long b = seed(fate, new TypeB());
+
+      // with the limit keyed on the wrapper, b would wait for a, which waits for b
+      assertEquals(TStatus.SUCCESSFUL, fate.waitForCompletion(a));
+      assertEquals(TStatus.SUCCESSFUL, fate.waitForCompletion(b));
+    } finally {
+      fate.shutdown();
+    }
+  }
+
+  @Test(timeout = 60_000)
+  public void testTypeLimit() {
+    Env env = new Env();
+    env.typeBRan.countDown();
+    Fate<Env> fate = new Fate<>(env, new MemoryStore<>());
+    fate.startTransactionRunners(4, 1);
+    try {
+      List<Long> tids = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        tids.add(seed(fate, new TypeB()));
+      }
+      for (long tid : tids) {
+        assertEquals(TStatus.SUCCESSFUL, fate.waitForCompletion(tid));
+      }
+      assertEquals(1, env.maxRunning.get("TypeB").get());
+    } finally {
+      fate.shutdown();
+    }
+  }
+}
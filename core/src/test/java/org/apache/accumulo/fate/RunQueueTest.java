@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.fate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class RunQueueTest {
+
+  @Test
+  public void testSpreadAndSteal() throws Exception {
+    RunQueue queue = new RunQueue(2, 4, 0);
+
+    for (long tid = 1; tid <= 4; tid++) {
+      queue.awaitCapacity();
+      queue.add(tid);
+    }
+    assertEquals(4, queue.size());
+
+    // transactions alternate between the runners, runner 0 has 1 and 3
+    assertEquals(1, queue.take(0, 0, TimeUnit.MILLISECONDS).tid);
+    assertEquals(3, queue.take(0, 0, TimeUnit.MILLISECONDS).tid);
+
+    // runner 0 has nothing left, so it steals from the tail of runner 1
+    assertEquals(4, queue.take(0, 0, TimeUnit.MILLISECONDS).tid);
+    assertEquals(2, queue.take(1, 0, TimeUnit.MILLISECONDS).tid);
+
+    assertEquals(0, queue.size());
+    assertNull(queue.take(1, 0, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testCapacity() throws Exception {
+    RunQueue queue = new RunQueue(1, 1, 0);
+
+    queue.awaitCapacity();
+    queue.add(7);
+
+    Thread adder = new Thread(() -> {
+      try {
+        queue.awaitCapacity();
+        queue.add(8);
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    adder.start();
+
+    // the queue is full until a transaction is taken
+    adder.join(100);
+    assertTrue(adder.isAlive());
+    assertEquals(1, queue.size());
+
+    assertEquals(7, queue.take(0, 0, TimeUnit.MILLISECONDS).tid);
+    adder.join();
+    assertEquals(8, queue.take(0, 0, TimeUnit.MILLISECONDS).tid);
+  }
+
+  @Test
+  public void testTypeLimit() {
+    RunQueue queue = new RunQueue(4, 4, 2);
+
+    assertTrue(queue.startType("CompactRange"));
+    assertTrue(queue.startType("CompactRange"));
+    assertFalse(queue.startType("CompactRange"));
+    assertTrue(queue.startType("CreateTable"));
+    assertEquals(2, queue.getRunning("CompactRange"));
+
+    queue.finishType("CompactRange");
+    assertEquals(1, queue.getRunning("CompactRange"));
+    assertTrue(queue.startType("CompactRange"));
+    assertEquals(0, queue.getRunning("DeleteTable"));
+  }
+
+  @Test
+  public void testNoTypeLimit() {
+    RunQueue queue = new RunQueue(1, 1, 0);
+    for (int i = 0; i < 10; i++) {
+      assertTrue(queue.startType("CompactRange"));
+    }
+    assertEquals(10, queue.getRunning("CompactRange"));
+  }
+}
@@ -98,6 +98,8 @@ public class ZooCacheTest {
 
     assertTrue(zc.dataCached(ZPATH));
     assertSame(DATA, zc.get(ZPATH)); // cache hit
+    assertEquals(1, zc.getMissCount());
+    assertEquals(1, zc.getHitCount());
   }
 
   @Test
@@ -290,6 +292,54 @@ public class ZooCacheTest {
     return cw.getValue();
   }
 
+  @Test
+  public void testWatchEventDuringLoad() throws Exception {
+    final String otherPath = "/some/other/path";
+    WatchedEvent event = new WatchedEvent(Watcher.Event.EventType.NodeDataChanged,
+        Watcher.Event.KeeperState.SyncConnected, ZPATH);
+    Capture<Watcher> cw = EasyMock.newCapture();
+    Stat existsStat = new Stat();
+    expect(zk.exists(eq(ZPATH), capture(cw))).andReturn(existsStat);
+    expect(zk.getData(eq(ZPATH), anyObject(Watcher.class), eq(existsStat))).andReturn(DATA);
+    expect(zk.exists(eq(otherPath), anyObject(Watcher.class))).andAnswer(() -> {
+      // the event arrives while this thread holds the cache lock, it must not wait for it
+      Thread eventThread = new Thread(() -> cw.getValue().process(event));
+      eventThread.start();
+      eventThread.join();
+      assertTrue(zc.dataCached(ZPATH));
+      return null;
+    });
+    replay(zk);
+
+    assertArrayEquals(DATA, zc.get(ZPATH));
+    assertNull(zc.get(otherPath));
+    // applied when the lock was released
+    assertFalse(zc.dataCached(ZPATH));
+    verify(zk);
+  }
+
+  @Test
+  public void testWatchEventForLoadingPath() throws Exception {
+    WatchedEvent event = new WatchedEvent(Watcher.Event.EventType.NodeDataChanged,
+        Watcher.Event.KeeperState.SyncConnected, ZPATH);
+    Capture<Watcher> cw = EasyMock.newCapture();
+    Stat existsStat = new Stat();
+    expect(zk.exists(eq(ZPATH), capture(cw))).andReturn(existsStat);
+    expect(zk.getData(eq(ZPATH), anyObject(Watcher.class), eq(existsStat))).andAnswer(() -> {
+      // the node changes after it was read, but before the value read is cached
+      Thread eventThread = new Thread(() -> cw.getValue().process(event));
+      eventThread.start();
+      eventThread.join();
+      return DATA;
+    });
+    replay(zk);
+
+    assertArrayEquals(DATA, zc.get(ZPATH));
+    // the stale value must not stay cached
+    assertFalse(zc.dataCached(ZPATH));
+    verify(zk);
+  }
+
   @Test
   public void testWatchDataNode_Disconnected() throws Exception {
     testWatchDataNode_Clear(Watcher.Event.KeeperState.Disconnected);
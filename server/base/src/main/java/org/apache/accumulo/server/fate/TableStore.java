@@ -0,0 +1,726 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.server.fate;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Predicate;
+
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.ConditionalWriter;
+import org.apache.accumulo.core.client.ConditionalWriter.Status;
+import org.apache.accumulo.core.client.ConditionalWriterConfig;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.clientImpl.ClientContext;
+import org.apache.accumulo.core.data.Condition;
+import org.apache.accumulo.core.data.ConditionalMutation;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.metadata.schema.MetadataSchema.FateSection;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.util.Daemon;
+import org.apache.accumulo.fate.FateTxId;
+import org.apache.accumulo.fate.ReadOnlyRepo;
+import org.apache.accumulo.fate.Repo;
+import org.apache.accumulo.fate.StackOverflowException;
+import org.apache.accumulo.fate.TStore;
+import org.apache.accumulo.fate.zookeeper.ZooLock;
+import org.apache.accumulo.fate.zookeeper.ZooUtil.LockID;
+import org.apache.hadoop.io.Text;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * A {@link TStore} that keeps each transaction in a row of an Accumulo table, laid out as described
+ * in {@link FateSection}.
+ *
+ * <p>
+ * Transactions are created and reserved with conditional mutations. A reservation records the
+ * ZooKeeper lock of the master that made it and is only taken over once that lock is gone, so a
+ * second master that is briefly active does not run a transaction the first one holds. Updates to
+ * a reserved transaction, like status changes and repo pushes, are not conditioned on the
+ * reservation. They rely on a master that lost its lock halting, and updates from concurrent
+ * callers are written together in one batch.
+ */
+public class TableStore<T> implements TStore<T>, AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(TableStore.class);
+
+  private static final Text EMPTY = new Text();
+  private static final int MAX_STACK_DEPTH = 100;
+  private static final int MAX_BATCH = 1000;
+
+  private final ClientContext context;
+  private final String tableName;
+  private final Value reservationId;
+  private final Predicate<String> reservationHeld;
+  private final SecureRandom idgenerator = new SecureRandom();
+  private final ConditionalWriter conditionalWriter;
+  private final Thread writerThread;
+  private volatile boolean closed = false;
+
+  private long lastReserved = -1;
+  private final Set<Long> reserved = new HashSet<>();
+  private final Map<Long,Long> defered = new HashMap<>();
+  private long statusChangeEvents = 0;
+  private int reservationsWaiting = 0;
+
+  private static class PendingWrite {
+    final Mutation mutation;
+    final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    PendingWrite(Mutation mutation) {
+      this.mutation = mutation;
+    }
+  }
+
+  private final BlockingQueue<PendingWrite> pendingWrites = new LinkedBlockingQueue<>();
+
+  private enum Reservation {
+    RESERVED, HELD_ELSEWHERE, MISSING
+  }
+
+  /**
+   * @param lock
+   *          the master's lock, reservations are made in its name
+   */
+  public TableStore(ClientContext context, String tableName, ZooLock lock)
+      throws TableNotFoundException {
+    this(context, tableName, lock.getLockID().serialize(context.getZooKeeperRoot()),
+        reservation -> isLockHeld(context, reservation));
+  }
+
+  /**
+   * @param reservationId
+   *          identifies this store's reservations
+   * @param reservationHeld
+   *          tells if the store that made a reservation is still alive
+   */
+  @VisibleForTesting
+  public TableStore(ClientContext context, String tableName, String reservationId,
+      Predicate<String> reservationHeld) throws TableNotFoundException {
+    this.context = context;
+    this.tableName = tableName;
+    this.reservationId = new Value(reservationId);
+    this.reservationHeld = reservationHeld;
+    this.conditionalWriter =
+        context.createConditionalWriter(tableName, new ConditionalWriterConfig());
+    this.writerThread = new Daemon(this::writeBatches, "FATE store writer");
+    writerThread.start();
+  }
+
+  /**
+   * Stops the thread that writes updates and closes the writers. Updates that were not written yet
+   * fail, as do later calls that write.
+   */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    writerThread.interrupt();
+    try {
+      writerThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    conditionalWriter.close();
+  }
+
+  private static boolean isLockHeld(ClientContext context, String reservation) {
+    LockID lid;
+    try {
+      lid = new LockID(context.getZooKeeperRoot(), reservation);
+    } catch (IllegalArgumentException e) {
+      log.warn("FATE reservation {} is not a lock id", reservation);
+      return false;
+    }
+    return ZooLock.isLockHeld(context.getZooCache(), lid);
+  }
+
+  private byte[] serialize(Object o) {
+    try {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      ObjectOutputStream oos = new ObjectOutputStream(baos);
+      oos.writeObject(o);
+      oos.close();
+
+      return baos.toByteArray();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @SuppressFBWarnings(value = "OBJECT_DESERIALIZATION",
+      justification = "unsafe to store arbitrary serialized objects like this, but needed for now"
+          + " for compatibility with ZooStore")
+  private Object deserialize(byte[] ser) {
+    try {
+      ByteArrayInputStream bais = new ByteArrayInputStream(ser);
+      ObjectInputStream ois = new ObjectInputStream(bais);
+      return ois.readObject();
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private Scanner createScanner() {
+    try {
+      return context.createScanner(tableName, Authorizations.EMPTY);
+    } catch (TableNotFoundException e) {
+      throw new IllegalStateException(tableName + " does not exist", e);
+    }
+  }
+
+  /**
+   * Reads the given column family of a transaction.
+   */
+  private SortedMap<Text,Value> readColumns(long tid, Text colf) {
+    SortedMap<Text,Value> columns = new TreeMap<>();
+    try (Scanner scanner = createScanner()) {
+      scanner.setRange(new Range(FateSection.encodeRow(tid)));
+      scanner.fetchColumnFamily(colf);
+      for (Entry<Key,Value> entry : scanner) {
+        columns.put(entry.getKey().getColumnQualifier(), entry.getValue());
+      }
+    }
+    return columns;
+  }
+
+  private Value readColumn(long tid, Text colf) {
+    return readColumns(tid, colf).get(EMPTY);
+  }
+
+  private Status writeConditional(ConditionalMutation cm) {
+    try {
+      return conditionalWriter.write(cm).getStatus();
+    } catch (AccumuloException | AccumuloSecurityException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Writes the mutation together with those of other callers and waits for it to be written.
+   */
+  private void write(Mutation mutation) {
+    PendingWrite write = new PendingWrite(mutation);
+    pendingWrites.add(write);
+    // the writer thread fails what it finds queued when it exits, but may have exited already
+    if (closed && pendingWrites.remove(write)) {
+      throw new IllegalStateException("FATE store is closed");
+    }
+    try {
+      write.done.get();
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Failed to update FATE transaction", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void writeBatches() {
+    List<PendingWrite> batch = new ArrayList<>();
+    BatchWriter writer = null;
+    try {
+      // a flush may clear the interrupt close() sends, so check the flag as well
+      while (!closed) {
+        try {
+          batch.add(pendingWrites.take());
+        } catch (InterruptedException e) {
+          return;
+        }
+        pendingWrites.drainTo(batch, MAX_BATCH - 1);
+
+        try {
+          if (writer == null) {
+            writer = context.createBatchWriter(tableName);
+          }
+          for (PendingWrite write : batch) {
+            writer.addMutation(write.mutation);
+          }
+          writer.flush();
+          batch.forEach(write -> write.done.complete(null));
+        } catch (Exception e) {
+          log.warn("Failed to write {} FATE updates", batch.size(), e);
+          batch.forEach(write -> write.done.completeExceptionally(e));
+          // a batch writer that failed can not be used again
+          closeWriter(writer);
+          writer = null;
+        }
+        batch.clear();
+      }
+    } finally {
+      closeWriter(writer);
+      pendingWrites.drainTo(batch);
+      IllegalStateException e = new IllegalStateException("FATE store is closed");
+      batch.forEach(write -> write.done.completeExceptionally(e));
+    }
+  }
+
+  private static void closeWriter(BatchWriter writer) {
+    try {
+      if (writer != null) {
+        writer.close();
+      }
+    } catch (Exception e) {
+      log.debug("Failed to close FATE update writer", e);
+    }
+  }
+
+  @Override
+  public long create() {
+    while (true) {
+      // looking at the code for SecureRandom, it appears to be thread safe
+      long tid = idgenerator.nextLong() & 0x7fffffffffffffffL;
+      ConditionalMutation cm = new ConditionalMutation(FateSection.encodeRow(tid),
+          new Condition(FateSection.STATUS_COLF, EMPTY));
+      cm.put(FateSection.STATUS_COLF, EMPTY, new Value(TStatus.NEW.name()));
+      Status status = writeConditional(cm);
+      if (status == Status.ACCEPTED) {
+        return tid;
+      } else if (status == Status.UNKNOWN) {
+        // ids are random, so a new transaction with this id is almost certainly ours
+        Value current = readColumn(tid, FateSection.STATUS_COLF);
+        if (current != null && current.toString().equals(TStatus.NEW.name())) {
+          return tid;
+        }
+      } else if (status != Status.REJECTED) {
+        throw new IllegalStateException("Unexpected status creating transaction " + status);
+      }
+      // exists, so just try another random #
+    }
+  }
+
+  /**
+   * Records this store's reservation of the transaction in the table. A reservation of another
+   * store is only taken over when that store's lock is gone.
+   */
+  private Reservation persistReservation(long tid) {
+    while (true) {
+      Value status = readColumn(tid, FateSection.STATUS_COLF);
+      if (status == null) {
+        return Reservation.MISSING;
+      }
+      Value current = readColumn(tid, FateSection.RESERVATION_COLF);
+      if (reservationId.equals(current)) {
+        return Reservation.RESERVED;
+      }
+      if (current != null) {
+        if (reservationHeld.test(current.toString())) {
+          return Reservation.HELD_ELSEWHERE;
+        }
+        log.debug("Taking over reservation of {} from {}", FateTxId.formatTid(tid), current);
+      }
+
+      Condition reservationCondition = new Condition(FateSection.RESERVATION_COLF, EMPTY);
+      if (current != null) {
+        reservationCondition.setValue(current.get());
+      }
+      ConditionalMutation cm = new ConditionalMutation(FateSection.encodeRow(tid),
+          new Condition(FateSection.STATUS_COLF, EMPTY).setValue(status.get()),
+          reservationCondition);
+      cm.put(FateSection.RESERVATION_COLF, EMPTY, reservationId);
+
+      Status result = writeConditional(cm);
+      if (result == Status.ACCEPTED) {
+        return Reservation.RESERVED;
+      } else if (result != Status.REJECTED && result != Status.UNKNOWN) {
+        throw new IllegalStateException("Unexpected status reserving transaction " + result);
+      }
+      // something changed or the outcome is not known, read again
+    }
+  }
+
+  private void deleteReservation(long tid) {
+    ConditionalMutation cm = new ConditionalMutation(FateSection.encodeRow(tid),
+        new Condition(FateSection.RESERVATION_COLF, EMPTY).setValue(reservationId.get()));
+    cm.putDelete(FateSection.RESERVATION_COLF, EMPTY);
+    // rejected when the transaction was deleted, which also removed the reservation
+    writeConditional(cm);
+  }
+
+  @Override
+  public long reserve() {
+    try {
+      while (true) {
+
+        long events;
+        synchronized (this) {
+          events = statusChangeEvents;
+        }
+
+        SortedMap<Long,TStatus> statuses = new TreeMap<>();
+        try (Scanner scanner = createScanner()) {
+          scanner.setRange(FateSection.getRange());
+          scanner.fetchColumnFamily(FateSection.STATUS_COLF);
+          for (Entry<Key,Value> entry : scanner) {
+            statuses.put(FateSection.decodeRow(entry.getKey().getRow().toString()),
+                TStatus.valueOf(entry.getValue().toString()));
+          }
+        }
+
+        synchronized (this) {
+          if (!statuses.isEmpty() && statuses.lastKey() <= lastReserved)
+            lastReserved = -1;
+        }
+
+        for (Entry<Long,TStatus> entry : statuses.entrySet()) {
+          long tid = entry.getKey();
+          TStatus status = entry.getValue();
+
+          synchronized (this) {
+            // pick up where the last call left off, so that all transactions get a turn
+            if (tid <= lastReserved)
+              continue;
+
+            if (defered.containsKey(tid)) {
+              if (defered.get(tid) < System.currentTimeMillis())
+                defered.remove(tid);
+              else
+                continue;
+            }
+            if (!reserved.contains(tid)) {
+              reserved.add(tid);
+              lastReserved = tid;
+            } else
+              continue;
+          }
+
+          try {
+            if ((status == TStatus.IN_PROGRESS || status == TStatus.FAILED_IN_PROGRESS)
+                && persistReservation(tid) == Reservation.RESERVED) {
+              return tid;
+            } else {
+              unreserveLocally(tid);
+            }
+          } catch (Exception e) {
+            unreserveLocally(tid);
+            throw e;
+          }
+        }
+
+        synchronized (this) {
+          // suppress lgtm alert - synchronized variable is not always true
+          if (events == statusChangeEvents) { // lgtm [java/constant-comparison]
+            if (defered.size() > 0) {
+              Long minTime = Collections.min(defered.values());
+              long waitTime = minTime - System.currentTimeMillis();
+              if (waitTime > 0)
+                this.wait(Math.min(waitTime, 5000));
+            } else
+              this.wait(5000);
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public void reserve(long tid) {
+    synchronized (this) {
+      reservationsWaiting++;
+      try {
+        while (reserved.contains(tid))
+          try {
+            this.wait(1000);
+          } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+          }
+
+        reserved.add(tid);
+      } finally {
+        reservationsWaiting--;
+      }
+    }
+
+    try {
+      // a transaction that does not exist has no status to protect
+      while (persistReservation(tid) == Reservation.HELD_ELSEWHERE) {
+        log.debug("Waiting for the reservation of {} to be released", FateTxId.formatTid(tid));
+        try {
+          Thread.sleep(1000);
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    } catch (RuntimeException e) {
+      unreserveLocally(tid);
+      throw e;
+    }
+  }
+
+  private void unreserveLocally(long tid) {
+    synchronized (this) {
+      if (!reserved.remove(tid))
+        throw new IllegalStateException(
+            "Tried to unreserve id that was not reserved " + FateTxId.formatTid(tid));
+
+      // only wake up threads waiting in reserve(tid), see ZooStore
+      if (reservationsWaiting > 0)
+        this.notifyAll();
+    }
+  }
+
+  @Override
+  public void unreserve(long tid, long deferTime) {
+
+    if (deferTime < 0)
+      throw new IllegalArgumentException("deferTime < 0 : " + deferTime);
+
+    verifyReserved(tid);
+    deleteReservation(tid);
+
+    synchronized (this) {
+      if (!reserved.remove(tid))
+        throw new IllegalStateException(
+            "Tried to unreserve id that was not reserved " + FateTxId.formatTid(tid));
+
+      if (deferTime > 0)
+        defered.put(tid, System.currentTimeMillis() + deferTime);
+
+      this.notifyAll();
+    }
+  }
+
+  private void verifyReserved(long tid) {
+    synchronized (this) {
+      if (!reserved.contains(tid))
+        throw new IllegalStateException(
+            "Tried to operate on unreserved transaction " + FateTxId.formatTid(tid));
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public Repo<T> top(long tid) {
+    verifyReserved(tid);
+
+    SortedMap<Text,Value> repos = readColumns(tid, FateSection.REPO_COLF);
+    if (repos.isEmpty()) {
+      return null;
+    }
+    return (Repo<T>) deserialize(repos.get(repos.lastKey()).get());
+  }
+
+  private static int getDepth(Text repoQualifier) {
+    return Integer.parseInt(repoQualifier.toString().split("_")[0]);
+  }
+
+  @Override
+  public void push(long tid, Repo<T> repo) throws StackOverflowException {
+    verifyReserved(tid);
+
+    SortedMap<Text,Value> repos = readColumns(tid, FateSection.REPO_COLF);
+    int depth = repos.isEmpty() ? 0 : getDepth(repos.lastKey()) + 1;
+    if (depth > MAX_STACK_DEPTH) {
+      throw new StackOverflowException("Repo stack size too large");
+    }
+
+    // the random suffix keeps a push from reusing the key a pop just deleted
+    String qualifier = String.format("%03d_%016x", depth, idgenerator.nextLong());
+    Mutation m = new Mutation(FateSection.encodeRow(tid));
+    m.put(FateSection.REPO_COLF, new Text(qualifier), new Value(serialize(repo)));
+    write(m);
+  }
+
+  @Override
+  public void pop(long tid) {
+    verifyReserved(tid);
+
+    SortedMap<Text,Value> repos = readColumns(tid, FateSection.REPO_COLF);
+    if (repos.isEmpty())
+      throw new IllegalStateException("Tried to pop when empty " + FateTxId.formatTid(tid));
+
+    Mutation m = new Mutation(FateSection.encodeRow(tid));
+    m.putDelete(FateSection.REPO_COLF, repos.lastKey());
+    write(m);
+  }
+
+  private TStatus _getStatus(long tid) {
+    Value status = readColumn(tid, FateSection.STATUS_COLF);
+    if (status == null) {
+      return TStatus.UNKNOWN;
+    }
+    return TStatus.valueOf(status.toString());
+  }
+
+  @Override
+  public TStatus getStatus(long tid) {
+    verifyReserved(tid);
+    return _getStatus(tid);
+  }
+
+  @Override
+  public TStatus waitForStatusChange(long tid, EnumSet<TStatus> expected) {
+    while (true) {
+      long events;
+      synchronized (this) {
+        events = statusChangeEvents;
+      }
+
+      TStatus status = _getStatus(tid);
+      if (expected.contains(status))
+        return status;
+
+      synchronized (this) {
+        // suppress lgtm alert - synchronized variable is not always true
+        if (events == statusChangeEvents) { // lgtm [java/constant-comparison]
+          try {
+            this.wait(5000);
+          } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public void setStatus(long tid, TStatus status) {
+    verifyReserved(tid);
+
+    Mutation m = new Mutation(FateSection.encodeRow(tid));
+    m.put(FateSection.STATUS_COLF, EMPTY, new Value(status.name()));
+    write(m);
+
+    synchronized (this) {
+      statusChangeEvents++;
+      this.notifyAll();
+    }
+  }
+
+  @Override
+  public void delete(long tid) {
+    verifyReserved(tid);
+
+    Mutation m = new Mutation(FateSection.encodeRow(tid));
+    try (Scanner scanner = createScanner()) {
+      scanner.setRange(new Range(FateSection.encodeRow(tid)));
+      for (Entry<Key,Value> entry : scanner) {
+        m.putDelete(entry.getKey().getColumnFamily(), entry.getKey().getColumnQualifier());
+      }
+    }
+    if (m.size() > 0) {
+      write(m);
+    }
+  }
+
+  @Override
+  public void setProperty(long tid, String prop, Serializable so) {
+    verifyReserved(tid);
+
+    byte[] data;
+    if (so instanceof String) {
+      data = ("S " + so).getBytes(UTF_8);
+    } else {
+      byte[] sera = serialize(so);
+      data = new byte[sera.length + 2];
+      System.arraycopy(sera, 0, data, 2, sera.length);
+      data[0] = 'O';
+      data[1] = ' ';
+    }
+
+    Mutation m = new Mutation(FateSection.encodeRow(tid));
+    m.put(FateSection.PROP_COLF, new Text(prop), new Value(data));
+    write(m);
+  }
+
+  @Override
+  public Serializable getProperty(long tid, String prop) {
+    verifyReserved(tid);
+
+    Value value = readColumns(tid, FateSection.PROP_COLF).get(new Text(prop));
+    if (value == null) {
+      return null;
+    }
+
+    byte[] data = value.get();
+    if (data[0] == 'O') {
+      byte[] sera = new byte[data.length - 2];
+      System.arraycopy(data, 2, sera, 0, sera.length);
+      return (Serializable) deserialize(sera);
+    } else if (data[0] == 'S') {
+      return new String(data, 2, data.length - 2, UTF_8);
+    } else {
+      throw new IllegalStateException("Bad property data " + prop);
+    }
+  }
+
+  @Override
+  public List<Long> list() {
+    List<Long> l = new ArrayList<>();
+    try (Scanner scanner = createScanner()) {
+      scanner.setRange(FateSection.getRange());
+      scanner.fetchColumnFamily(FateSection.STATUS_COLF);
+      for (Entry<Key,Value> entry : scanner) {
+        l.add(FateSection.decodeRow(entry.getKey().getRow().toString()));
+      }
+    }
+    return l;
+  }
+
+  @Override
+  public List<ReadOnlyRepo<T>> getStack(long tid) {
+    SortedMap<Text,Value> repos = readColumns(tid, FateSection.REPO_COLF);
+
+    List<ReadOnlyRepo<T>> dops = new ArrayList<>();
+    for (Value ser : repos.values()) {
+      @SuppressWarnings("unchecked")
+      ReadOnlyRepo<T> repo = (ReadOnlyRepo<T>) deserialize(ser.get());
+      dops.add(repo);
+    }
+    Collections.reverse(dops);
+    return dops;
+  }
+}
@@ -22,6 +22,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.accumulo.fate.zookeeper.ZooUtil.NodeMissingPolicy.SKIP;
 
 import java.nio.ByteBuffer;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -107,6 +108,47 @@ public class LiveTServerSet implements Watcher {
       }
     }
 
+    /**
+     * Asks the tablet server to load the tablets, sending the requests over one connection.
+     */
+    public void assignTablets(ZooLock lock, Collection<KeyExtent> extents) throws TException {
+      TabletClientService.Client client = null;
+      try {
+        for (KeyExtent extent : extents) {
+          if (extent.isMeta()) {
+            assignTablet(lock, extent);
+          } else {
+            if (client == null) {
+              client =
+                  ThriftUtil.getClient(new TabletClientService.Client.Factory(), address, context);
+            }
+            loadTablet(client, lock, extent);
+          }
+        }
+      } finally {
+        if (client != null) {
+          ThriftUtil.returnClient(client);
+        }
+      }
+    }
+
+    /**
+     * Asks the tablet server to unload the tablets, sending the requests over one connection.
+     */
+    public void unloadTablets(ZooLock lock, Map<KeyExtent,TUnloadTabletGoal> goals,
+        long requestTime) throws TException {
+      TabletClientService.Client client =
+          ThriftUtil.getClient(new TabletClientService.Client.Factory(), address, context);
+      try {
+        for (Entry<KeyExtent,TUnloadTabletGoal> entry : goals.entrySet()) {
+          client.unloadTablet(TraceUtil.traceInfo(), context.rpcCreds(), lockString(lock),
+              entry.getKey().toThrift(), entry.getValue(), requestTime);
+        }
+      } finally {
+        ThriftUtil.returnClient(client);
+      }
+    }
+
     public void unloadTablet(ZooLock lock, KeyExtent extent, TUnloadTabletGoal goal,
         long requestTime) throws TException {
       TabletClientService.Client client =
@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.logging.TabletLogger;
 import org.apache.hadoop.fs.Path;
 
@@ -47,6 +48,11 @@ class LoggingTabletStateStore implements TabletStateStore {
     return wrapped.iterator();
   }
 
+  @Override
+  public ClosableIterator<TabletLocationState> iterator(Collection<Range> ranges) {
+    return wrapped.iterator(ranges);
+  }
+
   @Override
   public void setFutureLocations(Collection<Assignment> assignments)
       throws DistributedStoreException {
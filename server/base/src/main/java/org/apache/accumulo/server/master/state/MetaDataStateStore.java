@@ -28,6 +28,7 @@ import org.apache.accumulo.core.client.BatchWriterConfig;
 import org.apache.accumulo.core.client.MutationsRejectedException;
 import org.apache.accumulo.core.clientImpl.ClientContext;
 import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.metadata.MetadataTable;
 import org.apache.accumulo.core.metadata.schema.MetadataSchema;
 import org.apache.accumulo.core.tabletserver.log.LogEntry;
@@ -59,6 +60,11 @@ class MetaDataStateStore implements TabletStateStore {
         targetTableName);
   }
 
+  @Override
+  public ClosableIterator<TabletLocationState> iterator(Collection<Range> ranges) {
+    return new MetaDataTableScanner(context, ranges, state, targetTableName);
+  }
+
   @Override
   public void setLocations(Collection<Assignment> assignments) throws DistributedStoreException {
     BatchWriter writer = createBatchWriter();
@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.accumulo.core.clientImpl.ClientContext;
+import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.dataImpl.KeyExtent;
 import org.apache.accumulo.core.metadata.schema.Ample.DataLevel;
 import org.apache.accumulo.server.ServerContext;
@@ -45,6 +46,14 @@ public interface TabletStateStore extends Iterable<TabletLocationState> {
   @Override
   ClosableIterator<TabletLocationState> iterator();
 
+  /**
+   * Scan the information about the tablets covered by this store whose metadata rows fall in the
+   * given ranges. Stores that are cheap to scan in full may ignore the ranges.
+   */
+  default ClosableIterator<TabletLocationState> iterator(Collection<Range> ranges) {
+    return iterator();
+  }
+
   /**
    * Store the assigned locations in the data store.
    */
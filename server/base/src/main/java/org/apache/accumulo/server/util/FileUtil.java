@@ -399,6 +399,71 @@ public class FileUtil {
     }
   }
 
+  /**
+   * Uses the indexes of the given files to choose up to {@code numPartitions - 1} rows that divide
+   * the keys in (prevEndRow, endRow) into partitions of roughly equal size. Fewer rows are
+   * returned when the indexes do not contain enough distinct rows. Unlike
+   * {@link #findMidPoint(ServerContext, String, Text, Text, Collection, double)} this never reads
+   * data or reduces indexes, an empty list is returned instead when the indexes are not usable.
+   *
+   * @return sorted, distinct rows each strictly between prevEndRow and endRow
+   */
+  public static List<Text> findPartitionRows(ServerContext context, Text prevEndRow, Text endRow,
+      Collection<String> mapFiles, int numPartitions) throws IOException {
+
+    int maxToOpen =
+        context.getConfiguration().getCount(Property.TSERV_TABLET_SPLIT_FINDMIDPOINT_MAXOPEN);
+    if (numPartitions < 2 || mapFiles.isEmpty() || mapFiles.size() > maxToOpen) {
+      return List.of();
+    }
+
+    ArrayList<FileSKVIterator> readers = new ArrayList<>(mapFiles.size());
+
+    try {
+      if (prevEndRow == null)
+        prevEndRow = new Text();
+
+      long numKeys = countIndexEntries(context, prevEndRow, endRow, mapFiles, true, readers);
+
+      if (numKeys < numPartitions) {
+        return List.of();
+      }
+
+      List<SortedKeyValueIterator<Key,Value>> iters = new ArrayList<>(readers);
+      MultiIterator mmfi = new MultiIterator(iters, true);
+
+      // skip the prevEndRow
+      while (mmfi.hasTop() && mmfi.getTopKey().compareRow(prevEndRow) <= 0)
+        mmfi.next();
+
+      List<Text> rows = new ArrayList<>(numPartitions - 1);
+      long keysRead = 0;
+      int partition = 1;
+
+      while (mmfi.hasTop() && partition < numPartitions) {
+        Key key = mmfi.getTopKey();
+        // the last partition must contain the end row
+        if (endRow != null && key.compareRow(endRow) >= 0)
+          break;
+
+        keysRead++;
+
+        if (keysRead >= numKeys * partition / numPartitions) {
+          Text row = key.getRow();
+          if (rows.isEmpty() || !rows.get(rows.size() - 1).equals(row))
+            rows.add(row);
+          partition++;
+        }
+
+        mmfi.next();
+      }
+
+      return rows;
+    } finally {
+      cleanupIndexOp(null, context.getVolumeManager(), readers);
+    }
+  }
+
   protected static void cleanupIndexOp(Path tmpDir, VolumeManager fs,
       ArrayList<FileSKVIterator> readers) throws IOException {
     // close all of the index sequence files
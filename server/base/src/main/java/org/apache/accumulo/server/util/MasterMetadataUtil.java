@@ -181,6 +181,19 @@ public class MasterMetadataUtil {
       Set<TabletFile> datafilesToDelete, Set<TabletFile> scanFiles, TabletFile path,
       Long compactionId, DataFileValue size, String address, TServerInstance lastLocation,
       ZooLock zooLock) {
+    replaceDatafiles(context, extent, datafilesToDelete, scanFiles, Map.of(path, size),
+        compactionId, address, lastLocation, zooLock);
+  }
+
+  /**
+   * Replaces a tablet's data files with the output of a compaction in a single mutation, so a
+   * compaction that wrote several files is committed atomically. New files without entries are
+   * not added.
+   */
+  public static void replaceDatafiles(ServerContext context, KeyExtent extent,
+      Set<TabletFile> datafilesToDelete, Set<TabletFile> scanFiles,
+      Map<TabletFile,DataFileValue> newDatafiles, Long compactionId, String address,
+      TServerInstance lastLocation, ZooLock zooLock) {
 
     context.getAmple().putGcCandidates(extent.getTableId(), datafilesToDelete);
 
@@ -189,8 +202,10 @@ public class MasterMetadataUtil {
     datafilesToDelete.forEach(tablet::deleteFile);
     scanFiles.forEach(tablet::putScan);
 
-    if (size.getNumEntries() > 0)
-      tablet.putFile(path, size);
+    newDatafiles.forEach((path, size) -> {
+      if (size.getNumEntries() > 0)
+        tablet.putFile(path, size);
+    });
 
     if (compactionId != null)
       tablet.putCompactionId(compactionId);
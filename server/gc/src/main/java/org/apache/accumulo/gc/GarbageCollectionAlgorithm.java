@@ -18,7 +18,10 @@
  */
 package org.apache.accumulo.gc;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
@@ -29,6 +32,8 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.apache.accumulo.core.Constants;
 import org.apache.accumulo.core.client.TableNotFoundException;
@@ -50,6 +55,30 @@ public class GarbageCollectionAlgorithm {
 
   private static final Logger log = LoggerFactory.getLogger(GarbageCollectionAlgorithm.class);
 
+  private final File sortDir;
+  private final int runSize;
+
+  /**
+   * Creates an algorithm that confirms candidates one memory sized batch at a time, reading all
+   * references once per batch.
+   */
+  public GarbageCollectionAlgorithm() {
+    this(null, 0);
+  }
+
+  /**
+   * Creates an algorithm that spills all candidates and references to sorted runs under sortDir
+   * and confirms every candidate with a single pass over the references, when sortDir is not null.
+   *
+   * @param runSize
+   *          the number of candidates or references to hold in memory before writing a run, also
+   *          used as the size of each batch of confirmed deletes
+   */
+  public GarbageCollectionAlgorithm(File sortDir, int runSize) {
+    this.sortDir = sortDir;
+    this.runSize = runSize;
+  }
+
   private String makeRelative(String path, int expectedLen) {
     String relPath = path;
 
@@ -164,46 +193,51 @@ public class GarbageCollectionAlgorithm {
 
     }
 
-    Iterator<Reference> iter = gce.getReferences().iterator();
-    while (iter.hasNext()) {
-      Reference ref = iter.next();
-
-      if (!ref.isDir) {
-
-        String reference = ref.ref;
-        if (reference.startsWith("/")) {
-          reference = "/" + ref.id + reference;
-        } else if (!reference.contains(":") && !reference.startsWith("../")) {
-          throw new RuntimeException("Bad file reference " + reference);
-        }
-
-        reference = makeRelative(reference, 3);
-
+    try (Stream<Reference> refs = gce.getReferences()) {
+      Iterator<Reference> iter = refs.iterator();
+      while (iter.hasNext()) {
         // WARNING: This line is EXTREMELY IMPORTANT.
         // You MUST REMOVE candidates that are still in use
-        if (candidateMap.remove(reference) != null)
-          log.debug("Candidate was still in use: {}", reference);
+        forEachReferencedPath(iter.next(), path -> {
+          if (candidateMap.remove(path) != null)
+            log.debug("Candidate was still in use: {}", path);
+        });
+      }
+    }
 
-        String dir = reference.substring(0, reference.lastIndexOf('/'));
-        if (candidateMap.remove(dir) != null)
-          log.debug("Candidate was still in use: {}", reference);
+    confirmDeletesFromReplication(gce.getReplicationNeededIterator(),
+        candidateMap.entrySet().iterator());
+  }
 
-      } else {
-        String tableID = ref.id.toString();
-        String dirName = ref.ref;
-        ServerColumnFamily.validateDirCol(dirName);
+  /**
+   * Passes each relative path that the reference keeps alive to the consumer. A file reference
+   * keeps its file and the directory holding it alive, a directory reference keeps the directory
+   * alive.
+   */
+  private void forEachReferencedPath(Reference ref, Consumer<String> consumer) {
+    if (!ref.isDir) {
+
+      String reference = ref.ref;
+      if (reference.startsWith("/")) {
+        reference = "/" + ref.id + reference;
+      } else if (!reference.contains(":") && !reference.startsWith("../")) {
+        throw new RuntimeException("Bad file reference " + reference);
+      }
 
-        String dir = "/" + tableID + "/" + dirName;
+      reference = makeRelative(reference, 3);
 
-        dir = makeRelative(dir, 2);
+      consumer.accept(reference);
+      consumer.accept(reference.substring(0, reference.lastIndexOf('/')));
 
-        if (candidateMap.remove(dir) != null)
-          log.debug("Candidate was still in use: {}", dir);
-      }
-    }
+    } else {
+      String tableID = ref.id.toString();
+      String dirName = ref.ref;
+      ServerColumnFamily.validateDirCol(dirName);
 
-    confirmDeletesFromReplication(gce.getReplicationNeededIterator(),
-        candidateMap.entrySet().iterator());
+      String dir = "/" + tableID + "/" + dirName;
+
+      consumer.accept(makeRelative(dir, 2));
+    }
   }
 
   protected void confirmDeletesFromReplication(
@@ -239,10 +273,8 @@ public class GarbageCollectionAlgorithm {
     }
   }
 
-  private void cleanUpDeletedTableDirs(GarbageCollectionEnvironment gce,
-      SortedMap<String,String> candidateMap) throws IOException {
-    HashSet<TableId> tableIdsWithDeletes = new HashSet<>();
-
+  private void findTableIdsWithDirDeletes(SortedMap<String,String> candidateMap,
+      Set<TableId> tableIdsWithDeletes) {
     // find the table ids that had dirs deleted
     for (String delete : candidateMap.keySet()) {
       String[] tokens = delete.split("/");
@@ -252,7 +284,10 @@ public class GarbageCollectionAlgorithm {
         tableIdsWithDeletes.add(tableId);
       }
     }
+  }
 
+  private void cleanUpDeletedTableDirs(GarbageCollectionEnvironment gce,
+      Set<TableId> tableIdsWithDeletes) throws IOException {
     Set<TableId> tableIdsInZookeeper = gce.getTableIDs();
 
     tableIdsWithDeletes.removeAll(tableIdsInZookeeper);
@@ -280,16 +315,39 @@ public class GarbageCollectionAlgorithm {
   }
 
   private void deleteConfirmed(GarbageCollectionEnvironment gce,
-      SortedMap<String,String> candidateMap) throws IOException, TableNotFoundException {
+      SortedMap<String,String> candidateMap, Set<TableId> tableIdsWithDeletes)
+      throws TableNotFoundException {
     try (TraceScope deleteSpan = Trace.startSpan("deleteFiles")) {
       gce.delete(candidateMap);
     }
 
-    cleanUpDeletedTableDirs(gce, candidateMap);
+    findTableIdsWithDirDeletes(candidateMap, tableIdsWithDeletes);
   }
 
+  /**
+   * Deletes the unreferenced candidates. Deletes of one batch of candidates may run while the next
+   * batch is confirmed, empty table dirs are removed once all deletes finished.
+   */
   public void collect(GarbageCollectionEnvironment gce) throws TableNotFoundException, IOException {
+    Set<TableId> tableIdsWithDeletes = new HashSet<>();
+
+    try {
+      if (sortDir != null) {
+        collectSorted(gce, tableIdsWithDeletes);
+      } else {
+        collectBatches(gce, tableIdsWithDeletes);
+      }
+    } finally {
+      try (TraceScope awaitSpan = Trace.startSpan("awaitDeletes")) {
+        gce.awaitDeletes();
+      }
+    }
 
+    cleanUpDeletedTableDirs(gce, tableIdsWithDeletes);
+  }
+
+  private void collectBatches(GarbageCollectionEnvironment gce, Set<TableId> tableIdsWithDeletes)
+      throws TableNotFoundException {
     String lastCandidate = "";
 
     boolean outOfMemory = true;
@@ -311,7 +369,136 @@ public class GarbageCollectionAlgorithm {
       confirmDeletesTrace(gce, candidateMap);
       gce.incrementInUseStat(origSize - candidateMap.size());
 
-      deleteConfirmed(gce, candidateMap);
+      deleteConfirmed(gce, candidateMap, tableIdsWithDeletes);
     }
   }
+
+  private static boolean isBulkPath(String relativePath) {
+    return relativePath.toLowerCase(Locale.ENGLISH).contains(Constants.BULK_PREFIX);
+  }
+
+  /**
+   * Reads every candidate into sorted runs, then every reference into sorted runs, and walks the
+   * two merged streams together. Candidates are read before references, as they are in the batched
+   * algorithm, so a file that becomes a candidate while references are read is seen as referenced.
+   * The number of metadata scans is independent of the number of candidates.
+   */
+  private void collectSorted(GarbageCollectionEnvironment gce, Set<TableId> tableIdsWithDeletes)
+      throws TableNotFoundException, IOException {
+
+    Files.createDirectories(sortDir.toPath());
+    File workDir = Files.createTempDirectory(sortDir.toPath(), "gc-").toFile();
+
+    try (SortedRuns candidates = new SortedRuns(workDir, "candidates", runSize);
+        SortedRuns references = new SortedRuns(workDir, "references", runSize)) {
+
+      boolean checkForBulkProcessingFiles = false;
+      String lastCandidate = "";
+      boolean more = true;
+      while (more) {
+        List<String> batch = new ArrayList<>();
+        more = getCandidates(gce, lastCandidate, batch);
+
+        if (batch.size() == 0)
+          break;
+        else
+          lastCandidate = batch.get(batch.size() - 1);
+
+        gce.incrementCandidatesStat(batch.size());
+
+        for (Entry<String,String> entry : makeRelative(batch).entrySet()) {
+          candidates.add(entry.getKey(), entry.getValue());
+          checkForBulkProcessingFiles |= isBulkPath(entry.getKey());
+        }
+      }
+
+      if (candidates.getAdded() == 0) {
+        return;
+      }
+
+      // bulk imports in progress are few, so their dirs are kept in memory
+      List<String> blips = new ArrayList<>();
+      if (checkForBulkProcessingFiles) {
+        gce.getBlipIterator().forEachRemaining(blip -> blips.add(makeRelative(blip, 2)));
+      }
+
+      try (TraceScope referencesSpan = Trace.startSpan("readReferences");
+          Stream<Reference> refs = gce.getReferences()) {
+        Iterator<Reference> iter = refs.iterator();
+        while (iter.hasNext()) {
+          forEachReferencedPath(iter.next(), path -> {
+            try {
+              references.add(path, "");
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          });
+        }
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+
+      log.debug("Sorted {} candidates into {} runs and {} references into {} runs",
+          candidates.getAdded(), candidates.getNumRuns(), references.getAdded(),
+          references.getNumRuns());
+
+      long inUse = 0;
+      SortedMap<String,String> confirmed = new TreeMap<>();
+      PeekingIterator<Entry<String,String>> refIter =
+          Iterators.peekingIterator(references.iterator());
+
+      for (Entry<String,String> candidate : candidates) {
+        String path = candidate.getKey();
+
+        while (refIter.hasNext() && refIter.peek().getKey().compareTo(path) < 0) {
+          refIter.next();
+        }
+
+        // WARNING: This is EXTREMELY IMPORTANT.
+        // You MUST NOT delete candidates that are still in use
+        if (refIter.hasNext() && refIter.peek().getKey().equals(path)) {
+          log.debug("Candidate was still in use: {}", path);
+          inUse++;
+          continue;
+        }
+
+        // You MUST NOT delete candidates that are in the same folder as a bulk processing flag!
+        if (isBulkPath(path) && blips.stream().anyMatch(path::startsWith)) {
+          log.debug("Folder has bulk processing flag: {}", path);
+          inUse++;
+          continue;
+        }
+
+        confirmed.put(path, candidate.getValue());
+        if (confirmed.size() >= runSize) {
+          inUse += deleteSortedBatch(gce, confirmed, tableIdsWithDeletes);
+          confirmed = new TreeMap<>();
+        }
+      }
+
+      if (!confirmed.isEmpty()) {
+        inUse += deleteSortedBatch(gce, confirmed, tableIdsWithDeletes);
+      }
+
+      gce.incrementInUseStat(inUse);
+    } finally {
+      // the runs delete their own files when closed
+      Files.deleteIfExists(workDir.toPath());
+    }
+  }
+
+  /**
+   * Applies the replication check to a batch of unreferenced candidates and deletes the rest.
+   *
+   * @return the number of candidates kept for replication
+   */
+  private long deleteSortedBatch(GarbageCollectionEnvironment gce,
+      SortedMap<String,String> confirmed, Set<TableId> tableIdsWithDeletes)
+      throws TableNotFoundException {
+    int size = confirmed.size();
+    confirmDeletesFromReplication(gce.getReplicationNeededIterator(),
+        confirmed.entrySet().iterator());
+    deleteConfirmed(gce, confirmed, tableIdsWithDeletes);
+    return size - confirmed.size();
+  }
 }
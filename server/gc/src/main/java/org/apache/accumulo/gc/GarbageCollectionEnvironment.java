@@ -79,7 +79,7 @@ public interface GarbageCollectionEnvironment {
    * {@link ScanFileColumnFamily#NAME}, from tablets
    *
    * @return An {@link Iterator} of {@link Entry}&lt;{@link Key}, {@link Value}&gt; which constitute
-   *         a reference to a file.
+   *         a reference to a file. The caller closes the stream when done with it.
    */
   Stream<Reference> getReferences();
 
@@ -92,13 +92,20 @@ public interface GarbageCollectionEnvironment {
 
   /**
    * Delete the given files from the provided {@link Map} of relative path to absolute path for each
-   * file that should be deleted
+   * file that should be deleted. The deletes may still be running when this returns, see
+   * {@link #awaitDeletes()}.
    *
    * @param candidateMap
    *          A Map from relative path to absolute path for files to be deleted.
    */
   void delete(SortedMap<String,String> candidateMap) throws TableNotFoundException;
 
+  /**
+   * Wait for the deletes started by {@link #delete(SortedMap)} to finish and for the candidates of
+   * the deleted files to be removed.
+   */
+  default void awaitDeletes() {}
+
   /**
    * Delete a table's directory if it is empty.
    *
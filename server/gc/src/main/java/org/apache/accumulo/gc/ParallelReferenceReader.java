@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.gc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.util.NamingThreadFactory;
+import org.apache.accumulo.gc.GarbageCollectionEnvironment.Reference;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Reads file references from several ranges of a metadata table at once. Each range is scanned on
+ * a thread of its own and the references are handed to the consumer through a bounded queue, so
+ * scanning the metadata overlaps with matching references against candidates. References from
+ * different ranges are interleaved, references from one range keep their order. Once every range
+ * has been read, the references from an optional rescan are appended.
+ */
+class ParallelReferenceReader implements Iterator<Reference>, AutoCloseable {
+
+  private static final int BATCH_SIZE = 1000;
+
+  // compared by identity, marks the end of one range
+  private static final List<Reference> END = new ArrayList<>(0);
+
+  private final BlockingQueue<List<Reference>> queue;
+  private final ExecutorService scanThreadPool;
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+  private final Supplier<Stream<Reference>> rescan;
+  private Stream<Reference> rescanned;
+  private int running;
+  private Iterator<Reference> current = Collections.emptyIterator();
+
+  /**
+   * @param ranges
+   *          ranges of the metadata table, each is read by one call to the scanner
+   * @param scanner
+   *          opens a stream of the references in a range, the stream is closed once read
+   * @param numThreads
+   *          the number of ranges scanned at the same time
+   */
+  ParallelReferenceReader(List<Range> ranges, Function<Range,Stream<Reference>> scanner,
+      int numThreads) {
+    this(ranges, scanner, numThreads, Stream::empty);
+  }
+
+  /**
+   * @param rescan
+   *          called on the consumer thread once all ranges were read without failure, returns the
+   *          references to read again, for example when the ranges did not line up
+   */
+  ParallelReferenceReader(List<Range> ranges, Function<Range,Stream<Reference>> scanner,
+      int numThreads, Supplier<Stream<Reference>> rescan) {
+    this.rescan = rescan;
+    this.queue = new ArrayBlockingQueue<>(numThreads * 4);
+    this.scanThreadPool =
+        Executors.newFixedThreadPool(numThreads, new NamingThreadFactory("gc-reference-scan"));
+    this.running = ranges.size();
+
+    for (Range range : ranges) {
+      scanThreadPool.execute(() -> scan(scanner, range));
+    }
+    scanThreadPool.shutdown();
+  }
+
+  private void scan(Function<Range,Stream<Reference>> scanner, Range range) {
+    try (Stream<Reference> refs = scanner.apply(range)) {
+      List<Reference> batch = new ArrayList<>(BATCH_SIZE);
+      Iterator<Reference> iter = refs.iterator();
+      while (iter.hasNext()) {
+        batch.add(iter.next());
+        if (batch.size() == BATCH_SIZE) {
+          queue.put(batch);
+          batch = new ArrayList<>(BATCH_SIZE);
+        }
+      }
+      if (!batch.isEmpty()) {
+        queue.put(batch);
+      }
+    } catch (InterruptedException e) {
+      // the reader was closed
+      Thread.currentThread().interrupt();
+    } catch (Throwable e) {
+      failure.compareAndSet(null, e);
+    } finally {
+      // the consumer waits for the end of every range, so it is queued however the scan ended
+      try {
+        queue.put(END);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (!current.hasNext()) {
+      checkFailure();
+      if (running == 0) {
+        if (rescanned != null) {
+          return false;
+        }
+        rescanned = rescan.get();
+        current = rescanned.iterator();
+        continue;
+      }
+
+      List<Reference> batch = Uninterruptibles.takeUninterruptibly(queue);
+      if (batch == END) {
+        running--;
+      } else {
+        current = batch.iterator();
+      }
+    }
+    return true;
+  }
+
+  private void checkFailure() {
+    Throwable e = failure.get();
+    if (e != null) {
+      close();
+      throw new IllegalStateException("Failed to read file references", e);
+    }
+  }
+
+  @Override
+  public Reference next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return current.next();
+  }
+
+  /**
+   * @return the remaining references, closing the stream stops the scans
+   */
+  Stream<Reference> stream() {
+    return StreamSupport
+        .stream(Spliterators.spliteratorUnknownSize(this,
+            Spliterator.ORDERED | Spliterator.NONNULL), false)
+        .onClose(this::close);
+  }
+
+  @Override
+  public void close() {
+    scanThreadPool.shutdownNow();
+    if (rescanned != null) {
+      rescanned.close();
+    }
+  }
+}
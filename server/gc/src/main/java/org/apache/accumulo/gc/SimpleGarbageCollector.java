@@ -23,6 +23,7 @@ import static org.apache.accumulo.core.metadata.schema.TabletMetadata.ColumnType
 import static org.apache.accumulo.core.metadata.schema.TabletMetadata.ColumnType.SCANS;
 import static org.apache.accumulo.fate.util.UtilWaitThread.sleepUninterruptibly;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -31,22 +32,29 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import org.apache.accumulo.core.Constants;
 import org.apache.accumulo.core.client.AccumuloClient;
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
 import org.apache.accumulo.core.client.IsolatedScanner;
 import org.apache.accumulo.core.client.Scanner;
 import org.apache.accumulo.core.client.TableNotFoundException;
 import org.apache.accumulo.core.clientImpl.Tables;
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
 import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.TableId;
 import org.apache.accumulo.core.gc.thrift.GCMonitorService.Iface;
 import org.apache.accumulo.core.gc.thrift.GCMonitorService.Processor;
@@ -59,6 +67,7 @@ import org.apache.accumulo.core.metadata.TabletFileUtil;
 import org.apache.accumulo.core.metadata.schema.Ample;
 import org.apache.accumulo.core.metadata.schema.Ample.DataLevel;
 import org.apache.accumulo.core.metadata.schema.MetadataSchema;
+import org.apache.accumulo.core.metadata.schema.MetadataSchema.TabletsSection;
 import org.apache.accumulo.core.metadata.schema.TabletMetadata;
 import org.apache.accumulo.core.metadata.schema.TabletsMetadata;
 import org.apache.accumulo.core.replication.ReplicationSchema.StatusSection;
@@ -79,6 +88,8 @@ import org.apache.accumulo.fate.zookeeper.ZooLock.LockLossReason;
 import org.apache.accumulo.fate.zookeeper.ZooLock.LockWatcher;
 import org.apache.accumulo.gc.metrics.GcCycleMetrics;
 import org.apache.accumulo.gc.metrics.GcMetricsFactory;
+import org.apache.accumulo.gc.metrics.GcStageStats;
+import org.apache.accumulo.gc.metrics.GcStageStats.Stage;
 import org.apache.accumulo.gc.replication.CloseWriteAheadLogReferences;
 import org.apache.accumulo.server.AbstractServer;
 import org.apache.accumulo.server.ServerConstants;
@@ -96,6 +107,7 @@ import org.apache.accumulo.server.rpc.ThriftServerType;
 import org.apache.accumulo.server.util.Halt;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
 import org.apache.htrace.Trace;
 import org.apache.htrace.TraceScope;
 import org.apache.htrace.impl.ProbabilitySampler;
@@ -120,6 +132,11 @@ public class SimpleGarbageCollector extends AbstractServer implements Iface {
    */
   static final float CANDIDATE_MEMORY_PERCENTAGE = 0.50f;
 
+  /**
+   * The number of deleted files whose candidates are removed from the metadata at a time.
+   */
+  static final int CANDIDATE_REMOVAL_BATCH_SIZE = 1000;
+
   private static final Logger log = LoggerFactory.getLogger(SimpleGarbageCollector.class);
 
   private ZooLock lock;
@@ -129,6 +146,9 @@ public class SimpleGarbageCollector extends AbstractServer implements Iface {
 
   private GcCycleMetrics gcCycleMetrics = new GcCycleMetrics();
 
+  // updated concurrently by the stages of the current file collection
+  private volatile GcStageStats stageStats = new GcStageStats();
+
   public static void main(String[] args) throws Exception {
     try (SimpleGarbageCollector gc = new SimpleGarbageCollector(new ServerOpts(), args)) {
       gc.runServer();
@@ -157,6 +177,7 @@ public class SimpleGarbageCollector extends AbstractServer implements Iface {
     log.info("memory threshold: {} of {} bytes", CANDIDATE_MEMORY_PERCENTAGE,
         Runtime.getRuntime().maxMemory());
     log.info("delete threads: {}", getNumDeleteThreads());
+    log.info("reference scan threads: {}", getNumScanThreads());
     log.info("gc post metadata action: {}", useFullCompaction);
   }
 
@@ -187,6 +208,15 @@ public class SimpleGarbageCollector extends AbstractServer implements Iface {
     return getConfiguration().getCount(Property.GC_DELETE_THREADS);
   }
 
+  /**
+   * Gets the number of threads used for scanning file references.
+   *
+   * @return number of reference scan threads
+   */
+  int getNumScanThreads() {
+    return getConfiguration().getCount(Property.GC_SCAN_THREADS);
+  }
+
   /**
    * Checks if safemode is set - files will not be deleted.
    *
@@ -196,10 +226,30 @@ public class SimpleGarbageCollector extends AbstractServer implements Iface {
     return getConfiguration().getBoolean(Property.GC_SAFEMODE);
   }
 
+  /**
+   * Creates the file collection algorithm, which sorts candidates on local disk when gc.sort.dir is
+   * set.
+   */
+  GarbageCollectionAlgorithm createAlgorithm() {
+    String sortDir = getConfiguration().get(Property.GC_SORT_DIR);
+    if (sortDir == null || sortDir.isBlank()) {
+      return new GarbageCollectionAlgorithm();
+    }
+    return new GarbageCollectionAlgorithm(new File(sortDir),
+        getConfiguration().getCount(Property.GC_SORT_RUN_SIZE));
+  }
+
   private class GCEnv implements GarbageCollectionEnvironment {
 
     private DataLevel level;
 
+    // deletes of all batches share one pool, so a batch is deleted while the next is confirmed
+    private ExecutorService deleteThreadPool;
+    private long deleteStart;
+    private final List<String> processedDeletes =
+        Collections.synchronizedList(new ArrayList<String>());
+    private final Object markerLock = new Object();
+
     GCEnv(Ample.DataLevel level) {
       this.level = level;
     }
@@ -208,6 +258,7 @@ public class SimpleGarbageCollector extends AbstractServer implements Iface {
     public boolean getCandidates(String continuePoint, List<String> result)
         throws TableNotFoundException {
 
+      long start = System.nanoTime();
       Iterator<String> candidates = getContext().getAmple().getGcCandidates(level, continuePoint);
 
       result.clear();
@@ -219,13 +270,20 @@ public class SimpleGarbageCollector extends AbstractServer implements Iface {
         if (almostOutOfMemory(Runtime.getRuntime())) {
           log.info("List of delete candidates has exceeded the memory"
               + " threshold. Attempting to delete what has been gathered so far.");
+          recordCandidates(result.size(), start);
           return true;
         }
       }
 
+      recordCandidates(result.size(), start);
       return false;
     }
 
+    private void recordCandidates(int count, long start) {
+      stageStats.add(Stage.CANDIDATES, count);
+      stageStats.addTime(Stage.CANDIDATES, System.nanoTime() - start);
+    }
+
     @Override
     public Iterator<String> getBlipIterator() throws TableNotFoundException {
 
@@ -246,17 +304,95 @@ public class SimpleGarbageCollector extends AbstractServer implements Iface {
     @Override
     public Stream<Reference> getReferences() {
 
-      Stream<TabletMetadata> tabletStream;
+      Stream<Reference> refStream;
 
       if (level == DataLevel.ROOT) {
-        tabletStream =
-            Stream.of(getContext().getAmple().readTablet(RootTable.EXTENT, DIR, FILES, SCANS));
+        refStream = toReferences(
+            Stream.of(getContext().getAmple().readTablet(RootTable.EXTENT, DIR, FILES, SCANS)));
       } else {
-        tabletStream = TabletsMetadata.builder().scanTable(level.metaTable()).checkConsistency()
-            .fetch(DIR, FILES, SCANS).build(getContext()).stream();
+        List<Range> ranges = getReferenceRanges();
+        int numThreads = Math.min(ranges.size(), getNumScanThreads());
+        if (numThreads <= 1) {
+          refStream = readReferences(TabletsSection.getRange());
+        } else {
+          log.debug("Reading file references from {} ranges of {} with {} threads",
+              ranges.size(), level.metaTable(), numThreads);
+          refStream = readReferences(ranges, numThreads);
+        }
+      }
+
+      long start = System.nanoTime();
+      GcStageStats stats = stageStats;
+      return refStream.peek(ref -> stats.add(Stage.REFERENCES, 1))
+          .onClose(() -> stats.addTime(Stage.REFERENCES, System.nanoTime() - start));
+    }
+
+    /**
+     * Reads the ranges in parallel. Each range is checked for consistency on its own, so once all
+     * are read the last tablet of each range is checked to link to the first tablet of the next.
+     * When a split or merge happened across a range boundary while reading, the whole tablets
+     * section is read again in one consistent scan.
+     */
+    private Stream<Reference> readReferences(List<Range> ranges, int numThreads) {
+      // the first and last tablet read from each range
+      Map<Range,TabletMetadata[]> bounds = new ConcurrentHashMap<>();
+
+      Function<Range,Stream<Reference>> scanner = range -> {
+        TabletMetadata[] seen = new TabletMetadata[2];
+        bounds.put(range, seen);
+        TabletsMetadata tablets = TabletsMetadata.builder().scanTable(level.metaTable())
+            .overRange(range).checkConsistency().fetch(DIR, FILES, SCANS).build(getContext());
+        return toReferences(tablets.stream().peek(tm -> {
+          if (seen[0] == null) {
+            seen[0] = tm;
+          }
+          seen[1] = tm;
+        })).onClose(tablets::close);
+      };
+
+      Supplier<Stream<Reference>> rescan = () -> {
+        if (rangesLinked(ranges, bounds)) {
+          return Stream.empty();
+        }
+        log.info("Tablets changed across ranges of {} while reading references, reading again",
+            level.metaTable());
+        return readReferences(TabletsSection.getRange());
+      };
+
+      return new ParallelReferenceReader(ranges, scanner, numThreads, rescan).stream();
+    }
+
+    private boolean rangesLinked(List<Range> ranges, Map<Range,TabletMetadata[]> bounds) {
+      TabletMetadata prev = null;
+      for (Range range : ranges) {
+        TabletMetadata[] seen = bounds.get(range);
+        if (seen == null || seen[0] == null) {
+          continue;
+        }
+        if (prev != null && !linked(prev, seen[0])) {
+          log.debug("Tablet {} does not follow {}", seen[0].getExtent(), prev.getExtent());
+          return false;
+        }
+        prev = seen[1];
+      }
+      return true;
+    }
+
+    private boolean linked(TabletMetadata prev, TabletMetadata curr) {
+      if (curr.getTableId().equals(prev.getTableId())) {
+        return prev.getEndRow() != null && prev.getEndRow().equals(curr.getPrevEndRow());
       }
+      return prev.getEndRow() == null && curr.getPrevEndRow() == null;
+    }
+
+    private Stream<Reference> readReferences(Range range) {
+      TabletsMetadata tablets = TabletsMetadata.builder().scanTable(level.metaTable())
+          .overRange(range).checkConsistency().fetch(DIR, FILES, SCANS).build(getContext());
+      return toReferences(tablets.stream()).onClose(tablets::close);
+    }
 
-      Stream<Reference> refStream = tabletStream.flatMap(tm -> {
+    private Stream<Reference> toReferences(Stream<TabletMetadata> tabletStream) {
+      return tabletStream.flatMap(tm -> {
         Stream<Reference> refs = Stream.concat(tm.getFiles().stream(), tm.getScans().stream())
             .map(f -> new Reference(tm.getTableId(), f.getMetadataEntry(), false));
         if (tm.getDirName() != null) {
@@ -265,8 +401,36 @@ public class SimpleGarbageCollector extends AbstractServer implements Iface {
         }
         return refs;
       });
+    }
 
-      return refStream;
+    /**
+     * Splits the tablets section of the metadata table along the splits of the metadata table, so
+     * each range is served by a single tablet server. Every tablet's metadata row falls in exactly
+     * one range.
+     */
+    private List<Range> getReferenceRanges() {
+      Collection<Text> splits;
+      try {
+        splits = getContext().tableOperations().listSplits(level.metaTable());
+      } catch (TableNotFoundException | AccumuloSecurityException | AccumuloException e) {
+        throw new RuntimeException(e);
+      }
+
+      List<Range> ranges = new ArrayList<>();
+      Text prev = null;
+      for (Text split : splits) {
+        addReferenceRange(ranges, new Range(prev, false, split, true));
+        prev = split;
+      }
+      addReferenceRange(ranges, new Range(prev, false, null, true));
+      return ranges;
+    }
+
+    private void addReferenceRange(List<Range> ranges, Range range) {
+      Range clipped = TabletsSection.getRange().clip(range, true);
+      if (clipped != null) {
+        ranges.add(clipped);
+      }
     }
 
     @Override
@@ -292,12 +456,13 @@ public class SimpleGarbageCollector extends AbstractServer implements Iface {
         return;
       }
 
-      List<String> processedDeletes = Collections.synchronizedList(new ArrayList<String>());
-
       minimizeDeletes(confirmedDeletes, processedDeletes, fs);
 
-      ExecutorService deleteThreadPool =
-          Executors.newFixedThreadPool(getNumDeleteThreads(), new NamingThreadFactory("deleting"));
+      if (deleteThreadPool == null) {
+        deleteThreadPool = Executors.newFixedThreadPool(getNumDeleteThreads(),
+            new NamingThreadFactory("deleting"));
+        deleteStart = System.nanoTime();
+      }
 
       final List<Pair<Path,Path>> replacements =
           ServerConstants.getVolumeReplacements(getConfiguration(), getContext().getHadoopConf());
@@ -371,6 +536,11 @@ public class SimpleGarbageCollector extends AbstractServer implements Iface {
             if (removeFlag) {
               processedDeletes.add(delete);
             }
+            stageStats.add(Stage.DELETES, 1);
+
+            if (processedDeletes.size() >= CANDIDATE_REMOVAL_BATCH_SIZE) {
+              removeCandidates();
+            }
           } catch (Exception e) {
             log.error("{}", e.getMessage(), e);
           }
@@ -379,16 +549,46 @@ public class SimpleGarbageCollector extends AbstractServer implements Iface {
 
         deleteThreadPool.execute(deleteTask);
       }
+    }
 
-      deleteThreadPool.shutdown();
+    @Override
+    public void awaitDeletes() {
+      if (deleteThreadPool != null) {
+        deleteThreadPool.shutdown();
 
-      try {
-        while (!deleteThreadPool.awaitTermination(1000, TimeUnit.MILLISECONDS)) {}
-      } catch (InterruptedException e1) {
-        log.error("{}", e1.getMessage(), e1);
+        try {
+          while (!deleteThreadPool.awaitTermination(1000, TimeUnit.MILLISECONDS)) {}
+        } catch (InterruptedException e1) {
+          log.error("{}", e1.getMessage(), e1);
+        }
+
+        stageStats.addTime(Stage.DELETES, System.nanoTime() - deleteStart);
+        deleteThreadPool = null;
       }
 
-      getContext().getAmple().deleteGcCandidates(level, processedDeletes);
+      removeCandidates();
+    }
+
+    /**
+     * Removes the candidates of the files deleted so far, so that candidates are removed while the
+     * remaining files are deleted.
+     */
+    private void removeCandidates() {
+      synchronized (markerLock) {
+        List<String> toRemove;
+        synchronized (processedDeletes) {
+          if (processedDeletes.isEmpty()) {
+            return;
+          }
+          toRemove = new ArrayList<>(processedDeletes);
+          processedDeletes.clear();
+        }
+
+        long start = System.nanoTime();
+        getContext().getAmple().deleteGcCandidates(level, toRemove);
+        stageStats.add(Stage.MARKERS, toRemove.size());
+        stageStats.addTime(Stage.MARKERS, System.nanoTime() - start);
+      }
     }
 
     @Override
@@ -497,19 +697,23 @@ public class SimpleGarbageCollector extends AbstractServer implements Iface {
 
             status.current.started = System.currentTimeMillis();
 
-            new GarbageCollectionAlgorithm().collect(new GCEnv(DataLevel.ROOT));
-            new GarbageCollectionAlgorithm().collect(new GCEnv(DataLevel.METADATA));
-            new GarbageCollectionAlgorithm().collect(new GCEnv(DataLevel.USER));
+            GarbageCollectionAlgorithm gca = createAlgorithm();
+            gca.collect(new GCEnv(DataLevel.ROOT));
+            gca.collect(new GCEnv(DataLevel.METADATA));
+            gca.collect(new GCEnv(DataLevel.USER));
 
             log.info("Number of data file candidates for deletion: {}", status.current.candidates);
             log.info("Number of data file candidates still in use: {}", status.current.inUse);
             log.info("Number of successfully deleted data files: {}", status.current.deleted);
             log.info("Number of data files delete failures: {}", status.current.errors);
+            log.info("Data file collection stages: {}", stageStats);
 
             status.current.finished = System.currentTimeMillis();
             status.last = status.current;
             gcCycleMetrics.setLastCollect(status.current);
             status.current = new GcCycleStats();
+            gcCycleMetrics.setLastStages(stageStats);
+            stageStats = new GcStageStats();
 
           } catch (Exception e) {
             log.error("{}", e.getMessage(), e);
@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.gc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Collects key/value pairs of strings and spills them to sorted run files in a local directory
+ * each time the in memory buffer reaches its limit, so that the number of entries is bounded by
+ * disk space instead of by heap. {@link #iterator()} merges the runs into a single stream sorted by
+ * key. When a key was added more than once the value added last is kept, the same as it would be
+ * for a {@link TreeMap}.
+ */
+class SortedRuns implements Iterable<Entry<String,String>>, AutoCloseable {
+
+  private final File dir;
+  private final String name;
+  private final int runSize;
+
+  private TreeMap<String,String> buffer = new TreeMap<>();
+  private final List<File> runs = new ArrayList<>();
+  private final List<DataInputStream> openRuns = new ArrayList<>();
+  private long added = 0;
+
+  /**
+   * @param dir
+   *          local directory to write runs to, which must exist
+   * @param name
+   *          prefix for the run file names
+   * @param runSize
+   *          the number of entries to hold in memory before writing a run
+   */
+  SortedRuns(File dir, String name, int runSize) {
+    if (runSize < 1) {
+      throw new IllegalArgumentException("runSize must be positive " + runSize);
+    }
+    this.dir = dir;
+    this.name = name;
+    this.runSize = runSize;
+  }
+
+  void add(String key, String value) throws IOException {
+    buffer.put(key, value);
+    added++;
+    if (buffer.size() >= runSize) {
+      spill();
+    }
+  }
+
+  /**
+   * @return the number of calls to {@link #add(String, String)}, including duplicate keys
+   */
+  long getAdded() {
+    return added;
+  }
+
+  int getNumRuns() {
+    return runs.size();
+  }
+
+  private void spill() throws IOException {
+    File run = new File(dir, name + "-" + runs.size());
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(run.toPath())))) {
+      for (Entry<String,String> entry : buffer.entrySet()) {
+        out.writeUTF(entry.getKey());
+        out.writeUTF(entry.getValue());
+      }
+    }
+    runs.add(run);
+    buffer = new TreeMap<>();
+  }
+
+  /**
+   * A run being merged. Runs added later have a higher sequence, which is used to keep the value
+   * added last when runs share a key.
+   */
+  private static class RunSource implements Comparable<RunSource> {
+    private final Iterator<Entry<String,String>> iter;
+    private final int sequence;
+    private Entry<String,String> top;
+
+    RunSource(Iterator<Entry<String,String>> iter, int sequence) {
+      this.iter = iter;
+      this.sequence = sequence;
+      advance();
+    }
+
+    void advance() {
+      top = iter.hasNext() ? iter.next() : null;
+    }
+
+    @Override
+    public int compareTo(RunSource o) {
+      int cmp = top.getKey().compareTo(o.top.getKey());
+      if (cmp != 0) {
+        return cmp;
+      }
+      return Integer.compare(o.sequence, sequence);
+    }
+  }
+
+  private Iterator<Entry<String,String>> readRun(File run) throws IOException {
+    DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(run.toPath())));
+    openRuns.add(in);
+    return new Iterator<>() {
+      Entry<String,String> next = read();
+
+      private Entry<String,String> read() {
+        try {
+          String key;
+          try {
+            key = in.readUTF();
+          } catch (EOFException e) {
+            return null;
+          }
+          return new SimpleImmutableEntry<>(key, in.readUTF());
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+
+      @Override
+      public boolean hasNext() {
+        return next != null;
+      }
+
+      @Override
+      public Entry<String,String> next() {
+        if (next == null) {
+          throw new NoSuchElementException();
+        }
+        Entry<String,String> ret = next;
+        next = read();
+        return ret;
+      }
+    };
+  }
+
+  /**
+   * Returns every distinct key added so far in sorted order. Should only be called once, after all
+   * entries were added.
+   */
+  @Override
+  public Iterator<Entry<String,String>> iterator() {
+    if (runs.isEmpty()) {
+      return buffer.entrySet().iterator();
+    }
+
+    PriorityQueue<RunSource> sources = new PriorityQueue<>();
+    try {
+      for (int i = 0; i < runs.size(); i++) {
+        RunSource source = new RunSource(readRun(runs.get(i)), i);
+        if (source.top != null) {
+          sources.add(source);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    if (!buffer.isEmpty()) {
+      sources.add(new RunSource(buffer.entrySet().iterator(), runs.size()));
+    }
+
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return !sources.isEmpty();
+      }
+
+      @Override
+      public Entry<String,String> next() {
+        RunSource source = sources.poll();
+        if (source == null) {
+          throw new NoSuchElementException();
+        }
+        Entry<String,String> ret = source.top;
+        advance(source);
+
+        // drop older entries for the same key from other runs
+        while (!sources.isEmpty() && sources.peek().top.getKey().equals(ret.getKey())) {
+          advance(sources.poll());
+        }
+        return ret;
+      }
+
+      private void advance(RunSource source) {
+        source.advance();
+        if (source.top != null) {
+          sources.add(source);
+        }
+      }
+    };
+  }
+
+  /**
+   * Closes any runs being read and deletes the run files.
+   */
+  @Override
+  public void close() throws IOException {
+    for (DataInputStream in : openRuns) {
+      in.close();
+    }
+    openRuns.clear();
+    for (File run : runs) {
+      Files.deleteIfExists(run.toPath());
+    }
+    runs.clear();
+    buffer.clear();
+  }
+}
@@ -32,6 +32,8 @@ public class GcCycleMetrics {
   private AtomicReference<GcCycleStats> lastCollect = new AtomicReference<>(new GcCycleStats());
   private AtomicReference<GcCycleStats> lastWalCollect = new AtomicReference<>(new GcCycleStats());
 
+  private AtomicReference<GcStageStats> lastStages = new AtomicReference<>(new GcStageStats());
+
   private AtomicLong postOpDurationNanos = new AtomicLong(0);
   private AtomicLong runCycleCount = new AtomicLong(0);
 
@@ -76,6 +78,26 @@ public class GcCycleMetrics {
     this.lastWalCollect.set(new GcCycleStats(lastWalCollect));
   }
 
+  /**
+   * The per stage counts and times of the last file collection.
+   *
+   * @return the last file collection stage statistics.
+   */
+  GcStageStats getLastStages() {
+    return lastStages.get();
+  }
+
+  /**
+   * Set the per stage statistics of the last file collection. The statistics must no longer be
+   * updated by the collector.
+   *
+   * @param lastStages
+   *          the last file collection stage statistics
+   */
+  public void setLastStages(final GcStageStats lastStages) {
+    this.lastStages.set(lastStages);
+  }
+
   /**
    * Duration of post operation (compact, flush, none) in nanoseconds.
    *
@@ -116,6 +138,7 @@ public class GcCycleMetrics {
     final StringBuilder sb = new StringBuilder("GcMetricsValues{");
     sb.append("lastCollect=").append(lastCollect.get());
     sb.append(", lastWalCollect=").append(lastWalCollect.get());
+    sb.append(", lastStages=").append(lastStages.get());
     sb.append(", postOpDuration=").append(postOpDurationNanos.get());
     sb.append('}');
     return sb.toString();
@@ -18,10 +18,13 @@
  */
 package org.apache.accumulo.gc.metrics;
 
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.accumulo.core.gc.thrift.GcCycleStats;
 import org.apache.accumulo.gc.SimpleGarbageCollector;
+import org.apache.accumulo.gc.metrics.GcStageStats.Stage;
 import org.apache.accumulo.server.metrics.Metrics;
 import org.apache.hadoop.metrics2.lib.MetricsRegistry;
 import org.apache.hadoop.metrics2.lib.MutableGaugeLong;
@@ -58,6 +61,8 @@ public class GcMetrics extends Metrics {
   private final MutableGaugeLong walDeleted;
   private final MutableGaugeLong walErrors;
 
+  private final Map<Stage,MutableGaugeLong> stageRates = new EnumMap<>(Stage.class);
+
   private final MutableGaugeLong postOpDuration;
   private final MutableGaugeLong runCycleCount;
 
@@ -93,6 +98,11 @@ public class GcMetrics extends Metrics {
     walErrors = registry.newGauge(GC_METRIC_PREFIX + "WalErrors",
         "Number candidate wal file deletion errors", 0L);
 
+    for (Stage stage : Stage.values()) {
+      stageRates.put(stage, registry.newGauge(GC_METRIC_PREFIX + stage.getMetricName(),
+          stage.getDescription(), 0L));
+    }
+
     postOpDuration = registry.newGauge(GC_METRIC_PREFIX + "PostOpDuration",
         "GC metadata table post operation duration in milliseconds", 0L);
 
@@ -124,6 +134,11 @@ public class GcMetrics extends Metrics {
     walDeleted.set(lastWalCollect.getDeleted());
     walErrors.set(lastWalCollect.getErrors());
 
+    GcStageStats lastStages = values.getLastStages();
+    for (Stage stage : Stage.values()) {
+      stageRates.get(stage).set(lastStages.getRate(stage));
+    }
+
     postOpDuration.set(TimeUnit.NANOSECONDS.toMillis(values.getPostOpDurationNanos()));
     runCycleCount.set(values.getRunCycleCount());
   }
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.gc.metrics;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the work done by each stage of a file collection cycle and the time each stage was busy,
+ * so that the throughput of the stages can be compared. Stages run concurrently, so their times
+ * overlap and do not add up to the cycle time.
+ */
+public class GcStageStats {
+
+  public enum Stage {
+    /** reading deletion candidates */
+    CANDIDATES("CandidateRate", "Candidates read per second during the last gc cycle"),
+    /** scanning the metadata for file references */
+    REFERENCES("ReferenceRate", "File references scanned per second during the last gc cycle"),
+    /** deleting unreferenced files */
+    DELETES("DeleteRate", "Candidates deleted per second during the last gc cycle"),
+    /** removing the candidate markers of deleted files */
+    MARKERS("MarkerRate", "Candidate markers removed per second during the last gc cycle");
+
+    private final String metricName;
+    private final String description;
+
+    Stage(String metricName, String description) {
+      this.metricName = metricName;
+      this.description = description;
+    }
+
+    public String getMetricName() {
+      return metricName;
+    }
+
+    public String getDescription() {
+      return description;
+    }
+  }
+
+  private final Map<Stage,LongAdder> counts = new EnumMap<>(Stage.class);
+  private final Map<Stage,LongAdder> nanos = new EnumMap<>(Stage.class);
+
+  public GcStageStats() {
+    for (Stage stage : Stage.values()) {
+      counts.put(stage, new LongAdder());
+      nanos.put(stage, new LongAdder());
+    }
+  }
+
+  /**
+   * Adds to the number of items processed by a stage.
+   */
+  public void add(Stage stage, long count) {
+    counts.get(stage).add(count);
+  }
+
+  /**
+   * Adds to the time a stage was busy.
+   */
+  public void addTime(Stage stage, long elapsedNanos) {
+    nanos.get(stage).add(elapsedNanos);
+  }
+
+  public long getCount(Stage stage) {
+    return counts.get(stage).sum();
+  }
+
+  public long getNanos(Stage stage) {
+    return nanos.get(stage).sum();
+  }
+
+  /**
+   * @return items processed per second while the stage was busy, or 0 if no time was recorded
+   */
+  public long getRate(Stage stage) {
+    long elapsed = getNanos(stage);
+    if (elapsed <= 0) {
+      return 0;
+    }
+    return (long) (getCount(stage) / (elapsed / (double) TimeUnit.SECONDS.toNanos(1)));
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("GcStageStats{");
+    String sep = "";
+    for (Stage stage : Stage.values()) {
+      sb.append(sep).append(stage.name().toLowerCase(Locale.ENGLISH)).append('=')
+          .append(getCount(stage)).append(" in ")
+          .append(TimeUnit.NANOSECONDS.toMillis(getNanos(stage))).append("ms (")
+          .append(getRate(stage)).append("/s)");
+      sep = ", ";
+    }
+    sb.append('}');
+    return sb.toString();
+  }
+}
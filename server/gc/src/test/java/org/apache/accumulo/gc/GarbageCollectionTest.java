@@ -21,6 +21,7 @@ package org.apache.accumulo.gc;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -37,9 +38,24 @@ import java.util.stream.Stream;
 import org.apache.accumulo.core.data.TableId;
 import org.apache.accumulo.server.replication.StatusUtil;
 import org.apache.accumulo.server.replication.proto.Replication.Status;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class GarbageCollectionTest {
+
+  @Rule
+  public TemporaryFolder tempFolder =
+      new TemporaryFolder(new File(System.getProperty("user.dir") + "/target"));
+
+  /**
+   * Creates an algorithm that sorts on local disk, with runs small enough that every test spills
+   * several of them.
+   */
+  private GarbageCollectionAlgorithm createSortedAlgorithm() throws Exception {
+    return new GarbageCollectionAlgorithm(tempFolder.newFolder(), 2);
+  }
+
   static class TestGCE implements GarbageCollectionEnvironment {
     TreeSet<String> candidates = new TreeSet<>();
     ArrayList<String> blips = new ArrayList<>();
@@ -125,6 +141,15 @@ public class GarbageCollectionTest {
 
   @Test
   public void testBasic() throws Exception {
+    basic(new GarbageCollectionAlgorithm());
+  }
+
+  @Test
+  public void testBasicSorted() throws Exception {
+    basic(createSortedAlgorithm());
+  }
+
+  private void basic(GarbageCollectionAlgorithm gca) throws Exception {
     TestGCE gce = new TestGCE();
 
     gce.candidates.add("hdfs://foo:6000/accumulo/tables/4/t0/F000.rf");
@@ -136,8 +161,6 @@ public class GarbageCollectionTest {
     gce.addFileReference("4", null, "hdfs://foo.com:6000/accumulo/tables/4/t0//F002.rf");
     gce.addFileReference("5", null, "hdfs://foo.com:6000/accumulo/tables/5/t0/F005.rf");
 
-    GarbageCollectionAlgorithm gca = new GarbageCollectionAlgorithm();
-
     gca.collect(gce);
     assertRemoved(gce);
 
@@ -223,6 +246,15 @@ public class GarbageCollectionTest {
 
   @Test
   public void testBlip() throws Exception {
+    blip(new GarbageCollectionAlgorithm());
+  }
+
+  @Test
+  public void testBlipSorted() throws Exception {
+    blip(createSortedAlgorithm());
+  }
+
+  private void blip(GarbageCollectionAlgorithm gca) throws Exception {
     TestGCE gce = new TestGCE();
 
     gce.candidates.add("/4/b-0");
@@ -235,8 +267,6 @@ public class GarbageCollectionTest {
     gce.blips.add("/4/b-0");
     gce.blips.add("hdfs://foo.com:6000/accumulo/tables/5/b-0");
 
-    GarbageCollectionAlgorithm gca = new GarbageCollectionAlgorithm();
-
     // Nothing should be removed because all candidates exist within a blip
     gca.collect(gce);
     assertRemoved(gce);
@@ -263,6 +293,15 @@ public class GarbageCollectionTest {
 
   @Test
   public void testDirectories() throws Exception {
+    directories(new GarbageCollectionAlgorithm());
+  }
+
+  @Test
+  public void testDirectoriesSorted() throws Exception {
+    directories(createSortedAlgorithm());
+  }
+
+  private void directories(GarbageCollectionAlgorithm gca) throws Exception {
     TestGCE gce = new TestGCE();
 
     gce.candidates.add("/4/t-0");
@@ -291,8 +330,6 @@ public class GarbageCollectionTest {
     gce.addFileReference("e", "m", "../c/t-0/F00.rf");
     gce.addFileReference("f", "m", "../d/t-0/F00.rf");
 
-    GarbageCollectionAlgorithm gca = new GarbageCollectionAlgorithm();
-
     // A directory reference does not preclude a candidate file beneath that directory from deletion
     gca.collect(gce);
     assertRemoved(gce, "/4/t-0/F002.rf");
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.gc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.gc.GarbageCollectionEnvironment.Reference;
+import org.junit.Test;
+
+public class ParallelReferenceReaderTest {
+
+  private static final TableId TABLE_ID = TableId.of("4");
+
+  private static List<Range> ranges(int count) {
+    List<Range> ranges = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      ranges.add(new Range(String.format("r%03d", i)));
+    }
+    return ranges;
+  }
+
+  // creates 2500 references per range, more than fit in one batch
+  private static Stream<Reference> references(Range range, AtomicInteger closed) {
+    String row = range.getStartKey().getRow().toString();
+    return IntStream.range(0, 2500)
+        .mapToObj(i -> new Reference(TABLE_ID, "/t-" + row + "/F" + i + ".rf", false))
+        .onClose(closed::incrementAndGet);
+  }
+
+  @Test
+  public void testReadsAllRanges() {
+    AtomicInteger closed = new AtomicInteger();
+    Function<Range,Stream<Reference>> scanner = range -> references(range, closed);
+
+    Set<String> expected = ranges(10).stream().flatMap(scanner).map(ref -> ref.ref)
+        .collect(Collectors.toSet());
+    closed.set(0);
+
+    Set<String> actual = new HashSet<>();
+    try (Stream<Reference> refs = new ParallelReferenceReader(ranges(10), scanner, 3).stream()) {
+      refs.forEach(ref -> assertTrue(ref.ref + " seen twice", actual.add(ref.ref)));
+    }
+
+    assertEquals(expected, actual);
+    assertEquals(10, closed.get());
+  }
+
+  @Test
+  public void testNoRanges() {
+    try (Stream<Reference> refs =
+        new ParallelReferenceReader(List.of(), range -> Stream.empty(), 2).stream()) {
+      assertEquals(0, refs.count());
+    }
+  }
+
+  @Test
+  public void testScanFailure() {
+    AtomicInteger closed = new AtomicInteger();
+    Function<Range,Stream<Reference>> scanner = range -> {
+      if (range.getStartKey().getRow().toString().equals("r005")) {
+        throw new IllegalStateException("scan failed");
+      }
+      return references(range, closed);
+    };
+
+    try (Stream<Reference> refs = new ParallelReferenceReader(ranges(10), scanner, 4).stream()) {
+      refs.forEach(ref -> {});
+      fail("expected the scan failure to reach the reader");
+    } catch (IllegalStateException e) {
+      assertEquals("scan failed", e.getCause().getMessage());
+    }
+  }
+
+  @Test(timeout = 60_000)
+  public void testScanError() {
+    AtomicInteger closed = new AtomicInteger();
+    Function<Range,Stream<Reference>> scanner = range -> {
+      if (range.getStartKey().getRow().toString().equals("r005")) {
+        throw new AssertionError("scan error");
+      }
+      return references(range, closed);
+    };
+
+    try (Stream<Reference> refs = new ParallelReferenceReader(ranges(10), scanner, 4).stream()) {
+      refs.forEach(ref -> {});
+      fail("expected the scan error to reach the reader");
+    } catch (IllegalStateException e) {
+      assertEquals("scan error", e.getCause().getMessage());
+    }
+  }
+
+  @Test
+  public void testRescan() {
+    AtomicInteger closed = new AtomicInteger();
+    AtomicInteger rescans = new AtomicInteger();
+    Function<Range,Stream<Reference>> scanner = range -> references(range, closed);
+
+    List<Reference> read;
+    try (Stream<Reference> refs = new ParallelReferenceReader(ranges(4), scanner, 2, () -> {
+      rescans.incrementAndGet();
+      assertEquals("rescan before all ranges were read", 4, closed.get());
+      return references(new Range("again"), closed);
+    }).stream()) {
+      read = refs.collect(Collectors.toList());
+    }
+
+    assertEquals(1, rescans.get());
+    assertEquals(5 * 2500, read.size());
+    assertTrue(read.subList(4 * 2500, read.size()).stream()
+        .allMatch(ref -> ref.ref.startsWith("/t-again/")));
+    assertEquals(5, closed.get());
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.gc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SortedRunsTest {
+
+  @Rule
+  public TemporaryFolder tempFolder =
+      new TemporaryFolder(new File(System.getProperty("user.dir") + "/target"));
+
+  private static List<Entry<String,String>> toList(SortedRuns runs) {
+    List<Entry<String,String>> ret = new ArrayList<>();
+    runs.forEach(ret::add);
+    return ret;
+  }
+
+  @Test
+  public void testMergesRuns() throws Exception {
+    File dir = tempFolder.newFolder();
+
+    List<Integer> keys = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      keys.add(i);
+    }
+    Collections.shuffle(keys);
+
+    TreeMap<String,String> expected = new TreeMap<>();
+    try (SortedRuns runs = new SortedRuns(dir, "test", 7)) {
+      for (Integer key : keys) {
+        String k = String.format("%05d", key);
+        runs.add(k, "v" + key);
+        expected.put(k, "v" + key);
+      }
+      // replace some values, later adds win
+      for (int i = 0; i < 1000; i += 10) {
+        String k = String.format("%05d", i);
+        runs.add(k, "new" + i);
+        expected.put(k, "new" + i);
+      }
+
+      assertEquals(1100, runs.getAdded());
+      assertTrue(runs.getNumRuns() > 100);
+      assertEquals(new ArrayList<>(expected.entrySet()), toList(runs));
+    }
+
+    String[] remaining = dir.list();
+    assertEquals(0, remaining == null ? 0 : remaining.length);
+  }
+
+  @Test
+  public void testInMemory() throws Exception {
+    try (SortedRuns runs = new SortedRuns(tempFolder.newFolder(), "test", 100)) {
+      assertFalse(runs.iterator().hasNext());
+      runs.add("b", "2");
+      runs.add("a", "1");
+      runs.add("b", "3");
+      assertEquals(0, runs.getNumRuns());
+      List<Entry<String,String>> entries = toList(runs);
+      assertEquals(2, entries.size());
+      assertEquals("a", entries.get(0).getKey());
+      assertEquals("3", entries.get(1).getValue());
+    }
+  }
+}
@@ -36,6 +36,7 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -80,6 +81,7 @@ import org.apache.accumulo.core.trace.TraceUtil;
 import org.apache.accumulo.core.util.Daemon;
 import org.apache.accumulo.fate.AgeOffStore;
 import org.apache.accumulo.fate.Fate;
+import org.apache.accumulo.fate.TStore;
 import org.apache.accumulo.fate.util.Retry;
 import org.apache.accumulo.fate.zookeeper.ZooLock;
 import org.apache.accumulo.fate.zookeeper.ZooLock.LockLossReason;
@@ -87,7 +89,9 @@ import org.apache.accumulo.fate.zookeeper.ZooReaderWriter;
 import org.apache.accumulo.fate.zookeeper.ZooUtil;
 import org.apache.accumulo.fate.zookeeper.ZooUtil.NodeExistsPolicy;
 import org.apache.accumulo.fate.zookeeper.ZooUtil.NodeMissingPolicy;
+import org.apache.accumulo.master.metrics.AssignmentMetrics;
 import org.apache.accumulo.master.metrics.MasterMetricsFactory;
+import org.apache.accumulo.master.metrics.fate.FateRunnerMetrics;
 import org.apache.accumulo.master.recovery.RecoveryManager;
 import org.apache.accumulo.master.replication.MasterReplicationCoordinator;
 import org.apache.accumulo.master.replication.ReplicationDriver;
@@ -99,6 +103,7 @@ import org.apache.accumulo.server.HighlyAvailableService;
 import org.apache.accumulo.server.ServerContext;
 import org.apache.accumulo.server.ServerOpts;
 import org.apache.accumulo.server.conf.ServerConfigurationFactory;
+import org.apache.accumulo.server.fate.TableStore;
 import org.apache.accumulo.server.fs.VolumeManager;
 import org.apache.accumulo.server.log.WalStateManager;
 import org.apache.accumulo.server.log.WalStateManager.WalMarkerException;
@@ -183,7 +188,8 @@ public class Master extends AbstractServer
   final VolumeManager fs;
   private final Object balancedNotifier = new Object();
   final LiveTServerSet tserverSet;
-  private final List<TabletGroupWatcher> watchers = new ArrayList<>();
+  final TabletAssignmentDispatcher assignmentDispatcher;
+  private final List<TabletGroupWatcher> watchers = new CopyOnWriteArrayList<>();
   final SecurityOperation security;
   final Map<TServerInstance,AtomicInteger> badServers =
       Collections.synchronizedMap(new HashMap<TServerInstance,AtomicInteger>());
@@ -208,7 +214,11 @@ public class Master extends AbstractServer
 
   private MasterState state = MasterState.INITIAL;
 
-  Fate<Master> fate;
+  volatile Fate<Master> fate;
+  private final FateRunnerMetrics fateRunnerMetrics = new FateRunnerMetrics(() -> {
+    Fate<Master> f = fate;
+    return f == null ? 0 : f.getQueueDepth();
+  });
 
   volatile SortedMap<TServerInstance,TabletServerStatus> tserverStatus =
       Collections.unmodifiableSortedMap(new TreeMap<>());
@@ -247,6 +257,7 @@ public class Master extends AbstractServer
     }
     MasterState oldState = state;
     state = newState;
+    fullScanNeeded();
     nextEvent.event("State changed from %s to %s", oldState, newState);
     if (newState == MasterState.STOP) {
       // Give the server a little time before shutdown so the client
@@ -386,6 +397,7 @@ public class Master extends AbstractServer
     ThriftTransportPool.getInstance()
         .setIdleTime(aconf.getTimeInMillis(Property.GENERAL_RPC_TIMEOUT));
     tserverSet = new LiveTServerSet(context, this);
+    assignmentDispatcher = new TabletAssignmentDispatcher(this, aconf);
     this.tabletBalancer = Property.createInstanceFromPropertyName(aconf,
         Property.MASTER_TABLET_BALANCER, TabletBalancer.class, new DefaultLoadBalancer());
     this.tabletBalancer.init(context);
@@ -482,6 +494,7 @@ public class Master extends AbstractServer
       }
       mergeLock.notifyAll();
     }
+    tableChanged(info.getExtent().getTableId(), false);
     nextEvent.event("Merge state of %s set to %s", info.getExtent(), state);
   }
 
@@ -491,6 +504,7 @@ public class Master extends AbstractServer
       getContext().getZooReaderWriter().recursiveDelete(path, NodeMissingPolicy.SKIP);
       mergeLock.notifyAll();
     }
+    tableChanged(tableId, false);
     nextEvent.event("Merge state of %s cleared", tableId);
   }
 
@@ -790,6 +804,7 @@ public class Master extends AbstractServer
                     for (TServerInstance server : currentServers) {
                       try {
                         serversToShutdown.add(server);
+                        fullScanNeeded();
                         tserverSet.getConnection(server).fastHalt(masterLock);
                       } catch (TException e) {
                         // its probably down, and we don't care
@@ -891,6 +906,11 @@ public class Master extends AbstractServer
         log.debug("migration {}", m);
       }
       if (migrationsOut.size() > 0) {
+        List<KeyExtent> migrating = new ArrayList<>(migrationsOut.size());
+        for (TabletMigration m : migrationsOut) {
+          migrating.add(m.tablet);
+        }
+        tabletsChanged(migrating);
         nextEvent.event("Migrating %d more tablets, %d total", migrationsOut.size(),
             migrations.size());
       } else {
@@ -1112,16 +1132,23 @@ public class Master extends AbstractServer
     }
 
     try {
-      final AgeOffStore<Master> store = new AgeOffStore<>(new org.apache.accumulo.fate.ZooStore<>(
-          getZooKeeperRoot() + Constants.ZFATE, context.getZooReaderWriter()), 1000 * 60 * 60 * 8);
+      TStore<Master> fateStore;
+      if (getConfiguration().getBoolean(Property.MASTER_FATE_STORE_METADATA)) {
+        fateStore = new TableStore<>(context, MetadataTable.NAME, masterLock);
+      } else {
+        fateStore = new org.apache.accumulo.fate.ZooStore<>(getZooKeeperRoot() + Constants.ZFATE,
+            context.getZooReaderWriter());
+      }
+      final AgeOffStore<Master> store = new AgeOffStore<>(fateStore, 1000 * 60 * 60 * 8);
 
       int threads = getConfiguration().getCount(Property.MASTER_FATE_THREADPOOL_SIZE);
+      int maxPerType = getConfiguration().getCount(Property.MASTER_FATE_TYPE_CONCURRENT_MAX);
 
-      fate = new Fate<>(this, store);
-      fate.startTransactionRunners(threads);
+      fate = new Fate<>(this, store, fateRunnerMetrics);
+      fate.startTransactionRunners(threads, maxPerType);
 
       SimpleTimer.getInstance(getConfiguration()).schedule(() -> store.ageOff(), 63000, 63000);
-    } catch (KeeperException | InterruptedException e) {
+    } catch (KeeperException | InterruptedException | TableNotFoundException e) {
       throw new IllegalStateException("Exception setting up FaTE cleanup thread", e);
     }
 
@@ -1500,6 +1527,11 @@ public class Master extends AbstractServer
           }
         }
       }
+      if (!deleted.isEmpty()) {
+        for (TabletGroupWatcher watcher : watchers) {
+          watcher.changes.serversLost(deleted);
+        }
+      }
       nextEvent.event("There are now %d tablet servers", current.size());
     }
 
@@ -1531,6 +1563,7 @@ public class Master extends AbstractServer
 
   @Override
   public void stateChanged(TableId tableId, TableState state) {
+    tableChanged(tableId, state == TableState.DELETING);
     nextEvent.event("Table state in zookeeper changed for %s to %s", tableId, state);
     if (state == TableState.OFFLINE) {
       clearMigrations(tableId);
@@ -1585,8 +1618,60 @@ public class Master extends AbstractServer
 
   // recovers state from the persistent transaction to shutdown a server
   public void shutdownTServer(TServerInstance server) {
-    nextEvent.event("Tablet Server shutdown requested for %s", server);
     serversToShutdown.add(server);
+    fullScanNeeded();
+    nextEvent.event("Tablet Server shutdown requested for %s", server);
+  }
+
+  /**
+   * Tells the tablet group watchers that the goal or state of these tablets may have changed.
+   */
+  void tabletsChanged(Collection<KeyExtent> extents) {
+    for (TabletGroupWatcher watcher : watchers) {
+      watcher.changes.tabletsChanged(extents);
+    }
+  }
+
+  /**
+   * Tells the tablet group watchers that a tablet server unloaded the tablet.
+   */
+  void tabletUnloaded(KeyExtent extent, String server) {
+    for (TabletGroupWatcher watcher : watchers) {
+      watcher.changes.unloaded(extent, server);
+    }
+  }
+
+  /**
+   * Tells the tablet group watchers that a tablet split.
+   */
+  void tabletSplit(KeyExtent oldTablet, Collection<KeyExtent> newTablets) {
+    for (TabletGroupWatcher watcher : watchers) {
+      watcher.changes.split(oldTablet, newTablets);
+    }
+  }
+
+  private void tableChanged(TableId tableId, boolean deleted) {
+    for (TabletGroupWatcher watcher : watchers) {
+      watcher.changes.tableChanged(tableId, deleted);
+    }
+  }
+
+  private void fullScanNeeded() {
+    for (TabletGroupWatcher watcher : watchers) {
+      watcher.changes.fullScanNeeded();
+    }
+  }
+
+  boolean isUpgradeComplete() {
+    return upgradeCoordinator.getStatus() == UpgradeCoordinator.UpgradeStatus.COMPLETE;
+  }
+
+  public AssignmentMetrics getAssignmentMetrics() {
+    return assignmentDispatcher.getMetrics();
+  }
+
+  public FateRunnerMetrics getFateRunnerMetrics() {
+    return fateRunnerMetrics;
   }
 
   public EventCoordinator getEventCoordinator() {
@@ -296,6 +296,9 @@ public class MasterClientServiceHandler extends FateServiceHandler
     if (master.migrations.remove(oldTablet) != null) {
       Master.log.info("Canceled migration of {}", split.oldTablet);
     }
+    master.tabletsChanged(Collections.singleton(oldTablet));
+    master.tabletSplit(oldTablet, List.of(new KeyExtent(split.newTablets.get(0)),
+        new KeyExtent(split.newTablets.get(1))));
     for (TServerInstance instance : master.tserverSet.getCurrentServers()) {
       if (serverName.equals(instance.hostPort())) {
         master.nextEvent.event("%s reported split %s, %s", serverName,
@@ -310,15 +313,19 @@ public class MasterClientServiceHandler extends FateServiceHandler
   public void reportTabletStatus(TInfo info, TCredentials credentials, String serverName,
       TabletLoadState status, TKeyExtent ttablet) {
     KeyExtent tablet = new KeyExtent(ttablet);
+    master.tabletsChanged(Collections.singleton(tablet));
 
     switch (status) {
       case LOAD_FAILURE:
         Master.log.error("{} reports assignment failed for tablet {}", serverName, tablet);
+        master.assignmentDispatcher.loadFailed(tablet);
         break;
       case LOADED:
+        master.assignmentDispatcher.loaded(tablet);
         master.nextEvent.event("tablet %s was loaded on %s", tablet, serverName);
         break;
       case UNLOADED:
+        master.tabletUnloaded(tablet, serverName);
         master.nextEvent.event("tablet %s was unloaded from %s", tablet, serverName);
         break;
       case UNLOAD_ERROR:
@@ -0,0 +1,278 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.master;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.accumulo.core.tabletserver.thrift.TUnloadTabletGoal;
+import org.apache.accumulo.core.util.SimpleThreadPool;
+import org.apache.accumulo.fate.zookeeper.ZooLock;
+import org.apache.accumulo.master.metrics.AssignmentMetrics;
+import org.apache.accumulo.server.master.LiveTServerSet.TServerConnection;
+import org.apache.accumulo.server.master.state.TServerInstance;
+import org.apache.thrift.TException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends tablet load and unload requests to the tablet servers in parallel. Requests are queued per
+ * tablet server and sent in batches over one connection, with a bounded number of batches in
+ * flight to each server, so a slow server only delays its own tablets. Requests for a tablet are
+ * sent in the order they were queued, a request waits while an earlier one for the same tablet is
+ * being sent.
+ */
+class TabletAssignmentDispatcher {
+
+  private static final Logger log = LoggerFactory.getLogger(TabletAssignmentDispatcher.class);
+
+  static final int BATCH_SIZE = 100;
+
+  // loads that are never reported, e.g. because the server died, are dropped past this many
+  private static final int MAX_TRACKED_LOADS = 100_000;
+
+  private static class Request {
+    // null for a load request
+    final TUnloadTabletGoal unloadGoal;
+    final long queued = System.nanoTime();
+
+    Request(TUnloadTabletGoal unloadGoal) {
+      this.unloadGoal = unloadGoal;
+    }
+  }
+
+  private static class ServerQueue {
+    // the latest request for each tablet, in the order the tablets were queued
+    final Map<KeyExtent,Request> requests = new LinkedHashMap<>();
+    // the tablets in the batches being sent
+    final Set<KeyExtent> inFlight = new HashSet<>();
+    int running = 0;
+  }
+
+  private final Function<TServerInstance,TServerConnection> connections;
+  private final Supplier<ZooLock> masterLock;
+  private final LongSupplier steadyTime;
+  private final Executor threadPool;
+  private final int maxConcurrent;
+  private final AssignmentMetrics metrics;
+
+  private final Map<TServerInstance,ServerQueue> queues = new HashMap<>();
+  private int pending = 0;
+
+  private final Map<KeyExtent,Long> loadsSent = new ConcurrentHashMap<>();
+
+  TabletAssignmentDispatcher(Master master, AccumuloConfiguration conf) {
+    this(master.tserverSet::getConnection, () -> master.masterLock, master::getSteadyTime,
+        new SimpleThreadPool(conf.getCount(Property.MASTER_ASSIGNMENT_THREADS),
+            "tablet assignment"),
+        conf.getCount(Property.MASTER_ASSIGNMENT_TSERVER_CONCURRENT_MAX));
+  }
+
+  TabletAssignmentDispatcher(Function<TServerInstance,TServerConnection> connections,
+      Supplier<ZooLock> masterLock, LongSupplier steadyTime, Executor threadPool,
+      int maxConcurrent) {
+    this.connections = connections;
+    this.masterLock = masterLock;
+    this.steadyTime = steadyTime;
+    this.threadPool = threadPool;
+    this.maxConcurrent = maxConcurrent;
+    this.metrics = new AssignmentMetrics(this::getPending);
+  }
+
+  AssignmentMetrics getMetrics() {
+    return metrics;
+  }
+
+  synchronized int getPending() {
+    return pending;
+  }
+
+  /**
+   * Queues a request for the server to load the tablet.
+   */
+  void assign(TServerInstance server, KeyExtent extent) {
+    queue(server, extent, new Request(null));
+  }
+
+  /**
+   * Queues a request for the server to unload the tablet.
+   */
+  void unload(TServerInstance server, KeyExtent extent, TUnloadTabletGoal goal) {
+    queue(server, extent, new Request(goal));
+  }
+
+  /**
+   * Records that a tablet server reported loading a tablet.
+   */
+  void loaded(KeyExtent extent) {
+    Long sent = loadsSent.remove(extent);
+    if (sent != null) {
+      metrics.addLoadTime(NANOSECONDS.toMillis(System.nanoTime() - sent));
+    }
+  }
+
+  /**
+   * Records that a tablet server reported failing to load a tablet.
+   */
+  void loadFailed(KeyExtent extent) {
+    loadsSent.remove(extent);
+  }
+
+  private synchronized void queue(TServerInstance server, KeyExtent extent, Request request) {
+    ServerQueue queue = queues.computeIfAbsent(server, k -> new ServerQueue());
+    if (queue.requests.put(extent, request) == null) {
+      pending++;
+    }
+    if (queue.running < maxConcurrent) {
+      queue.running++;
+      threadPool.execute(() -> drain(server, queue));
+    }
+  }
+
+  /**
+   * Marks the previous batch as sent and takes the next one, skipping tablets that another batch
+   * is sending. Gives up the drain's slot when there is nothing left to send.
+   */
+  private synchronized List<Entry<KeyExtent,Request>> nextBatch(TServerInstance server,
+      ServerQueue queue, List<Entry<KeyExtent,Request>> sent) {
+    sent.forEach(entry -> queue.inFlight.remove(entry.getKey()));
+
+    List<Entry<KeyExtent,Request>> batch = new ArrayList<>();
+    Iterator<Entry<KeyExtent,Request>> iter = queue.requests.entrySet().iterator();
+    while (iter.hasNext() && batch.size() < BATCH_SIZE) {
+      Entry<KeyExtent,Request> entry = iter.next();
+      if (queue.inFlight.add(entry.getKey())) {
+        batch.add(entry);
+        iter.remove();
+      }
+    }
+    pending -= batch.size();
+
+    if (batch.isEmpty()) {
+      queue.running--;
+      if (queue.running == 0) {
+        queues.remove(server);
+      }
+    }
+    return batch;
+  }
+
+  /**
+   * Gives up the slot of a drain that ended on an unexpected error. Requests left in the queue are
+   * sent by the next drain started for the server.
+   */
+  private synchronized void drainFailed(TServerInstance server, ServerQueue queue,
+      List<Entry<KeyExtent,Request>> batch) {
+    batch.forEach(entry -> queue.inFlight.remove(entry.getKey()));
+    queue.running--;
+    if (queue.running == 0 && queue.requests.isEmpty()) {
+      queues.remove(server);
+    }
+  }
+
+  private void drain(TServerInstance server, ServerQueue queue) {
+    List<Entry<KeyExtent,Request>> batch = List.of();
+    boolean drained = false;
+    try {
+      while (true) {
+        batch = nextBatch(server, queue, batch);
+        if (batch.isEmpty()) {
+          drained = true;
+          return;
+        }
+        send(server, batch);
+      }
+    } finally {
+      if (!drained) {
+        drainFailed(server, queue, batch);
+      }
+    }
+  }
+
+  private void send(TServerInstance server, List<Entry<KeyExtent,Request>> batch) {
+    List<KeyExtent> loads = new ArrayList<>();
+    Map<KeyExtent,TUnloadTabletGoal> unloads = new LinkedHashMap<>();
+    long now = System.nanoTime();
+    for (Entry<KeyExtent,Request> entry : batch) {
+      metrics.addQueueTime(NANOSECONDS.toMillis(now - entry.getValue().queued));
+      if (entry.getValue().unloadGoal == null) {
+        loads.add(entry.getKey());
+      } else {
+        unloads.put(entry.getKey(), entry.getValue().unloadGoal);
+      }
+    }
+
+    TServerConnection client = connections.apply(server);
+    if (client == null) {
+      log.warn("Could not connect to server {}", server);
+      metrics.addLoadsFailed(loads.size());
+      metrics.addUnloadsFailed(unloads.size());
+      return;
+    }
+
+    if (loadsSent.size() > MAX_TRACKED_LOADS) {
+      long oldest = now - HOURS.toNanos(1);
+      loadsSent.values().removeIf(sent -> sent - oldest < 0);
+    }
+
+    // loads and unloads are sent separately so that one failing does not drop the other
+    if (!loads.isEmpty()) {
+      // record before sending, the server may report the load before the call returns
+      for (KeyExtent extent : loads) {
+        loadsSent.put(extent, now);
+      }
+      try {
+        client.assignTablets(masterLock.get(), loads);
+        metrics.addAssigned(loads.size());
+      } catch (TException | RuntimeException e) {
+        log.warn("Failed to send {} tablet loads to {}", loads.size(), server, e);
+        metrics.addLoadsFailed(loads.size());
+        loads.forEach(loadsSent::remove);
+      }
+    }
+
+    if (!unloads.isEmpty()) {
+      try {
+        client.unloadTablets(masterLock.get(), unloads, steadyTime.getAsLong());
+        metrics.addUnloaded(unloads.size());
+      } catch (TException | RuntimeException e) {
+        log.warn("Failed to send {} tablet unloads to {}", unloads.size(), server, e);
+        metrics.addUnloadsFailed(unloads.size());
+      }
+    }
+  }
+}
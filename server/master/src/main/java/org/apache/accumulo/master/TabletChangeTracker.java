@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.master;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.accumulo.core.metadata.schema.MetadataSchema.TabletsSection;
+import org.apache.accumulo.server.master.state.TServerInstance;
+
+/**
+ * Collects the changes that affect the tablets of a {@link TabletGroupWatcher}, so that it can
+ * rescan the affected tablets instead of its whole tablet state store.
+ *
+ * <p>
+ * To find the tablets of a lost tablet server, this remembers where the watcher assigned tablets.
+ * The tablets of servers that were already running at the first full scan are not known, so losing
+ * one of those servers requires a full scan. Every full scan sees every hosted tablet, so each full
+ * scan forgets the locations that were not seen or assigned since the previous one.
+ */
+class TabletChangeTracker {
+
+  private final Set<KeyExtent> extents = new HashSet<>();
+  private final Set<TableId> tables = new HashSet<>();
+  private boolean fullScanNeeded = true;
+  private long lastFullScan = 0;
+
+  private final Map<KeyExtent,TServerInstance> locations = new HashMap<>();
+  private final Set<KeyExtent> locatedSinceFullScan = new HashSet<>();
+  private Set<TServerInstance> untrackedServers = null;
+
+  /**
+   * The goal or state of these tablets may have changed.
+   */
+  synchronized void tabletsChanged(Collection<KeyExtent> changed) {
+    extents.addAll(changed);
+  }
+
+  /**
+   * The goal of every tablet in this table may have changed.
+   */
+  synchronized void tableChanged(TableId tableId, boolean deleted) {
+    tables.add(tableId);
+    if (deleted) {
+      locations.keySet().removeIf(extent -> extent.getTableId().equals(tableId));
+    }
+  }
+
+  /**
+   * The goal of tablets changed in a way that can not be narrowed down to tablets or tables.
+   */
+  synchronized void fullScanNeeded() {
+    fullScanNeeded = true;
+  }
+
+  /**
+   * Marks the tablets last located on the lost servers as changed.
+   */
+  synchronized void serversLost(Collection<TServerInstance> lost) {
+    for (TServerInstance server : lost) {
+      if (untrackedServers == null || untrackedServers.remove(server)) {
+        fullScanNeeded = true;
+      }
+    }
+
+    Iterator<Entry<KeyExtent,TServerInstance>> iter = locations.entrySet().iterator();
+    while (iter.hasNext()) {
+      Entry<KeyExtent,TServerInstance> entry = iter.next();
+      if (lost.contains(entry.getValue())) {
+        extents.add(entry.getKey());
+        iter.remove();
+      }
+    }
+  }
+
+  /**
+   * Records that a tablet was assigned to or seen on a server.
+   */
+  synchronized void located(KeyExtent extent, TServerInstance server) {
+    locations.put(extent, server);
+    locatedSinceFullScan.add(extent);
+  }
+
+  /**
+   * Forgets where a tablet was located once the server it was recorded on reports unloading it.
+   *
+   * @param server
+   *          the host and port of the server that unloaded the tablet
+   */
+  synchronized void unloaded(KeyExtent extent, String server) {
+    TServerInstance location = locations.get(extent);
+    if (location != null && location.hostPort().equals(server)) {
+      locations.remove(extent);
+    }
+  }
+
+  /**
+   * Moves the location of a tablet that split to the tablets it split into.
+   */
+  synchronized void split(KeyExtent oldTablet, Collection<KeyExtent> newTablets) {
+    TServerInstance location = locations.remove(oldTablet);
+    if (location != null) {
+      for (KeyExtent newTablet : newTablets) {
+        located(newTablet, location);
+      }
+    }
+  }
+
+  /**
+   * Decides what the next pass of the watcher scans and clears the collected changes.
+   *
+   * @return null when the pass must scan the whole store, otherwise the metadata ranges of the
+   *         changed tablets, which may be empty
+   */
+  synchronized List<Range> startPass(boolean incremental, long fullScanInterval,
+      Set<TServerInstance> currentServers) {
+    long now = System.currentTimeMillis();
+    boolean fullScan = !incremental || fullScanNeeded || now - lastFullScan >= fullScanInterval;
+
+    List<Range> ranges = null;
+    if (fullScan) {
+      fullScanNeeded = false;
+      lastFullScan = now;
+      if (untrackedServers == null) {
+        untrackedServers = new HashSet<>(currentServers);
+      }
+      locations.keySet().retainAll(locatedSinceFullScan);
+      locatedSinceFullScan.clear();
+    } else {
+      ranges = new ArrayList<>();
+      for (TableId tableId : tables) {
+        ranges.add(TabletsSection.getRange(tableId));
+      }
+      for (KeyExtent extent : extents) {
+        if (!tables.contains(extent.getTableId())) {
+          ranges.add(extent.toMetadataRange());
+        }
+      }
+      ranges = Range.mergeOverlapping(ranges);
+    }
+
+    extents.clear();
+    tables.clear();
+    return ranges;
+  }
+}
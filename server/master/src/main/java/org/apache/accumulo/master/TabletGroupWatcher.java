@@ -29,6 +29,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
@@ -44,6 +45,7 @@ import org.apache.accumulo.core.client.MutationsRejectedException;
 import org.apache.accumulo.core.client.RowIterator;
 import org.apache.accumulo.core.client.Scanner;
 import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
 import org.apache.accumulo.core.conf.Property;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Mutation;
@@ -105,6 +107,7 @@ abstract class TabletGroupWatcher extends Daemon {
   private final TabletStateStore store;
   private final TabletGroupWatcher dependentWatcher;
   final TableStats stats = new TableStats();
+  final TabletChangeTracker changes = new TabletChangeTracker();
   private SortedSet<TServerInstance> lastScanServers = ImmutableSortedSet.of();
 
   TabletGroupWatcher(Master master, TabletStateStore store, TabletGroupWatcher dependentWatcher) {
@@ -186,7 +189,7 @@ abstract class TabletGroupWatcher extends Daemon {
         stats.begin();
         // Walk through the tablets in our store, and work tablets
         // towards their goal
-        iter = store.iterator();
+        iter = scanTablets(masterState, currentMerges, currentTServers.keySet());
         while (iter.hasNext()) {
           TabletLocationState tls = iter.next();
           if (tls == null) {
@@ -197,6 +200,12 @@ abstract class TabletGroupWatcher extends Daemon {
           if (master.getTableManager().getTableState(tls.extent.getTableId()) == null)
             continue;
 
+          // this tablet needs attention, so look at it again in the next incremental pass
+          changes.tabletsChanged(Collections.singleton(tls.extent));
+          if (tls.futureOrCurrent() != null) {
+            changes.located(tls.extent, tls.futureOrCurrent());
+          }
+
           // Don't overwhelm the tablet servers with work
           if (unassigned.size() + unloaded
               > Master.MAX_TSERVER_WORK_CHUNK * currentTServers.size()) {
@@ -331,15 +340,9 @@ abstract class TabletGroupWatcher extends Daemon {
                 }
                 break;
               case HOSTED:
-                TServerConnection client = this.master.tserverSet.getConnection(server);
-                if (client != null) {
-                  client.unloadTablet(this.master.masterLock, tls.extent, goal.howUnload(),
-                      master.getSteadyTime());
-                  unloaded++;
-                  totalUnloaded++;
-                } else {
-                  Master.log.warn("Could not connect to server {}", server);
-                }
+                this.master.assignmentDispatcher.unload(server, tls.extent, goal.howUnload());
+                unloaded++;
+                totalUnloaded++;
                 break;
               case ASSIGNED:
                 break;
@@ -400,6 +403,48 @@ abstract class TabletGroupWatcher extends Daemon {
     }
   }
 
+  /**
+   * Scans the whole store, or only the changed tablets when incremental passes are enabled and the
+   * last full scan is recent enough. Tables with a merge in progress are always scanned in full so
+   * their merge stats are complete.
+   */
+  private ClosableIterator<TabletLocationState> scanTablets(MasterState masterState,
+      Map<TableId,MergeStats> currentMerges, Set<TServerInstance> currentServers) {
+    AccumuloConfiguration conf = master.getConfiguration();
+    boolean incremental = conf.getBoolean(Property.MASTER_TABLET_WATCHER_INCREMENTAL)
+        && masterState == MasterState.NORMAL && master.isUpgradeComplete();
+    List<Range> ranges = changes.startPass(incremental,
+        conf.getTimeInMillis(Property.MASTER_TABLET_WATCHER_FULL_SCAN_INTERVAL), currentServers);
+    if (ranges == null) {
+      return store.iterator();
+    }
+
+    for (MergeStats mergeStats : currentMerges.values()) {
+      if (mergeStats.getMergeInfo().getState() != MergeState.NONE) {
+        ranges.add(TabletsSection.getRange(mergeStats.getMergeInfo().getExtent().getTableId()));
+      }
+    }
+    ranges = Range.mergeOverlapping(ranges);
+    Master.log.debug("[{}]: scanning {} ranges of changed tablets", store.name(), ranges.size());
+    if (ranges.isEmpty()) {
+      return new ClosableIterator<TabletLocationState>() {
+        @Override
+        public boolean hasNext() {
+          return false;
+        }
+
+        @Override
+        public TabletLocationState next() {
+          throw new NoSuchElementException();
+        }
+
+        @Override
+        public void close() {}
+      };
+    }
+    return store.iterator(ranges);
+  }
+
   private void cancelOfflineTableMigrations(TabletLocationState tls) {
     TServerInstance dest = this.master.migrations.get(tls.extent);
     TableState tableState = master.getTableManager().getTableState(tls.extent.getTableId());
@@ -819,7 +864,7 @@ abstract class TabletGroupWatcher extends Daemon {
       List<TabletLocationState> assignedToDeadServers,
       Map<TServerInstance,List<Path>> logsForDeadServers,
       List<TabletLocationState> suspendedToGoneServers, Map<KeyExtent,TServerInstance> unassigned)
-      throws DistributedStoreException, TException, WalMarkerException {
+      throws DistributedStoreException, WalMarkerException {
     boolean tabletsSuspendable = canSuspendTablets();
     if (!assignedToDeadServers.isEmpty()) {
       int maxServersToShow = min(assignedToDeadServers.size(), 100);
@@ -876,12 +921,8 @@ abstract class TabletGroupWatcher extends Daemon {
     }
     assignments.addAll(assigned);
     for (Assignment a : assignments) {
-      TServerConnection client = this.master.tserverSet.getConnection(a.server);
-      if (client != null) {
-        client.assignTablet(this.master.masterLock, a.tablet);
-      } else {
-        Master.log.warn("Could not connect to server {}", a.server);
-      }
+      changes.located(a.tablet, a.server);
+      this.master.assignmentDispatcher.assign(a.server, a.tablet);
       master.assignedTablet(a.tablet);
     }
   }
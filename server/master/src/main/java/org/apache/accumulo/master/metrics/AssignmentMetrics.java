@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.master.metrics;
+
+import java.util.function.IntSupplier;
+
+import org.apache.hadoop.metrics2.lib.MetricsRegistry;
+import org.apache.hadoop.metrics2.lib.MutableCounterLong;
+import org.apache.hadoop.metrics2.lib.MutableQuantiles;
+import org.apache.hadoop.metrics2.lib.MutableStat;
+
+/**
+ * Throughput and latency of the tablet load and unload requests the master sends to tablet
+ * servers.
+ */
+public class AssignmentMetrics extends MasterMetrics {
+
+  private final IntSupplier pendingRequests;
+  private final MutableCounterLong tabletsAssigned;
+  private final MutableCounterLong tabletsUnloaded;
+  private final MutableCounterLong loadsFailed;
+  private final MutableCounterLong unloadsFailed;
+  private final MutableStat queueTimeStat;
+  private final MutableStat loadTimeStat;
+  private final MutableQuantiles loadTimeQuantiles;
+
+  public AssignmentMetrics(IntSupplier pendingRequests) {
+    super("Assignment", "Tablet Assignment Metrics", "MasterAssignment");
+    this.pendingRequests = pendingRequests;
+
+    MetricsRegistry registry = super.getRegistry();
+    tabletsAssigned =
+        registry.newCounter("tabletsAssigned", "Tablet load requests sent to tablet servers", 0L);
+    tabletsUnloaded = registry.newCounter("tabletsUnloaded",
+        "Tablet unload requests sent to tablet servers", 0L);
+    loadsFailed =
+        registry.newCounter("loadsFailed", "Tablet load requests that could not be sent", 0L);
+    unloadsFailed =
+        registry.newCounter("unloadsFailed", "Tablet unload requests that could not be sent", 0L);
+    queueTimeStat = registry.newStat("assignmentQueue",
+        "Time tablet requests waited before being sent in milliseconds", "ops", "latency", true);
+    loadTimeStat = registry.newStat("assignmentLoad",
+        "Time from sending a tablet load request until the tablet server reported the tablet"
+            + " loaded in milliseconds",
+        "ops", "latency", true);
+    loadTimeQuantiles = registry.newQuantiles("assignmentLoad10m",
+        "Tablet load time quantiles in milliseconds", "ops", "latency", 600);
+  }
+
+  @Override
+  protected void prepareMetrics() {
+    getRegistry().add("pendingRequests", pendingRequests.getAsInt());
+  }
+
+  public void addAssigned(int count) {
+    tabletsAssigned.incr(count);
+  }
+
+  public void addUnloaded(int count) {
+    tabletsUnloaded.incr(count);
+  }
+
+  public void addLoadsFailed(int count) {
+    loadsFailed.incr(count);
+  }
+
+  public void addUnloadsFailed(int count) {
+    unloadsFailed.incr(count);
+  }
+
+  public void addQueueTime(long millis) {
+    queueTimeStat.add(millis);
+  }
+
+  public void addLoadTime(long millis) {
+    loadTimeStat.add(millis);
+    loadTimeQuantiles.add(millis);
+  }
+}
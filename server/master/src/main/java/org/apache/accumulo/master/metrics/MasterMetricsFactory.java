@@ -29,9 +29,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Provide master metrics configuration. Currently this is replication and FATE metrics. Metrics can
- * be configured using hadoop metrics2 Fate metrics must be enabled via configuration file (default
- * is disabled)
+ * Provide master metrics configuration. Currently this is replication, assignment, FATE runner and
+ * FATE metrics. Metrics can be configured using hadoop metrics2 Fate metrics must be enabled via
+ * configuration file (default is disabled)
  */
 public class MasterMetricsFactory {
 
@@ -59,6 +59,22 @@ public class MasterMetricsFactory {
       log.error("Failed to register replication metrics", ex);
     }
 
+    try {
+      master.getAssignmentMetrics().register(metricsSystem);
+      log.info("Registered assignment metrics module");
+    } catch (Exception ex) {
+      failureCount++;
+      log.error("Failed to register assignment metrics", ex);
+    }
+
+    try {
+      master.getFateRunnerMetrics().register(metricsSystem);
+      log.info("Registered FATE runner metrics module");
+    } catch (Exception ex) {
+      failureCount++;
+      log.error("Failed to register FATE runner metrics", ex);
+    }
+
     try {
       if (enableFateMetrics) {
         new FateMetrics(master.getContext(), fateMinUpdateInterval).register(metricsSystem);
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.master.metrics.fate;
+
+import java.util.function.IntSupplier;
+
+import org.apache.accumulo.fate.Fate;
+import org.apache.accumulo.master.metrics.MasterMetrics;
+import org.apache.hadoop.metrics2.lib.MetricsRegistry;
+import org.apache.hadoop.metrics2.lib.MutableCounterLong;
+import org.apache.hadoop.metrics2.lib.MutableQuantiles;
+import org.apache.hadoop.metrics2.lib.MutableStat;
+
+/**
+ * Queue depth and timings of the threads running FATE transactions in the master.
+ */
+public class FateRunnerMetrics extends MasterMetrics implements Fate.RunnerListener {
+
+  private final IntSupplier queueDepth;
+  private final MutableStat waitTimeStat;
+  private final MutableQuantiles waitTimeQuantiles;
+  private final MutableStat runTimeStat;
+  private final MutableCounterLong typeLimited;
+
+  public FateRunnerMetrics(IntSupplier queueDepth) {
+    super("FateRunner", "Fate Runner Metrics", "fateRunner");
+    this.queueDepth = queueDepth;
+
+    MetricsRegistry registry = super.getRegistry();
+    waitTimeStat = registry.newStat("fateWait",
+        "Time reserved transactions waited for a runner in milliseconds", "ops", "latency", true);
+    waitTimeQuantiles = registry.newQuantiles("fateWait10m",
+        "Transaction wait time quantiles in milliseconds", "ops", "latency", 600);
+    runTimeStat = registry.newStat("fateRun",
+        "Time spent running a step of a transaction in milliseconds", "ops", "latency", true);
+    typeLimited = registry.newCounter("fateTypeLimited",
+        "Transactions deferred because too many runners were running their repo type", 0L);
+  }
+
+  @Override
+  protected void prepareMetrics() {
+    getRegistry().add("fateQueueDepth", queueDepth.getAsInt());
+  }
+
+  @Override
+  public void waited(long millis) {
+    waitTimeStat.add(millis);
+    waitTimeQuantiles.add(millis);
+  }
+
+  @Override
+  public void ran(String repoType, long millis) {
+    runTimeStat.add(millis);
+  }
+
+  @Override
+  public void typeLimited(String repoType) {
+    typeLimited.incr();
+  }
+}
@@ -72,4 +72,9 @@ public class TraceRepo<T> implements Repo<T> {
     return repo.getReturn();
   }
 
+  @Override
+  public String getName() {
+    return repo.getName();
+  }
+
 }
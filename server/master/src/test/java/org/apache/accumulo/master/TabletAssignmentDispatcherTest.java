@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.master;
+
+import static org.easymock.EasyMock.anyLong;
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.accumulo.core.tabletserver.thrift.TUnloadTabletGoal;
+import org.apache.accumulo.server.master.LiveTServerSet.TServerConnection;
+import org.apache.accumulo.server.master.state.TServerInstance;
+import org.apache.hadoop.io.Text;
+import org.apache.thrift.TException;
+import org.junit.Test;
+
+public class TabletAssignmentDispatcherTest {
+
+  private static final TServerInstance SERVER = new TServerInstance("localhost:9997", 1L);
+
+  // requests the mocked connection received, in order
+  private final List<String> sent = Collections.synchronizedList(new ArrayList<>());
+  // tasks handed to the thread pool, run by the tests
+  private final List<Runnable> tasks = new ArrayList<>();
+
+  private interface Send {
+    void run() throws TException;
+  }
+
+  private static KeyExtent nke(String endRow) {
+    return new KeyExtent(TableId.of("1"), endRow == null ? null : new Text(endRow), null);
+  }
+
+  @SuppressWarnings("unchecked")
+  private TServerConnection connection(Send beforeLoad) throws TException {
+    TServerConnection client = createMock(TServerConnection.class);
+    client.assignTablets(anyObject(), anyObject());
+    expectLastCall().andAnswer(() -> {
+      beforeLoad.run();
+      for (KeyExtent extent : (Collection<KeyExtent>) getCurrentArguments()[1]) {
+        sent.add("load " + extent.getEndRow());
+      }
+      return null;
+    }).anyTimes();
+    client.unloadTablets(anyObject(), anyObject(), anyLong());
+    expectLastCall().andAnswer(() -> {
+      for (KeyExtent extent : ((Map<KeyExtent,TUnloadTabletGoal>) getCurrentArguments()[1])
+          .keySet()) {
+        sent.add("unload " + extent.getEndRow());
+      }
+      return null;
+    }).anyTimes();
+    replay(client);
+    return client;
+  }
+
+  private TabletAssignmentDispatcher dispatcher(TServerConnection client, int maxConcurrent) {
+    return new TabletAssignmentDispatcher(server -> client, () -> null, () -> 0L, tasks::add,
+        maxConcurrent);
+  }
+
+  private void runTasks() {
+    while (!tasks.isEmpty()) {
+      tasks.remove(0).run();
+    }
+  }
+
+  @Test
+  public void testLatestRequestPerTablet() throws Exception {
+    TabletAssignmentDispatcher dispatcher = dispatcher(connection(() -> {}), 1);
+
+    dispatcher.assign(SERVER, nke("a"));
+    dispatcher.assign(SERVER, nke("b"));
+    dispatcher.unload(SERVER, nke("a"), TUnloadTabletGoal.UNASSIGNED);
+    dispatcher.assign(SERVER, nke("b"));
+    assertEquals(2, dispatcher.getPending());
+
+    runTasks();
+    assertEquals(0, dispatcher.getPending());
+    assertEquals(List.of("load b", "unload a"), sent);
+  }
+
+  @Test
+  public void testConcurrencyBound() throws Exception {
+    TabletAssignmentDispatcher dispatcher = dispatcher(connection(() -> {}), 2);
+
+    int count = TabletAssignmentDispatcher.BATCH_SIZE * 5;
+    for (int i = 0; i < count; i++) {
+      dispatcher.assign(SERVER, nke(String.format("r%04d", i)));
+    }
+    // no more drains than allowed for the server, another server gets its own
+    assertEquals(2, tasks.size());
+    dispatcher.assign(new TServerInstance("localhost:9998", 2L), nke("a"));
+    assertEquals(3, tasks.size());
+
+    runTasks();
+    assertEquals(0, dispatcher.getPending());
+    assertEquals(count + 1, sent.size());
+
+    // the slots were given back
+    dispatcher.assign(SERVER, nke("b"));
+    assertEquals(1, tasks.size());
+  }
+
+  @Test
+  public void testTabletOrderAcrossDrains() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    TabletAssignmentDispatcher dispatcher = dispatcher(connection(() -> {
+      loading.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    }), 2);
+
+    dispatcher.assign(SERVER, nke("a"));
+    Thread first = new Thread(tasks.remove(0));
+    first.start();
+    assertTrue(loading.await(30, TimeUnit.SECONDS));
+
+    // a second drain must not unload the tablet while its load is being sent
+    dispatcher.unload(SERVER, nke("a"), TUnloadTabletGoal.UNASSIGNED);
+    assertEquals(1, tasks.size());
+    runTasks();
+    assertTrue(sent.isEmpty());
+    assertEquals(1, dispatcher.getPending());
+
+    release.countDown();
+    first.join();
+    assertEquals(List.of("load a", "unload a"), sent);
+    assertEquals(0, dispatcher.getPending());
+  }
+
+  @Test
+  public void testFailures() throws Exception {
+    TabletAssignmentDispatcher dispatcher =
+        new TabletAssignmentDispatcher(server -> null, () -> null, () -> 0L, tasks::add, 1);
+    dispatcher.assign(SERVER, nke("a"));
+    runTasks();
+    assertEquals(0, dispatcher.getPending());
+
+    // an error escaping a drain gives its slot back
+    dispatcher = dispatcher(connection(() -> {
+      throw new Error("send failed");
+    }), 1);
+    dispatcher.assign(SERVER, nke("a"));
+    try {
+      runTasks();
+      fail("expected the error");
+    } catch (Error e) {
+      assertEquals("send failed", e.getMessage());
+    }
+    tasks.clear();
+    dispatcher.assign(SERVER, nke("b"));
+    assertEquals(1, tasks.size());
+
+    // a failed load is counted and does not keep the unloads of the same batch from being sent
+    dispatcher = dispatcher(connection(() -> {
+      throw new TException("send failed");
+    }), 1);
+    dispatcher.assign(SERVER, nke("a"));
+    dispatcher.unload(SERVER, nke("b"), TUnloadTabletGoal.UNASSIGNED);
+    runTasks();
+    assertEquals(0, dispatcher.getPending());
+    assertEquals(List.of("unload b"), sent);
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.master;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.TableId;
+import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.accumulo.core.metadata.schema.MetadataSchema.TabletsSection;
+import org.apache.accumulo.core.util.HostAndPort;
+import org.apache.accumulo.server.master.state.TServerInstance;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+public class TabletChangeTrackerTest {
+
+  private static final long INTERVAL = 60_000;
+
+  private static final TServerInstance OLD =
+      new TServerInstance(HostAndPort.fromParts("host1", 9997), "1");
+  private static final TServerInstance NEW =
+      new TServerInstance(HostAndPort.fromParts("host2", 9997), "2");
+
+  private static KeyExtent nke(String table, String endRow, String prevEndRow) {
+    return new KeyExtent(TableId.of(table), endRow == null ? null : new Text(endRow),
+        prevEndRow == null ? null : new Text(prevEndRow));
+  }
+
+  @Test
+  public void testFirstPassIsFull() {
+    TabletChangeTracker changes = new TabletChangeTracker();
+    assertNull(changes.startPass(true, INTERVAL, Set.of(OLD)));
+    assertTrue(changes.startPass(true, INTERVAL, Set.of(OLD)).isEmpty());
+  }
+
+  @Test
+  public void testNotIncremental() {
+    TabletChangeTracker changes = new TabletChangeTracker();
+    assertNull(changes.startPass(false, INTERVAL, Set.of(OLD)));
+    changes.tabletsChanged(Collections.singleton(nke("1", "m", null)));
+    assertNull(changes.startPass(false, INTERVAL, Set.of(OLD)));
+  }
+
+  @Test
+  public void testChangedTablets() {
+    TabletChangeTracker changes = new TabletChangeTracker();
+    assertNull(changes.startPass(true, INTERVAL, Set.of(OLD)));
+
+    KeyExtent extent = nke("1", "m", null);
+    changes.tabletsChanged(Collections.singleton(extent));
+    changes.tabletsChanged(Collections.singleton(nke("2", "m", null)));
+    changes.tableChanged(TableId.of("2"), false);
+
+    List<Range> ranges = changes.startPass(true, INTERVAL, Set.of(OLD));
+    assertEquals(Range.mergeOverlapping(
+        List.of(extent.toMetadataRange(), TabletsSection.getRange(TableId.of("2")))), ranges);
+
+    // changes are cleared once taken
+    assertTrue(changes.startPass(true, INTERVAL, Set.of(OLD)).isEmpty());
+
+    changes.fullScanNeeded();
+    assertNull(changes.startPass(true, INTERVAL, Set.of(OLD)));
+  }
+
+  @Test
+  public void testServerLost() {
+    TabletChangeTracker changes = new TabletChangeTracker();
+    assertNull(changes.startPass(true, INTERVAL, Set.of(OLD)));
+
+    // the tablets of a server that started later are all known
+    KeyExtent extent = nke("1", "m", null);
+    changes.located(extent, NEW);
+    changes.located(nke("1", null, "m"), OLD);
+    changes.serversLost(Set.of(NEW));
+    assertEquals(List.of(extent.toMetadataRange()),
+        changes.startPass(true, INTERVAL, Set.of(OLD)));
+
+    // a server that was running at the first full scan may host unknown tablets
+    changes.serversLost(Set.of(OLD));
+    assertNull(changes.startPass(true, INTERVAL, Set.of()));
+  }
+
+  @Test
+  public void testFullScanForgetsUnseenLocations() {
+    TabletChangeTracker changes = new TabletChangeTracker();
+    assertNull(changes.startPass(true, INTERVAL, Set.of(OLD)));
+
+    KeyExtent seen = nke("1", "m", null);
+    KeyExtent gone = nke("1", null, "m");
+    changes.located(seen, NEW);
+    changes.located(gone, NEW);
+
+    // the next full scan keeps what was located since the previous one
+    changes.fullScanNeeded();
+    assertNull(changes.startPass(true, INTERVAL, Set.of(OLD, NEW)));
+    changes.located(seen, NEW);
+
+    // gone was not seen during the last full scan, so it is forgotten by the one after it
+    changes.fullScanNeeded();
+    assertNull(changes.startPass(true, INTERVAL, Set.of(OLD, NEW)));
+    changes.serversLost(Set.of(NEW));
+    assertEquals(List.of(seen.toMetadataRange()),
+        changes.startPass(true, INTERVAL, Set.of(OLD)));
+  }
+
+  @Test
+  public void testUnloaded() {
+    TabletChangeTracker changes = new TabletChangeTracker();
+    assertNull(changes.startPass(true, INTERVAL, Set.of(OLD)));
+
+    KeyExtent moved = nke("1", "m", null);
+    KeyExtent unloaded = nke("1", null, "m");
+    changes.located(moved, NEW);
+    changes.located(unloaded, NEW);
+
+    // a late unload report from a server the tablet already moved away from is ignored
+    changes.unloaded(moved, OLD.hostPort());
+    changes.unloaded(unloaded, NEW.hostPort());
+
+    changes.serversLost(Set.of(NEW));
+    assertEquals(List.of(moved.toMetadataRange()),
+        changes.startPass(true, INTERVAL, Set.of(OLD)));
+  }
+
+  @Test
+  public void testSplit() {
+    TabletChangeTracker changes = new TabletChangeTracker();
+    assertNull(changes.startPass(true, INTERVAL, Set.of(OLD)));
+
+    KeyExtent parent = nke("1", null, null);
+    KeyExtent low = nke("1", "m", null);
+    KeyExtent high = nke("1", null, "m");
+    changes.located(parent, NEW);
+    changes.split(parent, List.of(low, high));
+
+    changes.serversLost(Set.of(NEW));
+    assertEquals(Range.mergeOverlapping(List.of(low.toMetadataRange(), high.toMetadataRange())),
+        changes.startPass(true, INTERVAL, Set.of(OLD)));
+
+    // the parent is no longer tracked
+    changes.located(low, NEW);
+    changes.serversLost(Set.of(NEW));
+    assertEquals(List.of(low.toMetadataRange()), changes.startPass(true, INTERVAL, Set.of(OLD)));
+  }
+}
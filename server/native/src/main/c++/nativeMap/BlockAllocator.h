@@ -114,11 +114,29 @@ struct LinkedBlockAllocator {
   int64_t memused;
   void *lastAlloc;
 
+  /*
+   * Statistics for sizing native memory.  These are only updated by the thread
+   * holding the native map's write lock, but are read by metrics without any
+   * lock, so a reader may see slightly stale values.  They are kept separate
+   * from the block vectors so that reading them never touches memory the
+   * vectors may be reallocating.
+   */
+  int64_t numBlocks;
+  int64_t numBigBlocks;
+  // bytes handed out to the map, including big blocks
+  int64_t bytesAllocated;
+  // bytes left unused at the end of blocks that were full
+  int64_t bytesWasted;
+
   LinkedBlockAllocator(int blockSize, int bigBlockSize){
     this->blockSize = blockSize;
     this->bigBlockSize = bigBlockSize;
     lastAlloc = NULL;
     memused = 0;
+    numBlocks = 0;
+    numBigBlocks = 0;
+    bytesAllocated = 0;
+    bytesWasted = 0;
   }
 
   void *allocate(size_t amount){
@@ -126,21 +144,27 @@ struct LinkedBlockAllocator {
       unsigned char *p = new unsigned char[amount];
       bigBlocks.push_back(BigBlock(p, amount));
       memused += sizeof(BigBlock) + amount;
+      numBigBlocks++;
+      bytesAllocated += amount;
       return p;
     }else{
       if(blocks.size() == 0){
         //do lazy allocation of memory, do not allocate a block until it is used
         blocks.push_back(Block(blockSize));
         memused += sizeof(Block) + blockSize;
+        numBlocks++;
       }
 
       lastAlloc = blocks.back().allocate(amount);
       if(lastAlloc == NULL){
+        bytesWasted += blocks.back().getMemoryFree();
         blocks.push_back(Block(blockSize));
         lastAlloc = blocks.back().allocate(amount);
         memused += sizeof(Block) + blockSize;
+        numBlocks++;
       }
 
+      bytesAllocated += amount;
       return lastAlloc;
     }
   }
@@ -148,11 +172,13 @@ struct LinkedBlockAllocator {
   void deleteLast(void *p){
     if(p != NULL){
       if(p == lastAlloc){
-        blocks.back().rollback(p);
+        bytesAllocated -= blocks.back().rollback(p);
         lastAlloc = NULL;
         return;
       }else if(!bigBlocks.empty() && bigBlocks.back().ptr == p){
         memused -= (sizeof(BigBlock) + bigBlocks.back().length);
+        numBigBlocks--;
+        bytesAllocated -= bigBlocks.back().length;
         bigBlocks.pop_back();
         delete((unsigned char *)p);
         return;
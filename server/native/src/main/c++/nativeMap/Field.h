@@ -111,6 +111,11 @@ struct Field {
     env->SetByteArrayRegion(d, 0, len, (jbyte *)field);
   }
 
+  uint8_t *fillIn(uint8_t *d) const {
+    memcpy(d, field, len);
+    return d + len;
+  }
+
   jbyteArray createJByteArray(JNIEnv *env) const{
     jbyteArray valData = env->NewByteArray(len);
     env->SetByteArrayRegion(valData, 0, len, (jbyte *)field);
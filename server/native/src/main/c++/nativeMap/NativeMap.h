@@ -113,6 +113,72 @@ struct Iterator {
     colIter++;
     skipAndFillIn(ia, false);
   }
+
+  /*
+   * Encodes entries into buf, starting with the current entry, advancing past
+   * each entry encoded.  Stops at maxEntries or when the next entry does not
+   * fit.  Each entry is encoded in native byte order as
+   *
+   *   int32 rowLen, cfLen, cqLen, cvLen, valLen, mutationCount
+   *   int64 timestamp
+   *   int8  deleted
+   *   row, cf, cq, cv, value bytes
+   *
+   * where rowLen is -1 and the row bytes are omitted when the row is the same
+   * as the previous entry in the batch.  Returns the number of entries
+   * encoded.  When the current entry alone does not fit, returns 0 and sets
+   * needed to the size of its encoding.  On return ia holds the lengths of
+   * the new current entry, as for advance().
+   */
+  int32_t fillBatch(uint8_t *buf, int64_t capacity, int32_t maxEntries, int32_t *ia, int64_t *needed){
+    int32_t count = 0;
+    uint8_t *pos = buf;
+    RowMap::iterator lastRow = rowIter;
+
+    while(!atEnd() && count < maxEntries){
+      const SubKey &sk = colIter->first;
+      bool writeRow = count == 0 || rowIter != lastRow;
+
+      int32_t header[6];
+      header[0] = writeRow ? rowIter->first.length() : -1;
+      header[1] = sk.getCFLen();
+      header[2] = sk.getCQLen();
+      header[3] = sk.getCVLen();
+      header[4] = colIter->second.length();
+      header[5] = sk.getMC();
+
+      int64_t size = BATCH_HEADER_SIZE + (writeRow ? header[0] : 0) + header[1] + header[2] + header[3] + header[4];
+      if(size > capacity - (pos - buf)){
+        if(count == 0){
+          *needed = size;
+        }
+        break;
+      }
+
+      memcpy(pos, header, sizeof(header));
+      pos += sizeof(header);
+      int64_t ts = sk.getTimestamp();
+      memcpy(pos, &ts, sizeof(ts));
+      pos += sizeof(ts);
+      *pos++ = sk.isDeleted() ? 1 : 0;
+
+      if(writeRow){
+        pos = rowIter->first.fillIn(pos);
+      }
+      pos = sk.getCF().fillIn(pos);
+      pos = sk.getCQ().fillIn(pos);
+      pos = sk.getCV().fillIn(pos);
+      pos = colIter->second.fillIn(pos);
+
+      lastRow = rowIter;
+      count++;
+      advance(ia);
+    }
+
+    return count;
+  }
+
+  static const int32_t BATCH_HEADER_SIZE = 6 * sizeof(int32_t) + sizeof(int64_t) + 1;
 };
 
 struct NativeMap : public NativeMapData {
@@ -212,6 +278,19 @@ struct NativeMap : public NativeMapData {
   int64_t getMemoryUsed(){
     return lba->getMemoryUsed();
   }
+
+  /*
+   * Fills stats with the allocator's block count, big block count, bytes
+   * reserved from the system, bytes allocated to the map, and bytes wasted at
+   * the end of full blocks.
+   */
+  void getAllocatorStats(int64_t *stats){
+    stats[0] = lba->numBlocks;
+    stats[1] = lba->numBigBlocks;
+    stats[2] = lba->memused;
+    stats[3] = lba->bytesAllocated;
+    stats[4] = lba->bytesWasted;
+  }
 };
 
 #endif
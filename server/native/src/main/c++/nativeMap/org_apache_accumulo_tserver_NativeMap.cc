@@ -59,6 +59,12 @@ JNIEXPORT void JNICALL Java_org_apache_accumulo_tserver_NativeMap_update(JNIEnv
   nativeMap->update((ColumnMap *)uid, env, cf, cq, cv, ts, del, val, mutationCount);
 }
 
+JNIEXPORT void JNICALL Java_org_apache_accumulo_tserver_NativeMap_allocatorStatsNM(JNIEnv *env, jclass cls, jlong nm, jlongArray stats) {
+  int64_t la[5];
+  ((NativeMap *)nm)->getAllocatorStats(la);
+  env->SetLongArrayRegion(stats, 0, 5, (jlong *)la);
+}
+
 JNIEXPORT jlong JNICALL Java_org_apache_accumulo_tserver_NativeMap_deleteNM(JNIEnv *env, jclass cls, jlong nm) {
   NativeMap *nativeMap = (NativeMap *)nm;
   delete(nativeMap);
@@ -121,6 +127,28 @@ JNIEXPORT void JNICALL Java_org_apache_accumulo_tserver_NativeMap_nmiGetData(JNI
   iter.colIter->second.fillIn(env, val);
 }
 
+JNIEXPORT jint JNICALL Java_org_apache_accumulo_tserver_NativeMap_nmiNextBatch(JNIEnv *env, jclass cls, jlong ip, jobject buffer, jint maxEntries, jintArray lens, jintArray batchInfo) {
+  Iterator &iter = *((Iterator *)ip);
+
+  uint8_t *buf = (uint8_t *)env->GetDirectBufferAddress(buffer);
+  jlong capacity = env->GetDirectBufferCapacity(buffer);
+
+  int32_t ia[7];
+  int64_t needed = 0;
+  int32_t count = iter.fillBatch(buf, capacity, maxEntries, ia, &needed);
+
+  int32_t info[2];
+  info[0] = iter.atEnd() ? 0 : 1;
+  info[1] = (int32_t)needed;
+  env->SetIntArrayRegion(batchInfo, 0, 2, info);
+
+  if(count > 0 && !iter.atEnd()) {
+    env->SetIntArrayRegion(lens, 0, 7, ia);
+  }
+
+  return count;
+}
+
 JNIEXPORT jlong JNICALL Java_org_apache_accumulo_tserver_NativeMap_nmiGetTS(JNIEnv *env, jclass cls, jlong ip) {
   Iterator &iter = *((Iterator *)ip);
   return iter.colIter->first.getTimestamp();
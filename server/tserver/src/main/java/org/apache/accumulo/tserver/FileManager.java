@@ -22,14 +22,20 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.accumulo.core.client.SampleNotPresentException;
 import org.apache.accumulo.core.conf.Property;
@@ -62,6 +68,17 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.cache.Cache;
 
+/**
+ * Pools open file readers so scans can reuse them, and limits the number of files a tablet server
+ * has open.
+ *
+ * <p>
+ * Idle readers are kept in a lock free deque per file, so reserving and releasing readers for
+ * different files never contend and the common case of reusing a reader takes no lock. Each idle
+ * reader is handed out at most once by claiming it, which lets the idle file closer and the LRU
+ * eviction run without blocking reuse. Only eviction, which happens when the server is at its open
+ * file limit, takes a lock.
+ */
 public class FileManager {
 
   private static final Logger log = LoggerFactory.getLogger(FileManager.class);
@@ -69,9 +86,10 @@ public class FileManager {
   private int maxOpen;
 
   private static class OpenReader implements Comparable<OpenReader> {
-    long releaseTime;
-    FileSKVIterator reader;
-    String fileName;
+    final long releaseTime;
+    final FileSKVIterator reader;
+    final String fileName;
+    private final AtomicBoolean claimed = new AtomicBoolean(false);
 
     public OpenReader(String fileName, FileSKVIterator reader) {
       this.fileName = fileName;
@@ -79,36 +97,33 @@ public class FileManager {
       this.releaseTime = System.currentTimeMillis();
     }
 
-    @Override
-    public int compareTo(OpenReader o) {
-      if (releaseTime < o.releaseTime) {
-        return -1;
-      } else if (releaseTime > o.releaseTime) {
-        return 1;
-      } else {
-        return 0;
-      }
+    /**
+     * @return true if the caller now owns this idle reader and must remove it from the pool
+     */
+    boolean claim() {
+      return claimed.compareAndSet(false, true);
     }
 
     @Override
-    public boolean equals(Object obj) {
-      if (obj instanceof OpenReader) {
-        return compareTo((OpenReader) obj) == 0;
-      }
-      return false;
-    }
-
-    @Override
-    public int hashCode() {
-      return fileName.hashCode();
+    public int compareTo(OpenReader o) {
+      return Long.compare(releaseTime, o.releaseTime);
     }
   }
 
-  private Map<String,List<OpenReader>> openFiles;
-  private HashMap<FileSKVIterator,String> reservedReaders;
+  // idle readers per file, most recently released last
+  private final ConcurrentHashMap<String,Deque<OpenReader>> openFiles;
+  private final AtomicInteger numIdle = new AtomicInteger(0);
+  private final ConcurrentHashMap<FileSKVIterator,String> reservedReaders;
+  private final ReentrantLock evictionLock = new ReentrantLock();
 
   private Semaphore filePermits;
 
+  // stats
+  private final LongAdder reservations = new LongAdder();
+  private final LongAdder permitWaitMillis = new LongAdder();
+  private final LongAdder readerReuseHits = new LongAdder();
+  private final LongAdder readerReuseMisses = new LongAdder();
+
   private VolumeManager fs;
 
   private Cache<String,Long> fileLenCache;
@@ -127,26 +142,11 @@ public class FileManager {
 
       ArrayList<FileSKVIterator> filesToClose = new ArrayList<>();
 
-      // determine which files to close in a sync block, and then close the
-      // files outside of the sync block
-      synchronized (FileManager.this) {
-        Iterator<Entry<String,List<OpenReader>>> iter = openFiles.entrySet().iterator();
-        while (iter.hasNext()) {
-          Entry<String,List<OpenReader>> entry = iter.next();
-          List<OpenReader> ofl = entry.getValue();
-
-          for (Iterator<OpenReader> oflIter = ofl.iterator(); oflIter.hasNext();) {
-            OpenReader openReader = oflIter.next();
-
-            if (curTime - openReader.releaseTime > maxIdleTime) {
-
-              filesToClose.add(openReader.reader);
-              oflIter.remove();
-            }
-          }
-
-          if (ofl.size() == 0) {
-            iter.remove();
+      for (Deque<OpenReader> ofl : openFiles.values()) {
+        for (OpenReader openReader : ofl) {
+          if (curTime - openReader.releaseTime > maxIdleTime && openReader.claim()) {
+            removeIdle(openReader);
+            filesToClose.add(openReader.reader);
           }
         }
       }
@@ -169,8 +169,8 @@ public class FileManager {
     this.maxOpen = maxOpen;
     this.fs = fs;
 
-    this.openFiles = new HashMap<>();
-    this.reservedReaders = new HashMap<>();
+    this.openFiles = new ConcurrentHashMap<>();
+    this.reservedReaders = new ConcurrentHashMap<>();
 
     this.maxIdleTime = context.getConfiguration().getTimeInMillis(Property.TSERV_MAX_IDLE);
     SimpleTimer.getInstance(context.getConfiguration()).schedule(new IdleFileCloser(), maxIdleTime,
@@ -180,56 +180,56 @@ public class FileManager {
         context.getConfiguration().getTimeInMillis(Property.TSERV_SLOW_FILEPERMIT_MILLIS);
   }
 
-  private static int countReaders(Map<String,List<OpenReader>> files) {
-    int count = 0;
-
-    for (List<OpenReader> list : files.values()) {
-      count += list.size();
-    }
+  /**
+   * Removes a reader the caller has claimed from the idle pool.
+   */
+  private void removeIdle(OpenReader openReader) {
+    Deque<OpenReader> ofl = openFiles.get(openReader.fileName);
+    if (ofl != null) {
+      ofl.removeFirstOccurrence(openReader);
+      // drop the deque if it is still empty, atomically with respect to addIdle
+      openFiles.computeIfPresent(openReader.fileName, (k, v) -> v.isEmpty() ? null : v);
+    }
+    numIdle.decrementAndGet();
+  }
 
-    return count;
+  private void addIdle(String fileName, FileSKVIterator reader) {
+    // the deque is added to inside compute so that it can not be concurrently dropped as empty
+    openFiles.compute(fileName, (k, v) -> {
+      if (v == null) {
+        v = new ConcurrentLinkedDeque<>();
+      }
+      v.addLast(new OpenReader(fileName, reader));
+      return v;
+    });
+    numIdle.incrementAndGet();
   }
 
   private List<FileSKVIterator> takeLRUOpenFiles(int numToTake) {
 
     ArrayList<OpenReader> openReaders = new ArrayList<>();
 
-    for (Entry<String,List<OpenReader>> entry : openFiles.entrySet()) {
-      openReaders.addAll(entry.getValue());
+    for (Deque<OpenReader> ofl : openFiles.values()) {
+      openReaders.addAll(ofl);
     }
 
     Collections.sort(openReaders);
 
     ArrayList<FileSKVIterator> ret = new ArrayList<>();
 
-    for (int i = 0; i < numToTake && i < openReaders.size(); i++) {
+    for (int i = 0; ret.size() < numToTake && i < openReaders.size(); i++) {
       OpenReader or = openReaders.get(i);
 
-      List<OpenReader> ofl = openFiles.get(or.fileName);
-      if (!ofl.remove(or)) {
-        throw new RuntimeException("Failed to remove open reader that should have been there");
-      }
-
-      if (ofl.size() == 0) {
-        openFiles.remove(or.fileName);
+      // readers reused since the snapshot above are skipped
+      if (or.claim()) {
+        removeIdle(or);
+        ret.add(or.reader);
       }
-
-      ret.add(or.reader);
     }
 
     return ret;
   }
 
-  private static <T> List<T> getFileList(String file, Map<String,List<T>> files) {
-    List<T> ofl = files.get(file);
-    if (ofl == null) {
-      ofl = new ArrayList<>();
-      files.put(file, ofl);
-    }
-
-    return ofl;
-  }
-
   private void closeReaders(Collection<FileSKVIterator> filesToClose) {
     for (FileSKVIterator reader : filesToClose) {
       try {
@@ -244,23 +244,43 @@ public class FileManager {
       Map<FileSKVIterator,String> readersReserved) {
     List<String> filesToOpen = Collections.emptyList();
     for (String file : files) {
-      List<OpenReader> ofl = openFiles.get(file);
-      if (ofl != null && ofl.size() > 0) {
-        OpenReader openReader = ofl.remove(ofl.size() - 1);
+      OpenReader openReader = takeIdle(file);
+      if (openReader != null) {
         readersReserved.put(openReader.reader, file);
-        if (ofl.size() == 0) {
-          openFiles.remove(file);
-        }
+        readerReuseHits.increment();
       } else {
         if (filesToOpen.isEmpty()) {
           filesToOpen = new ArrayList<>(files.size());
         }
         filesToOpen.add(file);
+        readerReuseMisses.increment();
       }
     }
     return filesToOpen;
   }
 
+  /**
+   * @return the most recently released idle reader for the file, or null if there is none
+   */
+  private OpenReader takeIdle(String file) {
+    Deque<OpenReader> ofl = openFiles.get(file);
+    if (ofl == null) {
+      return null;
+    }
+
+    // iterate from the most recently released reader, skipping any claimed by eviction or the idle
+    // file closer
+    for (Iterator<OpenReader> iter = ofl.descendingIterator(); iter.hasNext();) {
+      OpenReader openReader = iter.next();
+      if (openReader.claim()) {
+        removeIdle(openReader);
+        return openReader;
+      }
+    }
+
+    return null;
+  }
+
   private Map<FileSKVIterator,String> reserveReaders(KeyExtent tablet, Collection<String> files,
       boolean continueOnFailure, CacheProvider cacheProvider) throws IOException {
 
@@ -276,10 +296,13 @@ public class FileManager {
     List<FileSKVIterator> filesToClose = Collections.emptyList();
     Map<FileSKVIterator,String> readersReserved = new HashMap<>();
 
+    reservations.increment();
+
     if (!tablet.isMeta()) {
       long start = System.currentTimeMillis();
       filePermits.acquireUninterruptibly(files.size());
       long waitTime = System.currentTimeMillis() - start;
+      permitWaitMillis.add(waitTime);
 
       if (waitTime >= slowFilePermitMillis) {
         log.info("Slow file permits request: {} ms, files requested: {}, tablet: {}", waitTime,
@@ -290,20 +313,21 @@ public class FileManager {
     // now that the we are past the semaphore, we have the authority
     // to open files.size() files
 
-    // determine what work needs to be done in sync block
-    // but do the work of opening and closing files outside
-    // a synch block
-    synchronized (this) {
-
-      filesToOpen = takeOpenFiles(files, readersReserved);
-
-      if (!filesToOpen.isEmpty()) {
-        int numOpen = countReaders(openFiles);
+    filesToOpen = takeOpenFiles(files, readersReserved);
 
-        if (filesToOpen.size() + numOpen + reservedReaders.size() > maxOpen) {
-          filesToClose =
-              takeLRUOpenFiles((filesToOpen.size() + numOpen + reservedReaders.size()) - maxOpen);
+    // Only take the eviction lock when opening new files would exceed the limit. Files other
+    // reservations are in the middle of opening are not counted, so this limit is approximate; the
+    // file permits bound the number of readers in use.
+    if (!filesToOpen.isEmpty()
+        && filesToOpen.size() + numIdle.get() + reservedReaders.size() > maxOpen) {
+      evictionLock.lock();
+      try {
+        int excess = filesToOpen.size() + numIdle.get() + reservedReaders.size() - maxOpen;
+        if (excess > 0) {
+          filesToClose = takeLRUOpenFiles(excess);
         }
+      } finally {
+        evictionLock.unlock();
       }
     }
 
@@ -352,10 +376,8 @@ public class FileManager {
       }
     }
 
-    synchronized (this) {
-      // update set of reserved readers
-      reservedReaders.putAll(readersReserved);
-    }
+    // update set of reserved readers
+    reservedReaders.putAll(readersReserved);
 
     return readersReserved;
   }
@@ -364,28 +386,25 @@ public class FileManager {
       boolean sawIOException) {
     // put files in openFiles
 
-    synchronized (this) {
-
-      // check that readers were actually reserved ... want to make sure a thread does
-      // not try to release readers they never reserved
-      if (!reservedReaders.keySet().containsAll(readers)) {
-        throw new IllegalArgumentException("Asked to release readers that were never reserved ");
-      }
+    // check that readers were actually reserved ... want to make sure a thread does
+    // not try to release readers they never reserved
+    if (!reservedReaders.keySet().containsAll(readers)) {
+      throw new IllegalArgumentException("Asked to release readers that were never reserved ");
+    }
 
-      for (FileSKVIterator reader : readers) {
-        try {
-          reader.closeDeepCopies();
-        } catch (IOException e) {
-          log.warn("{}", e.getMessage(), e);
-          sawIOException = true;
-        }
+    for (FileSKVIterator reader : readers) {
+      try {
+        reader.closeDeepCopies();
+      } catch (IOException e) {
+        log.warn("{}", e.getMessage(), e);
+        sawIOException = true;
       }
+    }
 
-      for (FileSKVIterator reader : readers) {
-        String fileName = reservedReaders.remove(reader);
-        if (!sawIOException)
-          getFileList(fileName, openFiles).add(new OpenReader(fileName, reader));
-      }
+    for (FileSKVIterator reader : readers) {
+      String fileName = reservedReaders.remove(reader);
+      if (!sawIOException)
+        addIdle(fileName, reader);
     }
 
     if (sawIOException)
@@ -631,4 +650,32 @@ public class FileManager {
   public ScanFileManager newScanFileManager(KeyExtent tablet, CacheProvider cacheProvider) {
     return new ScanFileManager(tablet, cacheProvider);
   }
+
+  /**
+   * @return the number of times scans have reserved files
+   */
+  public long getReservations() {
+    return reservations.sum();
+  }
+
+  /**
+   * @return total milliseconds scans have waited for permits to open files
+   */
+  public long getPermitWaitMillis() {
+    return permitWaitMillis.sum();
+  }
+
+  /**
+   * @return the number of files reserved using an already open reader
+   */
+  public long getReaderReuseHits() {
+    return readerReuseHits.sum();
+  }
+
+  /**
+   * @return the number of files reserved that required opening a new reader
+   */
+  public long getReaderReuseMisses() {
+    return readerReuseMisses.sum();
+  }
 }
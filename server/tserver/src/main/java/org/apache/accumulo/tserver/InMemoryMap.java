@@ -29,6 +29,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.TimeUnit;
@@ -132,6 +133,7 @@ public class InMemoryMap {
   public InMemoryMap(AccumuloConfiguration config, ServerContext serverContext, TableId tableId) {
 
     boolean useNativeMap = config.getBoolean(Property.TSERV_NATIVEMAP_ENABLED);
+    this.concurrentWrites = config.getBoolean(Property.TSERV_MEMORY_MAP_CONCURRENT_WRITES);
 
     this.memDumpDir = config.get(Property.TSERV_MEMDUMP_DIR);
     this.lggroups = LocalityGroupUtil.getLocalityGroupsIgnoringErrors(config, tableId);
@@ -147,8 +149,8 @@ public class InMemoryMap {
       sampleMap = newMap(useNativeMap);
       mapType = useNativeMap ? TYPE_NATIVE_MAP_WRAPPER : TYPE_DEFAULT_MAP;
     } else {
-      allMap = new LocalityGroupMap(lggroups, useNativeMap);
-      sampleMap = new LocalityGroupMap(lggroups, useNativeMap);
+      allMap = new LocalityGroupMap(lggroups, useNativeMap, concurrentWrites);
+      sampleMap = new LocalityGroupMap(lggroups, useNativeMap, concurrentWrites);
       mapType = useNativeMap ? TYPE_LOCALITY_GROUP_MAP_NATIVE : TYPE_LOCALITY_GROUP_MAP;
     }
 
@@ -284,11 +286,14 @@ public class InMemoryMap {
     private SimpleMap[] maps;
     private Partitioner partitioner;
     private PreAllocatedArray<List<Mutation>> partitioned;
+    private final boolean concurrentWrites;
 
-    LocalityGroupMap(Map<String,Set<ByteSequence>> groups, boolean useNativeMap) {
+    LocalityGroupMap(Map<String,Set<ByteSequence>> groups, boolean useNativeMap,
+        boolean concurrentWrites) {
       this.groupFams = new PreAllocatedArray<>(groups.size());
       this.maps = new SimpleMap[groups.size() + 1];
       this.partitioned = new PreAllocatedArray<>(groups.size() + 1);
+      this.concurrentWrites = concurrentWrites;
 
       for (int i = 0; i < maps.length; i++) {
         maps[i] = newMap(useNativeMap);
@@ -309,6 +314,14 @@ public class InMemoryMap {
       }
     }
 
+    private PreAllocatedArray<List<Mutation>> newPartitioned() {
+      PreAllocatedArray<List<Mutation>> parts = new PreAllocatedArray<>(maps.length);
+      for (int i = 0; i < parts.length; i++) {
+        parts.set(i, new ArrayList<>());
+      }
+      return parts;
+    }
+
     @Override
     public int size() {
       int sum = 0;
@@ -348,24 +361,35 @@ public class InMemoryMap {
     }
 
     @Override
-    public synchronized void mutate(List<Mutation> mutations, int kvCount) {
-      // this method is synchronized because it reuses objects to avoid allocation,
-      // currently, the method that calls this is synchronized so there is no
-      // loss in parallelism.... synchronization was added here for future proofing
+    public void mutate(List<Mutation> mutations, int kvCount) {
+      if (concurrentWrites) {
+        // concurrent writers can not share the partition lists, so allocate per call
+        mutate(mutations, kvCount, newPartitioned());
+      } else {
+        synchronized (this) {
+          // this block is synchronized because it reuses objects to avoid allocation,
+          // currently, the method that calls this is synchronized so there is no
+          // loss in parallelism.... synchronization was added here for future proofing
+          mutate(mutations, kvCount, partitioned);
+        }
+      }
+    }
 
+    private void mutate(List<Mutation> mutations, int kvCount,
+        PreAllocatedArray<List<Mutation>> parts) {
       try {
-        partitioner.partition(mutations, partitioned);
+        partitioner.partition(mutations, parts);
 
-        for (int i = 0; i < partitioned.length; i++) {
-          if (partitioned.get(i).size() > 0) {
-            maps[i].mutate(partitioned.get(i), kvCount);
-            for (Mutation m : partitioned.get(i))
+        for (int i = 0; i < parts.length; i++) {
+          if (parts.get(i).size() > 0) {
+            maps[i].mutate(parts.get(i), kvCount);
+            for (Mutation m : parts.get(i))
               kvCount += m.getUpdates().size();
           }
         }
       } finally {
         // clear immediately so mutations can be garbage collected
-        for (List<Mutation> list : partitioned) {
+        for (List<Mutation> list : parts) {
           list.clear();
         }
       }
@@ -475,6 +499,11 @@ public class InMemoryMap {
 
   private Object writeSerializer = new Object();
 
+  private final boolean concurrentWrites;
+  // ranges of mutation counts that were written, but can not be made visible until all writes
+  // that started before them complete; keyed on first count, value is the last count
+  private final TreeMap<Integer,Integer> completedWrites = new TreeMap<>();
+
   /**
    * Applies changes to a row in the InMemoryMap
    *
@@ -487,6 +516,11 @@ public class InMemoryMap {
     // wait for writes that started before to finish.
     //
     // using separate lock from this map, to allow read/write in parallel
+    if (concurrentWrites) {
+      mutateConcurrently(mutations, numKVs);
+      return;
+    }
+
     synchronized (writeSerializer) {
       int kv = nextKVCount.getAndAdd(numKVs);
       try {
@@ -497,6 +531,45 @@ public class InMemoryMap {
     }
   }
 
+  /**
+   * Applies changes without serializing writers. Each write gets its own range of mutation counts
+   * and writes to the underlying map in parallel with other writes. The visible mutation count is
+   * only advanced over contiguous ranges of completed writes, so scans never see a partial
+   * mutation, and this method does not return until its write is visible.
+   */
+  private void mutateConcurrently(List<Mutation> mutations, int numKVs) {
+    int kv = nextKVCount.getAndAdd(numKVs);
+    int last = kv + numKVs - 1;
+    try {
+      map.mutate(mutations, kv);
+    } finally {
+      synchronized (completedWrites) {
+        completedWrites.put(kv, last);
+
+        Entry<Integer,Integer> next;
+        while ((next = completedWrites.firstEntry()) != null
+            && next.getKey() == kvCount.get() + 1) {
+          completedWrites.pollFirstEntry();
+          kvCount.set(next.getValue());
+        }
+        completedWrites.notifyAll();
+
+        boolean interrupted = false;
+        while (kvCount.get() < last) {
+          try {
+            completedWrites.wait();
+          } catch (InterruptedException e) {
+            interrupted = true;
+          }
+        }
+
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+
   /**
    * Returns a long representing the size of the InMemoryMap
    *
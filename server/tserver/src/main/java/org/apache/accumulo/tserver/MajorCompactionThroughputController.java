@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.util.ratelimit.SharedRateLimiterFactory.RateProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Provides the I/O budget, in bytes per second, shared by all major compactions on a tablet server.
+ * When {@link Property#TSERV_MAJC_SCAN_LATENCY_TARGET} and {@link Property#TSERV_MAJC_THROUGHPUT}
+ * are both set the budget follows scan latency. Each time {@link #adjust()} is called, the budget
+ * is halved if scans since the last adjustment took longer than the target on average, down to
+ * {@link Property#TSERV_MAJC_THROUGHPUT_MIN}. Otherwise it grows by a tenth of the configured
+ * throughput, up to that throughput. Without a target the configured throughput is used as is.
+ */
+public class MajorCompactionThroughputController implements RateProvider {
+
+  private static final Logger log =
+      LoggerFactory.getLogger(MajorCompactionThroughputController.class);
+
+  private final AccumuloConfiguration conf;
+
+  private final LongAdder scans = new LongAdder();
+  private final LongAdder scanMillis = new LongAdder();
+
+  private volatile long budget = -1;
+  private volatile double lastScanLatency = 0;
+
+  public MajorCompactionThroughputController(AccumuloConfiguration conf) {
+    this.conf = conf;
+  }
+
+  /**
+   * Records the time a scan batch took from being queued until it finished.
+   */
+  public void scanFinished(long latencyMillis) {
+    scans.increment();
+    scanMillis.add(latencyMillis);
+  }
+
+  private boolean isAdaptive(long maxRate) {
+    return maxRate > 0 && conf.getTimeInMillis(Property.TSERV_MAJC_SCAN_LATENCY_TARGET) > 0;
+  }
+
+  /**
+   * Compares the average scan latency since the last call to the target and moves the budget.
+   */
+  public synchronized void adjust() {
+    long count = scans.sumThenReset();
+    long millis = scanMillis.sumThenReset();
+    lastScanLatency = count == 0 ? 0 : millis / (double) count;
+
+    long maxRate = conf.getAsBytes(Property.TSERV_MAJC_THROUGHPUT);
+    if (!isAdaptive(maxRate)) {
+      budget = -1;
+      return;
+    }
+
+    long minRate = Math.min(maxRate, conf.getAsBytes(Property.TSERV_MAJC_THROUGHPUT_MIN));
+    long target = conf.getTimeInMillis(Property.TSERV_MAJC_SCAN_LATENCY_TARGET);
+    long current = budget <= 0 ? maxRate : Math.min(budget, maxRate);
+
+    long next;
+    if (lastScanLatency > target) {
+      next = Math.max(minRate, current / 2);
+    } else {
+      next = Math.min(maxRate, current + Math.max(1, maxRate / 10));
+    }
+
+    if (next != current) {
+      log.debug("Scan latency {}ms (target {}ms), major compaction budget {} -> {} bytes/sec",
+          String.format("%.1f", lastScanLatency), target, current, next);
+    }
+    budget = next;
+  }
+
+  @Override
+  public long getDesiredRate() {
+    long maxRate = conf.getAsBytes(Property.TSERV_MAJC_THROUGHPUT);
+    long current = budget;
+    if (current <= 0 || !isAdaptive(maxRate)) {
+      return maxRate;
+    }
+    return Math.min(current, maxRate);
+  }
+
+  /**
+   * @return the average scan latency in milliseconds seen by the last call to {@link #adjust()}
+   */
+  public double getScanLatency() {
+    return lastScanLatency;
+  }
+}
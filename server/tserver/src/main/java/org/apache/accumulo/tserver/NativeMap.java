@@ -20,6 +20,8 @@ package org.apache.accumulo.tserver;
 
 import java.io.File;
 import java.lang.ref.Cleaner.Cleanable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -210,6 +212,8 @@ public class NativeMap implements Iterable<Map.Entry<Key,Value>> {
 
   private static native long deleteNM(long nmPointer);
 
+  private static native void allocatorStatsNM(long nmPointer, long[] stats);
+
   private static boolean init = false;
   private static long totalAllocations;
   private static HashSet<Long> allocatedNativeMaps;
@@ -252,6 +256,85 @@ public class NativeMap implements Iterable<Map.Entry<Key,Value>> {
     }
   }
 
+  /**
+   * Statistics about the memory the native maps in this process have allocated, summed over all
+   * native maps.
+   */
+  public static class AllocatorStats {
+    private final long blocks;
+    private final long bigBlocks;
+    private final long bytesReserved;
+    private final long bytesAllocated;
+    private final long bytesWasted;
+
+    private AllocatorStats(long[] stats) {
+      this.blocks = stats[0];
+      this.bigBlocks = stats[1];
+      this.bytesReserved = stats[2];
+      this.bytesAllocated = stats[3];
+      this.bytesWasted = stats[4];
+    }
+
+    /**
+     * @return number of fixed size blocks that small keys and values are allocated from
+     */
+    public long getBlocks() {
+      return blocks;
+    }
+
+    /**
+     * @return number of keys and values too large for a block, each allocated on its own
+     */
+    public long getBigBlocks() {
+      return bigBlocks;
+    }
+
+    /**
+     * @return bytes allocated from the system, including the unused part of each block
+     */
+    public long getBytesReserved() {
+      return bytesReserved;
+    }
+
+    /**
+     * @return bytes holding map data
+     */
+    public long getBytesAllocated() {
+      return bytesAllocated;
+    }
+
+    /**
+     * @return bytes left unused at the end of blocks that filled up
+     */
+    public long getBytesWasted() {
+      return bytesWasted;
+    }
+
+    /**
+     * @return fraction of reserved memory that does not hold map data
+     */
+    public double getFragmentation() {
+      return bytesReserved == 0 ? 0 : 1.0 - (double) bytesAllocated / bytesReserved;
+    }
+  }
+
+  /**
+   * Sums allocator statistics over all native maps that are currently allocated. The statistics
+   * are read without taking each map's lock, so they may be slightly stale.
+   */
+  public static synchronized AllocatorStats getAllocatorStats() {
+    long[] totals = new long[5];
+    if (init) {
+      long[] stats = new long[5];
+      for (Long nmPointer : allocatedNativeMaps) {
+        allocatorStatsNM(nmPointer, stats);
+        for (int i = 0; i < totals.length; i++)
+          totals[i] += stats[i];
+      }
+    }
+    return new AllocatorStats(totals);
+  }
+
   // package private visibility for NativeMapCleanerUtil use,
   // without affecting ABI of existing native interface
   static void _deleteNativeMap(long nmPtr) {
@@ -270,6 +353,9 @@ public class NativeMap implements Iterable<Map.Entry<Key,Value>> {
 
   private static native long nmiGetTS(long nmiPointer);
 
+  private static native int nmiNextBatch(long nmiPointer, ByteBuffer buffer, int maxEntries,
+      int[] fieldLens, int[] batchInfo);
+
   private static native void deleteNMI(long nmiPointer);
 
   // package private visibility for NativeMapCleanerUtil use,
@@ -293,7 +379,6 @@ public class NativeMap implements Iterable<Map.Entry<Key,Value>> {
     // effects
     // concurrent writers
     private static final int MAX_READ_AHEAD_ENTRIES = 16;
-    private static final int READ_AHEAD_BYTES = 4096;
 
     private NMIterator source;
 
@@ -326,21 +411,13 @@ public class NativeMap implements Iterable<Map.Entry<Key,Value>> {
       if (source.hasNext())
         source.doNextPreCheck();
 
-      int amountRead = 0;
-
       // as we keep filling, increase the read ahead buffer
       if (nextEntries.length < MAX_READ_AHEAD_ENTRIES)
         nextEntries =
             new PreAllocatedArray<>(Math.min(nextEntries.length * 2, MAX_READ_AHEAD_ENTRIES));
 
-      while (source.hasNext() && end < nextEntries.length) {
-        Entry<Key,Value> ne = source.next();
-        nextEntries.set(end++, ne);
-        amountRead += ne.getKey().getSize() + ne.getValue().getSize();
-
-        if (amountRead > READ_AHEAD_BYTES)
-          break;
-      }
+      // copies all of the entries in a single native call, so the read lock is held only briefly
+      end = source.nextBatch(nextEntries);
     }
 
     @Override
@@ -400,6 +477,7 @@ public class NativeMap implements Iterable<Map.Entry<Key,Value>> {
     private boolean hasNext;
     private int expectedModCount;
     private int[] fieldsLens = new int[7];
+    private int[] batchInfo = new int[2];
     private byte[] lastRow;
     private final Cleanable cleanableNMI;
 
@@ -486,8 +564,66 @@ public class NativeMap implements Iterable<Map.Entry<Key,Value>> {
       return new SimpleImmutableEntry<>(k, v);
     }
 
+    /**
+     * Reads up to entries.length entries, or as many as fit in READ_AHEAD_BYTES, in one native
+     * call. Always reads at least one entry when there is one. The same assumptions about locking
+     * as {@link #next()} apply.
+     *
+     * @return number of entries read
+     */
+    public synchronized int nextBatch(PreAllocatedArray<Entry<Key,Value>> entries) {
+      if (!hasNext) {
+        return 0;
+      }
+
+      final long nmiPointer = nmiPtr.get();
+      if (nmiPointer == 0) {
+        throw new IllegalStateException("Native Map Iterator Deleted");
+      }
+
+      ByteBuffer buffer = BATCH_BUFFER.get();
+      int count = nmiNextBatch(nmiPointer, buffer, entries.length, fieldsLens, batchInfo);
+      if (count == 0) {
+        // the next entry is larger than the shared buffer
+        buffer = ByteBuffer.allocateDirect(batchInfo[1]).order(ByteOrder.nativeOrder());
+        count = nmiNextBatch(nmiPointer, buffer, entries.length, fieldsLens, batchInfo);
+      }
+      hasNext = batchInfo[0] != 0;
+
+      buffer.clear();
+      for (int i = 0; i < count; i++) {
+        int rowLen = buffer.getInt();
+        byte[] cf = new byte[buffer.getInt()];
+        byte[] cq = new byte[buffer.getInt()];
+        byte[] cv = new byte[buffer.getInt()];
+        byte[] val = new byte[buffer.getInt()];
+        int mc = buffer.getInt();
+        long ts = buffer.getLong();
+        boolean deleted = buffer.get() != 0;
+
+        if (rowLen >= 0) {
+          lastRow = new byte[rowLen];
+          buffer.get(lastRow);
+        }
+        buffer.get(cf);
+        buffer.get(cq);
+        buffer.get(cv);
+        buffer.get(val);
+
+        Key k = new MemKey(lastRow, cf, cq, cv, ts, deleted, false, mc);
+        entries.set(i, new SimpleImmutableEntry<>(k, new Value(val, false)));
+      }
+
+      return count;
+    }
   }
 
+  private static final int READ_AHEAD_BYTES = 4096;
+
+  // batches are decoded as soon as the native call returns, so one buffer per thread is enough
+  private static final ThreadLocal<ByteBuffer> BATCH_BUFFER = ThreadLocal.withInitial(
+      () -> ByteBuffer.allocateDirect(READ_AHEAD_BYTES).order(ByteOrder.nativeOrder()));
+
   private final Cleanable cleanableNM;
 
   public NativeMap() {
@@ -111,6 +111,7 @@ import org.apache.accumulo.core.dataImpl.thrift.TSummaries;
 import org.apache.accumulo.core.dataImpl.thrift.TSummaryRequest;
 import org.apache.accumulo.core.dataImpl.thrift.UpdateErrors;
 import org.apache.accumulo.core.iterators.IterationInterruptedException;
+import org.apache.accumulo.core.iteratorsImpl.system.VisibilityCache;
 import org.apache.accumulo.core.logging.TabletLogger;
 import org.apache.accumulo.core.master.thrift.BulkImportState;
 import org.apache.accumulo.core.master.thrift.Compacting;
@@ -304,6 +305,10 @@ public class TabletServer extends AbstractServer {
     return scanMetrics;
   }
 
+  public TabletServerUpdateMetrics getUpdateMetrics() {
+    return updateMetrics;
+  }
+
   public TabletServerMinCMetrics getMinCMetrics() {
     return mincMetrics;
   }
@@ -335,6 +340,8 @@ public class TabletServer extends AbstractServer {
 
   private HostAndPort clientAddress;
 
+  private volatile TabletUnloadPublisher unloadPublisher;
+
   private volatile boolean serverStopRequested = false;
   private volatile boolean shutdownComplete = false;
 
@@ -424,6 +431,9 @@ public class TabletServer extends AbstractServer {
       }
     }, 5000, 5000);
 
+    VisibilityCache.getInstance()
+        .setMaximumSize(aconf.getCount(Property.TSERV_VISIBILITY_CACHE_SIZE));
+
     final long walogMaxSize = aconf.getAsBytes(Property.TSERV_WALOG_MAX_SIZE);
     final long walogMaxAge = aconf.getTimeInMillis(Property.TSERV_WALOG_MAX_AGE);
     final long minBlockSize =
@@ -2372,6 +2382,12 @@ public class TabletServer extends AbstractServer {
         log.warn("Interrupted while getting our zookeeper session information", e);
       }
 
+      // let clients know their cached location for this tablet is stale
+      TabletUnloadPublisher publisher = unloadPublisher;
+      if (publisher != null) {
+        publisher.unloaded(extent);
+      }
+
       // tell the master how it went
       enqueueMasterMessage(new TabletStatusMessage(TabletLoadState.UNLOADED, extent));
 
@@ -2782,6 +2798,13 @@ public class TabletServer extends AbstractServer {
       throw new RuntimeException("Failed to start the tablet client service", e1);
     }
     announceExistence();
+    if (getConfiguration().getBoolean(Property.TSERV_TABLET_UNLOAD_EVENTS_ENABLED)) {
+      TabletUnloadPublisher publisher =
+          new TabletUnloadPublisher(getContext(), clientAddress.toString());
+      publisher.publish();
+      unloadPublisher = publisher;
+      SimpleTimer.getInstance(getConfiguration()).schedule(publisher::publish, 1000, 1000);
+    }
     try {
       walMarker.initWalMarker(getTabletSession());
     } catch (Exception e) {
@@ -3274,6 +3297,14 @@ public class TabletServer extends AbstractServer {
     return resourceManager.holdTime();
   }
 
+  public FileManager getFileManager() {
+    return resourceManager.getFileManager();
+  }
+
+  public MajorCompactionThroughputController getMajorCompactionThroughputController() {
+    return resourceManager.getMajorCompactionThroughputController();
+  }
+
   public SecurityOperation getSecurityOperation() {
     return security;
   }
@@ -3401,7 +3432,7 @@ public class TabletServer extends AbstractServer {
   private static final String MAJC_READ_LIMITER_KEY = "tserv_majc_read";
   private static final String MAJC_WRITE_LIMITER_KEY = "tserv_majc_write";
   private final RateProvider rateProvider =
-      () -> getConfiguration().getAsBytes(Property.TSERV_MAJC_THROUGHPUT);
+      () -> getMajorCompactionThroughputController().getDesiredRate();
 
   /**
    * Get the {@link RateLimiter} for reads during major compactions on this tserver. All writes
@@ -108,6 +108,8 @@ public class TabletServerResourceManager {
   private final ExecutorService majorCompactionThreadPool;
   private final ExecutorService rootMajorCompactionThreadPool;
   private final ExecutorService defaultMajorCompactionThreadPool;
+  private final ExecutorService majorCompactionPartitionPool;
+  private final MajorCompactionThroughputController majcThroughputController;
   private final ExecutorService splitThreadPool;
   private final ExecutorService defaultSplitThreadPool;
   private final ExecutorService defaultMigrationPool;
@@ -391,6 +393,9 @@ public class TabletServerResourceManager {
         new CompactionQueue().asBlockingQueueOfRunnable());
     rootMajorCompactionThreadPool = createEs(300, "md root major compactor");
     defaultMajorCompactionThreadPool = createEs(300, "md major compactor");
+    majorCompactionPartitionPool =
+        createIdlingEs(Property.TSERV_MAJC_PARTITION_THREADS, "major compaction partition");
+    majcThroughputController = new MajorCompactionThroughputController(acuConf);
 
     splitThreadPool = createEs();
     defaultSplitThreadPool = createEs(60, "md splitter");
@@ -438,6 +443,8 @@ public class TabletServerResourceManager {
     // We can use the same map for both metadata and normal assignments since the keyspace (extent)
     // is guaranteed to be unique. Schedule the task once, the task will reschedule itself.
     timer.schedule(new AssignmentWatcher(acuConf, activeAssignments, timer), 5000);
+
+    timer.schedule(majcThroughputController::adjust, 5000, 5000);
   }
 
   /**
@@ -934,7 +941,15 @@ public class TabletServerResourceManager {
   public void executeReadAhead(KeyExtent tablet, ScanDispatcher dispatcher, ScanSession scanInfo,
       Runnable task) {
 
-    task = ScanSession.wrap(scanInfo, task);
+    final Runnable scanTask = task;
+    final long queued = System.currentTimeMillis();
+    task = ScanSession.wrap(scanInfo, () -> {
+      try {
+        scanTask.run();
+      } finally {
+        majcThroughputController.scanFinished(System.currentTimeMillis() - queued);
+      }
+    });
 
     if (tablet.isRootTablet()) {
       // TODO make meta dispatch??
@@ -1017,6 +1032,18 @@ public class TabletServerResourceManager {
     return fileLenCache;
   }
 
+  public FileManager getFileManager() {
+    return fileManager;
+  }
+
+  public MajorCompactionThroughputController getMajorCompactionThroughputController() {
+    return majcThroughputController;
+  }
+
+  public ExecutorService getMajorCompactionPartitionExecutor() {
+    return majorCompactionPartitionPool;
+  }
+
   public ExecutorService getSummaryRetrievalExecutor() {
     return summaryRetrievalPool;
   }
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver;
+
+import java.util.ArrayDeque;
+
+import org.apache.accumulo.core.Constants;
+import org.apache.accumulo.core.clientImpl.TabletUnloadEvents;
+import org.apache.accumulo.core.dataImpl.KeyExtent;
+import org.apache.accumulo.fate.zookeeper.ZooReaderWriter;
+import org.apache.accumulo.fate.zookeeper.ZooUtil.NodeExistsPolicy;
+import org.apache.accumulo.server.ServerContext;
+import org.apache.zookeeper.KeeperException.NoNodeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes the tablets this tablet server recently unloaded to an ephemeral node in ZooKeeper, so
+ * clients can drop those tablets from their location caches before an RPC to this server fails.
+ */
+class TabletUnloadPublisher {
+
+  private static final Logger log = LoggerFactory.getLogger(TabletUnloadPublisher.class);
+
+  static final int MAX_EVENTS = 1000;
+
+  private final ZooReaderWriter zoo;
+  private final String parent;
+  private final String path;
+
+  private final ArrayDeque<KeyExtent> extents = new ArrayDeque<>();
+  private long firstSequence = 0;
+  private boolean changed = true;
+  private boolean created = false;
+
+  TabletUnloadPublisher(ServerContext context, String address) {
+    this.zoo = context.getZooReaderWriter();
+    this.parent = context.getZooKeeperRoot() + Constants.ZTABLET_UNLOADS;
+    this.path = parent + "/" + address;
+  }
+
+  /**
+   * Records that a tablet was unloaded. It is published on the next call to {@link #publish()}.
+   */
+  synchronized void unloaded(KeyExtent extent) {
+    extents.addLast(extent);
+    if (extents.size() > MAX_EVENTS) {
+      extents.removeFirst();
+      firstSequence++;
+    }
+    changed = true;
+  }
+
+  /**
+   * Writes the recently unloaded tablets to ZooKeeper if any were unloaded since the last call.
+   */
+  void publish() {
+    byte[] data;
+    synchronized (this) {
+      if (!changed) {
+        return;
+      }
+      data = new TabletUnloadEvents(firstSequence, extents).serialize();
+      changed = false;
+    }
+
+    try {
+      if (created) {
+        try {
+          zoo.getZooKeeper().setData(path, data, -1);
+          return;
+        } catch (NoNodeException e) {
+          log.debug("{} was removed, creating it again", path);
+          created = false;
+        }
+      }
+      zoo.putPersistentData(parent, new byte[0], NodeExistsPolicy.SKIP);
+      zoo.putEphemeralData(path, data);
+      created = true;
+    } catch (Exception e) {
+      log.warn("Unable to publish unloaded tablets to {}", path, e);
+      synchronized (this) {
+        changed = true;
+      }
+    }
+  }
+}
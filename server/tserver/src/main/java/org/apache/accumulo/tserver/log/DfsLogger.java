@@ -41,6 +41,7 @@ import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.accumulo.core.client.Durability;
@@ -70,12 +71,14 @@ import org.apache.accumulo.server.fs.VolumeManager;
 import org.apache.accumulo.tserver.TabletMutations;
 import org.apache.accumulo.tserver.logger.LogFileKey;
 import org.apache.accumulo.tserver.logger.LogFileValue;
+import org.apache.accumulo.tserver.metrics.TabletServerUpdateMetrics;
 import org.apache.accumulo.tserver.tablet.CommitSession;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hdfs.DFSOutputStream;
 import org.apache.hadoop.hdfs.protocol.DatanodeInfo;
+import org.apache.hadoop.io.DataOutputBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -147,7 +150,9 @@ public class DfsLogger implements Comparable<DfsLogger> {
     VolumeManager getFileSystem();
   }
 
-  private final LinkedBlockingQueue<DfsLogger.LogWork> workQueue = new LinkedBlockingQueue<>();
+  // separate queues so that writers waiting on a flush are not held up behind a slower sync
+  private final LinkedBlockingQueue<DfsLogger.LogWork> syncQueue = new LinkedBlockingQueue<>();
+  private final LinkedBlockingQueue<DfsLogger.LogWork> flushQueue = new LinkedBlockingQueue<>();
 
   private final Object closeLock = new Object();
 
@@ -158,9 +163,21 @@ public class DfsLogger implements Comparable<DfsLogger> {
 
   private boolean closed = false;
 
+  /**
+   * Group commits writes for a single durability level. Each pass takes all queued work, waiting up
+   * to the configured linger time for more to arrive, and then makes it durable with one hsync or
+   * hflush.
+   */
   private class LogSyncingTask implements Runnable {
+    private final Durability durability;
+    private final LinkedBlockingQueue<DfsLogger.LogWork> workQueue;
     private int expectedReplication = 0;
 
+    LogSyncingTask(Durability durability, LinkedBlockingQueue<DfsLogger.LogWork> workQueue) {
+      this.durability = durability;
+      this.workQueue = workQueue;
+    }
+
     @Override
     public void run() {
       ArrayList<DfsLogger.LogWork> work = new ArrayList<>();
@@ -173,41 +190,35 @@ public class DfsLogger implements Comparable<DfsLogger> {
         } catch (InterruptedException ex) {
           continue;
         }
-        workQueue.drainTo(work);
-
-        Method durabilityMethod = null;
-        loop: for (LogWork logWork : work) {
-          switch (logWork.durability) {
-            case DEFAULT:
-            case NONE:
-            case LOG:
-              // shouldn't make it to the work queue
-              throw new IllegalArgumentException("unexpected durability " + logWork.durability);
-            case SYNC:
-              durabilityMethod = sync;
-              break loop;
-            case FLUSH:
-              if (durabilityMethod == null) {
-                durabilityMethod = flush;
-              }
-              break;
-          }
+        gatherGroup(workQueue, work, maxGroupSize, lingerNanos, CLOSED_MARKER);
+
+        if (work.size() == 1 && work.get(0) == CLOSED_MARKER) {
+          // nothing was written since the last group, so there is nothing to make durable
+          break;
         }
 
+        Method durabilityMethod = durability == Durability.SYNC ? sync : flush;
+
         long start = System.currentTimeMillis();
         try {
-          if (durabilityMethod != null) {
-            durabilityMethod.invoke(logFile);
-            if (durabilityMethod == sync) {
-              syncCounter.incrementAndGet();
-            } else {
-              flushCounter.incrementAndGet();
-            }
+          durabilityMethod.invoke(logFile);
+          if (durabilityMethod == sync) {
+            syncCounter.incrementAndGet();
+          } else {
+            flushCounter.incrementAndGet();
           }
         } catch (Exception ex) {
           fail(work, ex, "synching");
         }
         long duration = System.currentTimeMillis() - start;
+        if (updateMetrics != null) {
+          updateMetrics.addWalogSyncTime(duration);
+          int groupSize = work.size();
+          if (work.get(groupSize - 1) == CLOSED_MARKER) {
+            groupSize--;
+          }
+          updateMetrics.addWalogGroupSize(groupSize);
+        }
         if (duration > slowFlushMillis) {
           String msg = new StringBuilder(128).append("Slow sync cost: ").append(duration)
               .append(" ms, current pipeline: ").append(Arrays.toString(getPipeLine())).toString();
@@ -252,6 +263,43 @@ public class DfsLogger implements Comparable<DfsLogger> {
     }
   }
 
+  /**
+   * Adds queued work to the group, in queue order, until it reaches the maximum group size,
+   * lingering for more work to arrive when configured to do so. The closed marker is always the
+   * last thing queued, so once it is seen there is nothing more to wait for.
+   *
+   * @param maxGroupSize
+   *          the most work to gather, or 0 for no limit
+   */
+  static <T> void gatherGroup(LinkedBlockingQueue<T> workQueue, List<T> work, int maxGroupSize,
+      long lingerNanos, T closedMarker) {
+    int max = maxGroupSize > 0 ? maxGroupSize : Integer.MAX_VALUE;
+    workQueue.drainTo(work, max - work.size());
+    if (lingerNanos <= 0) {
+      return;
+    }
+
+    long deadline = System.nanoTime() + lingerNanos;
+    while (work.size() < max && work.get(work.size() - 1) != closedMarker) {
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return;
+      }
+      T next;
+      try {
+        next = workQueue.poll(remaining, TimeUnit.NANOSECONDS);
+      } catch (InterruptedException ex) {
+        // sync what has been gathered so far
+        return;
+      }
+      if (next == null) {
+        return;
+      }
+      work.add(next);
+      workQueue.drainTo(work, max - work.size());
+    }
+  }
+
   private static class LogWork {
     final CountDownLatch latch;
     final Durability durability;
@@ -326,12 +374,16 @@ public class DfsLogger implements Comparable<DfsLogger> {
   private Method flush;
   private String logPath;
   private Daemon syncThread;
+  private Daemon flushThread;
 
   /* Track what's actually in +r/!0 for this logger ref */
   private String metaReference;
   private AtomicLong syncCounter;
   private AtomicLong flushCounter;
   private final long slowFlushMillis;
+  private final long lingerNanos;
+  private final int maxGroupSize;
+  private TabletServerUpdateMetrics updateMetrics;
   private long writes = 0;
 
   private DfsLogger(ServerContext context, ServerResources conf) {
@@ -339,13 +391,17 @@ public class DfsLogger implements Comparable<DfsLogger> {
     this.conf = conf;
     this.slowFlushMillis =
         conf.getConfiguration().getTimeInMillis(Property.TSERV_SLOW_FLUSH_MILLIS);
+    this.lingerNanos = TimeUnit.MILLISECONDS
+        .toNanos(conf.getConfiguration().getTimeInMillis(Property.TSERV_WAL_GROUP_COMMIT_LINGER));
+    this.maxGroupSize = conf.getConfiguration().getCount(Property.TSERV_WAL_GROUP_COMMIT_MAX_SIZE);
   }
 
   public DfsLogger(ServerContext context, ServerResources conf, AtomicLong syncCounter,
-      AtomicLong flushCounter) {
+      AtomicLong flushCounter, TabletServerUpdateMetrics updateMetrics) {
     this(context, conf);
     this.syncCounter = syncCounter;
     this.flushCounter = flushCounter;
+    this.updateMetrics = updateMetrics;
   }
 
   /**
@@ -486,9 +542,14 @@ public class DfsLogger implements Comparable<DfsLogger> {
       throw new IOException(ex);
     }
 
-    syncThread = new Daemon(new LoggingRunnable(log, new LogSyncingTask()));
-    syncThread.setName("Accumulo WALog thread " + this);
+    syncThread =
+        new Daemon(new LoggingRunnable(log, new LogSyncingTask(Durability.SYNC, syncQueue)));
+    syncThread.setName("Accumulo WALog sync thread " + this);
     syncThread.start();
+    flushThread =
+        new Daemon(new LoggingRunnable(log, new LogSyncingTask(Durability.FLUSH, flushQueue)));
+    flushThread.setName("Accumulo WALog flush thread " + this);
+    flushThread.start();
     op.await();
     log.debug("Got new write-ahead log: {}", this);
   }
@@ -537,20 +598,23 @@ public class DfsLogger implements Comparable<DfsLogger> {
       // to process... so nothing should be left waiting for the background
       // thread to do work
       closed = true;
-      workQueue.add(CLOSED_MARKER);
+      syncQueue.add(CLOSED_MARKER);
+      flushQueue.add(CLOSED_MARKER);
     }
 
-    // wait for background thread to finish before closing log file
-    if (syncThread != null) {
-      try {
-        syncThread.join();
-      } catch (InterruptedException e) {
-        throw new RuntimeException(e);
+    // wait for background threads to finish before closing log file
+    for (Daemon thread : new Daemon[] {syncThread, flushThread}) {
+      if (thread != null) {
+        try {
+          thread.join();
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
       }
     }
 
     // expect workq should be empty at this point
-    if (workQueue.size() != 0) {
+    if (syncQueue.size() != 0 || flushQueue.size() != 0) {
       log.error("WAL work queue not empty after sync thread exited");
       throw new IllegalStateException("WAL work queue not empty after sync thread exited");
     }
@@ -579,11 +643,10 @@ public class DfsLogger implements Comparable<DfsLogger> {
     return logKeyData(key, Durability.LOG);
   }
 
-  private synchronized void write(LogFileKey key, LogFileValue value) throws IOException {
-    key.write(encryptingLogFile);
-    value.write(encryptingLogFile);
+  private synchronized void write(DataOutputBuffer serialized, int entries) throws IOException {
+    encryptingLogFile.write(serialized.getData(), 0, serialized.getLength());
     encryptingLogFile.flush();
-    writes++;
+    writes += entries;
   }
 
   private LoggerOperation logKeyData(LogFileKey key, Durability d) throws IOException {
@@ -594,9 +657,13 @@ public class DfsLogger implements Comparable<DfsLogger> {
       Durability durability) throws IOException {
     DfsLogger.LogWork work = new DfsLogger.LogWork(new CountDownLatch(1), durability);
     try {
+      // serialize before taking the lock, so concurrent writers only contend on copying bytes
+      DataOutputBuffer serialized = new DataOutputBuffer();
       for (Pair<LogFileKey,LogFileValue> pair : keys) {
-        write(pair.getFirst(), pair.getSecond());
+        pair.getFirst().write(serialized);
+        pair.getSecond().write(serialized);
       }
+      write(serialized, keys.size());
     } catch (ClosedChannelException ex) {
       throw new LogClosedException();
     } catch (Exception e) {
@@ -614,7 +681,16 @@ public class DfsLogger implements Comparable<DfsLogger> {
       if (durability == Durability.LOG)
         return NO_WAIT_LOGGER_OP;
 
-      workQueue.add(work);
+      switch (durability) {
+        case SYNC:
+          syncQueue.add(work);
+          break;
+        case FLUSH:
+          flushQueue.add(work);
+          break;
+        default:
+          throw new IllegalArgumentException("unexpected durability " + durability);
+      }
     }
 
     return new LoggerOperation(work);
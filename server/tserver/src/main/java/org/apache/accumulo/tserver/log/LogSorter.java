@@ -25,9 +25,12 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import org.apache.accumulo.core.Constants;
@@ -68,6 +71,7 @@ public class LogSorter {
     private long bytesCopied = -1;
     private long sortStart = 0;
     private long sortStop = -1;
+    private ThreadPoolExecutor sortPool;
 
     @Override
     public Processor newProcessor() {
@@ -128,25 +132,58 @@ public class LogSorter {
           this.input = inputStreams.getOriginalInput();
           this.decryptingInput = inputStreams.getDecryptingInputStream();
 
+          // The log is a single, possibly encrypted, stream so it must be read sequentially.
+          // Sorting and writing each part is handed off to a pool so that it overlaps with reading
+          // the next part. A part is only started once a permit is available, which keeps the
+          // memory held by parts in progress within the configured sort buffer size. The buffer is
+          // only split when more than one sort thread is configured, since splitting it creates
+          // more parts for recovery to merge.
           final long bufferSize = conf.getAsBytes(Property.TSERV_SORT_BUFFER_SIZE);
+          final int sortThreads = Math.max(1, conf.getCount(Property.TSERV_SORT_THREADS));
+          final long partSize = Math.max(1, bufferSize / sortThreads);
+          final Semaphore permits = new Semaphore(sortThreads);
+          final List<Future<?>> parts = new ArrayList<>();
+          sortPool = new SimpleThreadPool(sortThreads, "Sorting " + name + " for recovery");
           Thread.currentThread().setName("Sorting " + name + " for recovery");
-          while (true) {
+          boolean eof = false;
+          while (!eof) {
+            permits.acquire();
             final ArrayList<Pair<LogFileKey,LogFileValue>> buffer = new ArrayList<>();
             try {
               long start = input.getPos();
-              while (input.getPos() - start < bufferSize) {
+              while (input.getPos() - start < partSize) {
                 LogFileKey key = new LogFileKey();
                 LogFileValue value = new LogFileValue();
                 key.readFields(decryptingInput);
                 value.readFields(decryptingInput);
                 buffer.add(new Pair<>(key, value));
               }
-              writeBuffer(destPath, buffer, part++);
-              buffer.clear();
             } catch (EOFException ex) {
-              writeBuffer(destPath, buffer, part++);
-              break;
+              eof = true;
             }
+
+            final int currentPart = part++;
+            parts.add(sortPool.submit(() -> {
+              try {
+                writeBuffer(destPath, buffer, currentPart);
+              } finally {
+                permits.release();
+              }
+              return null;
+            }));
+
+            // fail fast if a part could not be written
+            Iterator<Future<?>> iter = parts.iterator();
+            while (iter.hasNext()) {
+              Future<?> future = iter.next();
+              if (future.isDone()) {
+                future.get();
+                iter.remove();
+              }
+            }
+          }
+          for (Future<?> future : parts) {
+            future.get();
           }
           fs.create(new Path(destPath, "finished")).close();
           log.info("Finished log sort {} {} bytes {} parts in {}ms", name, getBytesCopied(), part,
@@ -163,6 +200,10 @@ public class LogSorter {
         log.error("Caught throwable", t);
       } finally {
         Thread.currentThread().setName(formerThreadName);
+        if (sortPool != null) {
+          sortPool.shutdownNow();
+          sortPool = null;
+        }
         try {
           close();
         } catch (Exception e) {
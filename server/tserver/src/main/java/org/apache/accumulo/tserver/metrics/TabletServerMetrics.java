@@ -18,6 +18,10 @@
  */
 package org.apache.accumulo.tserver.metrics;
 
+import org.apache.accumulo.core.iteratorsImpl.system.VisibilityCache;
+import org.apache.accumulo.fate.zookeeper.ZooCache;
+import org.apache.accumulo.tserver.FileManager;
+import org.apache.accumulo.tserver.NativeMap;
 import org.apache.accumulo.tserver.TabletServer;
 import org.apache.hadoop.metrics2.MetricsRecordBuilder;
 import org.apache.hadoop.metrics2.lib.Interns;
@@ -39,6 +43,21 @@ public class TabletServerMetrics extends TServerMetrics {
   private final MutableGaugeLong unopenedTablets;
   private final MutableGaugeLong queries;
   private final MutableGaugeLong totalMincs;
+  private final MutableGaugeLong visCacheHits;
+  private final MutableGaugeLong visCacheMisses;
+  private final MutableGaugeLong zooCacheHits;
+  private final MutableGaugeLong zooCacheMisses;
+  private final MutableGaugeLong nmBlocks;
+  private final MutableGaugeLong nmBigBlocks;
+  private final MutableGaugeLong nmBytesReserved;
+  private final MutableGaugeLong nmBytesAllocated;
+  private final MutableGaugeLong nmBytesWasted;
+  private volatile double nmFragmentation;
+  private final MutableGaugeLong fileReservations;
+  private final MutableGaugeLong filePermitWaitTime;
+  private final MutableGaugeLong fileReaderReuseHits;
+  private final MutableGaugeLong fileReaderReuseMisses;
+  private final MutableGaugeLong majcThroughput;
 
   public TabletServerMetrics(TabletServer tserver) {
     super("general");
@@ -56,6 +75,31 @@ public class TabletServerMetrics extends TServerMetrics {
     unopenedTablets = registry.newGauge("unopenedTablets", "Number of unopened tablets", 0L);
     queries = registry.newGauge("queries", "Number of queries", 0L);
     totalMincs = registry.newGauge("totalMinCs", "Total number of minor compactions performed", 0L);
+    visCacheHits = registry.newGauge("visCacheHits", "Number of visibility cache hits", 0L);
+    visCacheMisses = registry.newGauge("visCacheMisses", "Number of visibility cache misses", 0L);
+    zooCacheHits =
+        registry.newGauge("zooCacheHits", "Number of ZooKeeper reads answered from the cache", 0L);
+    zooCacheMisses =
+        registry.newGauge("zooCacheMisses", "Number of ZooKeeper reads that missed the cache", 0L);
+    nmBlocks = registry.newGauge("nativeMapBlocks", "Number of native map allocator blocks", 0L);
+    nmBigBlocks = registry.newGauge("nativeMapBigBlocks",
+        "Number of native map allocations too large for a block", 0L);
+    nmBytesReserved = registry.newGauge("nativeMapBytesReserved",
+        "Bytes native maps have allocated from the system", 0L);
+    nmBytesAllocated =
+        registry.newGauge("nativeMapBytesAllocated", "Bytes holding native map data", 0L);
+    nmBytesWasted = registry.newGauge("nativeMapBytesWasted",
+        "Bytes left unused at the end of full native map allocator blocks", 0L);
+    fileReservations =
+        registry.newGauge("fileReservations", "Number of times scans reserved files", 0L);
+    filePermitWaitTime = registry.newGauge("filePermitWaitTime",
+        "Total milliseconds scans waited for permits to open files", 0L);
+    fileReaderReuseHits = registry.newGauge("fileReaderReuseHits",
+        "Number of file reservations that reused an open reader", 0L);
+    fileReaderReuseMisses = registry.newGauge("fileReaderReuseMisses",
+        "Number of file reservations that opened a new reader", 0L);
+    majcThroughput = registry.newGauge("majcThroughput",
+        "Current major compaction I/O budget in bytes/sec, 0 when unlimited", 0L);
   }
 
   @Override
@@ -71,6 +115,26 @@ public class TabletServerMetrics extends TServerMetrics {
     unopenedTablets.set(util.getUnopenedCount());
     queries.set(util.getQueries());
     totalMincs.set(util.getTotalMinorCompactions());
+    visCacheHits.set(VisibilityCache.getInstance().getHitCount());
+    visCacheMisses.set(VisibilityCache.getInstance().getMissCount());
+    ZooCache zooCache = util.getZooCache();
+    zooCacheHits.set(zooCache.getHitCount());
+    zooCacheMisses.set(zooCache.getMissCount());
+    NativeMap.AllocatorStats nmStats = util.getNativeMapStats();
+    if (nmStats != null) {
+      nmBlocks.set(nmStats.getBlocks());
+      nmBigBlocks.set(nmStats.getBigBlocks());
+      nmBytesReserved.set(nmStats.getBytesReserved());
+      nmBytesAllocated.set(nmStats.getBytesAllocated());
+      nmBytesWasted.set(nmStats.getBytesWasted());
+      nmFragmentation = nmStats.getFragmentation();
+    }
+    FileManager fileManager = util.getFileManager();
+    fileReservations.set(fileManager.getReservations());
+    filePermitWaitTime.set(fileManager.getPermitWaitMillis());
+    fileReaderReuseHits.set(fileManager.getReaderReuseHits());
+    fileReaderReuseMisses.set(fileManager.getReaderReuseMisses());
+    majcThroughput.set(Math.max(0, util.getMajorCompactionThroughput()));
   }
 
   @Override
@@ -87,5 +151,15 @@ public class TabletServerMetrics extends TServerMetrics {
     builder.addGauge(Interns.info("queryByteRate", "Query rate (bytes/sec)"),
         util.getQueryByteRate());
     builder.addGauge(Interns.info("scannedRate", "Scanned rate"), util.getScannedRate());
+    builder.addGauge(Interns.info("visCacheHitRate", "Visibility cache hit rate"),
+        VisibilityCache.getInstance().getHitRate());
+    builder.addGauge(
+        Interns.info("nativeMapFragmentation", "Fraction of native map memory not holding data"),
+        nmFragmentation);
+    builder.addGauge(
+        Interns.info("fileReaderReuseRate", "Fraction of file reservations reusing an open reader"),
+        util.getFileReaderReuseRate());
+    builder.addGauge(Interns.info("scanLatency", "Average scan batch latency in milliseconds"),
+        util.getScanLatency());
   }
 }
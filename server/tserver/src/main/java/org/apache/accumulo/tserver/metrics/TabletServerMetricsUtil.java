@@ -18,6 +18,10 @@
  */
 package org.apache.accumulo.tserver.metrics;
 
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.fate.zookeeper.ZooCache;
+import org.apache.accumulo.tserver.FileManager;
+import org.apache.accumulo.tserver.NativeMap;
 import org.apache.accumulo.tserver.TabletServer;
 import org.apache.accumulo.tserver.tablet.Tablet;
 
@@ -50,6 +54,39 @@ public class TabletServerMetricsUtil {
     return result;
   }
 
+  /**
+   * @return allocator statistics summed over all native maps, or null if native maps are not used
+   */
+  public NativeMap.AllocatorStats getNativeMapStats() {
+    if (!tserver.getConfiguration().getBoolean(Property.TSERV_NATIVEMAP_ENABLED)) {
+      return null;
+    }
+    return NativeMap.getAllocatorStats();
+  }
+
+  public FileManager getFileManager() {
+    return tserver.getFileManager();
+  }
+
+  public ZooCache getZooCache() {
+    return tserver.getContext().getZooCache();
+  }
+
+  public long getMajorCompactionThroughput() {
+    return tserver.getMajorCompactionThroughputController().getDesiredRate();
+  }
+
+  public double getScanLatency() {
+    return tserver.getMajorCompactionThroughputController().getScanLatency();
+  }
+
+  public double getFileReaderReuseRate() {
+    FileManager fileManager = tserver.getFileManager();
+    long hits = fileManager.getReaderReuseHits();
+    long total = hits + fileManager.getReaderReuseMisses();
+    return total == 0 ? 0 : hits / (double) total;
+  }
+
   public double getIngest() {
     double result = 0;
     for (Tablet tablet : tserver.getOnlineTablets().values()) {
@@ -32,6 +32,8 @@ public class TabletServerUpdateMetrics extends TServerMetrics {
   private final MutableStat walogWriteTimeStat;
   private final MutableStat commitTimeStat;
   private final MutableStat mutationArraySizeStat;
+  private final MutableStat walogGroupSizeStat;
+  private final MutableStat walogSyncTimeStat;
 
   public TabletServerUpdateMetrics() {
     super("Updates");
@@ -50,6 +52,10 @@ public class TabletServerUpdateMetrics extends TServerMetrics {
     commitTimeStat = registry.newStat("commitTime", "committing mutations", "Ops", "Time", true);
     mutationArraySizeStat =
         registry.newStat("mutationArraysSize", "mutation array", "ops", "Size", true);
+    walogGroupSizeStat =
+        registry.newStat("waLogGroupSize", "writes sharing a WAL sync", "Ops", "Size", true);
+    walogSyncTimeStat =
+        registry.newStat("waLogSyncTime", "syncing or flushing the WAL", "Ops", "Time", true);
   }
 
   public void addPermissionErrors(long value) {
@@ -80,4 +86,12 @@ public class TabletServerUpdateMetrics extends TServerMetrics {
     commitTimeStat.add(value);
   }
 
+  public void addWalogGroupSize(long value) {
+    walogGroupSizeStat.add(value);
+  }
+
+  public void addWalogSyncTime(long value) {
+    walogSyncTimeStat.add(value);
+  }
+
 }
@@ -20,6 +20,8 @@ package org.apache.accumulo.tserver.tablet;
 
 import java.util.Objects;
 
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.metadata.schema.DataFileValue;
 import org.apache.accumulo.tserver.compaction.MajorCompactionReason;
 
 final class CompactionRunner implements Runnable, Comparable<CompactionRunner> {
@@ -28,10 +30,40 @@ final class CompactionRunner implements Runnable, Comparable<CompactionRunner> {
   private final MajorCompactionReason reason;
   private final long queued;
 
+  // Whether cost based ordering was enabled when this runner was queued, and its inputs captured
+  // then. Zero bytes means the ordering is not used for this runner.
+  private final boolean costOrdered;
+  private final long bytes;
+  private final double scanPressure;
+
+  // Compactions smaller than this are treated as costing this much, so that tablets with tiny
+  // files do not always win
+  private static final long MIN_COST_BYTES = 1 << 20;
+
+  /**
+   * Must be called while holding the tablet lock.
+   */
   public CompactionRunner(Tablet tablet, MajorCompactionReason reason) {
     this.tablet = tablet;
     queued = System.currentTimeMillis();
     this.reason = reason;
+
+    boolean costPriority =
+        tablet.getTabletServer().getConfiguration().getBoolean(Property.TSERV_MAJC_COST_PRIORITY);
+    if (costPriority
+        && (reason == MajorCompactionReason.NORMAL || reason == MajorCompactionReason.IDLE)) {
+      long total = 0;
+      for (DataFileValue dfv : tablet.getDatafileManager().getDatafileSizes().values()) {
+        total += dfv.getSize();
+      }
+      costOrdered = true;
+      bytes = Math.max(MIN_COST_BYTES, total);
+      scanPressure = 1 + tablet.queryRate();
+    } else {
+      costOrdered = false;
+      bytes = 0;
+      scanPressure = 0;
+    }
   }
 
   @Override
@@ -61,6 +93,15 @@ final class CompactionRunner implements Runnable, Comparable<CompactionRunner> {
     return tablet.getDatafileManager().getNumFiles();
   }
 
+  /**
+   * Estimates the read amplification removed per byte of compaction I/O. Merging a tablet's files
+   * removes up to numFiles - 1 files from every scan of the tablet, which matters more the more the
+   * tablet is scanned, and the compaction reads and writes roughly all of the tablet's bytes.
+   */
+  private double getBenefitPerByte() {
+    return (getNumFiles() - 1) * scanPressure / bytes;
+  }
+
   @Override
   public int hashCode() {
     return Objects.hashCode(reason) + Objects.hashCode(queued) + getNumFiles();
@@ -85,6 +126,18 @@ final class CompactionRunner implements Runnable, Comparable<CompactionRunner> {
         return cmp;
     }
 
+    // Runners queued before and after the cost ordering was toggled are kept apart, comparing a
+    // cost ordered runner to one ordered by file count would not give a consistent order.
+    cmp = Boolean.compare(o.costOrdered, costOrdered);
+    if (cmp != 0)
+      return cmp;
+
+    if (costOrdered) {
+      cmp = Double.compare(o.getBenefitPerByte(), this.getBenefitPerByte());
+      if (cmp != 0)
+        return cmp;
+    }
+
     return o.getNumFiles() - this.getNumFiles();
   }
 }
@@ -38,6 +38,7 @@ import org.apache.accumulo.core.conf.AccumuloConfiguration;
 import org.apache.accumulo.core.conf.IterConfigUtil;
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.dataImpl.KeyExtent;
 import org.apache.accumulo.core.file.FileOperations;
@@ -98,6 +99,7 @@ public class Compactor implements Callable<CompactionStats> {
   private final CompactionEnv env;
   private final VolumeManager fs;
   protected final KeyExtent extent;
+  private final Range range;
   private final List<IteratorSetting> iterators;
 
   // things to report
@@ -150,8 +152,21 @@ public class Compactor implements Callable<CompactionStats> {
   public Compactor(ServerContext context, Tablet tablet, Map<TabletFile,DataFileValue> files,
       InMemoryMap imm, TabletFile outputFile, boolean propogateDeletes, CompactionEnv env,
       List<IteratorSetting> iterators, int reason, AccumuloConfiguration tableConfiguation) {
+    this(context, tablet, files, imm, outputFile, propogateDeletes, env, iterators, reason,
+        tableConfiguation, tablet.getExtent().toDataRange());
+  }
+
+  /**
+   * Creates a compactor that only reads and writes the data in the given range, which must fall
+   * within the tablet's extent. Used to compact one key range partition of a tablet.
+   */
+  public Compactor(ServerContext context, Tablet tablet, Map<TabletFile,DataFileValue> files,
+      InMemoryMap imm, TabletFile outputFile, boolean propogateDeletes, CompactionEnv env,
+      List<IteratorSetting> iterators, int reason, AccumuloConfiguration tableConfiguation,
+      Range range) {
     this.context = context;
     this.extent = tablet.getExtent();
+    this.range = range;
     this.fs = tablet.getTabletServer().getFileSystem();
     this.acuTableConf = tableConfiguation;
     this.filesToCompact = files;
@@ -350,7 +365,7 @@ public class Compactor implements Callable<CompactionStats> {
       }
 
       CountingIterator citr =
-          new CountingIterator(new MultiIterator(iters, extent.toDataRange()), entriesRead);
+          new CountingIterator(new MultiIterator(iters, range), entriesRead);
       SortedKeyValueIterator<Key,Value> delIter =
           DeletingIterator.wrap(citr, propogateDeletes, DeletingIterator.getBehavior(acuTableConf));
       ColumnFamilySkippingIterator cfsi = new ColumnFamilySkippingIterator(delIter);
@@ -370,7 +385,7 @@ public class Compactor implements Callable<CompactionStats> {
       SortedKeyValueIterator<Key,Value> itr = iterEnv.getTopLevelIterator(IterConfigUtil
           .convertItersAndLoad(env.getIteratorScope(), cfsi, acuTableConf, iterators, iterEnv));
 
-      itr.seek(extent.toDataRange(), columnFamilies, inclusive);
+      itr.seek(range, columnFamilies, inclusive);
 
       if (!inclusive) {
         mfw.startDefaultLocalityGroup();
@@ -490,20 +490,43 @@ class DatafileManager {
 
   void bringMajorCompactionOnline(Set<TabletFile> oldDatafiles, TabletFile tmpDatafile,
       TabletFile newDatafile, Long compactionId, DataFileValue dfv) throws IOException {
+    bringMajorCompactionOnline(oldDatafiles, Map.of(newDatafile, tmpDatafile),
+        Map.of(newDatafile, dfv), compactionId);
+  }
+
+  /**
+   * Replaces the old data files with all of the new files produced by a major compaction. The
+   * tablet's in memory file set and its metadata are each updated in one step, so scans and a
+   * restarted tablet see either all of the new files or none of them.
+   *
+   * @param tmpDatafiles
+   *          maps each new data file to the tmp file it was written to
+   * @param newDatafiles
+   *          the sizes of the new data files, files without entries are deleted
+   */
+  void bringMajorCompactionOnline(Set<TabletFile> oldDatafiles,
+      Map<TabletFile,TabletFile> tmpDatafiles, Map<TabletFile,DataFileValue> newDatafiles,
+      Long compactionId) throws IOException {
     final KeyExtent extent = tablet.getExtent();
     long t1, t2;
 
-    if (tablet.getTabletServer().getFileSystem().exists(newDatafile.getPath())) {
-      log.error("Target map file already exist " + newDatafile, new Exception());
-      throw new IllegalStateException("Target map file already exist " + newDatafile);
+    for (TabletFile newDatafile : newDatafiles.keySet()) {
+      if (tablet.getTabletServer().getFileSystem().exists(newDatafile.getPath())) {
+        log.error("Target map file already exist " + newDatafile, new Exception());
+        throw new IllegalStateException("Target map file already exist " + newDatafile);
+      }
     }
 
     // rename before putting in metadata table, so files in metadata table should
     // always exist
-    rename(tablet.getTabletServer().getFileSystem(), tmpDatafile.getPath(), newDatafile.getPath());
+    for (Entry<TabletFile,DataFileValue> entry : newDatafiles.entrySet()) {
+      TabletFile newDatafile = entry.getKey();
+      rename(tablet.getTabletServer().getFileSystem(), tmpDatafiles.get(newDatafile).getPath(),
+          newDatafile.getPath());
 
-    if (dfv.getNumEntries() == 0) {
-      tablet.getTabletServer().getFileSystem().deleteRecursively(newDatafile.getPath());
+      if (entry.getValue().getNumEntries() == 0) {
+        tablet.getTabletServer().getFileSystem().deleteRecursively(newDatafile.getPath());
+      }
     }
 
     TServerInstance lastLocation = null;
@@ -513,7 +536,7 @@ class DatafileManager {
 
       tablet.incrementDataSourceDeletions();
 
-      // atomically remove old files and add new file
+      // atomically remove old files and add new files
       for (TabletFile oldDatafile : oldDatafiles) {
         if (!datafileSizes.containsKey(oldDatafile)) {
           log.error("file does not exist in set {}", oldDatafile);
@@ -522,16 +545,19 @@ class DatafileManager {
         majorCompactingFiles.remove(oldDatafile);
       }
 
-      if (datafileSizes.containsKey(newDatafile)) {
-        log.error("Adding file that is already in set {}", newDatafile);
-      }
+      for (Entry<TabletFile,DataFileValue> entry : newDatafiles.entrySet()) {
+        TabletFile newDatafile = entry.getKey();
+        if (datafileSizes.containsKey(newDatafile)) {
+          log.error("Adding file that is already in set {}", newDatafile);
+        }
 
-      if (dfv.getNumEntries() > 0) {
-        datafileSizes.put(newDatafile, dfv);
-      }
+        if (entry.getValue().getNumEntries() > 0) {
+          datafileSizes.put(newDatafile, entry.getValue());
+        }
 
-      // could be used by a follow on compaction in a multipass compaction
-      majorCompactingFiles.add(newDatafile);
+        // could be used by a follow on compaction in a multipass compaction
+        majorCompactingFiles.add(newDatafile);
+      }
 
       tablet.computeNumEntries();
 
@@ -545,7 +571,7 @@ class DatafileManager {
     if (filesInUseByScans.size() > 0)
       log.debug("Adding scan refs to metadata {} {}", extent, filesInUseByScans);
     MasterMetadataUtil.replaceDatafiles(tablet.getContext(), extent, oldDatafiles,
-        filesInUseByScans, newDatafile, compactionId, dfv,
+        filesInUseByScans, newDatafiles, compactionId,
         tablet.getTabletServer().getClientAddressString(), lastLocation,
         tablet.getTabletServer().getLock());
     removeFilesAfterScan(filesInUseByScans);
@@ -554,7 +580,11 @@ class DatafileManager {
       log.trace(String.format("MajC finish lock %.2f secs", (t2 - t1) / 1000.0));
     }
 
-    TabletLogger.compacted(extent, oldDatafiles, newDatafile);
+    if (newDatafiles.size() == 1) {
+      TabletLogger.compacted(extent, oldDatafiles, newDatafiles.keySet().iterator().next());
+    } else {
+      TabletLogger.compacted(extent, oldDatafiles, newDatafiles.keySet());
+    }
   }
 
   public SortedMap<TabletFile,DataFileValue> getDatafileSizes() {
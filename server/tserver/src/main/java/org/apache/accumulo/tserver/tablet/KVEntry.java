@@ -31,6 +31,18 @@ public class KVEntry extends KeyValue {
     super(new Key(k), Arrays.copyOf(v.get(), v.get().length));
   }
 
+  private KVEntry(Key k, byte[] v) {
+    super(k, v);
+  }
+
+  /**
+   * Creates an entry that uses the given key and value directly instead of copying them. Only use
+   * this when nothing else will modify them.
+   */
+  static KVEntry wrap(Key k, Value v) {
+    return new KVEntry(k, v.get());
+  }
+
   int numBytes() {
     return getKey().getSize() + getValue().get().length;
   }
@@ -34,6 +34,7 @@ import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -43,6 +44,9 @@ import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -73,6 +77,8 @@ import org.apache.accumulo.core.iterators.IterationInterruptedException;
 import org.apache.accumulo.core.iterators.IteratorUtil.IteratorScope;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 import org.apache.accumulo.core.iterators.YieldCallback;
+import org.apache.accumulo.core.iteratorsImpl.system.BatchingIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.KVBatch;
 import org.apache.accumulo.core.iteratorsImpl.system.SourceSwitchingIterator;
 import org.apache.accumulo.core.logging.TabletLogger;
 import org.apache.accumulo.core.master.thrift.BulkImportState;
@@ -157,6 +163,7 @@ import org.slf4j.LoggerFactory;
 import com.google.common.base.Preconditions;
 import com.google.common.cache.Cache;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
@@ -168,6 +175,9 @@ public class Tablet {
 
   private static final byte[] EMPTY_BYTES = new byte[0];
 
+  // the number of entries read at a time when scanning a stack of system iterators
+  private static final int SCAN_BATCH_SIZE = 64;
+
   private final TabletServer tabletServer;
   private final ServerContext context;
   private final KeyExtent extent;
@@ -697,8 +707,19 @@ public class Tablet {
 
   Batch nextBatch(SortedKeyValueIterator<Key,Value> iter, Range range, ScanParameters scanParams)
       throws IOException {
+    return nextBatch(iter, range, scanParams,
+        tableConfiguration.getAsBytes(Property.TABLE_SCAN_MAXMEM),
+        () -> getTabletServer().getScanMetrics().addYield(1));
+  }
 
-    // log.info("In nextBatch..");
+  /**
+   * Seeks the iterator stack to the range and reads the next batch of scan results from it.
+   *
+   * @param onYield
+   *          called when the batch ends because the iterator stack yielded
+   */
+  static Batch nextBatch(SortedKeyValueIterator<Key,Value> iter, Range range,
+      ScanParameters scanParams, long maxResultsSize, Runnable onYield) throws IOException {
 
     long batchTimeOut = scanParams.getBatchTimeOut();
 
@@ -715,8 +736,6 @@ public class Tablet {
     long resultSize = 0L;
     long resultBytes = 0L;
 
-    long maxResultsSize = tableConfiguration.getAsBytes(Property.TABLE_SCAN_MAXMEM);
-
     Key continueKey = null;
     boolean skipContinueKey = false;
 
@@ -733,28 +752,79 @@ public class Tablet {
       iter.seek(range, LocalityGroupUtil.families(scanParams.getColumnSet()), true);
     }
 
-    while (iter.hasTop()) {
-      if (yield.hasYielded()) {
-        throw new IOException(
-            "Coding error: hasTop returned true but has yielded at " + yield.getPositionAndReset());
-      }
-      value = iter.getTopValue();
-      key = iter.getTopKey();
+    if (iter instanceof BatchingIterator) {
+      // Read entries in batches when the whole stack supports it. Entries read past a limit are
+      // dropped, they will be read again when the scan continues after the last entry returned.
+      KVBatch batch =
+          new KVBatch(Math.max(1, Math.min(SCAN_BATCH_SIZE, scanParams.getMaxEntries())));
+      boolean limitReached = false;
+      while (!limitReached && iter.hasTop()) {
+        if (yield.hasYielded()) {
+          throw new IOException("Coding error: hasTop returned true but has yielded at "
+              + yield.getPositionAndReset());
+        }
 
-      KVEntry kvEntry = new KVEntry(key, value); // copies key and value
-      results.add(kvEntry);
-      resultSize += kvEntry.estimateMemoryUsed();
-      resultBytes += kvEntry.numBytes();
+        // do not read entries past the max entries, they would only be dropped
+        int remaining = scanParams.getMaxEntries() - results.size();
+        if (remaining < batch.capacity()) {
+          batch = new KVBatch(Math.max(1, remaining));
+        }
 
-      boolean timesUp = batchTimeOut > 0 && (System.nanoTime() - startNanos) >= timeToRun;
+        batch.clear();
+        ((BatchingIterator) iter).nextBatch(batch);
 
-      if (resultSize >= maxResultsSize || results.size() >= scanParams.getMaxEntries() || timesUp) {
-        continueKey = new Key(key);
-        skipContinueKey = true;
-        break;
+        for (int i = 0; i < batch.size(); i++) {
+          key = batch.getKey(i);
+
+          // batched entries are never reused by the iterators, so they do not need to be copied
+          KVEntry kvEntry = KVEntry.wrap(key, batch.getValue(i));
+          results.add(kvEntry);
+          resultSize += kvEntry.estimateMemoryUsed();
+          resultBytes += kvEntry.numBytes();
+
+          boolean timesUp = batchTimeOut > 0 && (System.nanoTime() - startNanos) >= timeToRun;
+
+          if (resultSize >= maxResultsSize || results.size() >= scanParams.getMaxEntries()
+              || timesUp) {
+            continueKey = new Key(key);
+            skipContinueKey = true;
+            limitReached = true;
+            break;
+          }
+        }
       }
+      batch.clear();
 
-      iter.next();
+      if (limitReached && yield.hasYielded()) {
+        // The iterator yielded after the entry a limit was reached on, at a position past the
+        // entries dropped from the batch. Continuing from the yield would skip those entries.
+        yield.getPositionAndReset();
+      }
+    } else {
+      while (iter.hasTop()) {
+        if (yield.hasYielded()) {
+          throw new IOException("Coding error: hasTop returned true but has yielded at "
+              + yield.getPositionAndReset());
+        }
+        value = iter.getTopValue();
+        key = iter.getTopKey();
+
+        KVEntry kvEntry = new KVEntry(key, value); // copies key and value
+        results.add(kvEntry);
+        resultSize += kvEntry.estimateMemoryUsed();
+        resultBytes += kvEntry.numBytes();
+
+        boolean timesUp = batchTimeOut > 0 && (System.nanoTime() - startNanos) >= timeToRun;
+
+        if (resultSize >= maxResultsSize || results.size() >= scanParams.getMaxEntries()
+            || timesUp) {
+          continueKey = new Key(key);
+          skipContinueKey = true;
+          break;
+        }
+
+        iter.next();
+      }
     }
 
     if (yield.hasYielded()) {
@@ -772,8 +842,8 @@ public class Tablet {
       }
 
       log.debug("Scan yield detected at position " + continueKey);
-      getTabletServer().getScanMetrics().addYield(1);
-    } else if (!iter.hasTop()) {
+      onYield.run();
+    } else if (continueKey == null && !iter.hasTop()) {
       // end of tablet has been reached
       continueKey = null;
       if (results.size() == 0) {
@@ -1834,8 +1904,8 @@ public class Tablet {
 
         Set<TabletFile> smallestFiles = removeSmallest(filesToCompact, numToCompact);
 
-        TabletFile fileName =
-            getNextMapFilename((filesToCompact.size() == 0 && !propogateDeletes) ? "A" : "C");
+        String filePrefix = (filesToCompact.size() == 0 && !propogateDeletes) ? "A" : "C";
+        TabletFile fileName = getNextMapFilename(filePrefix);
         TabletFile compactTmpName = new TabletFile(fileName.getMetadataEntry() + "_tmp");
 
         AccumuloConfiguration tableConf = createCompactionConfiguration(tableConfiguration, plan);
@@ -1878,6 +1948,39 @@ public class Tablet {
 
           // always propagate deletes, unless last batch
           boolean lastBatch = filesToCompact.isEmpty();
+
+          // only the final pass is partitioned, earlier passes must produce the single file
+          // that the next pass reads
+          List<Range> partitions = lastBatch
+              ? getMajorCompactionPartitions(copy.keySet(), tableConf)
+              : List.of(extent.toDataRange());
+
+          if (partitions.size() > 1) {
+            log.debug("Compacting {} in {} partitions", extent, partitions.size());
+            Map<TabletFile,CompactionStats> results = compactPartitions(partitions, fileName,
+                filePrefix, copy, propogateDeletes, cenv, compactionIterators, reason, tableConf);
+
+            Map<TabletFile,TabletFile> tmpFiles = new LinkedHashMap<>();
+            Map<TabletFile,DataFileValue> newFiles = new LinkedHashMap<>();
+            results.forEach((file, stats) -> {
+              majCStats.add(stats);
+              tmpFiles.put(file, new TabletFile(file.getMetadataEntry() + "_tmp"));
+              newFiles.put(file, new DataFileValue(stats.getFileSize(), stats.getEntriesWritten()));
+            });
+
+            if (span.getSpan() != null) {
+              span.getSpan().addKVAnnotation("files", ("" + smallestFiles.size()));
+              span.getSpan().addKVAnnotation("partitions", ("" + partitions.size()));
+            }
+
+            if (plan != null && plan.deleteFiles != null) {
+              smallestFiles.addAll(plan.deleteFiles);
+            }
+            getDatafileManager().bringMajorCompactionOnline(smallestFiles, tmpFiles, newFiles,
+                compactionId != null ? compactionId.getFirst() : null);
+            continue;
+          }
+
           Compactor compactor = new Compactor(context, this, copy, null, compactTmpName,
               lastBatch ? propogateDeletes : true, cenv, compactionIterators, reason.ordinal(),
               tableConf);
@@ -1915,6 +2018,143 @@ public class Tablet {
     }
   }
 
+  /**
+   * Chooses the key range partitions for the final pass of a major compaction from the indexes of
+   * its input files. Returns a single range covering the tablet when the table is not configured
+   * for partitioned compactions or the indexes do not yield any partition rows.
+   */
+  private List<Range> getMajorCompactionPartitions(Collection<TabletFile> files,
+      AccumuloConfiguration tableConf) {
+    int numPartitions = tableConf.getCount(Property.TABLE_MAJC_PARTITIONS);
+    List<Text> rows = List.of();
+    if (numPartitions > 1 && !files.isEmpty()) {
+      try {
+        rows = FileUtil.findPartitionRows(context, extent.getPrevEndRow(), extent.getEndRow(),
+            FileUtil.toPathStrings(files), numPartitions);
+      } catch (IOException e) {
+        log.warn("Failed to find partitions for MajC on {}, compacting as one partition", extent,
+            e);
+      }
+    }
+
+    List<Range> partitions = new ArrayList<>(rows.size() + 1);
+    Text prevRow = extent.getPrevEndRow();
+    for (Text row : rows) {
+      partitions.add(new Range(prevRow, false, row, true));
+      prevRow = row;
+    }
+    partitions.add(new Range(prevRow, false, extent.getEndRow(), true));
+    return partitions;
+  }
+
+  /**
+   * Compacts the files into one output file per partition. The first partition is written to
+   * firstFile on the calling thread and the rest run on the tablet server's partition executor.
+   * When any partition fails the others are canceled, every tmp file is removed and the first
+   * failure is thrown.
+   *
+   * @return the stats of each output file, in partition order. Output files were written to their
+   *         name with a _tmp suffix.
+   */
+  private Map<TabletFile,CompactionStats> compactPartitions(List<Range> partitions,
+      TabletFile firstFile, String filePrefix, Map<TabletFile,DataFileValue> files,
+      boolean propogateDeletes, CompactionEnv env, List<IteratorSetting> iterators,
+      MajorCompactionReason reason, AccumuloConfiguration tableConf)
+      throws IOException, CompactionCanceledException {
+
+    AtomicBoolean failed = new AtomicBoolean(false);
+    CompactionEnv partitionEnv = new CompactionEnv() {
+      @Override
+      public boolean isCompactionEnabled() {
+        return !failed.get() && env.isCompactionEnabled();
+      }
+
+      @Override
+      public IteratorScope getIteratorScope() {
+        return env.getIteratorScope();
+      }
+
+      @Override
+      public RateLimiter getReadLimiter() {
+        return env.getReadLimiter();
+      }
+
+      @Override
+      public RateLimiter getWriteLimiter() {
+        return env.getWriteLimiter();
+      }
+    };
+
+    List<TabletFile> outputFiles = new ArrayList<>(partitions.size());
+    List<Compactor> compactors = new ArrayList<>(partitions.size());
+    for (Range partition : partitions) {
+      TabletFile file = outputFiles.isEmpty() ? firstFile : getNextMapFilename(filePrefix);
+      outputFiles.add(file);
+      compactors.add(new Compactor(context, this, files, null,
+          new TabletFile(file.getMetadataEntry() + "_tmp"), propogateDeletes, partitionEnv,
+          iterators, reason.ordinal(), tableConf, partition));
+    }
+
+    ExecutorService executor =
+        tabletResources.getTabletServerResourceManager().getMajorCompactionPartitionExecutor();
+    List<Future<CompactionStats>> futures = new ArrayList<>(partitions.size() - 1);
+    for (Compactor compactor : compactors.subList(1, compactors.size())) {
+      futures.add(executor.submit(() -> {
+        try {
+          return compactor.call();
+        } catch (Exception e) {
+          failed.set(true);
+          throw e;
+        }
+      }));
+    }
+
+    Map<TabletFile,CompactionStats> results = new LinkedHashMap<>();
+    Throwable error = null;
+    try {
+      results.put(outputFiles.get(0), compactors.get(0).call());
+    } catch (Throwable e) {
+      // includes errors, so the other partitions are still waited for and cleaned up below
+      failed.set(true);
+      error = e;
+    }
+
+    // always wait for every partition, so no compactor is still writing when tmp files are removed
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        results.put(outputFiles.get(i + 1), Uninterruptibles.getUninterruptibly(futures.get(i)));
+      } catch (ExecutionException e) {
+        if (error == null) {
+          error = e.getCause();
+        }
+      }
+    }
+
+    if (error == null) {
+      return results;
+    }
+
+    for (TabletFile file : results.keySet()) {
+      Path tmpPath = new Path(file.getMetadataEntry() + "_tmp");
+      try {
+        getTabletServer().getFileSystem().deleteRecursively(tmpPath);
+      } catch (IOException e) {
+        log.warn("Failed to delete {} after failed MajC on {}", tmpPath, extent, e);
+      }
+    }
+
+    if (error instanceof IOException) {
+      throw (IOException) error;
+    } else if (error instanceof CompactionCanceledException) {
+      throw (CompactionCanceledException) error;
+    } else if (error instanceof RuntimeException) {
+      throw (RuntimeException) error;
+    } else if (error instanceof Error) {
+      throw (Error) error;
+    }
+    throw new IllegalStateException("Failed to compact partition of " + extent, error);
+  }
+
   protected static AccumuloConfiguration createCompactionConfiguration(TableConfiguration base,
       CompactionPlan plan) {
     if (plan == null || plan.writeParameters == null) {
@@ -886,6 +886,86 @@ public class InMemoryMapTest {
     assertFalse(iter1.hasTop());
   }
 
+  @Test
+  public void testConcurrentWrites() throws Exception {
+    ConfigurationCopy config = newConfig(tempFolder.newFolder().getAbsolutePath());
+    config.set(Property.TSERV_MEMORY_MAP_CONCURRENT_WRITES, "true");
+    config.set(Property.TABLE_LOCALITY_GROUP_PREFIX + "lg1",
+        LocalityGroupUtil.encodeColumnFamilies(toTextSet("cf1")));
+    config.set(Property.TABLE_LOCALITY_GROUPS.getKey(), "lg1");
+
+    InMemoryMap imm = new InMemoryMap(config, getServerContext(), TableId.of("--TEST--"));
+
+    final int numWriters = 8;
+    final int rowsPerWriter = 500;
+
+    AtomicBoolean failed = new AtomicBoolean(false);
+    Thread[] writers = new Thread[numWriters];
+    for (int w = 0; w < numWriters; w++) {
+      final int writer = w;
+      writers[w] = new Thread(() -> {
+        for (int r = 0; r < rowsPerWriter; r++) {
+          // every mutation spans both locality groups, scans should never see half of one
+          Mutation m = new Mutation(String.format("r%02d_%04d", writer, r));
+          m.put("cf1", "x", 1, "" + r);
+          m.put("foo", "y", 1, "" + r);
+          imm.mutate(Collections.singletonList(m), 2);
+
+          // a write must be visible once mutate returns
+          try {
+            MemoryIterator iter = imm.skvIterator(null);
+            iter.seek(new Range(m.getRow().toString()), LocalityGroupUtil.EMPTY_CF_SET, false);
+            int count = 0;
+            while (iter.hasTop()) {
+              count++;
+              iter.next();
+            }
+            iter.close();
+            if (count != 2) {
+              failed.set(true);
+            }
+          } catch (IOException e) {
+            failed.set(true);
+          }
+        }
+      });
+    }
+
+    for (Thread writer : writers) {
+      writer.start();
+    }
+
+    boolean running = true;
+    while (running) {
+      running = false;
+      for (Thread writer : writers) {
+        running |= writer.isAlive();
+      }
+
+      MemoryIterator iter = imm.skvIterator(null);
+      iter.seek(new Range(), LocalityGroupUtil.EMPTY_CF_SET, false);
+      Map<String,Integer> counts = new TreeMap<>();
+      while (iter.hasTop()) {
+        counts.merge(iter.getTopKey().getRow().toString(), 1, Integer::sum);
+        iter.next();
+      }
+      iter.close();
+      for (Entry<String,Integer> entry : counts.entrySet()) {
+        assertEquals("Saw partial mutation for " + entry.getKey(), 2, (int) entry.getValue());
+      }
+    }
+
+    for (Thread writer : writers) {
+      writer.join();
+    }
+
+    assertFalse(failed.get());
+    assertEquals(numWriters * rowsPerWriter * 2, imm.getNumEntries());
+
+    // delete verifies all allocated mutation counts were made visible
+    imm.delete(0);
+  }
+
   private void assertAll(SortedKeyValueIterator<Key,Value> iter1) throws IOException {
     testAndCallNext(iter1, "r1", "cf1:x", 2, "1");
     testAndCallNext(iter1, "r1", "cf1:y", 2, "2");
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.junit.Test;
+
+public class MajorCompactionThroughputControllerTest {
+
+  private static final long MAX = 100 << 20;
+  private static final long MIN = 10 << 20;
+
+  private static ConfigurationCopy createConf(String target) {
+    ConfigurationCopy conf = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    conf.set(Property.TSERV_MAJC_THROUGHPUT, "100M");
+    conf.set(Property.TSERV_MAJC_THROUGHPUT_MIN, "10M");
+    conf.set(Property.TSERV_MAJC_SCAN_LATENCY_TARGET, target);
+    return conf;
+  }
+
+  @Test
+  public void testNotAdaptive() {
+    MajorCompactionThroughputController controller =
+        new MajorCompactionThroughputController(createConf("0s"));
+    controller.scanFinished(5000);
+    controller.adjust();
+    assertEquals(MAX, controller.getDesiredRate());
+    assertEquals(5000, controller.getScanLatency(), 0.0);
+  }
+
+  @Test
+  public void testUnlimited() {
+    ConfigurationCopy conf = createConf("100ms");
+    conf.set(Property.TSERV_MAJC_THROUGHPUT, "0B");
+    MajorCompactionThroughputController controller = new MajorCompactionThroughputController(conf);
+    controller.scanFinished(5000);
+    controller.adjust();
+    assertEquals(0, controller.getDesiredRate());
+  }
+
+  @Test
+  public void testBackoffAndRecover() {
+    MajorCompactionThroughputController controller =
+        new MajorCompactionThroughputController(createConf("100ms"));
+    assertEquals(MAX, controller.getDesiredRate());
+
+    // slow scans halve the budget until it reaches the minimum
+    controller.scanFinished(150);
+    controller.scanFinished(250);
+    controller.adjust();
+    assertEquals(MAX / 2, controller.getDesiredRate());
+    assertEquals(200, controller.getScanLatency(), 0.0);
+
+    for (int i = 0; i < 10; i++) {
+      controller.scanFinished(500);
+      controller.adjust();
+    }
+    assertEquals(MIN, controller.getDesiredRate());
+
+    // fast scans, or no scans, let it recover a tenth of the maximum at a time
+    controller.scanFinished(10);
+    controller.adjust();
+    assertEquals(MIN + MAX / 10, controller.getDesiredRate());
+    controller.adjust();
+    assertEquals(MIN + 2 * (MAX / 10), controller.getDesiredRate());
+    assertEquals(0, controller.getScanLatency(), 0.0);
+
+    for (int i = 0; i < 10; i++) {
+      controller.adjust();
+    }
+    assertEquals(MAX, controller.getDesiredRate());
+  }
+}
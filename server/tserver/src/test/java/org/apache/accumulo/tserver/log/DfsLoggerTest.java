@@ -19,11 +19,15 @@
 package org.apache.accumulo.tserver.log;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.accumulo.core.client.Durability;
 import org.apache.accumulo.tserver.TabletMutations;
@@ -68,6 +72,55 @@ public class DfsLoggerTest {
     assertEquals(Durability.SYNC, chooseDurabilityForGroupCommit(lst));
   }
 
+  private static final String MARKER = "closed";
+
+  @Test
+  public void testGatherGroupKeepsOrder() {
+    LinkedBlockingQueue<String> queue = new LinkedBlockingQueue<>(Arrays.asList("b", "c", "d"));
+    List<String> work = new ArrayList<>(List.of("a"));
+    DfsLogger.gatherGroup(queue, work, 0, 0, MARKER);
+    assertEquals(List.of("a", "b", "c", "d"), work);
+    assertTrue(queue.isEmpty());
+  }
+
+  @Test
+  public void testGatherGroupMaxSize() {
+    LinkedBlockingQueue<String> queue = new LinkedBlockingQueue<>(Arrays.asList("b", "c", "d"));
+    List<String> work = new ArrayList<>(List.of("a"));
+    DfsLogger.gatherGroup(queue, work, 2, TimeUnit.SECONDS.toNanos(10), MARKER);
+    assertEquals(List.of("a", "b"), work);
+    assertEquals(List.of("c", "d"), new ArrayList<>(queue));
+  }
+
+  @Test
+  public void testGatherGroupLingers() throws Exception {
+    LinkedBlockingQueue<String> queue = new LinkedBlockingQueue<>();
+    List<String> work = new ArrayList<>(List.of("a"));
+    Thread adder = new Thread(() -> {
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+      queue.add("b");
+    });
+    adder.start();
+    DfsLogger.gatherGroup(queue, work, 2, TimeUnit.SECONDS.toNanos(10), MARKER);
+    adder.join();
+    assertEquals(List.of("a", "b"), work);
+  }
+
+  @Test
+  public void testGatherGroupStopsAtClosedMarker() {
+    LinkedBlockingQueue<String> queue = new LinkedBlockingQueue<>(Arrays.asList("b", MARKER));
+    List<String> work = new ArrayList<>(List.of("a"));
+    long start = System.nanoTime();
+    // would linger for a minute if the marker did not end the group
+    DfsLogger.gatherGroup(queue, work, 0, TimeUnit.MINUTES.toNanos(1), MARKER);
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(30));
+    assertEquals(List.of("a", "b", MARKER), work);
+  }
+
   static Durability chooseDurabilityForGroupCommit(Collection<TabletMutations> mutations) {
     Durability result = Durability.NONE;
     for (TabletMutations tabletMutations : mutations) {
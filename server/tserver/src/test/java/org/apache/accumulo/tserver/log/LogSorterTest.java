@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.tserver.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.server.fs.VolumeManager;
+import org.apache.accumulo.server.fs.VolumeManagerImpl;
+import org.apache.accumulo.server.log.SortedLogState;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Path;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+@SuppressFBWarnings(value = "PATH_TRAVERSAL_IN", justification = "paths not set by user input")
+public class LogSorterTest {
+
+  private static final String WALOG = "/walog-from-16.walog";
+  private static File testDir;
+
+  VolumeManager fs;
+
+  @BeforeClass
+  public static void createTestDirectory() {
+    File baseDir = new File(System.getProperty("user.dir") + "/target/log-sorter-tests");
+    assertTrue(baseDir.mkdirs() || baseDir.isDirectory());
+    testDir = new File(baseDir, LogSorterTest.class.getName());
+    FileUtils.deleteQuietly(testDir);
+    assertTrue(testDir.mkdir() || testDir.isDirectory());
+  }
+
+  @Rule
+  public TemporaryFolder root = new TemporaryFolder(testDir);
+
+  @Before
+  public void setUp() throws Exception {
+    root.create();
+    fs = VolumeManagerImpl.getLocal(root.getRoot().getAbsolutePath());
+  }
+
+  private int countParts(Path sortedPath) throws IOException {
+    int parts = 0;
+    for (FileStatus status : fs.listStatus(sortedPath)) {
+      if (status.getPath().getName().startsWith("part-r-")) {
+        parts++;
+      }
+    }
+    return parts;
+  }
+
+  @Test
+  public void testParallelSort() throws IOException {
+    String rootPath = root.getRoot().getAbsolutePath();
+
+    try (InputStream walogStream = getClass().getResourceAsStream(WALOG);
+        OutputStream walogInHDFStream = new FileOutputStream(new File(rootPath + WALOG))) {
+      IOUtils.copyLarge(walogStream, walogInHDFStream);
+    }
+    Path walogPath = new Path("file://" + rootPath + WALOG);
+
+    new LogSorter(null, fs, DefaultConfiguration.getInstance()).new LogProcessor()
+        .sort(WALOG, walogPath, "file://" + rootPath + "/serial");
+
+    // a tiny sort buffer forces many parts to be sorted and written concurrently
+    ConfigurationCopy parallelConfig = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    parallelConfig.set(Property.TSERV_SORT_BUFFER_SIZE, "1K");
+    parallelConfig.set(Property.TSERV_SORT_THREADS, "4");
+    new LogSorter(null, fs, parallelConfig).new LogProcessor().sort(WALOG, walogPath,
+        "file://" + rootPath + "/parallel");
+
+    Path parallelPath = new Path("file://" + rootPath + "/parallel");
+    assertTrue(fs.exists(SortedLogState.getFinishedMarkerPath(parallelPath)));
+    int parts = countParts(parallelPath);
+    assertTrue("Expected multiple parts, saw " + parts, parts > 1);
+
+    try (
+        RecoveryLogReader serial =
+            new RecoveryLogReader(fs, new Path("file://" + rootPath + "/serial"));
+        RecoveryLogReader parallel = new RecoveryLogReader(fs, parallelPath)) {
+      int count = 0;
+      while (serial.hasNext()) {
+        assertTrue(parallel.hasNext());
+        assertEquals(0, serial.next().getKey().compareTo(parallel.next().getKey()));
+        count++;
+      }
+      assertTrue(count > 0);
+      assertFalse(parallel.hasNext());
+    }
+  }
+
+  @Test
+  public void testSerialSortUsesWholeBuffer() throws IOException {
+    String rootPath = root.getRoot().getAbsolutePath();
+
+    try (InputStream walogStream = getClass().getResourceAsStream(WALOG);
+        OutputStream walogInHDFStream = new FileOutputStream(new File(rootPath + WALOG))) {
+      IOUtils.copyLarge(walogStream, walogInHDFStream);
+    }
+    Path walogPath = new Path("file://" + rootPath + WALOG);
+
+    // with one sort thread the whole buffer goes to a single part, as before parallel sorting
+    ConfigurationCopy serialConfig = new ConfigurationCopy(DefaultConfiguration.getInstance());
+    serialConfig.set(Property.TSERV_SORT_THREADS, "1");
+    new LogSorter(null, fs, serialConfig).new LogProcessor().sort(WALOG, walogPath,
+        "file://" + rootPath + "/serial");
+
+    Path serialPath = new Path("file://" + rootPath + "/serial");
+    assertTrue(fs.exists(SortedLogState.getFinishedMarkerPath(serialPath)));
+    assertEquals(1, countParts(serialPath));
+  }
+}
@@ -19,14 +19,31 @@
 package org.apache.accumulo.tserver.tablet;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
 import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.YieldCallback;
+import org.apache.accumulo.core.iteratorsImpl.system.BatchingIterator;
+import org.apache.accumulo.core.iteratorsImpl.system.KVBatch;
+import org.apache.accumulo.core.security.Authorizations;
 import org.apache.accumulo.server.conf.TableConfiguration;
 import org.apache.accumulo.tserver.compaction.CompactionPlan;
 import org.apache.accumulo.tserver.compaction.WriteParameters;
+import org.apache.accumulo.tserver.scan.ScanParameters;
 import org.easymock.EasyMock;
 import org.junit.Test;
 
@@ -63,4 +80,139 @@ public class TabletTest {
     assertEquals(compressType, aConf.get(Property.TABLE_FILE_COMPRESSION_TYPE));
     assertEquals(replication, Integer.parseInt(aConf.get(Property.TABLE_FILE_REPLICATION)));
   }
+
+  /**
+   * Hands out entries of a sorted map in batches. Once it has read a given number of entries it
+   * yields, as if it had also skipped the entry after the last one read.
+   */
+  private static class YieldingBatchIterator implements BatchingIterator {
+    private final TreeMap<Key,Value> data;
+    private final int yieldAfter;
+    private final AtomicInteger read = new AtomicInteger();
+    private YieldCallback<Key> yield;
+    private Map.Entry<Key,Value> top;
+
+    YieldingBatchIterator(TreeMap<Key,Value> data, int yieldAfter) {
+      this.data = data;
+      this.yieldAfter = yieldAfter;
+    }
+
+    @Override
+    public void init(SortedKeyValueIterator<Key,Value> source, Map<String,String> options,
+        IteratorEnvironment env) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void enableYielding(YieldCallback<Key> callback) {
+      this.yield = callback;
+    }
+
+    @Override
+    public boolean hasTop() {
+      return top != null;
+    }
+
+    @Override
+    public void next() {
+      Key last = top.getKey();
+      if (read.incrementAndGet() == yieldAfter && yield != null) {
+        yield.yield(data.higherKey(last));
+        top = null;
+      } else {
+        top = data.higherEntry(last);
+      }
+    }
+
+    @Override
+    public int nextBatch(KVBatch batch) {
+      int added = 0;
+      while (top != null && !batch.isFull()) {
+        batch.add(top.getKey(), top.getValue());
+        added++;
+        next();
+      }
+      return added;
+    }
+
+    @Override
+    public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) {
+      top = data.firstEntry();
+    }
+
+    @Override
+    public Key getTopKey() {
+      return top.getKey();
+    }
+
+    @Override
+    public Value getTopValue() {
+      return top.getValue();
+    }
+
+    @Override
+    public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  private static TreeMap<Key,Value> createData(int count) {
+    TreeMap<Key,Value> data = new TreeMap<>();
+    for (int i = 0; i < count; i++) {
+      data.put(new Key(String.format("r%03d", i), "f", "q"), new Value("v" + i));
+    }
+    return data;
+  }
+
+  private static ScanParameters scanParams(int maxEntries) {
+    return new ScanParameters(maxEntries, Authorizations.EMPTY, Collections.emptySet(),
+        Collections.emptyList(), Collections.emptyMap(), false, null, 0, null);
+  }
+
+  @Test
+  public void testLimitBeforeYieldInBatch() throws IOException {
+    TreeMap<Key,Value> data = createData(20);
+    // yields after reading 5 entries, all in the first batch
+    YieldingBatchIterator iter = new YieldingBatchIterator(data, 5);
+    AtomicInteger yields = new AtomicInteger();
+
+    // a byte limit of 1 is reached on the first entry, the other entries read are dropped
+    Batch batch = Tablet.nextBatch(iter, new Range(), scanParams(1000), 1,
+        yields::incrementAndGet);
+
+    assertEquals(1, batch.getResults().size());
+    assertEquals(data.firstKey(), batch.getContinueKey());
+    assertTrue(batch.isSkipContinueKey());
+    assertEquals(0, yields.get());
+  }
+
+  @Test
+  public void testYieldWithoutLimit() throws IOException {
+    TreeMap<Key,Value> data = createData(20);
+    YieldingBatchIterator iter = new YieldingBatchIterator(data, 5);
+    AtomicInteger yields = new AtomicInteger();
+
+    Batch batch = Tablet.nextBatch(iter, new Range(), scanParams(1000), Long.MAX_VALUE,
+        yields::incrementAndGet);
+
+    assertEquals(5, batch.getResults().size());
+    Key sixth = data.keySet().stream().skip(5).findFirst().get();
+    assertEquals(sixth, batch.getContinueKey());
+    assertTrue(batch.isSkipContinueKey());
+    assertEquals(1, yields.get());
+  }
+
+  @Test
+  public void testBatchCappedAtMaxEntries() throws IOException {
+    TreeMap<Key,Value> data = createData(200);
+    YieldingBatchIterator iter = new YieldingBatchIterator(data, Integer.MAX_VALUE);
+
+    // more than one full batch
+    Batch batch = Tablet.nextBatch(iter, new Range(), scanParams(70), Long.MAX_VALUE, () -> {});
+
+    assertEquals(70, batch.getResults().size());
+    // the last batch only read the entries still allowed
+    assertEquals(70, iter.read.get());
+    assertEquals(batch.getResults().get(69).getKey(), batch.getContinueKey());
+  }
 }
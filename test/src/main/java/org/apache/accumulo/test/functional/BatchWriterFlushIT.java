@@ -31,6 +31,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Properties;
 import java.util.Random;
 import java.util.Set;
 import java.util.TreeSet;
@@ -42,6 +43,7 @@ import org.apache.accumulo.core.client.BatchWriter;
 import org.apache.accumulo.core.client.BatchWriterConfig;
 import org.apache.accumulo.core.client.MutationsRejectedException;
 import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.conf.ClientProperty;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Mutation;
 import org.apache.accumulo.core.data.Range;
@@ -181,7 +183,19 @@ public class BatchWriterFlushIT extends AccumuloClusterHarness {
 
   @Test
   public void runMultiThreadedBinningTest() throws Exception {
-    try (AccumuloClient c = Accumulo.newClient().from(getClientProps()).build()) {
+    runMultiThreadedTest(getClientProps());
+  }
+
+  @Test
+  public void runShardedMultiThreadedTest() throws Exception {
+    Properties props = new Properties();
+    props.putAll(getClientProps());
+    props.setProperty(ClientProperty.BATCH_WRITER_SHARDS.getKey(), "" + (NUM_THREADS + 1));
+    runMultiThreadedTest(props);
+  }
+
+  private void runMultiThreadedTest(Properties props) throws Exception {
+    try (AccumuloClient c = Accumulo.newClient().from(props).build()) {
       String[] tableNames = getUniqueNames(1);
       String tableName = tableNames[0];
       c.tableOperations().create(tableName);
@@ -18,6 +18,7 @@
  */
 package org.apache.accumulo.test.functional;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -29,9 +30,12 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.accumulo.core.client.Accumulo;
 import org.apache.accumulo.core.client.AccumuloClient;
+import org.apache.accumulo.core.client.BatchWriter;
 import org.apache.accumulo.core.client.Scanner;
 import org.apache.accumulo.core.client.admin.InstanceOperations;
 import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.TableId;
 import org.apache.accumulo.core.metadata.MetadataTable;
 import org.apache.accumulo.core.metadata.schema.MetadataSchema;
 import org.apache.accumulo.core.security.Authorizations;
@@ -170,6 +174,49 @@ public class CompactionIT extends AccumuloClusterHarness {
     }
   }
 
+  @Test
+  public void testPartitionedCompaction() throws Exception {
+    try (AccumuloClient c = Accumulo.newClient().from(getClientProps()).build()) {
+      final String tableName = getUniqueNames(1)[0];
+      c.tableOperations().create(tableName);
+      c.tableOperations().setProperty(tableName, Property.TABLE_MAJC_PARTITIONS.getKey(), "4");
+      // small index blocks so the indexes have enough rows to partition on
+      c.tableOperations().setProperty(tableName,
+          Property.TABLE_FILE_COMPRESSED_BLOCK_SIZE.getKey(), "1K");
+
+      final int rows = 10000;
+      for (int flush = 0; flush < 3; flush++) {
+        try (BatchWriter bw = c.createBatchWriter(tableName)) {
+          for (int i = flush; i < rows; i += 3) {
+            Mutation m = new Mutation(String.format("row_%06d", i));
+            m.put("cf", "cq", "value" + i);
+            bw.addMutation(m);
+          }
+        }
+        c.tableOperations().flush(tableName, null, null, true);
+      }
+
+      c.tableOperations().compact(tableName, null, null, true, true);
+
+      TableId tableId = TableId.of(c.tableOperations().tableIdMap().get(tableName));
+      int files = countFiles(c, tableId);
+      assertTrue("Expected more than one file, saw " + files, files > 1);
+      assertTrue("Expected at most 4 files, saw " + files, files <= 4);
+
+      try (Scanner scanner = c.createScanner(tableName, Authorizations.EMPTY)) {
+        assertEquals(rows, Iterators.size(scanner.iterator()));
+      }
+    }
+  }
+
+  private int countFiles(AccumuloClient c, TableId tableId) throws Exception {
+    try (Scanner s = c.createScanner(MetadataTable.NAME, Authorizations.EMPTY)) {
+      s.setRange(MetadataSchema.TabletsSection.getRange(tableId));
+      s.fetchColumnFamily(new Text(MetadataSchema.TabletsSection.DataFileColumnFamily.NAME));
+      return Iterators.size(s.iterator());
+    }
+  }
+
   private int countFiles(AccumuloClient c) throws Exception {
     try (Scanner s = c.createScanner(MetadataTable.NAME, Authorizations.EMPTY)) {
       s.fetchColumnFamily(new Text(MetadataSchema.TabletsSection.TabletColumnFamily.NAME));
@@ -30,6 +30,7 @@ import java.io.File;
 import java.io.IOException;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
@@ -630,4 +631,52 @@ public class NativeMapIT {
     nm.delete();
   }
 
+  @Test
+  public void testLargeEntries() {
+    NativeMap nm = new NativeMap();
+
+    // mix entries that are larger than the buffer iterators read batches into with small ones
+    TreeMap<Key,Value> expected = new TreeMap<>();
+    for (int i = 0; i < 100; i++) {
+      byte[] val = new byte[i % 10 == 0 ? 10_000 + i : i];
+      Arrays.fill(val, (byte) i);
+      expected.put(newKey(i / 3, i % 3, 0, 0, 1, false), new Value(val));
+    }
+    expected.forEach(nm::put);
+
+    Iterator<Entry<Key,Value>> iter = nm.iterator();
+    for (Entry<Key,Value> entry : expected.entrySet()) {
+      assertTrue(iter.hasNext());
+      Entry<Key,Value> actual = iter.next();
+      assertEquals(entry.getKey(), actual.getKey());
+      assertEquals(entry.getValue(), actual.getValue());
+    }
+    assertFalse(iter.hasNext());
+
+    nm.delete();
+  }
+
+  @Test
+  public void testAllocatorStats() {
+    NativeMap.AllocatorStats before = NativeMap.getAllocatorStats();
+
+    NativeMap nm = new NativeMap();
+    for (int i = 0; i < 10_000; i++) {
+      nm.put(newKey(i), newValue(i));
+    }
+    nm.put(newKey(10_000), new Value(new byte[1 << 16]));
+
+    NativeMap.AllocatorStats stats = NativeMap.getAllocatorStats();
+    assertTrue(stats.getBlocks() > before.getBlocks());
+    assertEquals(before.getBigBlocks() + 1, stats.getBigBlocks());
+    assertTrue(stats.getBytesAllocated() - before.getBytesAllocated() >= (1 << 16));
+    assertTrue(stats.getBytesReserved() >= stats.getBytesAllocated() + stats.getBytesWasted());
+    assertTrue(stats.getFragmentation() >= 0 && stats.getFragmentation() < 1);
+
+    nm.delete();
+
+    stats = NativeMap.getAllocatorStats();
+    assertEquals(before.getBlocks(), stats.getBlocks());
+    assertEquals(before.getBytesReserved(), stats.getBytesReserved());
+  }
 }
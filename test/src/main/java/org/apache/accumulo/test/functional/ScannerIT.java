@@ -18,14 +18,21 @@
  */
 package org.apache.accumulo.test.functional;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.accumulo.core.client.Accumulo;
 import org.apache.accumulo.core.client.AccumuloClient;
+import org.apache.accumulo.core.client.AsyncScanner;
 import org.apache.accumulo.core.client.BatchWriter;
 import org.apache.accumulo.core.client.IteratorSetting;
 import org.apache.accumulo.core.client.Scanner;
@@ -124,4 +131,78 @@ public class ScannerIT extends AccumuloClusterHarness {
     }
   }
 
+  @Test
+  public void testAsyncScanner() throws Exception {
+    final String table = getUniqueNames(1)[0];
+    try (AccumuloClient c = Accumulo.newClient().from(getClientProps()).build()) {
+      c.tableOperations().create(table);
+
+      List<Key> expected = new ArrayList<>();
+      try (BatchWriter bw = c.createBatchWriter(table)) {
+        for (int i = 0; i < 1000; i++) {
+          Mutation m = new Mutation(String.format("%04d", i));
+          m.put("cf", "cq", Integer.toString(i));
+          bw.addMutation(m);
+        }
+      }
+
+      try (Scanner s = c.createScanner(table, new Authorizations())) {
+        s.forEach(e -> expected.add(e.getKey()));
+      }
+
+      try (AsyncScanner s = c.createAsyncScanner(table, new Authorizations())) {
+        s.setBatchSize(7);
+
+        List<Key> actual = new ArrayList<>();
+        s.forEachAsync(e -> actual.add(e.getKey())).get();
+        assertEquals(expected, actual);
+
+        // request a few entries at a time
+        List<Key> requested = new ArrayList<>();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        s.subscribe(new Flow.Subscriber<Entry<Key,Value>>() {
+          Flow.Subscription subscription;
+          int outstanding = 0;
+
+          @Override
+          public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            outstanding = 10;
+            subscription.request(10);
+          }
+
+          @Override
+          public void onNext(Entry<Key,Value> item) {
+            requested.add(item.getKey());
+            if (--outstanding == 0) {
+              outstanding = 10;
+              subscription.request(10);
+            }
+          }
+
+          @Override
+          public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+          }
+
+          @Override
+          public void onComplete() {
+            done.complete(null);
+          }
+        });
+        done.get();
+        assertEquals(expected, requested);
+
+        // cancel part way through the scan
+        AtomicInteger seen = new AtomicInteger();
+        CompletableFuture<Void> cancelled = s.forEachAsync(e -> {
+          if (seen.incrementAndGet() == 100) {
+            throw new IllegalStateException("stop");
+          }
+        });
+        assertTrue(cancelled.handle((v, t) -> t instanceof IllegalStateException).get());
+        assertEquals(100, seen.get());
+      }
+    }
+  }
 }
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.accumulo.test.functional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.accumulo.core.client.Accumulo;
+import org.apache.accumulo.core.client.AccumuloClient;
+import org.apache.accumulo.core.clientImpl.ClientContext;
+import org.apache.accumulo.fate.ReadOnlyTStore.TStatus;
+import org.apache.accumulo.fate.Repo;
+import org.apache.accumulo.harness.SharedMiniClusterBase;
+import org.apache.accumulo.server.fate.TableStore;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TableStoreIT extends SharedMiniClusterBase {
+
+  private static class TestRepo implements Repo<String> {
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+
+    TestRepo(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public long isReady(long tid, String environment) {
+      return 0;
+    }
+
+    @Override
+    public String getDescription() {
+      return name;
+    }
+
+    @Override
+    public Repo<String> call(long tid, String environment) {
+      return null;
+    }
+
+    @Override
+    public void undo(long tid, String environment) {}
+
+    @Override
+    public String getReturn() {
+      return null;
+    }
+  }
+
+  private AccumuloClient client;
+  private String tableName;
+  // the stores whose reservations are still held
+  private final Set<String> live = ConcurrentHashMap.newKeySet();
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private final List<TableStore<String>> stores = new ArrayList<>();
+
+  @Override
+  public int defaultTimeoutSeconds() {
+    return 120;
+  }
+
+  @BeforeClass
+  public static void setup() throws Exception {
+    SharedMiniClusterBase.startMiniCluster();
+  }
+
+  @AfterClass
+  public static void teardown() {
+    SharedMiniClusterBase.stopMiniCluster();
+  }
+
+  @Before
+  public void createTable() throws Exception {
+    client = Accumulo.newClient().from(getClientProps()).build();
+    tableName = getUniqueNames(1)[0];
+    client.tableOperations().create(tableName);
+  }
+
+  @After
+  public void closeClient() {
+    executor.shutdownNow();
+    stores.forEach(TableStore::close);
+    client.close();
+  }
+
+  private TableStore<String> newStore(String reservationId) throws Exception {
+    live.add(reservationId);
+    TableStore<String> store =
+        new TableStore<>((ClientContext) client, tableName, reservationId, live::contains);
+    stores.add(store);
+    return store;
+  }
+
+  @Test
+  public void testOperations() throws Exception {
+    TableStore<String> store = newStore("store1");
+
+    long tid = store.create();
+    store.reserve(tid);
+    assertEquals(TStatus.NEW, store.getStatus(tid));
+    assertNull(store.top(tid));
+
+    store.push(tid, new TestRepo("first"));
+    store.push(tid, new TestRepo("second"));
+    assertEquals("second", store.top(tid).getDescription());
+    assertEquals(2, store.getStack(tid).size());
+    store.pop(tid);
+    assertEquals("first", store.top(tid).getDescription());
+
+    store.setProperty(tid, "string", "value");
+    store.setProperty(tid, "object", 42L);
+    assertEquals("value", store.getProperty(tid, "string"));
+    assertEquals(42L, store.getProperty(tid, "object"));
+    assertNull(store.getProperty(tid, "missing"));
+
+    store.setStatus(tid, TStatus.IN_PROGRESS);
+    assertEquals(TStatus.IN_PROGRESS, store.getStatus(tid));
+    assertEquals(List.of(tid), store.list());
+    store.unreserve(tid, 0);
+
+    assertEquals(tid, store.reserve());
+    store.delete(tid);
+    assertEquals(TStatus.UNKNOWN, store.getStatus(tid));
+    store.unreserve(tid, 0);
+    assertTrue(store.list().isEmpty());
+  }
+
+  @Test
+  public void testClosed() throws Exception {
+    TableStore<String> store = newStore("store1");
+    long tid = store.create();
+    store.reserve(tid);
+    store.close();
+
+    try {
+      store.setStatus(tid, TStatus.IN_PROGRESS);
+      fail("a closed store should not accept updates");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testDeferral() throws Exception {
+    TableStore<String> store = newStore("store1");
+
+    long tid = store.create();
+    store.reserve(tid);
+    store.setStatus(tid, TStatus.IN_PROGRESS);
+
+    long start = System.currentTimeMillis();
+    store.unreserve(tid, 2000);
+    assertEquals(tid, store.reserve());
+    assertTrue(System.currentTimeMillis() - start >= 2000);
+    store.unreserve(tid, 0);
+  }
+
+  @Test
+  public void testTakeover() throws Exception {
+    TableStore<String> store1 = newStore("store1");
+    TableStore<String> store2 = newStore("store2");
+    TableStore<String> store3 = newStore("store3");
+
+    long tid = store1.create();
+    store1.reserve(tid);
+    store1.push(tid, new TestRepo("op"));
+    store1.setStatus(tid, TStatus.IN_PROGRESS);
+
+    // the transaction is not run by a second store while the first is alive
+    Future<Long> reserved = executor.submit(() -> store2.reserve());
+    try {
+      reserved.get(3, TimeUnit.SECONDS);
+      fail("reserved a transaction held by a live store");
+    } catch (TimeoutException e) {
+      // expected
+    }
+
+    // once the first store is gone its reservation is taken over
+    live.remove("store1");
+    assertEquals(tid, (long) reserved.get(60, TimeUnit.SECONDS));
+    assertEquals("op", store2.top(tid).getDescription());
+
+    // a reservation of a specific transaction waits for a live holder too
+    Future<?> waiting = executor.submit(() -> store3.reserve(tid));
+    try {
+      waiting.get(3, TimeUnit.SECONDS);
+      fail("reserved a transaction held by a live store");
+    } catch (TimeoutException e) {
+      // expected
+    }
+    assertFalse(waiting.isDone());
+
+    live.remove("store2");
+    waiting.get(60, TimeUnit.SECONDS);
+    assertEquals(TStatus.IN_PROGRESS, store3.getStatus(tid));
+    store3.unreserve(tid, 0);
+  }
+}